@@ -0,0 +1,83 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Per field cost of encrypting and decrypting with each cipher suite of the JDK providers through
+ * {@link CipherSuiteEncrypterDecrypterFactory}, to choose the faster suite for the processors of a deployment. Run with
+ * {@code -XX:-UseAES -XX:-UseAESIntrinsics} to see how the suites compare on processors without AES instructions. Decryption cycles through
+ * values with distinct nonces, as the JDK's ChaCha20 ciphers cannot be re-initialised with the key and nonce they last used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CipherSuiteBenchmark {
+
+    private static final int CIPHERTEXT_COUNT = 1024;
+
+    @Param({ "aes-gcm", "chacha20-poly1305" })
+    private String cipherSuite;
+
+    @Param({ "16", "1024", "65536" })
+    private int fieldLength;
+
+    private EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private SecretKey secretKey;
+    private byte[] cleartext;
+    private byte[][] ciphertexts;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        var cipherSuiteRegistry = new CipherSuiteRegistry();
+        encrypterDecrypterFactory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry,
+            cipherSuiteRegistry.findByName(cipherSuite).orElseThrow(), new ThreadLocalDrbgNonceGenerator());
+        secretKey = new DefaultAesKeyGenerator().generateKey();
+        cleartext = "x".repeat(fieldLength).getBytes(UTF_8);
+        ciphertexts = new byte[CIPHERTEXT_COUNT][];
+        for (int i = 0; i < CIPHERTEXT_COUNT; i++) {
+            ciphertexts[i] = encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, cleartext, 0, cleartext.length);
+        }
+    }
+
+    @Benchmark
+    public byte[] encryptField() {
+        return encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, cleartext, 0, cleartext.length);
+    }
+
+    @Benchmark
+    public byte[] decryptField(CiphertextCursor ciphertextCursor) {
+        var ciphertext = ciphertexts[ciphertextCursor.next()];
+        return encrypterDecrypterFactory.createDecrypter().decrypt(secretKey, ciphertext, 0, ciphertext.length);
+    }
+
+    @State(Scope.Thread)
+    public static class CiphertextCursor {
+        private int position;
+
+        int next() {
+            position = (position + 1) % CIPHERTEXT_COUNT;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Per field cost of encrypting and decrypting through {@link DefaultAesEncrypterDecrypterFactory}, creating a new encrypter or decrypter
+ * per operation as the serializer does for each event. A cipher pool capacity of zero reproduces the previous behaviour of looking up a new
+ * cipher for every field. The {@code String} and {@code byte[]} variants show the cost of the UTF-8 conversions avoided by the byte
+ * oriented API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FieldEncryptionBenchmark {
+
+    @Param({ "0", "64" })
+    private int cipherPoolCapacity;
+
+    @Param({ "16", "1024" })
+    private int fieldLength;
+
+    private EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private SecretKey secretKey;
+    private String cleartext;
+    private byte[] cleartextBytes;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        encrypterDecrypterFactory = new DefaultAesEncrypterDecrypterFactory(cipherPoolCapacity);
+        secretKey = new DefaultAesKeyGenerator().generateKey();
+        cleartext = "x".repeat(fieldLength);
+        cleartextBytes = cleartext.getBytes(UTF_8);
+        ciphertext = encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, cleartext);
+    }
+
+    @Benchmark
+    public byte[] encryptField() {
+        return encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, cleartext);
+    }
+
+    @Benchmark
+    public String decryptField() {
+        return encrypterDecrypterFactory.createDecrypter().decrypt(secretKey, ciphertext);
+    }
+
+    @Benchmark
+    public byte[] encryptFieldBytes() {
+        return encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, cleartextBytes, 0, cleartextBytes.length);
+    }
+
+    @Benchmark
+    public byte[] decryptFieldBytes() {
+        return encrypterDecrypterFactory.createDecrypter().decrypt(secretKey, ciphertext, 0, ciphertext.length);
+    }
+}
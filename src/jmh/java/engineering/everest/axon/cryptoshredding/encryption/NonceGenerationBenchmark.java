@@ -0,0 +1,67 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of nonce generation, alone and as part of encrypting a small field, for each {@link NonceGenerator} with many threads
+ * encrypting at once. The shared {@code SECURE_RANDOM} generator reproduces the previous behaviour of the
+ * {@link DefaultAesEncrypterDecrypterFactory}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class NonceGenerationBenchmark {
+
+    @Param({ "SECURE_RANDOM", "THREAD_LOCAL_DRBG", "COUNTER" })
+    private String nonceGeneratorType;
+
+    private NonceGenerator nonceGenerator;
+    private EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private SecretKey secretKey;
+    private String cleartext;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        nonceGenerator = switch (nonceGeneratorType) {
+            case "SECURE_RANDOM" -> new SecureRandomNonceGenerator(new SecureRandom());
+            case "THREAD_LOCAL_DRBG" -> new ThreadLocalDrbgNonceGenerator();
+            case "COUNTER" -> new CounterNonceGenerator();
+            default -> throw new IllegalArgumentException(nonceGeneratorType);
+        };
+        encrypterDecrypterFactory = new DefaultAesEncrypterDecrypterFactory(64, nonceGenerator);
+        secretKey = new DefaultAesKeyGenerator().generateKey();
+        cleartext = "x".repeat(16);
+    }
+
+    @Benchmark
+    public byte[] generateNonce() {
+        var nonce = new byte[12];
+        nonceGenerator.nextNonce(nonce);
+        return nonce;
+    }
+
+    @Benchmark
+    public byte[] encryptField() {
+        return encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, cleartext);
+    }
+}
@@ -0,0 +1,37 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+
+import javax.crypto.SecretKey;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Secret key repository backed by a map, keeping database access out of benchmarks that measure serialization.
+ */
+public class InMemorySecretKeyRepository implements SecretKeyRepository {
+
+    private final ConcurrentMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey> secretKeys = new ConcurrentHashMap<>();
+
+    @Override
+    public PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        return save(new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm()));
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> createIfAbsent(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        return Optional.ofNullable(secretKeys.putIfAbsent(keyId, new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm())));
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+        return Optional.ofNullable(secretKeys.get(keyId));
+    }
+
+    @Override
+    public PersistableSecretKey save(PersistableSecretKey key) {
+        secretKeys.put(key.getId(), key);
+        return key;
+    }
+}
@@ -0,0 +1,115 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesKeyGenerator;
+import engineering.everest.axon.cryptoshredding.persistence.InMemorySecretKeyRepository;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event store bytes written and read throughput for each {@link CipherTextEncoding}, with JSON and CBOR wrapped serializers. The
+ * {@code bytesWritten} counter of the serialize benchmark is reported as a rate; dividing it by the benchmark's score gives the size of
+ * each serialized event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CipherTextEncodingBenchmark {
+
+    @Param({ "JSON", "CBOR" })
+    private String format;
+
+    @Param({ "BASE64", "NATIVE_BINARY" })
+    private CipherTextEncoding cipherTextEncoding;
+
+    @Param({ "16", "1024" })
+    private int fieldLength;
+
+    private CryptoShreddingSerializer cryptoShreddingSerializer;
+    private BenchmarkEvent event;
+    private SerializedObject<byte[]> serializedEvent;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        var objectMapper = "CBOR".equals(format)
+            ? new CBORMapper()
+            : new ObjectMapper();
+        var cryptoShreddingKeyService = new CryptoShreddingKeyService(new InMemorySecretKeyRepository(), new DefaultAesKeyGenerator());
+        cryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.builder().objectMapper(objectMapper).build())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory())
+            .cipherTextEncoding(cipherTextEncoding)
+            .build();
+        event = new BenchmarkEvent("key-identifier", "x".repeat(fieldLength));
+        serializedEvent = cryptoShreddingSerializer.serialize(event, byte[].class);
+    }
+
+    @Benchmark
+    public byte[] serialize(BytesWritten bytesWritten) {
+        var serializedData = cryptoShreddingSerializer.serialize(event, byte[].class).getData();
+        bytesWritten.bytesWritten += serializedData.length;
+        return serializedData;
+    }
+
+    @Benchmark
+    public BenchmarkEvent deserialize() {
+        return cryptoShreddingSerializer.deserialize(serializedEvent);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class BytesWritten {
+        public long bytesWritten;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesWritten = 0;
+        }
+    }
+
+    public static class BenchmarkEvent {
+        @EncryptionKeyIdentifier
+        public String keyIdentifier;
+        @EncryptedField
+        public String description;
+        @EncryptedField
+        public UUID reference = UUID.fromString("deadbeef-dead-beef-dead-beef00000042");
+        @EncryptedField
+        public long amount = 9600L;
+        public String cleartext = "not encrypted";
+
+        public BenchmarkEvent() {
+        }
+
+        BenchmarkEvent(String keyIdentifier, String description) {
+            this.keyIdentifier = keyIdentifier;
+            this.description = description;
+        }
+    }
+}
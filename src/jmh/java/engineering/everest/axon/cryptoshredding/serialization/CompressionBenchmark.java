@@ -0,0 +1,145 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import engineering.everest.axon.cryptoshredding.encryption.CompressingEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesKeyGenerator;
+import engineering.everest.axon.cryptoshredding.encryption.DeflateCompressionCodec;
+import engineering.everest.axon.cryptoshredding.persistence.InMemorySecretKeyRepository;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event store bytes written and end to end read throughput of events carrying free text encrypted fields, with and without compression
+ * before encryption. Each benchmark cycles through a corpus of events whose text is drawn from an English vocabulary, so that it compresses
+ * roughly as well as notes and descriptions written by people would. The {@code bytesWritten} counter of the serialize benchmark is
+ * reported as a rate; dividing it by the benchmark's score gives the size of each serialized event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    private static final int CORPUS_SIZE = 64;
+    private static final String[] VOCABULARY = ("the customer reported that an order placed on monday was delivered to the "
+        + "wrong address and asked for a refund of the shipping fee while the support agent confirmed the account details and "
+        + "arranged for a courier to collect parcel from neighbour before updating invoice with new delivery date notes say "
+        + "follow up next week if payment has not been received by finance team who will contact bank about missing transfer "
+        + "reference number").split(" ");
+
+    @Param({ "256", "4096", "65536" })
+    private int textLength;
+
+    @Param({ "false", "true" })
+    private boolean compression;
+
+    private CryptoShreddingSerializer cryptoShreddingSerializer;
+    private List<BenchmarkEvent> events;
+    private List<SerializedObject<byte[]>> serializedEvents;
+    private int nextEvent;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        var cryptoShreddingKeyService = new CryptoShreddingKeyService(new InMemorySecretKeyRepository(), new DefaultAesKeyGenerator());
+        var thresholdBytes = compression
+            ? 1024
+            : Integer.MAX_VALUE;
+        var encrypterDecrypterFactory = new CompressingEncrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory(),
+            new DeflateCompressionCodec(), thresholdBytes);
+        cryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterDecrypterFactory)
+            .build();
+        var random = new Random(42);
+        events = new ArrayList<>();
+        serializedEvents = new ArrayList<>();
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            var event = new BenchmarkEvent("key-identifier-" + i, text(random, textLength), text(random, textLength / 4));
+            events.add(event);
+            serializedEvents.add(cryptoShreddingSerializer.serialize(event, byte[].class));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize(BytesWritten bytesWritten) {
+        var serializedData = cryptoShreddingSerializer.serialize(events.get(nextEventIndex()), byte[].class).getData();
+        bytesWritten.bytesWritten += serializedData.length;
+        return serializedData;
+    }
+
+    @Benchmark
+    public BenchmarkEvent deserialize() {
+        return cryptoShreddingSerializer.deserialize(serializedEvents.get(nextEventIndex()));
+    }
+
+    private int nextEventIndex() {
+        nextEvent = (nextEvent + 1) % CORPUS_SIZE;
+        return nextEvent;
+    }
+
+    private static String text(Random random, int length) {
+        var text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            text.append(random.nextInt(12) == 0
+                ? ". "
+                : " ");
+        }
+        return text.substring(0, length);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class BytesWritten {
+        public long bytesWritten;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesWritten = 0;
+        }
+    }
+
+    public static class BenchmarkEvent {
+        @EncryptionKeyIdentifier
+        public String keyIdentifier;
+        @EncryptedField
+        public String description;
+        @EncryptedField
+        public String notes;
+        public String status = "OPEN";
+
+        public BenchmarkEvent() {
+        }
+
+        BenchmarkEvent(String keyIdentifier, String description, String notes) {
+            this.keyIdentifier = keyIdentifier;
+            this.description = description;
+            this.notes = notes;
+        }
+    }
+}
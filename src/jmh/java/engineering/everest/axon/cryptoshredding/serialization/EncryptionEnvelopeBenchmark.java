@@ -0,0 +1,127 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionEnvelope;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesKeyGenerator;
+import engineering.everest.axon.cryptoshredding.persistence.InMemorySecretKeyRepository;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization and deserialization throughput of an event with several encrypted fields sharing a tag, with each field encrypted
+ * separately and with the fields encrypted together as an {@code @EncryptionEnvelope}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncryptionEnvelopeBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean envelope;
+
+    private CryptoShreddingSerializer cryptoShreddingSerializer;
+    private Object event;
+    private SerializedObject<byte[]> serializedEvent;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        var cryptoShreddingKeyService = new CryptoShreddingKeyService(new InMemorySecretKeyRepository(), new DefaultAesKeyGenerator());
+        cryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory())
+            .build();
+        event = envelope
+            ? new EnvelopeBenchmarkEvent("key-identifier")
+            : new BenchmarkEvent("key-identifier");
+        serializedEvent = cryptoShreddingSerializer.serialize(event, byte[].class);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return cryptoShreddingSerializer.serialize(event, byte[].class).getData();
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return cryptoShreddingSerializer.deserialize(serializedEvent);
+    }
+
+    public static class BenchmarkEvent {
+        @EncryptionKeyIdentifier
+        public String keyIdentifier;
+        @EncryptedField
+        public String givenName = "Alice";
+        @EncryptedField
+        public String familyName = "Example";
+        @EncryptedField
+        public String emailAddress = "alice@example.com";
+        @EncryptedField
+        public String phoneNumber = "+61 400 000 000";
+        @EncryptedField
+        public String streetAddress = "1 Example Street";
+        @EncryptedField
+        public UUID reference = UUID.fromString("deadbeef-dead-beef-dead-beef00000042");
+        @EncryptedField
+        public long amount = 9600L;
+        @EncryptedField
+        public boolean verified = true;
+
+        public BenchmarkEvent() {
+        }
+
+        BenchmarkEvent(String keyIdentifier) {
+            this.keyIdentifier = keyIdentifier;
+        }
+    }
+
+    @EncryptionEnvelope
+    public static class EnvelopeBenchmarkEvent {
+        @EncryptionKeyIdentifier
+        public String keyIdentifier;
+        @EncryptedField
+        public String givenName = "Alice";
+        @EncryptedField
+        public String familyName = "Example";
+        @EncryptedField
+        public String emailAddress = "alice@example.com";
+        @EncryptedField
+        public String phoneNumber = "+61 400 000 000";
+        @EncryptedField
+        public String streetAddress = "1 Example Street";
+        @EncryptedField
+        public UUID reference = UUID.fromString("deadbeef-dead-beef-dead-beef00000042");
+        @EncryptedField
+        public long amount = 9600L;
+        @EncryptedField
+        public boolean verified = true;
+
+        public EnvelopeBenchmarkEvent() {
+        }
+
+        EnvelopeBenchmarkEvent(String keyIdentifier) {
+            this.keyIdentifier = keyIdentifier;
+        }
+    }
+}
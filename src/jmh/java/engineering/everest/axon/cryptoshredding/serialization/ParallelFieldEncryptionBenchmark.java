@@ -0,0 +1,97 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesKeyGenerator;
+import engineering.everest.axon.cryptoshredding.persistence.InMemorySecretKeyRepository;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization and deserialization time of an event with four large encrypted fields, with the fields encrypted and decrypted one after
+ * another on the calling thread and in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelFieldEncryptionBenchmark {
+
+    @Param({ "1024", "65536", "1048576" })
+    private int fieldSize;
+
+    @Param({ "false", "true" })
+    private boolean parallel;
+
+    private CryptoShreddingSerializer cryptoShreddingSerializer;
+    private Object event;
+    private SerializedObject<byte[]> serializedEvent;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        var cryptoShreddingKeyService = new CryptoShreddingKeyService(new InMemorySecretKeyRepository(), new DefaultAesKeyGenerator());
+        var parallelFieldEncryption = parallel
+            ? new ParallelFieldEncryption(0, Runtime.getRuntime().availableProcessors())
+            : ParallelFieldEncryption.disabled();
+        cryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory())
+            .parallelFieldEncryption(parallelFieldEncryption)
+            .build();
+        event = new LargeFieldsBenchmarkEvent("key-identifier", "x".repeat(fieldSize));
+        serializedEvent = cryptoShreddingSerializer.serialize(event, byte[].class);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return cryptoShreddingSerializer.serialize(event, byte[].class).getData();
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return cryptoShreddingSerializer.deserialize(serializedEvent);
+    }
+
+    public static class LargeFieldsBenchmarkEvent {
+        @EncryptionKeyIdentifier
+        public String keyIdentifier;
+        @EncryptedField
+        public String document;
+        @EncryptedField
+        public String attachment;
+        @EncryptedField
+        public String notes;
+        @EncryptedField
+        public String history;
+
+        public LargeFieldsBenchmarkEvent() {
+        }
+
+        LargeFieldsBenchmarkEvent(String keyIdentifier, String content) {
+            this.keyIdentifier = keyIdentifier;
+            this.document = content;
+            this.attachment = content;
+            this.notes = content;
+            this.history = content;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesKeyGenerator;
+import engineering.everest.axon.cryptoshredding.persistence.InMemorySecretKeyRepository;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionEnvelopeBenchmark.BenchmarkEvent;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization throughput of an event whose secret key has been shredded, compared with that of the same event when its key exists and
+ * with plain deserialization of its fields by the wrapped serializer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShreddedPayloadBenchmark {
+
+    private static final TypeDifferentiatedSecretKeyId SHREDDED_KEY_IDENTIFIER = new TypeDifferentiatedSecretKeyId("shredded", "");
+
+    private CryptoShreddingSerializer cryptoShreddingSerializer;
+    private JacksonSerializer jacksonSerializer;
+    private SerializedObject<byte[]> serializedEvent;
+    private SerializedObject<byte[]> shreddedEvent;
+    private SerializedObject<byte[]> unencryptedEvent;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        var cryptoShreddingKeyService = new CryptoShreddingKeyService(new InMemorySecretKeyRepository(), new DefaultAesKeyGenerator());
+        jacksonSerializer = JacksonSerializer.defaultSerializer();
+        cryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(jacksonSerializer)
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory())
+            .build();
+        serializedEvent = cryptoShreddingSerializer.serialize(new BenchmarkEvent("key-identifier"), byte[].class);
+        shreddedEvent = cryptoShreddingSerializer.serialize(new BenchmarkEvent(SHREDDED_KEY_IDENTIFIER.getKeyId()), byte[].class);
+        cryptoShreddingKeyService.shredSecretKey(SHREDDED_KEY_IDENTIFIER);
+        unencryptedEvent = jacksonSerializer.serialize(new BenchmarkEvent("key-identifier"), byte[].class);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return cryptoShreddingSerializer.deserialize(serializedEvent);
+    }
+
+    @Benchmark
+    public Object deserializeShredded() {
+        return cryptoShreddingSerializer.deserialize(shreddedEvent);
+    }
+
+    @Benchmark
+    public Object deserializeUnencrypted() {
+        return jacksonSerializer.deserialize(unencryptedEvent);
+    }
+}
@@ -1,21 +1,51 @@
 package engineering.everest.axon.cryptoshredding;
 
+import engineering.everest.axon.cryptoshredding.cache.NoOpSecretKeyCache;
+import engineering.everest.axon.cryptoshredding.cache.NoOpShreddedKeyIndex;
+import engineering.everest.axon.cryptoshredding.cache.SecretKeyCache;
+import engineering.everest.axon.cryptoshredding.cache.ShreddedKeyIndex;
 import engineering.everest.axon.cryptoshredding.encryption.KeyGenerator;
 import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionKeyRecordException;
 import engineering.everest.axon.cryptoshredding.persistence.PersistableSecretKey;
 import engineering.everest.axon.cryptoshredding.persistence.SecretKeyRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
+import static org.axonframework.messaging.unitofwork.UnitOfWork.Phase.PREPARE_COMMIT;
 import static org.springframework.transaction.annotation.Propagation.NOT_SUPPORTED;
 
 /**
  * Service level cryptographic key management.
+ * <p>
+ * Keys are looked up in the {@link SecretKeyCache} first and then, when a {@link ShreddedKeyIndex} is configured, checked against the index
+ * of shredded keys before falling back to the {@link SecretKeyRepository}.
+ * <p>
+ * Concurrent requests for a key that is not cached are coalesced, so that only one thread per key looks it up and, if needed, generates and
+ * persists it while the others wait for its result. Application instances racing to create the same key converge on whichever key was
+ * persisted first through {@link SecretKeyRepository#createIfAbsent}.
+ * <p>
+ * Optionally, keys generated while an Axon unit of work is active are not persisted straight away. They are instead persisted together,
+ * through {@link SecretKeyRepository#createAllIfAbsent}, when the unit of work prepares to commit and so as part of its transaction. Keys
+ * of a unit of work that rolls back are discarded. Units of work of this application instance needing the same new key share it, and a key
+ * that another application instance has persisted first is used in place of the generated one.
  */
 @Component
 @Slf4j
@@ -23,10 +53,44 @@ public class CryptoShreddingKeyService {
 
     private final SecretKeyRepository secretKeyRepository;
     private final KeyGenerator secretKeyGenerator;
+    private final SecretKeyCache secretKeyCache;
+    private final ShreddedKeyIndex shreddedKeyIndex;
+    private final boolean deferKeyCreationToUnitOfWork;
+    private final String pendingSecretKeysResourceKey;
+    private final ConcurrentMap<TypeDifferentiatedSecretKeyId, CompletableFuture<Optional<SecretKey>>> inFlightKeyRetrievals;
+    private final ConcurrentMap<TypeDifferentiatedSecretKeyId, SecretKey> uncommittedSecretKeys;
 
     public CryptoShreddingKeyService(SecretKeyRepository secretKeyRepository, KeyGenerator secretKeyGenerator) {
-        this.secretKeyRepository = secretKeyRepository;
-        this.secretKeyGenerator = secretKeyGenerator;
+        this(builder()
+            .secretKeyRepository(secretKeyRepository)
+            .secretKeyGenerator(secretKeyGenerator));
+    }
+
+    @Autowired
+    public CryptoShreddingKeyService(SecretKeyRepository secretKeyRepository,
+                                     KeyGenerator secretKeyGenerator,
+                                     SecretKeyCache secretKeyCache,
+                                     ShreddedKeyIndex shreddedKeyIndex) {
+        this(builder()
+            .secretKeyRepository(secretKeyRepository)
+            .secretKeyGenerator(secretKeyGenerator)
+            .secretKeyCache(secretKeyCache)
+            .shreddedKeyIndex(shreddedKeyIndex));
+    }
+
+    private CryptoShreddingKeyService(Builder builder) {
+        this.secretKeyRepository = builder.secretKeyRepository;
+        this.secretKeyGenerator = builder.secretKeyGenerator;
+        this.secretKeyCache = builder.secretKeyCache;
+        this.shreddedKeyIndex = builder.shreddedKeyIndex;
+        this.deferKeyCreationToUnitOfWork = builder.deferKeyCreationToUnitOfWork;
+        this.pendingSecretKeysResourceKey = PendingSecretKeys.class.getName() + "@" + System.identityHashCode(this);
+        this.inFlightKeyRetrievals = new ConcurrentHashMap<>();
+        this.uncommittedSecretKeys = new ConcurrentHashMap<>();
+    }
+
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -37,14 +101,23 @@ public class CryptoShreddingKeyService {
      */
     @Transactional(propagation = NOT_SUPPORTED)
     public Optional<SecretKey> getOrCreateSecretKeyUnlessDeleted(TypeDifferentiatedSecretKeyId keyId) {
-        var optionalPersistableSecretKey = secretKeyRepository.findById(keyId);
-        if (optionalPersistableSecretKey.isEmpty()) {
-            LOGGER.trace("Creating crypto shredding key {}", keyId.toString());
-            var secretKey = secretKeyGenerator.generateKey();
-            secretKeyRepository.create(keyId, secretKey);
-            return Optional.of(secretKey);
+        var cachedSecretKey = secretKeyCache.getIfPresent(keyId);
+        if (cachedSecretKey != null) {
+            return cachedSecretKey;
+        }
+        if (shreddedKeyIndex.isShredded(keyId)) {
+            return Optional.empty();
+        }
+        var pendingSecretKeys = pendingSecretKeysOfCurrentUnitOfWork();
+        if (pendingSecretKeys != null) {
+            return retrieveOrDeferCreatingSecretKey(keyId, pendingSecretKeys);
         }
-        return createSecretKeyOrEmptyOptional(optionalPersistableSecretKey.get());
+
+        var secretKey = retrieveOnce(keyId, this::retrieveOrCreateSecretKey);
+        // Null when joining the lookup of a unit of work deferring key creation that found no key
+        return secretKey == null
+            ? retrieveOrCreateSecretKey(keyId)
+            : secretKey;
     }
 
     /**
@@ -54,6 +127,9 @@ public class CryptoShreddingKeyService {
      * @return       true if the key was previously created <b>even if it has been deleted</b>, false if it was never created
      */
     public boolean secretKeyExists(TypeDifferentiatedSecretKeyId keyId) {
+        if (secretKeyCache.getIfPresent(keyId) != null || shreddedKeyIndex.isShredded(keyId)) {
+            return true;
+        }
         return secretKeyRepository.findById(keyId).isPresent();
     }
 
@@ -65,12 +141,61 @@ public class CryptoShreddingKeyService {
      */
     @Transactional(propagation = NOT_SUPPORTED)
     public Optional<SecretKey> getExistingSecretKey(TypeDifferentiatedSecretKeyId keyId) {
+        var cachedSecretKey = secretKeyCache.getIfPresent(keyId);
+        if (cachedSecretKey != null) {
+            return cachedSecretKey;
+        }
+        if (shreddedKeyIndex.isShredded(keyId)) {
+            return Optional.empty();
+        }
+
         var optionalPersistableSecretKey = secretKeyRepository.findById(keyId);
         if (optionalPersistableSecretKey.isEmpty()) {
             throw new MissingEncryptionKeyRecordException(keyId.getKeyId(), keyId.getKeyType());
         }
         LOGGER.trace("Retrieved crypto shredding key {}", keyId.toString());
-        return createSecretKeyOrEmptyOptional(optionalPersistableSecretKey.get());
+        return cacheSecretKeyOrTombstone(keyId, optionalPersistableSecretKey.get());
+    }
+
+    /**
+     * Retrieve several existing secret keys using a single repository query for any keys that are not already cached.
+     *
+     * @param  keyIds that uniquely identify the keys
+     * @return        the resolved keys, split into those that are present, those that have been deleted and those that were never created
+     */
+    @Transactional(propagation = NOT_SUPPORTED)
+    public ResolvedSecretKeys resolveExistingSecretKeys(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        Map<TypeDifferentiatedSecretKeyId, SecretKey> presentSecretKeys = new HashMap<>();
+        Set<TypeDifferentiatedSecretKeyId> shreddedKeyIds = new HashSet<>();
+        Set<TypeDifferentiatedSecretKeyId> unresolvedKeyIds = new LinkedHashSet<>();
+
+        for (TypeDifferentiatedSecretKeyId keyId : keyIds) {
+            var cachedSecretKey = secretKeyCache.getIfPresent(keyId);
+            if (cachedSecretKey == null) {
+                if (shreddedKeyIndex.isShredded(keyId)) {
+                    shreddedKeyIds.add(keyId);
+                } else {
+                    unresolvedKeyIds.add(keyId);
+                }
+            } else if (cachedSecretKey.isPresent()) {
+                presentSecretKeys.put(keyId, cachedSecretKey.get());
+            } else {
+                shreddedKeyIds.add(keyId);
+            }
+        }
+
+        if (!unresolvedKeyIds.isEmpty()) {
+            secretKeyRepository.findAllById(unresolvedKeyIds).forEach(persistableSecretKey -> {
+                var keyId = persistableSecretKey.getId();
+                unresolvedKeyIds.remove(keyId);
+                cacheSecretKeyOrTombstone(keyId, persistableSecretKey).ifPresentOrElse(
+                    secretKey -> presentSecretKeys.put(keyId, secretKey),
+                    () -> shreddedKeyIds.add(keyId));
+            });
+            LOGGER.trace("Bulk retrieved crypto shredding keys, {} missing", unresolvedKeyIds.size());
+        }
+
+        return new ResolvedSecretKeys(presentSecretKeys, shreddedKeyIds, unresolvedKeyIds);
     }
 
     /**
@@ -90,6 +215,144 @@ public class CryptoShreddingKeyService {
             secretKeyRepository.save(secretKey);
             LOGGER.trace("Permanently deleted crypto shredding key {}", keyId.toString());
         }
+        secretKeyCache.putShredded(keyId);
+        shreddedKeyIndex.addShredded(keyId);
+    }
+
+    /**
+     * Shred several secret keys at once, rendering all fields protected by these keys inaccessible.
+     *
+     * @param keyIds that uniquely identify the keys
+     * @throws MissingEncryptionKeyRecordException if any of the keys was never created, after shredding those that were
+     */
+    @Transactional(propagation = NOT_SUPPORTED)
+    public void shredSecretKeys(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        var shreddedKeyIds = secretKeyRepository.shredAll(keyIds);
+        shreddedKeyIds.forEach(keyId -> {
+            secretKeyCache.putShredded(keyId);
+            shreddedKeyIndex.addShredded(keyId);
+        });
+        LOGGER.trace("Permanently deleted {} crypto shredding keys", shreddedKeyIds.size());
+        keyIds.stream()
+            .filter(keyId -> !shreddedKeyIds.contains(keyId))
+            .findFirst()
+            .ifPresent(keyId -> {
+                throw new MissingEncryptionKeyRecordException(keyId.getKeyId(), keyId.getKeyType());
+            });
+    }
+
+    private Optional<SecretKey> retrieveOrCreateSecretKey(TypeDifferentiatedSecretKeyId keyId) {
+        var optionalPersistableSecretKey = secretKeyRepository.findById(keyId);
+        if (optionalPersistableSecretKey.isPresent()) {
+            return cacheSecretKeyOrTombstone(keyId, optionalPersistableSecretKey.get());
+        }
+
+        LOGGER.trace("Creating crypto shredding key {}", keyId.toString());
+        // A key generated for a unit of work that has not committed yet is persisted now, so that the unit of work finds it already stored
+        var uncommittedSecretKey = uncommittedSecretKeys.get(keyId);
+        return createSecretKey(keyId, uncommittedSecretKey == null
+            ? secretKeyGenerator.generateKey()
+            : uncommittedSecretKey);
+    }
+
+    private Optional<SecretKey> createSecretKey(TypeDifferentiatedSecretKeyId keyId, SecretKey secretKey) {
+        var concurrentlyCreatedSecretKey = secretKeyRepository.createIfAbsent(keyId, secretKey);
+        if (concurrentlyCreatedSecretKey.isPresent()) {
+            LOGGER.trace("Crypto shredding key {} was concurrently created elsewhere", keyId.toString());
+            return cacheSecretKeyOrTombstone(keyId, concurrentlyCreatedSecretKey.get());
+        }
+        secretKeyCache.put(keyId, secretKey);
+        return Optional.of(secretKey);
+    }
+
+    private Optional<SecretKey> retrieveOrDeferCreatingSecretKey(TypeDifferentiatedSecretKeyId keyId, PendingSecretKeys pendingSecretKeys) {
+        var pendingSecretKey = pendingSecretKeys.getIfPresent(keyId);
+        if (pendingSecretKey != null) {
+            return pendingSecretKey;
+        }
+        var persistedSecretKey = retrieveOnce(keyId, this::retrieveSecretKeyIfPersisted);
+        if (persistedSecretKey != null) {
+            return persistedSecretKey;
+        }
+
+        LOGGER.trace("Creating crypto shredding key {} when unit of work commits", keyId.toString());
+        // Shared with the other units of work needing this key until one of them completes, so that they all persist the same key
+        var secretKey = uncommittedSecretKeys.computeIfAbsent(keyId, uncommittedKeyId -> secretKeyGenerator.generateKey());
+        pendingSecretKeys.add(keyId, secretKey);
+        return pendingSecretKeys.getIfPresent(keyId);
+    }
+
+    private Optional<SecretKey> retrieveSecretKeyIfPersisted(TypeDifferentiatedSecretKeyId keyId) {
+        return secretKeyRepository.findById(keyId)
+            .map(persistableSecretKey -> cacheSecretKeyOrTombstone(keyId, persistableSecretKey))
+            .orElse(null);
+    }
+
+    private PendingSecretKeys pendingSecretKeysOfCurrentUnitOfWork() {
+        if (!deferKeyCreationToUnitOfWork || !CurrentUnitOfWork.isStarted()) {
+            return null;
+        }
+        var unitOfWork = CurrentUnitOfWork.get().root();
+        if (!unitOfWork.phase().isStarted() || unitOfWork.phase().isAfter(PREPARE_COMMIT)) {
+            return null;
+        }
+        return unitOfWork.getOrComputeResource(pendingSecretKeysResourceKey,
+            resourceKey -> new PendingSecretKeys(unitOfWork, secretKeyRepository, secretKeyCache, uncommittedSecretKeys));
+    }
+
+    /**
+     * Looks a key up, or waits for the result of a lookup of the same key already in progress, so that concurrent lookups of a key that is
+     * not cached make a single repository call.
+     *
+     * @return the retrieved key, an empty optional if the key was shredded, or {@code null} if a lookup that does not create missing keys
+     *         found no key
+     */
+    private Optional<SecretKey> retrieveOnce(TypeDifferentiatedSecretKeyId keyId,
+                                             Function<TypeDifferentiatedSecretKeyId, Optional<SecretKey>> retrieval) {
+        var keyRetrieval = new CompletableFuture<Optional<SecretKey>>();
+        var inFlightKeyRetrieval = inFlightKeyRetrievals.putIfAbsent(keyId, keyRetrieval);
+        if (inFlightKeyRetrieval != null) {
+            return awaitKeyRetrieval(inFlightKeyRetrieval);
+        }
+        try {
+            var secretKey = retrieval.apply(keyId);
+            keyRetrieval.complete(secretKey);
+            return secretKey;
+        } catch (RuntimeException e) {
+            keyRetrieval.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightKeyRetrievals.remove(keyId, keyRetrieval);
+        }
+    }
+
+    private static Optional<SecretKey> awaitKeyRetrieval(CompletableFuture<Optional<SecretKey>> keyRetrieval) {
+        try {
+            return keyRetrieval.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Optional<SecretKey> cacheSecretKeyOrTombstone(TypeDifferentiatedSecretKeyId keyId, PersistableSecretKey persistableSecretKey) {
+        var optionalSecretKey = createSecretKeyOrEmptyOptional(persistableSecretKey);
+        optionalSecretKey.ifPresentOrElse(secretKey -> secretKeyCache.put(keyId, secretKey), () -> {
+            secretKeyCache.putShredded(keyId);
+            shreddedKeyIndex.addShredded(keyId);
+        });
+        if (optionalSecretKey.isPresent() && (shreddedKeyIndex.isShredded(keyId) || isCachedAsShredded(keyId))) {
+            // Shredded since the key was read from the repository
+            return Optional.empty();
+        }
+        return optionalSecretKey;
+    }
+
+    private boolean isCachedAsShredded(TypeDifferentiatedSecretKeyId keyId) {
+        var cachedSecretKey = secretKeyCache.getIfPresent(keyId);
+        return cachedSecretKey != null && cachedSecretKey.isEmpty();
     }
 
     private Optional<SecretKey> createSecretKeyOrEmptyOptional(PersistableSecretKey persistableSecretKey) {
@@ -98,4 +361,57 @@ public class CryptoShreddingKeyService {
         }
         return Optional.of(new SecretKeySpec(persistableSecretKey.getKey(), persistableSecretKey.getAlgorithm()));
     }
+
+    /**
+     * Builds a {@link CryptoShreddingKeyService}. The secret key repository and generator are required. Keys are neither cached nor checked
+     * against an index of shredded keys, and are persisted as soon as they are generated, unless configured otherwise.
+     */
+    public static class Builder {
+        private SecretKeyRepository secretKeyRepository;
+        private KeyGenerator secretKeyGenerator;
+        private SecretKeyCache secretKeyCache;
+        private ShreddedKeyIndex shreddedKeyIndex;
+        private boolean deferKeyCreationToUnitOfWork;
+
+        public Builder() {
+            this.secretKeyCache = new NoOpSecretKeyCache();
+            this.shreddedKeyIndex = new NoOpShreddedKeyIndex();
+        }
+
+        public Builder secretKeyRepository(SecretKeyRepository secretKeyRepository) {
+            this.secretKeyRepository = secretKeyRepository;
+            return this;
+        }
+
+        public Builder secretKeyGenerator(KeyGenerator secretKeyGenerator) {
+            this.secretKeyGenerator = secretKeyGenerator;
+            return this;
+        }
+
+        public Builder secretKeyCache(SecretKeyCache secretKeyCache) {
+            this.secretKeyCache = secretKeyCache;
+            return this;
+        }
+
+        public Builder shreddedKeyIndex(ShreddedKeyIndex shreddedKeyIndex) {
+            this.shreddedKeyIndex = shreddedKeyIndex;
+            return this;
+        }
+
+        /**
+         * @param  deferKeyCreationToUnitOfWork persist keys generated during a unit of work when it commits rather than immediately
+         * @return                              this builder
+         */
+        public Builder deferKeyCreationToUnitOfWork(boolean deferKeyCreationToUnitOfWork) {
+            this.deferKeyCreationToUnitOfWork = deferKeyCreationToUnitOfWork;
+            return this;
+        }
+
+        public CryptoShreddingKeyService build() {
+            if (secretKeyRepository == null || secretKeyGenerator == null) {
+                throw new IllegalStateException("The secret key repository and secret key generator must be set");
+            }
+            return new CryptoShreddingKeyService(this);
+        }
+    }
 }
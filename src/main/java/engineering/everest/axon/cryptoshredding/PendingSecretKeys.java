@@ -0,0 +1,89 @@
+package engineering.everest.axon.cryptoshredding;
+
+import engineering.everest.axon.cryptoshredding.cache.SecretKeyCache;
+import engineering.everest.axon.cryptoshredding.persistence.SecretKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.axonframework.messaging.unitofwork.UnitOfWork.Phase.PREPARE_COMMIT;
+
+/**
+ * Secret keys generated during a unit of work, persisted as a single batch through {@link SecretKeyRepository#createAllIfAbsent} when the
+ * unit of work prepares to commit. Keys are only cached once the unit of work has committed, so keys of a unit of work that rolls back are
+ * never persisted or used elsewhere.
+ * <p>
+ * Events are serialized, and so their fields encrypted, by the event bus as it prepares to commit the unit of work, which may be before the
+ * handler persisting the keys has run. Keys are therefore persisted before any of them is handed out while the unit of work is preparing to
+ * commit, so that they are always stored ahead of the events they protect. A key that turns out to have been created concurrently elsewhere
+ * is replaced by the stored key.
+ */
+@Slf4j
+class PendingSecretKeys {
+
+    private final UnitOfWork<?> unitOfWork;
+    private final SecretKeyRepository secretKeyRepository;
+    private final ConcurrentMap<TypeDifferentiatedSecretKeyId, SecretKey> uncommittedSecretKeys;
+    private final Map<TypeDifferentiatedSecretKeyId, Optional<SecretKey>> secretKeys;
+    private final Map<TypeDifferentiatedSecretKeyId, SecretKey> unpersistedSecretKeys;
+
+    /**
+     * @param uncommittedSecretKeys keys generated by any unit of work that has not completed yet, shared so that concurrent units of work
+     *                              use the same key, from which the keys of this unit of work are removed once it completes
+     */
+    PendingSecretKeys(UnitOfWork<?> unitOfWork,
+                      SecretKeyRepository secretKeyRepository,
+                      SecretKeyCache secretKeyCache,
+                      ConcurrentMap<TypeDifferentiatedSecretKeyId, SecretKey> uncommittedSecretKeys) {
+        this.unitOfWork = unitOfWork;
+        this.secretKeyRepository = secretKeyRepository;
+        this.uncommittedSecretKeys = uncommittedSecretKeys;
+        this.secretKeys = new HashMap<>();
+        this.unpersistedSecretKeys = new LinkedHashMap<>();
+        unitOfWork.onPrepareCommit(u -> persist());
+        unitOfWork.afterCommit(u -> secretKeys.forEach((keyId, secretKey) -> secretKey.ifPresentOrElse(
+            presentSecretKey -> secretKeyCache.put(keyId, presentSecretKey),
+            () -> secretKeyCache.putShredded(keyId))));
+    }
+
+    /**
+     * @param  keyId that uniquely identifies the key
+     * @return       the key, an empty optional if the key was found shredded when it was persisted, or {@code null} if it is not pending
+     */
+    Optional<SecretKey> getIfPresent(TypeDifferentiatedSecretKeyId keyId) {
+        if (unitOfWork.phase() == PREPARE_COMMIT) {
+            persist();
+        }
+        return secretKeys.get(keyId);
+    }
+
+    void add(TypeDifferentiatedSecretKeyId keyId, SecretKey secretKey) {
+        if (secretKeys.isEmpty()) {
+            unitOfWork.onCleanup(u -> secretKeys.keySet().forEach(uncommittedSecretKeys::remove));
+        }
+        secretKeys.put(keyId, Optional.of(secretKey));
+        unpersistedSecretKeys.put(keyId, secretKey);
+    }
+
+    private void persist() {
+        if (unpersistedSecretKeys.isEmpty()) {
+            return;
+        }
+        var secretKeysToPersist = new LinkedHashMap<>(unpersistedSecretKeys);
+        unpersistedSecretKeys.clear();
+        LOGGER.trace("Creating {} crypto shredding keys", secretKeysToPersist.size());
+        secretKeyRepository.createAllIfAbsent(secretKeysToPersist).forEach((keyId, existingKey) -> {
+            LOGGER.trace("Crypto shredding key {} was concurrently created elsewhere", keyId.toString());
+            secretKeys.put(keyId, existingKey.getKey() == null || existingKey.getAlgorithm() == null
+                ? Optional.empty()
+                : Optional.of(new SecretKeySpec(existingKey.getKey(), existingKey.getAlgorithm())));
+        });
+    }
+}
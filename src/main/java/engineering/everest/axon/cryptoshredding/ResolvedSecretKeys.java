@@ -0,0 +1,39 @@
+package engineering.everest.axon.cryptoshredding;
+
+import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionKeyRecordException;
+import lombok.Value;
+
+import javax.crypto.SecretKey;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Outcome of resolving several secret keys at once. Every requested identifier appears in exactly one of the present keys, the shredded key
+ * identifiers or the missing key identifiers.
+ *
+ * @see CryptoShreddingKeyService#resolveExistingSecretKeys
+ */
+@Value
+public class ResolvedSecretKeys {
+    Map<TypeDifferentiatedSecretKeyId, SecretKey> presentSecretKeys;
+    Set<TypeDifferentiatedSecretKeyId> shreddedKeyIds;
+    Set<TypeDifferentiatedSecretKeyId> missingKeyIds;
+
+    /**
+     * Retrieve a resolved key with the same semantics as {@link CryptoShreddingKeyService#getExistingSecretKey}.
+     *
+     * @param  keyId that uniquely identifies the key
+     * @return       an optional secret key which will be empty if the key previously existed but has been deleted
+     */
+    public Optional<SecretKey> getExistingSecretKey(TypeDifferentiatedSecretKeyId keyId) {
+        var secretKey = presentSecretKeys.get(keyId);
+        if (secretKey != null) {
+            return Optional.of(secretKey);
+        }
+        if (shreddedKeyIds.contains(keyId)) {
+            return Optional.empty();
+        }
+        throw new MissingEncryptionKeyRecordException(keyId.getKeyId(), keyId.getKeyType());
+    }
+}
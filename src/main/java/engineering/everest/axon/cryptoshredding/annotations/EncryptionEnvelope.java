@@ -0,0 +1,24 @@
+package engineering.everest.axon.cryptoshredding.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Indicates that the {@code @EncryptedField} fields of an Axon message payload sharing a tag are encrypted together as a single envelope,
+ * rather than each field being encrypted separately. This reduces the encryption cost and serialized size of payloads with many encrypted
+ * fields.
+ *
+ * <p>
+ * Payloads serialized before this annotation was added, with each field encrypted separately, remain readable.
+ *
+ * @see EncryptedField
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({ ElementType.TYPE })
+public @interface EncryptionEnvelope {
+}
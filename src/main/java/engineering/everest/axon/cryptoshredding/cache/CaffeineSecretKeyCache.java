@@ -0,0 +1,56 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Size and time bounded secret key cache backed by Caffeine.
+ * <p>
+ * Shredding a key through the {@code CryptoShreddingKeyService} replaces the cached entry immediately. Keys shredded by other application
+ * instances remain readable on this instance until their entries expire, so the time to live should be chosen with that window in mind.
+ */
+public class CaffeineSecretKeyCache implements SecretKeyCache {
+
+    private final Cache<TypeDifferentiatedSecretKeyId, Optional<SecretKey>> cache;
+
+    public CaffeineSecretKeyCache(long maximumSize, Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public Optional<SecretKey> getIfPresent(TypeDifferentiatedSecretKeyId keyId) {
+        return cache.getIfPresent(keyId);
+    }
+
+    @Override
+    public void put(TypeDifferentiatedSecretKeyId keyId, SecretKey secretKey) {
+        cache.asMap().merge(keyId, Optional.of(secretKey), (cachedSecretKey, secretKeyToCache) -> cachedSecretKey.isPresent()
+            ? secretKeyToCache
+            : cachedSecretKey);
+    }
+
+    @Override
+    public void putShredded(TypeDifferentiatedSecretKeyId keyId) {
+        cache.put(keyId, Optional.empty());
+    }
+
+    @Override
+    public void invalidate(TypeDifferentiatedSecretKeyId keyId) {
+        cache.invalidate(keyId);
+    }
+
+    @Override
+    public SecretKeyCacheStatistics statistics() {
+        var stats = cache.stats();
+        return new SecretKeyCacheStatistics(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+    }
+}
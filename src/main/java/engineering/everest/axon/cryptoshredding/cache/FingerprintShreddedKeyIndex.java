@@ -0,0 +1,176 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Shredded key index holding each shredded key in an open addressing hash table keyed by a 64-bit fingerprint, with the encoded key
+ * identifier and key type stored alongside. Fingerprints are the leading bytes of the SHA-256 digest of the encoded key. They are compared
+ * first, so that lookups of keys that are not indexed rarely touch the encoded keys, and a matching fingerprint is confirmed against the
+ * encoded key, so that a key that has not been shredded is never reported as shredded. Once the maximum size has been reached further keys
+ * are not indexed and are looked up in the repository as usual.
+ * <p>
+ * Lookups are lock free. Additions are serialised, which suits keys being shredded far less often than they are read.
+ */
+@Slf4j
+public class FingerprintShreddedKeyIndex implements ShreddedKeyIndex {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final long EMPTY_SLOT = 0L;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private final long maximumSize;
+    private final ToLongFunction<byte[]> fingerprintFunction;
+    private volatile Table table;
+    private volatile long size;
+    private boolean overflowLogged;
+
+    /**
+     * @param maximumSize maximum number of shredded keys to index
+     */
+    public FingerprintShreddedKeyIndex(long maximumSize) {
+        this(maximumSize, FingerprintShreddedKeyIndex::fingerprint);
+    }
+
+    FingerprintShreddedKeyIndex(long maximumSize, ToLongFunction<byte[]> fingerprintFunction) {
+        this.fingerprintFunction = fingerprintFunction;
+        this.maximumSize = Math.min(maximumSize, MAXIMUM_CAPACITY / 4 * 3);
+        this.table = new Table(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public boolean isShredded(TypeDifferentiatedSecretKeyId keyId) {
+        var encodedKeyId = encode(keyId);
+        return table.contains(fingerprintOf(encodedKeyId), encodedKeyId);
+    }
+
+    @Override
+    public synchronized void addShredded(TypeDifferentiatedSecretKeyId keyId) {
+        var encodedKeyId = encode(keyId);
+        var fingerprint = fingerprintOf(encodedKeyId);
+        var table = this.table;
+        if (table.contains(fingerprint, encodedKeyId)) {
+            return;
+        }
+        if (size >= maximumSize) {
+            if (!overflowLogged) {
+                LOGGER.warn("Shredded key index is full at {} keys, further shredded keys will be looked up in the repository", size);
+                overflowLogged = true;
+            }
+            return;
+        }
+        if ((size + 1) * 4 > table.capacity() * 3L) {
+            table = table.resize();
+            this.table = table;
+        }
+        table.insert(fingerprint, encodedKeyId);
+        size++;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    private long fingerprintOf(byte[] encodedKeyId) {
+        var fingerprint = fingerprintFunction.applyAsLong(encodedKeyId);
+        return fingerprint == EMPTY_SLOT
+            ? 1L
+            : fingerprint;
+    }
+
+    private static byte[] encode(TypeDifferentiatedSecretKeyId keyId) {
+        var encodedKeyId = keyId.getKeyId().getBytes(UTF_8);
+        var encodedKeyType = keyId.getKeyType() == null
+            ? new byte[0]
+            : keyId.getKeyType().getBytes(UTF_8);
+        var encodedKey = Arrays.copyOf(encodedKeyId, encodedKeyId.length + 1 + encodedKeyType.length);
+        encodedKey[encodedKeyId.length] = keyId.getKeyType() == null
+            ? (byte) 1
+            : (byte) 0;
+        System.arraycopy(encodedKeyType, 0, encodedKey, encodedKeyId.length + 1, encodedKeyType.length);
+        return encodedKey;
+    }
+
+    private static long fingerprint(byte[] encodedKeyId) {
+        var digest = SHA_256.get().digest(encodedKeyId);
+        long fingerprint = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Fingerprints and encoded keys, replaced as a whole when resized. An encoded key is stored before its fingerprint, so that a lookup
+     * that finds a fingerprint also finds its encoded key.
+     */
+    private static final class Table {
+
+        private final AtomicLongArray fingerprints;
+        private final AtomicReferenceArray<byte[]> encodedKeyIds;
+
+        Table(int capacity) {
+            this.fingerprints = new AtomicLongArray(capacity);
+            this.encodedKeyIds = new AtomicReferenceArray<>(capacity);
+        }
+
+        int capacity() {
+            return fingerprints.length();
+        }
+
+        Table resize() {
+            var resizedTable = new Table(capacity() * 2);
+            for (int i = 0; i < capacity(); i++) {
+                var fingerprint = fingerprints.get(i);
+                if (fingerprint != EMPTY_SLOT) {
+                    resizedTable.insert(fingerprint, encodedKeyIds.get(i));
+                }
+            }
+            return resizedTable;
+        }
+
+        void insert(long fingerprint, byte[] encodedKeyId) {
+            var mask = capacity() - 1;
+            var slot = slotOf(fingerprint, mask);
+            while (fingerprints.get(slot) != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            encodedKeyIds.set(slot, encodedKeyId);
+            fingerprints.set(slot, fingerprint);
+        }
+
+        boolean contains(long fingerprint, byte[] encodedKeyId) {
+            var mask = capacity() - 1;
+            var slot = slotOf(fingerprint, mask);
+            long storedFingerprint;
+            while ((storedFingerprint = fingerprints.get(slot)) != EMPTY_SLOT) {
+                if (storedFingerprint == fingerprint && Arrays.equals(encodedKeyIds.get(slot), encodedKeyId)) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static int slotOf(long fingerprint, int mask) {
+            return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+
+import javax.crypto.SecretKey;
+import java.util.Optional;
+
+/**
+ * Cache that never holds on to anything. Every lookup goes to the secret key repository.
+ */
+public class NoOpSecretKeyCache implements SecretKeyCache {
+
+    private static final SecretKeyCacheStatistics NO_STATISTICS = new SecretKeyCacheStatistics(0, 0, 0, 0);
+
+    @Override
+    public Optional<SecretKey> getIfPresent(TypeDifferentiatedSecretKeyId keyId) {
+        return null;
+    }
+
+    @Override
+    public void put(TypeDifferentiatedSecretKeyId keyId, SecretKey secretKey) {}
+
+    @Override
+    public void putShredded(TypeDifferentiatedSecretKeyId keyId) {}
+
+    @Override
+    public void invalidate(TypeDifferentiatedSecretKeyId keyId) {}
+
+    @Override
+    public SecretKeyCacheStatistics statistics() {
+        return NO_STATISTICS;
+    }
+}
@@ -0,0 +1,22 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+
+/**
+ * Index that never holds on to anything. Whether a key has been shredded is always determined by the secret key cache or repository.
+ */
+public class NoOpShreddedKeyIndex implements ShreddedKeyIndex {
+
+    @Override
+    public boolean isShredded(TypeDifferentiatedSecretKeyId keyId) {
+        return false;
+    }
+
+    @Override
+    public void addShredded(TypeDifferentiatedSecretKeyId keyId) {}
+
+    @Override
+    public long size() {
+        return 0;
+    }
+}
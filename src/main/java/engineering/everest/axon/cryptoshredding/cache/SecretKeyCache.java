@@ -0,0 +1,41 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+
+import javax.crypto.SecretKey;
+import java.util.Optional;
+
+/**
+ * In-process cache of secret keys sitting in front of the {@code SecretKeyRepository}. Shredded keys are cached as tombstones so that
+ * repeated reads of an erased subject's events do not need to go back to the database.
+ */
+public interface SecretKeyCache {
+
+    /**
+     * Look up a cached secret key.
+     *
+     * @param  keyId that uniquely identifies the key
+     * @return       the cached key, an empty optional if the key is known to have been shredded, or {@code null} if nothing is cached
+     */
+    Optional<SecretKey> getIfPresent(TypeDifferentiatedSecretKeyId keyId);
+
+    /**
+     * Cache a secret key, unless the key is already cached as shredded. Tombstones are never replaced, so that a key read from the
+     * repository just before it was shredded cannot be cached again after the shred.
+     *
+     * @param keyId     that uniquely identifies the key
+     * @param secretKey key material to cache
+     */
+    void put(TypeDifferentiatedSecretKeyId keyId, SecretKey secretKey);
+
+    /**
+     * Record that a key has been shredded, replacing any cached key material.
+     *
+     * @param keyId that uniquely identifies the key
+     */
+    void putShredded(TypeDifferentiatedSecretKeyId keyId);
+
+    void invalidate(TypeDifferentiatedSecretKeyId keyId);
+
+    SecretKeyCacheStatistics statistics();
+}
@@ -0,0 +1,14 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import lombok.Value;
+
+/**
+ * Point in time snapshot of secret key cache activity.
+ */
+@Value
+public class SecretKeyCacheStatistics {
+    long hitCount;
+    long missCount;
+    long evictionCount;
+    long estimatedSize;
+}
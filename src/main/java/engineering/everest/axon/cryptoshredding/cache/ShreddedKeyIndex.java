@@ -0,0 +1,29 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+
+/**
+ * In-process record of shredded secret keys sitting in front of the {@code SecretKeyRepository}. Unlike the {@link SecretKeyCache}, which
+ * holds a bounded number of recently used keys and tombstones, an index is meant to hold every shredded key so that reads of erased
+ * subjects' events never need to go to the database to learn that their key is gone. Shredding is permanent, so entries are never removed.
+ */
+public interface ShreddedKeyIndex {
+
+    /**
+     * @param  keyId that uniquely identifies the key
+     * @return       true if the key is known to have been shredded, false if it has not been or is not indexed
+     */
+    boolean isShredded(TypeDifferentiatedSecretKeyId keyId);
+
+    /**
+     * Record that a key has been shredded.
+     *
+     * @param keyId that uniquely identifies the key
+     */
+    void addShredded(TypeDifferentiatedSecretKeyId keyId);
+
+    /**
+     * @return the number of indexed keys
+     */
+    long size();
+}
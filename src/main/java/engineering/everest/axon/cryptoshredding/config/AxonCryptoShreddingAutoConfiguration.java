@@ -1,34 +1,99 @@
 package engineering.everest.axon.cryptoshredding.config;
 
 import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
-import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.cache.CaffeineSecretKeyCache;
+import engineering.everest.axon.cryptoshredding.cache.FingerprintShreddedKeyIndex;
+import engineering.everest.axon.cryptoshredding.cache.NoOpSecretKeyCache;
+import engineering.everest.axon.cryptoshredding.cache.NoOpShreddedKeyIndex;
+import engineering.everest.axon.cryptoshredding.cache.SecretKeyCache;
+import engineering.everest.axon.cryptoshredding.cache.ShreddedKeyIndex;
+import engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.CipherSuiteRegistry;
+import engineering.everest.axon.cryptoshredding.encryption.CompressingEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.encryption.CompressionCodec;
+import engineering.everest.axon.cryptoshredding.encryption.CounterNonceGenerator;
 import engineering.everest.axon.cryptoshredding.encryption.DefaultAesKeyGenerator;
+import engineering.everest.axon.cryptoshredding.encryption.DeflateCompressionCodec;
 import engineering.everest.axon.cryptoshredding.encryption.EncrypterDecrypterFactory;
 import engineering.everest.axon.cryptoshredding.encryption.KeyGenerator;
+import engineering.everest.axon.cryptoshredding.encryption.NonceGenerator;
+import engineering.everest.axon.cryptoshredding.encryption.PooledKeyGenerator;
+import engineering.everest.axon.cryptoshredding.encryption.ThreadLocalDrbgNonceGenerator;
+import engineering.everest.axon.cryptoshredding.persistence.BatchingSecretKeyRepository;
+import engineering.everest.axon.cryptoshredding.persistence.JdbcSecretKeyRepository;
+import engineering.everest.axon.cryptoshredding.persistence.MappedFileSecretKeyRepository;
 import engineering.everest.axon.cryptoshredding.persistence.SecretKeyRepository;
 import engineering.everest.axon.cryptoshredding.serialization.DefaultValueProvider;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptedFieldMask;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptedFieldMaskInterceptor;
 import engineering.everest.axon.cryptoshredding.serialization.KeyIdentifierToStringConverter;
+import org.axonframework.config.ConfigurerModule;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 
 @Configuration
 @AutoConfigureBefore(name = { "org.axonframework.springboot.autoconfig.AxonAutoConfiguration" })
+@EnableConfigurationProperties(CryptoShreddingProperties.class)
 public class AxonCryptoShreddingAutoConfiguration {
 
+    @Bean
+    @ConditionalOnMissingBean(NonceGenerator.class)
+    public NonceGenerator nonceGenerator(CryptoShreddingProperties cryptoShreddingProperties) {
+        var nodePrefix = cryptoShreddingProperties.getNonce().getNodePrefix();
+        return nodePrefix == null
+            ? new ThreadLocalDrbgNonceGenerator()
+            : new CounterNonceGenerator(nodePrefix);
+    }
+
     @Bean
     @ConditionalOnMissingBean(EncrypterDecrypterFactory.class)
-    public EncrypterDecrypterFactory encrypterDecrypterFactory() {
-        return new DefaultAesEncrypterDecrypterFactory();
+    public EncrypterDecrypterFactory encrypterDecrypterFactory(CryptoShreddingProperties cryptoShreddingProperties,
+                                                               NonceGenerator nonceGenerator,
+                                                               CompressionCodec compressionCodec,
+                                                               CipherSuiteRegistry cipherSuiteRegistry) {
+        var versionedCiphertextProperties = cryptoShreddingProperties.getVersionedCiphertext();
+        var encryptingCipherSuite = versionedCiphertextProperties.isEnabled()
+            ? cipherSuiteRegistry.findByName(versionedCiphertextProperties.getCipherSuite())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown cipher suite " + versionedCiphertextProperties.getCipherSuite()))
+            : null;
+        var compressionProperties = cryptoShreddingProperties.getCompression();
+        var thresholdBytes = compressionProperties.isEnabled()
+            ? compressionProperties.getThresholdBytes()
+            : Integer.MAX_VALUE;
+        return new CompressingEncrypterDecrypterFactory(
+            new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, encryptingCipherSuite, nonceGenerator), compressionCodec,
+            thresholdBytes);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CipherSuiteRegistry.class)
+    public CipherSuiteRegistry cipherSuiteRegistry() {
+        return new CipherSuiteRegistry();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CompressionCodec.class)
+    public CompressionCodec compressionCodec() {
+        return new DeflateCompressionCodec();
     }
 
     @Bean
     @ConditionalOnMissingBean(KeyGenerator.class)
-    public KeyGenerator keyGenerator() throws NoSuchAlgorithmException {
-        return new DefaultAesKeyGenerator();
+    public KeyGenerator keyGenerator(CryptoShreddingProperties cryptoShreddingProperties) throws NoSuchAlgorithmException {
+        var keyPoolProperties = cryptoShreddingProperties.getKeyPool();
+        if (!keyPoolProperties.isEnabled()) {
+            return new DefaultAesKeyGenerator();
+        }
+        return new PooledKeyGenerator(new DefaultAesKeyGenerator(), keyPoolProperties.getSize());
     }
 
     @Bean
@@ -37,16 +102,84 @@ public class AxonCryptoShreddingAutoConfiguration {
         return new DefaultValueProvider();
     }
 
+    @Bean
+    public ConfigurerModule encryptedFieldMaskConfigurerModule(CryptoShreddingProperties cryptoShreddingProperties) {
+        var encryptedFieldMasksByProcessorName = new HashMap<String, EncryptedFieldMask>();
+        cryptoShreddingProperties.getDecryptedFields().forEach((processorName, fieldReferences) ->
+            encryptedFieldMasksByProcessorName.put(processorName, EncryptedFieldMask.of(fieldReferences)));
+        return configurer -> configurer.eventProcessing(eventProcessingConfigurer -> encryptedFieldMasksByProcessorName.forEach(
+            (processorName, encryptedFieldMask) -> eventProcessingConfigurer.registerHandlerInterceptor(processorName,
+                configuration -> new EncryptedFieldMaskInterceptor(encryptedFieldMask, configuration.eventSerializer()))));
+    }
+
     @Bean
     @ConditionalOnMissingBean(KeyIdentifierToStringConverter.class)
     public KeyIdentifierToStringConverter keyIdentifierToStringConverter() {
         return new KeyIdentifierToStringConverter();
     }
 
+    @Bean
+    @ConditionalOnMissingBean(SecretKeyCache.class)
+    public SecretKeyCache secretKeyCache(CryptoShreddingProperties cryptoShreddingProperties) {
+        var keyCacheProperties = cryptoShreddingProperties.getKeyCache();
+        if (!keyCacheProperties.isEnabled()) {
+            return new NoOpSecretKeyCache();
+        }
+        return new CaffeineSecretKeyCache(keyCacheProperties.getMaximumSize(), keyCacheProperties.getTimeToLive());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SecretKeyRepository.class)
+    @ConditionalOnProperty(prefix = "axon.cryptoshredding.jdbc-repository", name = "enabled", havingValue = "true")
+    public SecretKeyRepository secretKeyRepository(CryptoShreddingProperties cryptoShreddingProperties, DataSource dataSource) {
+        var jdbcRepositoryProperties = cryptoShreddingProperties.getJdbcRepository();
+        var jdbcSecretKeyRepository = new JdbcSecretKeyRepository(dataSource, jdbcRepositoryProperties.getTableName());
+        if (jdbcRepositoryProperties.isCreateTable()) {
+            jdbcSecretKeyRepository.createTableIfNotExists();
+        }
+        return jdbcSecretKeyRepository;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SecretKeyRepository.class)
+    @ConditionalOnProperty(prefix = "axon.cryptoshredding.mapped-file-repository", name = "enabled", havingValue = "true")
+    public SecretKeyRepository mappedFileSecretKeyRepository(CryptoShreddingProperties cryptoShreddingProperties) {
+        return new MappedFileSecretKeyRepository(Path.of(cryptoShreddingProperties.getMappedFileRepository().getPath()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ShreddedKeyIndex.class)
+    public ShreddedKeyIndex shreddedKeyIndex(CryptoShreddingProperties cryptoShreddingProperties,
+                                             SecretKeyRepository secretKeyRepository) {
+        var shreddedKeyIndexProperties = cryptoShreddingProperties.getShreddedKeyIndex();
+        if (!shreddedKeyIndexProperties.isEnabled()) {
+            return new NoOpShreddedKeyIndex();
+        }
+        var shreddedKeyIndex = new FingerprintShreddedKeyIndex(shreddedKeyIndexProperties.getMaximumSize());
+        try (var shreddedKeyIds = secretKeyRepository.streamShreddedKeyIds()) {
+            shreddedKeyIds.forEach(shreddedKeyIndex::addShredded);
+        }
+        return shreddedKeyIndex;
+    }
+
     @Bean
     @ConditionalOnMissingBean(CryptoShreddingKeyService.class)
-    public CryptoShreddingKeyService cryptoShreddingKeyService(SecretKeyRepository secretKeyRepository,
-                                                               KeyGenerator keyGenerator) {
-        return new CryptoShreddingKeyService(secretKeyRepository, keyGenerator);
+    public CryptoShreddingKeyService cryptoShreddingKeyService(CryptoShreddingProperties cryptoShreddingProperties,
+                                                               SecretKeyRepository secretKeyRepository,
+                                                               KeyGenerator keyGenerator,
+                                                               SecretKeyCache secretKeyCache,
+                                                               ShreddedKeyIndex shreddedKeyIndex) {
+        var keyLookupBatchingProperties = cryptoShreddingProperties.getKeyLookupBatching();
+        var keyServiceRepository = keyLookupBatchingProperties.isEnabled()
+            ? new BatchingSecretKeyRepository(secretKeyRepository, keyLookupBatchingProperties.getWindow(),
+                keyLookupBatchingProperties.getMaximumBatchSize())
+            : secretKeyRepository;
+        return CryptoShreddingKeyService.builder()
+            .secretKeyRepository(keyServiceRepository)
+            .secretKeyGenerator(keyGenerator)
+            .secretKeyCache(secretKeyCache)
+            .shreddedKeyIndex(shreddedKeyIndex)
+            .deferKeyCreationToUnitOfWork(cryptoShreddingProperties.getKeyWriteBehind().isEnabled())
+            .build();
     }
 }
@@ -0,0 +1,166 @@
+package engineering.everest.axon.cryptoshredding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tuning options for the crypto shredding extension, bound from the {@code axon.cryptoshredding} property namespace.
+ */
+@Data
+@ConfigurationProperties(prefix = "axon.cryptoshredding")
+public class CryptoShreddingProperties {
+
+    private KeyCache keyCache = new KeyCache();
+    private ShreddedKeyIndex shreddedKeyIndex = new ShreddedKeyIndex();
+    private KeyPool keyPool = new KeyPool();
+    private KeyWriteBehind keyWriteBehind = new KeyWriteBehind();
+    private KeyLookupBatching keyLookupBatching = new KeyLookupBatching();
+    private JdbcRepository jdbcRepository = new JdbcRepository();
+    private MappedFileRepository mappedFileRepository = new MappedFileRepository();
+    private Nonce nonce = new Nonce();
+    private Compression compression = new Compression();
+    private VersionedCiphertext versionedCiphertext = new VersionedCiphertext();
+    /**
+     * Encrypted fields needed by the event handlers of each event processor, keyed by event processor name, as
+     * {@code fully.qualified.PayloadClass#fieldName} references. An {@code EncryptedFieldMaskInterceptor} decrypting only the listed fields
+     * is registered with each event processor. Event processors are named after their processing group unless configured otherwise.
+     */
+    private Map<String, List<String>> decryptedFields = new HashMap<>();
+
+    @Data
+    public static class KeyCache {
+        /**
+         * Cache secret keys and shredded key tombstones in memory.
+         */
+        private boolean enabled = false;
+        /**
+         * Maximum number of keys and tombstones held by the cache.
+         */
+        private long maximumSize = 10_000;
+        /**
+         * How long an entry may be served from the cache. This bounds how long a key shredded by another application instance remains
+         * readable on this one.
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class ShreddedKeyIndex {
+        /**
+         * Keep every shredded key in memory, loaded from the secret key repository at startup, so that reads of shredded keys do not query
+         * the repository.
+         */
+        private boolean enabled = false;
+        /**
+         * Maximum number of shredded keys indexed. Each takes between 70 and 90 bytes of heap for UUID key identifiers.
+         */
+        private long maximumSize = 10_000_000;
+    }
+
+    @Data
+    public static class KeyPool {
+        /**
+         * Generate secret keys ahead of time on a background thread, so that creating a key does not wait for key generation.
+         */
+        private boolean enabled = false;
+        /**
+         * Maximum number of keys generated ahead of time and held in memory. Must be at least 1.
+         */
+        private int size = 100;
+    }
+
+    @Data
+    public static class KeyWriteBehind {
+        /**
+         * Persist keys created while an Axon unit of work is active in a single batch as part of the unit of work's transaction, rather
+         * than immediately and on their own. Keys of a unit of work that rolls back are never persisted.
+         */
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class KeyLookupBatching {
+        /**
+         * Coalesce lookups of single keys made concurrently by different threads into one query of the secret key repository.
+         */
+        private boolean enabled = false;
+        /**
+         * How long the first lookup of a batch waits for further lookups to join it.
+         */
+        private Duration window = Duration.ofMillis(2);
+        /**
+         * Number of keys after which a batch is looked up without waiting for the rest of the window.
+         */
+        private int maximumBatchSize = 100;
+    }
+
+    @Data
+    public static class JdbcRepository {
+        /**
+         * Store secret keys in PostgreSQL through the built in JDBC secret key repository, unless the application provides its own
+         * {@code SecretKeyRepository}.
+         */
+        private boolean enabled = false;
+        /**
+         * Table holding the secret keys.
+         */
+        private String tableName = "cryptoshreddingkeys";
+        /**
+         * Create the table at startup unless it already exists.
+         */
+        private boolean createTable = false;
+    }
+
+    @Data
+    public static class MappedFileRepository {
+        /**
+         * Store secret keys in a local memory mapped file through the built in mapped file secret key repository, unless the application
+         * provides its own {@code SecretKeyRepository}. Only suitable for single node deployments.
+         */
+        private boolean enabled = false;
+        /**
+         * Path of the key file, which is created if it does not exist.
+         */
+        private String path = "cryptoshreddingkeys.dat";
+    }
+
+    @Data
+    public static class Nonce {
+        /**
+         * Prefix of the counter based nonces used when encrypting, which must differ between concurrently running application instances.
+         * Random nonces drawn from per thread generators are used when unset.
+         */
+        private Integer nodePrefix;
+    }
+
+    @Data
+    public static class Compression {
+        /**
+         * Compress cleartext before encrypting it. Compressed values remain readable once this is disabled again.
+         */
+        private boolean enabled = false;
+        /**
+         * Length in bytes of the encoded value of a field, or of an envelope, from which it is compressed.
+         */
+        private int thresholdBytes = 1024;
+    }
+
+    @Data
+    public static class VersionedCiphertext {
+        /**
+         * Prefix new ciphertext with a header naming its cipher suite. Ciphertext with and without the header is read either way, but
+         * earlier versions of this library cannot read ciphertext with the header, so enable this once every application instance reads it.
+         */
+        private boolean enabled = false;
+        /**
+         * Cipher suite new values are encrypted with, either {@code aes-gcm} or {@code chacha20-poly1305} unless the application provides
+         * its own {@code CipherSuiteRegistry}.
+         */
+        private String cipherSuite = "aes-gcm";
+    }
+}
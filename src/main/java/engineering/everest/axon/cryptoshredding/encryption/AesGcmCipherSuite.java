@@ -0,0 +1,40 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * AES in Galois/Counter Mode with a 96 bit nonce and a 128 bit authentication tag, as used by {@link DefaultAesEncrypter}. Fastest on
+ * processors with AES and carry-less multiplication instructions.
+ */
+public class AesGcmCipherSuite implements CipherSuite {
+
+    static final byte ID = 1;
+    private static final int NONCE_LENGTH_BYTES = 12;
+    private static final int AUTHENTICATION_TAG_SIZE_BITS = 128;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "aes-gcm";
+    }
+
+    @Override
+    public String getTransformation() {
+        return DefaultAesEncrypter.CIPHER_ALGORITHM;
+    }
+
+    @Override
+    public int getNonceLengthBytes() {
+        return NONCE_LENGTH_BYTES;
+    }
+
+    @Override
+    public AlgorithmParameterSpec createParameterSpec(byte[] nonce, int offset) {
+        return new GCMParameterSpec(AUTHENTICATION_TAG_SIZE_BITS, nonce, offset, NONCE_LENGTH_BYTES);
+    }
+}
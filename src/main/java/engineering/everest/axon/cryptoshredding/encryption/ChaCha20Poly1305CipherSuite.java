@@ -0,0 +1,40 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import javax.crypto.spec.IvParameterSpec;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * ChaCha20 with a Poly1305 authenticator and a 96 bit nonce, as specified by RFC 8439. Usually faster than AES-GCM on processors without
+ * AES instructions, and constant time without hardware support.
+ */
+public class ChaCha20Poly1305CipherSuite implements CipherSuite {
+
+    static final byte ID = 2;
+    private static final String CIPHER_ALGORITHM = "ChaCha20-Poly1305";
+    private static final int NONCE_LENGTH_BYTES = 12;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "chacha20-poly1305";
+    }
+
+    @Override
+    public String getTransformation() {
+        return CIPHER_ALGORITHM;
+    }
+
+    @Override
+    public int getNonceLengthBytes() {
+        return NONCE_LENGTH_BYTES;
+    }
+
+    @Override
+    public AlgorithmParameterSpec createParameterSpec(byte[] nonce, int offset) {
+        return new IvParameterSpec(nonce, offset, NONCE_LENGTH_BYTES);
+    }
+}
@@ -0,0 +1,77 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of {@link Cipher} instances for a single transformation. Looking up a cipher through the JCA providers is far more expensive
+ * than re-initialising an existing one with a new key and parameters, so idle instances are kept for reuse.
+ * <p>
+ * Ciphers are stateful and must only be used by one thread between {@link #acquire()} and {@link #release(Cipher)}. The pool is lock free
+ * and holds no thread local state, so it is safe to share between platform and virtual threads alike. When more ciphers are in use than the
+ * pool can hold, the surplus instances are simply dropped on release. A capacity of zero disables pooling altogether.
+ */
+public class CipherPool {
+
+    private final String transformation;
+    private final int capacity;
+    private final Queue<Cipher> idleCiphers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCipherCount = new AtomicInteger();
+
+    public CipherPool(String transformation, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cipher pool capacity must not be negative");
+        }
+        this.transformation = transformation;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Take an idle cipher from the pool, creating a new one if none is available. The returned cipher must be initialised before use.
+     *
+     * @return a cipher for this pool's transformation
+     */
+    public Cipher acquire() {
+        var cipher = idleCiphers.poll();
+        if (cipher != null) {
+            idleCipherCount.decrementAndGet();
+            return cipher;
+        }
+        return create();
+    }
+
+    /**
+     * Create a new cipher regardless of any idle ones, for the rare operation that an idle cipher cannot be re-initialised for.
+     *
+     * @return a cipher for this pool's transformation
+     */
+    Cipher create() {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Return a cipher to the pool once an operation has completed. Ciphers left in an unknown state by a failed operation should not be
+     * released.
+     *
+     * @param cipher previously obtained from {@link #acquire()}
+     */
+    public void release(Cipher cipher) {
+        if (idleCipherCount.incrementAndGet() <= capacity) {
+            idleCiphers.offer(cipher);
+        } else {
+            idleCipherCount.decrementAndGet();
+        }
+    }
+
+    int idleCipherCount() {
+        return idleCipherCount.get();
+    }
+}
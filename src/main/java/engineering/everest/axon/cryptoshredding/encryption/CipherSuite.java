@@ -0,0 +1,38 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * Authenticated encryption algorithm that values can be encrypted with by a {@link CipherSuiteEncrypterDecrypterFactory}. Each suite is
+ * identified by a byte written to the header of every value it encrypts, so that values remain readable once an application moves to a
+ * different suite. Suites must accept the 256 bit keys created by the {@link KeyGenerator}.
+ */
+public interface CipherSuite {
+
+    /**
+     * @return identifier written to the header of each value encrypted with this suite, unique among the suites of a registry
+     */
+    byte getId();
+
+    /**
+     * @return name by which the suite is configured
+     */
+    String getName();
+
+    /**
+     * @return JCA transformation of the suite's ciphers
+     */
+    String getTransformation();
+
+    /**
+     * @return length of the nonce stored ahead of each ciphertext
+     */
+    int getNonceLengthBytes();
+
+    /**
+     * @param  nonce  array holding the nonce
+     * @param  offset of the nonce within the array
+     * @return        parameters initialising a cipher with the nonce
+     */
+    AlgorithmParameterSpec createParameterSpec(byte[] nonce, int offset);
+}
@@ -0,0 +1,76 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+
+import static engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory.FORMAT_VERSION;
+import static engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory.HEADER_LENGTH;
+import static engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory.HEADER_MARKER;
+import static java.nio.charset.Charset.defaultCharset;
+import static javax.crypto.Cipher.DECRYPT_MODE;
+
+class CipherSuiteDecrypter implements Decrypter {
+
+    private final CipherSuiteRegistry cipherSuiteRegistry;
+    private final CipherPool[] cipherPoolsById;
+    private final Decrypter unversionedDecrypter;
+
+    CipherSuiteDecrypter(CipherSuiteRegistry cipherSuiteRegistry, CipherPool[] cipherPoolsById, Decrypter unversionedDecrypter) {
+        this.cipherSuiteRegistry = cipherSuiteRegistry;
+        this.cipherPoolsById = cipherPoolsById;
+        this.unversionedDecrypter = unversionedDecrypter;
+    }
+
+    @Override
+    public String decrypt(SecretKey secretKey, byte[] ciphertext) {
+        return new String(decrypt(secretKey, ciphertext, 0, ciphertext.length), defaultCharset());
+    }
+
+    @Override
+    public byte[] decrypt(SecretKey secretKey, byte[] ciphertext, int offset, int length) {
+        var cipherSuite = length > HEADER_LENGTH && ciphertext[offset] == HEADER_MARKER && ciphertext[offset + 1] == FORMAT_VERSION
+            ? cipherSuiteRegistry.findById(ciphertext[offset + 2])
+            : null;
+        if (cipherSuite != null) {
+            try {
+                return decrypt(cipherSuite, secretKey, ciphertext, offset, length);
+            } catch (AEADBadTagException e) {
+                // An unversioned value whose nonce starts like a header, or a tampered value that will fail to decrypt below
+            }
+        }
+        return unversionedDecrypter.decrypt(secretKey, ciphertext, offset, length);
+    }
+
+    private byte[] decrypt(CipherSuite cipherSuite, SecretKey secretKey, byte[] ciphertext, int offset, int length)
+        throws AEADBadTagException {
+        var nonceLength = cipherSuite.getNonceLengthBytes();
+        var cipherTextOffset = HEADER_LENGTH + nonceLength;
+        if (length < cipherTextOffset) {
+            throw new AEADBadTagException("Value is shorter than its header and nonce");
+        }
+        var cipherPool = cipherPoolsById[cipherSuite.getId() & 0xFF];
+        var cipher = cipherPool.acquire();
+        try {
+            var parameterSpec = cipherSuite.createParameterSpec(ciphertext, offset + HEADER_LENGTH);
+            try {
+                cipher.init(DECRYPT_MODE, secretKey, parameterSpec);
+            } catch (InvalidKeyException e) {
+                // ChaCha20 ciphers refuse to be initialised with the key and nonce they were last initialised with
+                cipher = cipherPool.create();
+                cipher.init(DECRYPT_MODE, secretKey, parameterSpec);
+            }
+            cipher.updateAAD(ciphertext, offset, HEADER_LENGTH);
+            var cleartext = cipher.doFinal(ciphertext, offset + cipherTextOffset, length - cipherTextOffset);
+            cipherPool.release(cipher);
+            return cleartext;
+        } catch (AEADBadTagException e) {
+            throw e;
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
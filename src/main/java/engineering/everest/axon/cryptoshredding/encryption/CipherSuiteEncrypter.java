@@ -0,0 +1,59 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+
+import static engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory.FORMAT_VERSION;
+import static engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory.HEADER_LENGTH;
+import static engineering.everest.axon.cryptoshredding.encryption.CipherSuiteEncrypterDecrypterFactory.HEADER_MARKER;
+import static java.lang.System.arraycopy;
+import static java.nio.charset.Charset.defaultCharset;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+
+class CipherSuiteEncrypter implements Encrypter {
+
+    private final CipherSuite cipherSuite;
+    private final CipherPool cipherPool;
+    private final NonceGenerator nonceGenerator;
+
+    CipherSuiteEncrypter(CipherSuite cipherSuite, CipherPool cipherPool, NonceGenerator nonceGenerator) {
+        this.cipherSuite = cipherSuite;
+        this.cipherPool = cipherPool;
+        this.nonceGenerator = nonceGenerator;
+    }
+
+    @Override
+    public byte[] encrypt(SecretKey secretKey, String cleartext) {
+        return encrypt(secretKey, ByteBuffer.wrap(cleartext.getBytes(defaultCharset())));
+    }
+
+    @Override
+    public byte[] encrypt(SecretKey secretKey, ByteBuffer cleartext) {
+        var cipher = cipherPool.acquire();
+        try {
+            var nonceLength = cipherSuite.getNonceLengthBytes();
+            var nonce = new byte[nonceLength];
+            nonceGenerator.nextNonce(nonce);
+            cipher.init(ENCRYPT_MODE, secretKey, cipherSuite.createParameterSpec(nonce, 0));
+            var cipherTextOffset = HEADER_LENGTH + nonceLength;
+            var headerNonceAndCipherText = new byte[cipherTextOffset + cipher.getOutputSize(cleartext.remaining())];
+            headerNonceAndCipherText[0] = HEADER_MARKER;
+            headerNonceAndCipherText[1] = FORMAT_VERSION;
+            headerNonceAndCipherText[2] = cipherSuite.getId();
+            cipher.updateAAD(headerNonceAndCipherText, 0, HEADER_LENGTH);
+            arraycopy(nonce, 0, headerNonceAndCipherText, HEADER_LENGTH, nonceLength);
+            cipher.doFinal(cleartext,
+                ByteBuffer.wrap(headerNonceAndCipherText, cipherTextOffset, headerNonceAndCipherText.length - cipherTextOffset));
+            cipherPool.release(cipher);
+            return headerNonceAndCipherText;
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException | BadPaddingException | IllegalBlockSizeException
+                 | ShortBufferException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.util.HashMap;
+
+/**
+ * Creates encrypters that prefix each value with a versioned header naming its {@link CipherSuite}, and decrypters that pick the cipher
+ * suite of each value from its header. The header is made of a {@code 0xCE} marker, the format version and the identifier of the cipher
+ * suite, followed by the nonce and the ciphertext. It is authenticated along with the ciphertext.
+ * <p>
+ * Values without a header, as written by {@link DefaultAesEncrypter} and by earlier versions of this library, are decrypted as AES-GCM.
+ * Their random nonce may happen to start like a header, so a value whose header names a registered suite but fails to authenticate is
+ * decrypted as AES-GCM before giving up. Without an encrypting cipher suite, values are encrypted without a header, allowing every
+ * application instance to be upgraded to read versioned values before any are written.
+ */
+public class CipherSuiteEncrypterDecrypterFactory implements EncrypterDecrypterFactory {
+
+    static final byte HEADER_MARKER = (byte) 0xCE;
+    static final byte FORMAT_VERSION = 1;
+    static final int HEADER_LENGTH = 3;
+    private static final int DEFAULT_CIPHER_POOL_CAPACITY = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final CipherSuiteRegistry cipherSuiteRegistry;
+    private final CipherSuite encryptingCipherSuite;
+    private final NonceGenerator nonceGenerator;
+    private final CipherPool[] cipherPoolsById;
+    private final CipherPool unversionedCipherPool;
+
+    /**
+     * @param cipherSuiteRegistry   cipher suites that values can be decrypted with
+     * @param encryptingCipherSuite registered cipher suite new values are encrypted with, or {@code null} to write values without a header
+     * @param nonceGenerator        source of the nonce of each encrypted value
+     */
+    public CipherSuiteEncrypterDecrypterFactory(CipherSuiteRegistry cipherSuiteRegistry,
+                                                CipherSuite encryptingCipherSuite,
+                                                NonceGenerator nonceGenerator) {
+        this(cipherSuiteRegistry, encryptingCipherSuite, nonceGenerator, DEFAULT_CIPHER_POOL_CAPACITY);
+    }
+
+    /**
+     * @param cipherSuiteRegistry   cipher suites that values can be decrypted with
+     * @param encryptingCipherSuite registered cipher suite new values are encrypted with, or {@code null} to write values without a header
+     * @param nonceGenerator        source of the nonce of each encrypted value
+     * @param cipherPoolCapacity    maximum number of idle ciphers retained for reuse per cipher suite
+     */
+    public CipherSuiteEncrypterDecrypterFactory(CipherSuiteRegistry cipherSuiteRegistry,
+                                                CipherSuite encryptingCipherSuite,
+                                                NonceGenerator nonceGenerator,
+                                                int cipherPoolCapacity) {
+        if (encryptingCipherSuite != null && cipherSuiteRegistry.findById(encryptingCipherSuite.getId()) != encryptingCipherSuite) {
+            throw new IllegalArgumentException("Cipher suite " + encryptingCipherSuite.getName() + " is not registered");
+        }
+        this.cipherSuiteRegistry = cipherSuiteRegistry;
+        this.encryptingCipherSuite = encryptingCipherSuite;
+        this.nonceGenerator = nonceGenerator;
+        this.cipherPoolsById = new CipherPool[256];
+        var cipherPoolsByTransformation = new HashMap<String, CipherPool>();
+        cipherSuiteRegistry.getCipherSuites().forEach(cipherSuite -> cipherPoolsById[cipherSuite.getId() & 0xFF] =
+            cipherPoolsByTransformation.computeIfAbsent(cipherSuite.getTransformation(), t -> new CipherPool(t, cipherPoolCapacity)));
+        this.unversionedCipherPool = cipherPoolsByTransformation.computeIfAbsent(DefaultAesEncrypter.CIPHER_ALGORITHM,
+            t -> new CipherPool(t, cipherPoolCapacity));
+    }
+
+    @Override
+    public Encrypter createEncrypter() {
+        return encryptingCipherSuite == null
+            ? new DefaultAesEncrypter(nonceGenerator, unversionedCipherPool)
+            : new CipherSuiteEncrypter(encryptingCipherSuite, cipherPoolsById[encryptingCipherSuite.getId() & 0xFF], nonceGenerator);
+    }
+
+    @Override
+    public Decrypter createDecrypter() {
+        return new CipherSuiteDecrypter(cipherSuiteRegistry, cipherPoolsById, new DefaultAesDecrypter(unversionedCipherPool));
+    }
+}
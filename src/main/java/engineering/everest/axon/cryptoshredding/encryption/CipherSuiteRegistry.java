@@ -0,0 +1,60 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The cipher suites that values can be encrypted and decrypted with, looked up by the identifier in the header of each value or by their
+ * configured name.
+ */
+public class CipherSuiteRegistry {
+
+    public static final CipherSuite AES_GCM = new AesGcmCipherSuite();
+    public static final CipherSuite CHACHA20_POLY1305 = new ChaCha20Poly1305CipherSuite();
+
+    private final List<CipherSuite> cipherSuites;
+    private final CipherSuite[] cipherSuitesById;
+
+    /**
+     * Create a registry of AES-GCM and ChaCha20-Poly1305.
+     */
+    public CipherSuiteRegistry() {
+        this(List.of(AES_GCM, CHACHA20_POLY1305));
+    }
+
+    public CipherSuiteRegistry(List<CipherSuite> cipherSuites) {
+        this.cipherSuites = List.copyOf(cipherSuites);
+        this.cipherSuitesById = new CipherSuite[256];
+        for (CipherSuite cipherSuite : cipherSuites) {
+            if (cipherSuitesById[cipherSuite.getId() & 0xFF] != null) {
+                throw new IllegalArgumentException("Cipher suites must have distinct identifiers");
+            }
+            cipherSuitesById[cipherSuite.getId() & 0xFF] = cipherSuite;
+        }
+    }
+
+    /**
+     * @return every registered cipher suite
+     */
+    public List<CipherSuite> getCipherSuites() {
+        return cipherSuites;
+    }
+
+    /**
+     * @param  id identifier from the header of an encrypted value
+     * @return    the cipher suite with the identifier, or {@code null} if none is registered
+     */
+    CipherSuite findById(byte id) {
+        return cipherSuitesById[id & 0xFF];
+    }
+
+    /**
+     * @param  name of a cipher suite, ignoring case
+     * @return      the cipher suite with the name, if registered
+     */
+    public Optional<CipherSuite> findByName(String name) {
+        return cipherSuites.stream()
+            .filter(cipherSuite -> cipherSuite.getName().equalsIgnoreCase(name))
+            .findFirst();
+    }
+}
@@ -0,0 +1,158 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static java.nio.charset.Charset.defaultCharset;
+
+/**
+ * Wraps the encrypters and decrypters of another factory so that cleartext is compressed before it is encrypted. Ciphertext is
+ * indistinguishable from random data, so values that are not compressed before encryption can no longer be compressed by the event store or
+ * on the network.
+ * <p>
+ * Cleartext shorter than the threshold, or that does not shrink, is encrypted as is. Compressed cleartext is prefixed with a header made of
+ * a {@code 0xFF} marker, the identifier of the codec and the length of the uncompressed cleartext. JSON, CBOR and Smile encoded values
+ * never start with {@code 0xFF}, so values encrypted without compression, including those written before compression was enabled, are
+ * decrypted unchanged. Decrypters therefore read compressed and uncompressed values alike, whether or not new values are compressed.
+ * <p>
+ * Compressing before encrypting reveals how well the cleartext compresses through the length of the ciphertext. This should not be enabled
+ * for fields mixing secrets with values an attacker can choose.
+ */
+public class CompressingEncrypterDecrypterFactory implements EncrypterDecrypterFactory {
+
+    static final byte COMPRESSED_MARKER = (byte) 0xFF;
+    static final int HEADER_LENGTH = 2 + Integer.BYTES;
+
+    private final EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private final CompressionCodec compressionCodec;
+    private final int thresholdBytes;
+    private final CompressionCodec[] codecsById;
+
+    /**
+     * @param encrypterDecrypterFactory creating the encrypters and decrypters to wrap
+     * @param compressionCodec          compressing cleartext before it is encrypted
+     * @param thresholdBytes            length of cleartext from which it is compressed, or {@link Integer#MAX_VALUE} to only decompress
+     */
+    public CompressingEncrypterDecrypterFactory(EncrypterDecrypterFactory encrypterDecrypterFactory,
+                                                CompressionCodec compressionCodec,
+                                                int thresholdBytes) {
+        this(encrypterDecrypterFactory, compressionCodec, thresholdBytes, List.of(new DeflateCompressionCodec()));
+    }
+
+    /**
+     * @param encrypterDecrypterFactory creating the encrypters and decrypters to wrap
+     * @param compressionCodec          compressing cleartext before it is encrypted
+     * @param thresholdBytes            length of cleartext from which it is compressed, or {@link Integer#MAX_VALUE} to only decompress
+     * @param previousCompressionCodecs decompressing values compressed by codecs used before, in addition to the compression codec
+     */
+    public CompressingEncrypterDecrypterFactory(EncrypterDecrypterFactory encrypterDecrypterFactory,
+                                                CompressionCodec compressionCodec,
+                                                int thresholdBytes,
+                                                List<CompressionCodec> previousCompressionCodecs) {
+        this.encrypterDecrypterFactory = encrypterDecrypterFactory;
+        this.compressionCodec = compressionCodec;
+        this.thresholdBytes = thresholdBytes;
+        this.codecsById = new CompressionCodec[256];
+        previousCompressionCodecs.forEach(codec -> codecsById[codec.getId() & 0xFF] = codec);
+        codecsById[compressionCodec.getId() & 0xFF] = compressionCodec;
+    }
+
+    @Override
+    public Encrypter createEncrypter() {
+        return new CompressingEncrypter(encrypterDecrypterFactory.createEncrypter());
+    }
+
+    @Override
+    public Decrypter createDecrypter() {
+        return new DecompressingDecrypter(encrypterDecrypterFactory.createDecrypter());
+    }
+
+    private class CompressingEncrypter implements Encrypter {
+        private final Encrypter encrypter;
+
+        CompressingEncrypter(Encrypter encrypter) {
+            this.encrypter = encrypter;
+        }
+
+        @Override
+        public byte[] encrypt(SecretKey secretKey, String cleartext) {
+            var cleartextBytes = cleartext.getBytes(defaultCharset());
+            return encrypt(secretKey, cleartextBytes, 0, cleartextBytes.length);
+        }
+
+        @Override
+        public byte[] encrypt(SecretKey secretKey, byte[] cleartext, int offset, int length) {
+            if (length < thresholdBytes) {
+                return encrypter.encrypt(secretKey, cleartext, offset, length);
+            }
+            var compressed = compressionCodec.compress(cleartext, offset, length);
+            if (HEADER_LENGTH + compressed.length >= length) {
+                return encrypter.encrypt(secretKey, cleartext, offset, length);
+            }
+            var compressedCleartext = ByteBuffer.allocate(HEADER_LENGTH + compressed.length)
+                .put(COMPRESSED_MARKER)
+                .put(compressionCodec.getId())
+                .putInt(length)
+                .put(compressed)
+                .array();
+            return encrypter.encrypt(secretKey, compressedCleartext, 0, compressedCleartext.length);
+        }
+
+        @Override
+        public byte[] encrypt(SecretKey secretKey, ByteBuffer cleartext) {
+            if (cleartext.remaining() < thresholdBytes) {
+                return encrypter.encrypt(secretKey, cleartext);
+            }
+            var cleartextBytes = new byte[cleartext.remaining()];
+            cleartext.get(cleartextBytes);
+            return encrypt(secretKey, cleartextBytes, 0, cleartextBytes.length);
+        }
+    }
+
+    private class DecompressingDecrypter implements Decrypter {
+        private final Decrypter decrypter;
+
+        DecompressingDecrypter(Decrypter decrypter) {
+            this.decrypter = decrypter;
+        }
+
+        @Override
+        public String decrypt(SecretKey secretKey, byte[] ciphertext) {
+            return new String(decrypt(secretKey, ciphertext, 0, ciphertext.length), defaultCharset());
+        }
+
+        @Override
+        public byte[] decrypt(SecretKey secretKey, byte[] ciphertext, int offset, int length) {
+            var cleartext = decrypter.decrypt(secretKey, ciphertext, offset, length);
+            if (cleartext.length < HEADER_LENGTH || cleartext[0] != COMPRESSED_MARKER) {
+                return cleartext;
+            }
+            var codec = codecsById[cleartext[1] & 0xFF];
+            if (codec == null) {
+                throw new IllegalStateException("No compression codec with identifier " + (cleartext[1] & 0xFF));
+            }
+            var decompressedLength = ByteBuffer.wrap(cleartext, 2, Integer.BYTES).getInt();
+            return codec.decompress(cleartext, HEADER_LENGTH, cleartext.length - HEADER_LENGTH, decompressedLength);
+        }
+
+        /**
+         * Decrypt into a caller supplied buffer. Decompressed cleartext can be far longer than its ciphertext, so the cleartext buffer must
+         * have room for the decompressed cleartext rather than just as many bytes remaining as the ciphertext.
+         *
+         * @throws IllegalArgumentException if the cleartext buffer has too few bytes remaining for the decompressed cleartext
+         */
+        @Override
+        public int decrypt(SecretKey secretKey, ByteBuffer ciphertext, ByteBuffer cleartext) {
+            var ciphertextBytes = new byte[ciphertext.remaining()];
+            ciphertext.get(ciphertextBytes);
+            var cleartextBytes = decrypt(secretKey, ciphertextBytes, 0, ciphertextBytes.length);
+            if (cleartextBytes.length > cleartext.remaining()) {
+                throw new IllegalArgumentException("Decompressed cleartext of " + cleartextBytes.length
+                    + " bytes does not fit in a buffer with " + cleartext.remaining() + " bytes remaining");
+            }
+            cleartext.put(cleartextBytes);
+            return cleartextBytes.length;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+/**
+ * Compresses cleartext before it is encrypted by a {@link CompressingEncrypterDecrypterFactory}. Each codec is identified by a byte written
+ * to the header of every value it compresses, so that values remain readable once an application moves to a different codec.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return identifier written to the header of each value compressed by this codec, unique among the codecs of an application
+     */
+    byte getId();
+
+    /**
+     * @param  cleartext array holding the cleartext
+     * @param  offset    of the cleartext within the array
+     * @param  length    of the cleartext
+     * @return           the compressed cleartext
+     */
+    byte[] compress(byte[] cleartext, int offset, int length);
+
+    /**
+     * @param  compressed         array holding the compressed cleartext
+     * @param  offset             of the compressed cleartext within the array
+     * @param  length             of the compressed cleartext
+     * @param  decompressedLength length of the cleartext before it was compressed
+     * @return                    the cleartext
+     */
+    byte[] decompress(byte[] compressed, int offset, int length, int decompressedLength);
+}
@@ -0,0 +1,50 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nonces made up of a four byte node prefix followed by an eight byte counter that is incremented for every nonce, so generating a nonce
+ * costs a single atomic increment.
+ * <p>
+ * The counter starts from a random value. Generators that share a prefix, including those of a restarted application instance, only produce
+ * the same nonce if their counter ranges happen to overlap. Giving each concurrently running application instance a distinct prefix rules
+ * out collisions between instances altogether.
+ */
+public class CounterNonceGenerator implements NonceGenerator {
+
+    static final int NONCE_LENGTH_BYTES = 12;
+
+    private final int nodePrefix;
+    private final AtomicLong counter;
+
+    /**
+     * Create a generator with a random node prefix.
+     */
+    public CounterNonceGenerator() {
+        this(new SecureRandom().nextInt());
+    }
+
+    /**
+     * @param nodePrefix identifies this application instance and should differ between concurrently running instances
+     */
+    public CounterNonceGenerator(int nodePrefix) {
+        this(nodePrefix, new SecureRandom().nextLong());
+    }
+
+    CounterNonceGenerator(int nodePrefix, long initialCounter) {
+        this.nodePrefix = nodePrefix;
+        this.counter = new AtomicLong(initialCounter);
+    }
+
+    @Override
+    public void nextNonce(byte[] nonce) {
+        if (nonce.length != NONCE_LENGTH_BYTES) {
+            throw new IllegalArgumentException("Counter nonces must be " + NONCE_LENGTH_BYTES + " bytes long");
+        }
+        ByteBuffer.wrap(nonce)
+            .putInt(nodePrefix)
+            .putLong(counter.getAndIncrement());
+    }
+}
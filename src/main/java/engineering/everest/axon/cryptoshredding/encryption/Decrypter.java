@@ -1,7 +1,50 @@
 package engineering.everest.axon.cryptoshredding.encryption;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public interface Decrypter {
+    /**
+     * @param  secretKey  to decrypt with
+     * @param  ciphertext as produced by an {@link Encrypter}
+     * @return            the cleartext, decoded with the platform's default charset
+     */
     String decrypt(SecretKey secretKey, byte[] ciphertext);
+
+    /**
+     * Decrypt ciphertext held in a slice of an array, without converting the cleartext to a string.
+     *
+     * @param  secretKey  to decrypt with
+     * @param  ciphertext array holding the ciphertext
+     * @param  offset     of the ciphertext within the array
+     * @param  length     of the ciphertext
+     * @return            the UTF-8 encoded cleartext
+     */
+    default byte[] decrypt(SecretKey secretKey, byte[] ciphertext, int offset, int length) {
+        var ciphertextSlice = offset == 0 && length == ciphertext.length
+            ? ciphertext
+            : Arrays.copyOfRange(ciphertext, offset, offset + length);
+        return decrypt(secretKey, ciphertextSlice).getBytes(UTF_8);
+    }
+
+    /**
+     * Decrypt the ciphertext remaining in a buffer into a caller supplied buffer. The ciphertext buffer's position is advanced to its limit
+     * and the cleartext buffer's position by the number of bytes written.
+     *
+     * @param  secretKey  to decrypt with
+     * @param  ciphertext buffer holding the ciphertext
+     * @param  cleartext  buffer receiving the UTF-8 encoded cleartext, with at least as many bytes remaining as the ciphertext, or as the
+     *                    decompressed cleartext for decrypters that decompress
+     * @return            the number of cleartext bytes written
+     */
+    default int decrypt(SecretKey secretKey, ByteBuffer ciphertext, ByteBuffer cleartext) {
+        var ciphertextBytes = new byte[ciphertext.remaining()];
+        ciphertext.get(ciphertextBytes);
+        var cleartextBytes = decrypt(secretKey, ciphertextBytes, 0, ciphertextBytes.length);
+        cleartext.put(cleartextBytes);
+        return cleartextBytes.length;
+    }
 }
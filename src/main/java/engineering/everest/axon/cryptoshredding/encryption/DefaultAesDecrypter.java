@@ -1,39 +1,78 @@
 package engineering.everest.axon.cryptoshredding.encryption;
 
 import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
+import static java.nio.charset.Charset.defaultCharset;
 import static javax.crypto.Cipher.DECRYPT_MODE;
 
 public class DefaultAesDecrypter implements Decrypter {
 
-    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
     private static final int INITIALIZATION_VECTOR_LENGTH_BYTES = 12;
     private static final int AUTHENTICATION_TAG_SIZE_BITS = 128;
 
-    private final SecureRandom secureRandom;
+    private final CipherPool cipherPool;
 
+    public DefaultAesDecrypter() {
+        this(new CipherPool(DefaultAesEncrypter.CIPHER_ALGORITHM, 1));
+    }
+
+    /**
+     * @param      secureRandom unused, as decryption takes its initialisation vector from the ciphertext
+     * @deprecated              use {@link #DefaultAesDecrypter()}
+     */
+    @Deprecated
     public DefaultAesDecrypter(SecureRandom secureRandom) {
-        this.secureRandom = secureRandom;
+        this();
+    }
+
+    /**
+     * @param cipherPool pool from which ciphers are borrowed for each decryption
+     */
+    public DefaultAesDecrypter(CipherPool cipherPool) {
+        this.cipherPool = cipherPool;
     }
 
     public String decrypt(SecretKey secretKey, byte[] initializationVectorAndCipherText) {
+        var cleartext = decrypt(secretKey, initializationVectorAndCipherText, 0, initializationVectorAndCipherText.length);
+        return new String(cleartext, defaultCharset());
+    }
+
+    @Override
+    public byte[] decrypt(SecretKey secretKey, byte[] initializationVectorAndCipherText, int offset, int length) {
+        var cipher = cipherPool.acquire();
+        try {
+            var parameterSpec = new GCMParameterSpec(AUTHENTICATION_TAG_SIZE_BITS, initializationVectorAndCipherText, offset,
+                INITIALIZATION_VECTOR_LENGTH_BYTES);
+            cipher.init(DECRYPT_MODE, secretKey, parameterSpec);
+            var cleartext = cipher.doFinal(initializationVectorAndCipherText, offset + INITIALIZATION_VECTOR_LENGTH_BYTES,
+                length - INITIALIZATION_VECTOR_LENGTH_BYTES);
+            cipherPool.release(cipher);
+            return cleartext;
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int decrypt(SecretKey secretKey, ByteBuffer initializationVectorAndCipherText, ByteBuffer cleartext) {
+        var cipher = cipherPool.acquire();
         try {
-            var cipher = Cipher.getInstance(CIPHER_ALGORITHM);
-            cipher.init(DECRYPT_MODE, secretKey, new GCMParameterSpec(AUTHENTICATION_TAG_SIZE_BITS, initializationVectorAndCipherText, 0,
-                INITIALIZATION_VECTOR_LENGTH_BYTES), secureRandom);
-            return new String(cipher.doFinal(initializationVectorAndCipherText, INITIALIZATION_VECTOR_LENGTH_BYTES,
-                initializationVectorAndCipherText.length - INITIALIZATION_VECTOR_LENGTH_BYTES));
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException
-                 | IllegalBlockSizeException | BadPaddingException e) {
+            byte[] initializationVector = new byte[INITIALIZATION_VECTOR_LENGTH_BYTES];
+            initializationVectorAndCipherText.get(initializationVector);
+            cipher.init(DECRYPT_MODE, secretKey, new GCMParameterSpec(AUTHENTICATION_TAG_SIZE_BITS, initializationVector));
+            var cleartextLength = cipher.doFinal(initializationVectorAndCipherText, cleartext);
+            cipherPool.release(cipher);
+            return cleartextLength;
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException
+                 | ShortBufferException e) {
             throw new RuntimeException(e);
         }
     }
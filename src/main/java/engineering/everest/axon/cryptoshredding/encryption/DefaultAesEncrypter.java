@@ -1,53 +1,67 @@
 package engineering.everest.axon.cryptoshredding.encryption;
 
 import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
 import static java.lang.System.arraycopy;
+import static java.nio.charset.Charset.defaultCharset;
 import static javax.crypto.Cipher.ENCRYPT_MODE;
 
 public class DefaultAesEncrypter implements Encrypter {
 
-    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
     private static final int INITIALIZATION_VECTOR_LENGTH_BYTES = 12;
     private static final int AUTHENTICATION_TAG_SIZE_BITS = 128;
 
-    private final SecureRandom secureRandom;
+    private final NonceGenerator nonceGenerator;
+    private final CipherPool cipherPool;
 
     public DefaultAesEncrypter(SecureRandom secureRandom) {
-        this.secureRandom = secureRandom;
+        this(secureRandom, new CipherPool(CIPHER_ALGORITHM, 1));
+    }
+
+    public DefaultAesEncrypter(SecureRandom secureRandom, CipherPool cipherPool) {
+        this(new SecureRandomNonceGenerator(secureRandom), cipherPool);
+    }
+
+    public DefaultAesEncrypter(NonceGenerator nonceGenerator, CipherPool cipherPool) {
+        this.nonceGenerator = nonceGenerator;
+        this.cipherPool = cipherPool;
     }
 
     public byte[] encrypt(SecretKey secretKey, String cleartext) {
+        return encrypt(secretKey, ByteBuffer.wrap(cleartext.getBytes(defaultCharset())));
+    }
+
+    @Override
+    public byte[] encrypt(SecretKey secretKey, ByteBuffer cleartext) {
+        var cipher = cipherPool.acquire();
         try {
-            var cipher = Cipher.getInstance(CIPHER_ALGORITHM);
             byte[] initializationVector = createInitializationVector();
-            cipher.init(ENCRYPT_MODE, secretKey, new GCMParameterSpec(AUTHENTICATION_TAG_SIZE_BITS, initializationVector), secureRandom);
-            return concatInitializationVectorAndCipherText(initializationVector, cipher.doFinal(cleartext.getBytes()));
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException
-                 | BadPaddingException | IllegalBlockSizeException e) {
+            cipher.init(ENCRYPT_MODE, secretKey, new GCMParameterSpec(AUTHENTICATION_TAG_SIZE_BITS, initializationVector));
+            byte[] initializationVectorAndCipherText =
+                new byte[INITIALIZATION_VECTOR_LENGTH_BYTES + cipher.getOutputSize(cleartext.remaining())];
+            arraycopy(initializationVector, 0, initializationVectorAndCipherText, 0, INITIALIZATION_VECTOR_LENGTH_BYTES);
+            cipher.doFinal(cleartext, ByteBuffer.wrap(initializationVectorAndCipherText, INITIALIZATION_VECTOR_LENGTH_BYTES,
+                initializationVectorAndCipherText.length - INITIALIZATION_VECTOR_LENGTH_BYTES));
+            cipherPool.release(cipher);
+            return initializationVectorAndCipherText;
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException | BadPaddingException | IllegalBlockSizeException
+                 | ShortBufferException e) {
             throw new RuntimeException(e);
         }
     }
 
     private byte[] createInitializationVector() {
         byte[] initializationVector = new byte[INITIALIZATION_VECTOR_LENGTH_BYTES];
-        secureRandom.nextBytes(initializationVector);
+        nonceGenerator.nextNonce(initializationVector);
         return initializationVector;
     }
-
-    private byte[] concatInitializationVectorAndCipherText(byte[] initializationVector, byte[] cipherText) {
-        byte[] initializationVectorWithCipherText = new byte[initializationVector.length + cipherText.length];
-        arraycopy(initializationVector, 0, initializationVectorWithCipherText, 0, INITIALIZATION_VECTOR_LENGTH_BYTES);
-        arraycopy(cipherText, 0, initializationVectorWithCipherText, initializationVector.length, cipherText.length);
-        return initializationVectorWithCipherText;
-    }
 }
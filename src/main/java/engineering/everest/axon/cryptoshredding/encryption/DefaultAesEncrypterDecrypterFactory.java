@@ -1,20 +1,48 @@
 package engineering.everest.axon.cryptoshredding.encryption;
 
-import java.security.SecureRandom;
-
+/**
+ * Creates AES-GCM encrypters and decrypters that share a {@link CipherPool} and a {@link NonceGenerator}. Nonces are drawn from per thread
+ * DRBGs by default, avoiding contention on a single {@code SecureRandom} when many threads encrypt at once.
+ */
 public class DefaultAesEncrypterDecrypterFactory implements EncrypterDecrypterFactory {
 
-    private final SecureRandom secureRandom;
+    private static final int DEFAULT_CIPHER_POOL_CAPACITY = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final NonceGenerator nonceGenerator;
+    private final CipherPool cipherPool;
 
     public DefaultAesEncrypterDecrypterFactory() {
-        this.secureRandom = new SecureRandom();
+        this(DEFAULT_CIPHER_POOL_CAPACITY);
+    }
+
+    /**
+     * @param nonceGenerator source of the initialisation vector of each encrypted value
+     */
+    public DefaultAesEncrypterDecrypterFactory(NonceGenerator nonceGenerator) {
+        this(DEFAULT_CIPHER_POOL_CAPACITY, nonceGenerator);
+    }
+
+    /**
+     * @param cipherPoolCapacity maximum number of idle ciphers retained for reuse by the encrypters and decrypters of this factory
+     */
+    public DefaultAesEncrypterDecrypterFactory(int cipherPoolCapacity) {
+        this(cipherPoolCapacity, new ThreadLocalDrbgNonceGenerator());
+    }
+
+    /**
+     * @param cipherPoolCapacity maximum number of idle ciphers retained for reuse by the encrypters and decrypters of this factory
+     * @param nonceGenerator     source of the initialisation vector of each encrypted value
+     */
+    public DefaultAesEncrypterDecrypterFactory(int cipherPoolCapacity, NonceGenerator nonceGenerator) {
+        this.nonceGenerator = nonceGenerator;
+        this.cipherPool = new CipherPool(DefaultAesEncrypter.CIPHER_ALGORITHM, cipherPoolCapacity);
     }
 
     public Encrypter createEncrypter() {
-        return new DefaultAesEncrypter(secureRandom);
+        return new DefaultAesEncrypter(nonceGenerator, cipherPool);
     }
 
     public Decrypter createDecrypter() {
-        return new DefaultAesDecrypter(secureRandom);
+        return new DefaultAesDecrypter(cipherPool);
     }
 }
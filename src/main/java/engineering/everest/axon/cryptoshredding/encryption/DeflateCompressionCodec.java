@@ -0,0 +1,76 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses cleartext as raw Deflate data, without the zlib header and checksum, which the authentication tag of the ciphertext makes
+ * redundant.
+ */
+public class DeflateCompressionCodec implements CompressionCodec {
+
+    static final byte ID = 1;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+
+    public DeflateCompressionCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param level Deflate compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     */
+    public DeflateCompressionCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] cleartext, int offset, int length) {
+        var deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(cleartext, offset, length);
+            deflater.finish();
+            var compressed = new ByteArrayOutputStream(Math.min(length, BUFFER_SIZE));
+            var buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] compressed, int offset, int length, int decompressedLength) {
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, offset, length);
+            var cleartext = new byte[decompressedLength];
+            var inflated = 0;
+            while (inflated < decompressedLength && !inflater.finished()) {
+                var inflatedBytes = inflater.inflate(cleartext, inflated, decompressedLength - inflated);
+                if (inflatedBytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += inflatedBytes;
+            }
+            if (inflated != decompressedLength) {
+                throw new IllegalStateException("Compressed cleartext is truncated");
+            }
+            return cleartext;
+        } catch (DataFormatException e) {
+            throw new RuntimeException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
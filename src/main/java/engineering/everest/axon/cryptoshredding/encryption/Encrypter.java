@@ -1,7 +1,40 @@
 package engineering.everest.axon.cryptoshredding.encryption;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public interface Encrypter {
+    /**
+     * @param  secretKey to encrypt with
+     * @param  cleartext encrypted in its encoded form in the platform's default charset
+     * @return           the ciphertext
+     */
     byte[] encrypt(SecretKey secretKey, String cleartext);
+
+    /**
+     * Encrypt UTF-8 encoded cleartext held in a slice of an array, without first converting it to a string.
+     *
+     * @param  secretKey to encrypt with
+     * @param  cleartext array holding the UTF-8 encoded cleartext
+     * @param  offset    of the cleartext within the array
+     * @param  length    of the cleartext
+     * @return           the ciphertext
+     */
+    default byte[] encrypt(SecretKey secretKey, byte[] cleartext, int offset, int length) {
+        return encrypt(secretKey, ByteBuffer.wrap(cleartext, offset, length));
+    }
+
+    /**
+     * Encrypt the UTF-8 encoded cleartext remaining in a buffer, without first converting it to a string. The buffer's position is advanced
+     * to its limit.
+     *
+     * @param  secretKey to encrypt with
+     * @param  cleartext buffer holding the UTF-8 encoded cleartext
+     * @return           the ciphertext
+     */
+    default byte[] encrypt(SecretKey secretKey, ByteBuffer cleartext) {
+        return encrypt(secretKey, UTF_8.decode(cleartext).toString());
+    }
 }
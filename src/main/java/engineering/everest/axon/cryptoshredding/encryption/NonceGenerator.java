@@ -0,0 +1,15 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+/**
+ * Source of the initialisation vectors (nonces) used by {@link DefaultAesEncrypter} and the cipher suites of
+ * {@link CipherSuiteEncrypterDecrypterFactory}. AES-GCM and ChaCha20-Poly1305 require that a nonce is never reused with the same key.
+ * Secret keys are shared by every application instance and outlive restarts, so nonces must remain unique across all of them.
+ * Implementations must be safe for concurrent use.
+ */
+public interface NonceGenerator {
+
+    /**
+     * @param nonce buffer to be filled with a new nonce
+     */
+    void nextNonce(byte[] nonce);
+}
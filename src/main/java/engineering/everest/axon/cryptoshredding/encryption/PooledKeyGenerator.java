@@ -0,0 +1,98 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Key generator that hands out keys generated ahead of time by a wrapped generator, taking key generation off the path of commands that
+ * create a secret key. A background thread tops the pool up whenever a key is taken. Should the pool run dry, keys are generated on the
+ * calling thread instead, so callers never wait for the pool.
+ * <p>
+ * Pooled keys are held in memory until used. Closing the generator stops the background thread.
+ */
+@Slf4j
+public class PooledKeyGenerator implements KeyGenerator, AutoCloseable {
+
+    private final KeyGenerator keyGenerator;
+    private final BlockingQueue<SecretKey> pooledKeys;
+    private final Executor refillExecutor;
+    private final AtomicBoolean refillScheduled;
+    private volatile boolean closed;
+
+    /**
+     * @param keyGenerator generates the pooled keys
+     * @param poolSize     maximum number of keys generated ahead of time, at least one
+     */
+    public PooledKeyGenerator(KeyGenerator keyGenerator, int poolSize) {
+        this(keyGenerator, poolSize, Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "crypto-shredding-key-pool");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    PooledKeyGenerator(KeyGenerator keyGenerator, int poolSize, Executor refillExecutor) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Key pool size must be at least 1, was " + poolSize);
+        }
+        this.keyGenerator = keyGenerator;
+        this.pooledKeys = new ArrayBlockingQueue<>(poolSize);
+        this.refillExecutor = refillExecutor;
+        this.refillScheduled = new AtomicBoolean();
+        scheduleRefill();
+    }
+
+    @Override
+    public SecretKey generateKey() {
+        var secretKey = pooledKeys.poll();
+        scheduleRefill();
+        if (secretKey == null) {
+            LOGGER.debug("Key pool is empty, generating key on calling thread");
+            return keyGenerator.generateKey();
+        }
+        return secretKey;
+    }
+
+    /**
+     * @return the number of keys currently pooled
+     */
+    public int size() {
+        return pooledKeys.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pooledKeys.clear();
+        if (refillExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void scheduleRefill() {
+        if (!closed && pooledKeys.remainingCapacity() > 0 && refillScheduled.compareAndSet(false, true)) {
+            refillExecutor.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (!closed && pooledKeys.remainingCapacity() > 0) {
+                pooledKeys.offer(keyGenerator.generateKey());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to refill key pool, keys will be generated on demand until it is next refilled", e);
+            refillScheduled.set(false);
+            return;
+        }
+        refillScheduled.set(false);
+        scheduleRefill();
+    }
+}
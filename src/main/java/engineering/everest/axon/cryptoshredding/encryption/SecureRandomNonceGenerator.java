@@ -0,0 +1,21 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.security.SecureRandom;
+
+/**
+ * Random nonces drawn from a single {@link SecureRandom}. Concurrent callers serialise on the shared instance, so this generator is best
+ * suited to low encryption rates.
+ */
+public class SecureRandomNonceGenerator implements NonceGenerator {
+
+    private final SecureRandom secureRandom;
+
+    public SecureRandomNonceGenerator(SecureRandom secureRandom) {
+        this.secureRandom = secureRandom;
+    }
+
+    @Override
+    public void nextNonce(byte[] nonce) {
+        secureRandom.nextBytes(nonce);
+    }
+}
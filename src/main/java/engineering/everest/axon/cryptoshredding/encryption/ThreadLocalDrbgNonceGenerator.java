@@ -0,0 +1,29 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Random nonces drawn from a DRBG owned by the calling thread, so concurrent encryptions never contend on a shared {@link SecureRandom}.
+ * Each DRBG is seeded from the platform's entropy source the first time its thread generates a nonce. Seeding is comparatively expensive,
+ * so {@link CounterNonceGenerator} is a better fit when encrypting from many short lived threads, such as virtual threads.
+ */
+public class ThreadLocalDrbgNonceGenerator implements NonceGenerator {
+
+    private static final String DRBG_ALGORITHM = "DRBG";
+
+    private final ThreadLocal<SecureRandom> drbgs = ThreadLocal.withInitial(ThreadLocalDrbgNonceGenerator::createDrbg);
+
+    @Override
+    public void nextNonce(byte[] nonce) {
+        drbgs.get().nextBytes(nonce);
+    }
+
+    private static SecureRandom createDrbg() {
+        try {
+            return SecureRandom.getInstance(DRBG_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
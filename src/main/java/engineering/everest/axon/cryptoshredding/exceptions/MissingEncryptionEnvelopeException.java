@@ -0,0 +1,9 @@
+package engineering.everest.axon.cryptoshredding.exceptions;
+
+public class MissingEncryptionEnvelopeException extends RuntimeException {
+
+    public MissingEncryptionEnvelopeException(String payloadType, String fieldTag) {
+        super(String.format("Missing the encryption envelope for tag '%s' in a serialized '%s' that has encryption envelopes.",
+            fieldTag, payloadType));
+    }
+}
@@ -0,0 +1,176 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Secret key repository that coalesces single key lookups made concurrently by different threads into one {@link #findAllById} call on the
+ * wrapped repository. Every other operation is passed straight through.
+ * <p>
+ * The first thread to look up a key opens a batch and, when other lookups are in flight, waits for up to the batching window for other
+ * threads to add their lookups to it, or until the batch is full, before querying the wrapped repository on behalf of all of them. Lookups
+ * made while others are in flight therefore take up to the batching window longer, in exchange for far fewer queries when many event
+ * processor threads read keys at the same time. A lookup made while no other is in flight is queried straight away. No background threads
+ * are involved.
+ */
+@Slf4j
+public class BatchingSecretKeyRepository implements SecretKeyRepository {
+
+    private final SecretKeyRepository secretKeyRepository;
+    private final long batchingWindowNanos;
+    private final int maximumBatchSize;
+    private final ReentrantLock lock;
+    private final Condition batchClosed;
+    private final AtomicInteger lookupsInFlight;
+    private Batch openBatch;
+
+    /**
+     * @param secretKeyRepository repository to look keys up in
+     * @param batchingWindow      how long the first lookup of a batch waits for further lookups
+     * @param maximumBatchSize    number of keys after which a batch is looked up without waiting any longer
+     */
+    public BatchingSecretKeyRepository(SecretKeyRepository secretKeyRepository, Duration batchingWindow, int maximumBatchSize) {
+        this.secretKeyRepository = secretKeyRepository;
+        this.batchingWindowNanos = batchingWindow.toNanos();
+        this.maximumBatchSize = Math.max(maximumBatchSize, 1);
+        this.lock = new ReentrantLock();
+        this.batchClosed = lock.newCondition();
+        this.lookupsInFlight = new AtomicInteger();
+    }
+
+    @Override
+    public PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        return secretKeyRepository.create(keyId, key);
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> createIfAbsent(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        return secretKeyRepository.createIfAbsent(keyId, key);
+    }
+
+    @Override
+    public List<PersistableSecretKey> createAll(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        return secretKeyRepository.createAll(keys);
+    }
+
+    @Override
+    public Map<TypeDifferentiatedSecretKeyId, PersistableSecretKey> createAllIfAbsent(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        return secretKeyRepository.createAllIfAbsent(keys);
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+        lookupsInFlight.incrementAndGet();
+        try {
+            Batch batch;
+            CompletableFuture<PersistableSecretKey> lookup;
+            boolean leader;
+            lock.lock();
+            try {
+                leader = openBatch == null;
+                if (leader) {
+                    openBatch = new Batch();
+                }
+                batch = openBatch;
+                lookup = batch.lookups.computeIfAbsent(keyId, id -> new CompletableFuture<>());
+                if (batch.lookups.size() >= maximumBatchSize) {
+                    openBatch = null;
+                    batchClosed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (leader) {
+                awaitBatch(batch);
+                lookUp(batch);
+            }
+            return Optional.ofNullable(awaitLookup(lookup))
+                .map(persistableSecretKey -> new PersistableSecretKey(persistableSecretKey.getId(), persistableSecretKey.getKey(),
+                    persistableSecretKey.getAlgorithm()));
+        } finally {
+            lookupsInFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public List<PersistableSecretKey> findAllById(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        return secretKeyRepository.findAllById(keyIds);
+    }
+
+    @Override
+    public Set<TypeDifferentiatedSecretKeyId> shredAll(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        return secretKeyRepository.shredAll(keyIds);
+    }
+
+    @Override
+    public Stream<TypeDifferentiatedSecretKeyId> streamShreddedKeyIds() {
+        return secretKeyRepository.streamShreddedKeyIds();
+    }
+
+    @Override
+    public PersistableSecretKey save(PersistableSecretKey key) {
+        return secretKeyRepository.save(key);
+    }
+
+    private void awaitBatch(Batch batch) {
+        lock.lock();
+        try {
+            if (lookupsInFlight.get() > 1) {
+                var remainingNanos = batchingWindowNanos;
+                while (openBatch == batch && remainingNanos > 0) {
+                    remainingNanos = batchClosed.awaitNanos(remainingNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (openBatch == batch) {
+                openBatch = null;
+            }
+            lock.unlock();
+        }
+    }
+
+    private void lookUp(Batch batch) {
+        try {
+            var persistableSecretKeys = new HashMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey>();
+            secretKeyRepository.findAllById(batch.lookups.keySet())
+                .forEach(persistableSecretKey -> persistableSecretKeys.put(persistableSecretKey.getId(), persistableSecretKey));
+            LOGGER.trace("Looked up batch of {} crypto shredding keys", batch.lookups.size());
+            batch.lookups.forEach((keyId, lookup) -> lookup.complete(persistableSecretKeys.get(keyId)));
+        } catch (RuntimeException | Error e) {
+            batch.lookups.values().forEach(lookup -> lookup.completeExceptionally(e));
+        }
+    }
+
+    private static PersistableSecretKey awaitLookup(CompletableFuture<PersistableSecretKey> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class Batch {
+        private final Map<TypeDifferentiatedSecretKeyId, CompletableFuture<PersistableSecretKey>> lookups = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,359 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.crypto.SecretKey;
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Secret key repository for PostgreSQL using plain JDBC, avoiding the entity management overhead of JPA on the path of every encrypted
+ * field read. Keys are stored in a {@code bytea} column inline with the rest of the row, rather than as separately stored large objects.
+ * <p>
+ * Every operation is a single statement whose text does not depend on the number of keys involved, so the PostgreSQL driver reuses its
+ * server side prepared statements on each pooled connection. Lookups and shredding of several keys pass their identifiers as arrays. Keys
+ * are created idempotently with {@code INSERT ... ON CONFLICT DO NOTHING}.
+ * <p>
+ * Connections are obtained through Spring's {@link DataSourceUtils}, so statements take part in any transaction managed by Spring,
+ * including that of an Axon unit of work.
+ */
+public class JdbcSecretKeyRepository implements SecretKeyRepository {
+
+    public static final String DEFAULT_TABLE_NAME = "cryptoshreddingkeys";
+    private static final int SHREDDED_KEY_ID_FETCH_SIZE = 10_000;
+    private static final Pattern TABLE_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+
+    private final DataSource dataSource;
+    private final String createTableSql;
+    private final String insertSql;
+    private final String insertIfAbsentSql;
+    private final String upsertSql;
+    private final String selectByIdSql;
+    private final String selectByIdsSql;
+    private final String selectShreddedKeyIdsSql;
+    private final String shredByIdsSql;
+
+    public JdbcSecretKeyRepository(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE_NAME);
+    }
+
+    /**
+     * @param dataSource for the PostgreSQL database holding the keys
+     * @param tableName  of the table holding the keys, optionally qualified by its schema
+     */
+    public JdbcSecretKeyRepository(DataSource dataSource, String tableName) {
+        if (tableName == null || !TABLE_NAME_PATTERN.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("Invalid secret key table name: " + tableName);
+        }
+        this.dataSource = dataSource;
+        this.createTableSql = "CREATE TABLE IF NOT EXISTS " + tableName + " (key_id VARCHAR(255) NOT NULL, key_type VARCHAR(255) NOT NULL, "
+            + "key BYTEA, algorithm VARCHAR(255), PRIMARY KEY (key_id, key_type))";
+        this.insertSql = "INSERT INTO " + tableName + " (key_id, key_type, key, algorithm) VALUES (?, ?, ?, ?)";
+        this.insertIfAbsentSql = insertSql + " ON CONFLICT (key_id, key_type) DO NOTHING";
+        this.upsertSql = insertSql + " ON CONFLICT (key_id, key_type) DO UPDATE SET key = EXCLUDED.key, algorithm = EXCLUDED.algorithm";
+        this.selectByIdSql = "SELECT key_id, key_type, key, algorithm FROM " + tableName + " WHERE key_id = ? AND key_type = ?";
+        this.selectByIdsSql = "SELECT key_id, key_type, key, algorithm FROM " + tableName
+            + " WHERE (key_id, key_type) IN (SELECT * FROM unnest(?::varchar[], ?::varchar[]))";
+        this.selectShreddedKeyIdsSql = "SELECT key_id, key_type FROM " + tableName + " WHERE key IS NULL";
+        this.shredByIdsSql = "UPDATE " + tableName + " SET key = NULL, algorithm = NULL"
+            + " WHERE (key_id, key_type) IN (SELECT * FROM unnest(?::varchar[], ?::varchar[])) RETURNING key_id, key_type";
+    }
+
+    /**
+     * Create the key table unless it already exists. Applications managing their schema through migrations can use the statement executed
+     * here as a starting point.
+     */
+    public void createTableIfNotExists() {
+        withConnection(connection -> {
+            try (var statement = connection.createStatement()) {
+                return statement.execute(createTableSql);
+            }
+        });
+    }
+
+    @Override
+    public PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        var persistableSecretKey = new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm());
+        withConnection(connection -> {
+            try (var statement = connection.prepareStatement(insertSql)) {
+                bindSecretKey(statement, persistableSecretKey);
+                return statement.executeUpdate();
+            }
+        });
+        return persistableSecretKey;
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> createIfAbsent(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        int insertedRows = withConnection(connection -> {
+            try (var statement = connection.prepareStatement(insertIfAbsentSql)) {
+                bindSecretKey(statement, new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm()));
+                return statement.executeUpdate();
+            }
+        });
+        if (insertedRows == 1) {
+            return Optional.empty();
+        }
+        var existingKey = findById(keyId);
+        if (existingKey.isEmpty()) {
+            throw new IllegalStateException("Crypto shredding key " + keyId + " neither created nor found");
+        }
+        return existingKey;
+    }
+
+    @Override
+    public List<PersistableSecretKey> createAll(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        var persistableSecretKeys = keys.entrySet().stream()
+            .map(entry -> new PersistableSecretKey(entry.getKey(), entry.getValue().getEncoded(), entry.getValue().getAlgorithm()))
+            .toList();
+        if (persistableSecretKeys.isEmpty()) {
+            return persistableSecretKeys;
+        }
+        withConnection(connection -> {
+            try (var statement = connection.prepareStatement(insertSql)) {
+                for (PersistableSecretKey persistableSecretKey : persistableSecretKeys) {
+                    bindSecretKey(statement, persistableSecretKey);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+        return persistableSecretKeys;
+    }
+
+    @Override
+    public Map<TypeDifferentiatedSecretKeyId, PersistableSecretKey> createAllIfAbsent(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        var persistableSecretKeys = keys.entrySet().stream()
+            .map(entry -> new PersistableSecretKey(entry.getKey(), entry.getValue().getEncoded(), entry.getValue().getAlgorithm()))
+            .toList();
+        int[] insertedRows = withConnection(connection -> {
+            try (var statement = connection.prepareStatement(insertIfAbsentSql)) {
+                for (PersistableSecretKey persistableSecretKey : persistableSecretKeys) {
+                    bindSecretKey(statement, persistableSecretKey);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+        // Drivers rewriting batched inserts do not report which rows were inserted, so those keys are read back as well
+        var unconfirmedKeyIds = new HashSet<TypeDifferentiatedSecretKeyId>();
+        for (int i = 0; i < persistableSecretKeys.size(); i++) {
+            if (insertedRows[i] != 1) {
+                unconfirmedKeyIds.add(persistableSecretKeys.get(i).getId());
+            }
+        }
+        var existingKeys = new HashMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey>();
+        findAllById(unconfirmedKeyIds).forEach(storedKey -> {
+            unconfirmedKeyIds.remove(storedKey.getId());
+            if (!Arrays.equals(storedKey.getKey(), keys.get(storedKey.getId()).getEncoded())) {
+                existingKeys.put(storedKey.getId(), storedKey);
+            }
+        });
+        unconfirmedKeyIds.stream().findFirst().ifPresent(keyId -> {
+            throw new IllegalStateException("Crypto shredding key " + keyId + " neither created nor found");
+        });
+        return existingKeys;
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+        return withConnection(connection -> {
+            try (var statement = connection.prepareStatement(selectByIdSql)) {
+                statement.setString(1, keyId.getKeyId());
+                statement.setString(2, keyId.getKeyType());
+                try (var resultSet = statement.executeQuery()) {
+                    return resultSet.next()
+                        ? Optional.of(readSecretKey(resultSet))
+                        : Optional.empty();
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<PersistableSecretKey> findAllById(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        if (keyIds.isEmpty()) {
+            return List.of();
+        }
+        return withConnection(connection -> {
+            try (var statement = connection.prepareStatement(selectByIdsSql)) {
+                bindKeyIds(connection, statement, keyIds);
+                try (var resultSet = statement.executeQuery()) {
+                    var persistableSecretKeys = new ArrayList<PersistableSecretKey>(keyIds.size());
+                    while (resultSet.next()) {
+                        persistableSecretKeys.add(readSecretKey(resultSet));
+                    }
+                    return persistableSecretKeys;
+                }
+            }
+        });
+    }
+
+    @Override
+    public Set<TypeDifferentiatedSecretKeyId> shredAll(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        if (keyIds.isEmpty()) {
+            return Set.of();
+        }
+        return withConnection(connection -> {
+            try (var statement = connection.prepareStatement(shredByIdsSql)) {
+                bindKeyIds(connection, statement, keyIds);
+                try (var resultSet = statement.executeQuery()) {
+                    var shreddedKeyIds = new HashSet<TypeDifferentiatedSecretKeyId>();
+                    while (resultSet.next()) {
+                        shreddedKeyIds.add(readKeyId(resultSet));
+                    }
+                    return shreddedKeyIds;
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Outside of a transaction the identifiers are read through a cursor in a short lived transaction of their own, so that they are
+     * streamed rather than loaded into memory all at once.
+     */
+    @Override
+    public Stream<TypeDifferentiatedSecretKeyId> streamShreddedKeyIds() {
+        var connection = DataSourceUtils.getConnection(dataSource);
+        var ownTransaction = false;
+        PreparedStatement statement = null;
+        try {
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                ownTransaction = true;
+            }
+            statement = connection.prepareStatement(selectShreddedKeyIdsSql);
+            statement.setFetchSize(SHREDDED_KEY_ID_FETCH_SIZE);
+            var resultSet = statement.executeQuery();
+            var shreddedKeyIds = new Spliterators.AbstractSpliterator<TypeDifferentiatedSecretKeyId>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super TypeDifferentiatedSecretKeyId> action) {
+                    try {
+                        if (!resultSet.next()) {
+                            return false;
+                        }
+                        action.accept(readKeyId(resultSet));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            var openedStatement = statement;
+            var openedOwnTransaction = ownTransaction;
+            return StreamSupport.stream(shreddedKeyIds, false)
+                .onClose(() -> closeStream(connection, openedStatement, openedOwnTransaction));
+        } catch (SQLException e) {
+            abortStream(connection, statement, ownTransaction, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public PersistableSecretKey save(PersistableSecretKey key) {
+        withConnection(connection -> {
+            try (var statement = connection.prepareStatement(upsertSql)) {
+                bindSecretKey(statement, key);
+                return statement.executeUpdate();
+            }
+        });
+        return key;
+    }
+
+    private void closeStream(Connection connection, PreparedStatement statement, boolean ownTransaction) {
+        try {
+            statement.close();
+            if (ownTransaction) {
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void abortStream(Connection connection, PreparedStatement statement, boolean ownTransaction, SQLException cause) {
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+            if (ownTransaction) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private <T> T withConnection(SqlFunction<Connection, T> function) {
+        var connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return function.apply(connection);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void bindSecretKey(PreparedStatement statement, PersistableSecretKey persistableSecretKey) throws SQLException {
+        statement.setString(1, persistableSecretKey.getId().getKeyId());
+        statement.setString(2, persistableSecretKey.getId().getKeyType());
+        statement.setBytes(3, persistableSecretKey.getKey());
+        statement.setString(4, persistableSecretKey.getAlgorithm());
+    }
+
+    private static void bindKeyIds(Connection connection, PreparedStatement statement, Collection<TypeDifferentiatedSecretKeyId> keyIds)
+        throws SQLException {
+        statement.setArray(1, toVarcharArray(connection, keyIds.stream().map(TypeDifferentiatedSecretKeyId::getKeyId).toArray()));
+        statement.setArray(2, toVarcharArray(connection, keyIds.stream().map(TypeDifferentiatedSecretKeyId::getKeyType).toArray()));
+    }
+
+    private static Array toVarcharArray(Connection connection, Object[] values) throws SQLException {
+        return connection.createArrayOf("varchar", values);
+    }
+
+    private static PersistableSecretKey readSecretKey(ResultSet resultSet) throws SQLException {
+        return new PersistableSecretKey(readKeyId(resultSet), resultSet.getBytes("key"), resultSet.getString("algorithm"));
+    }
+
+    private static TypeDifferentiatedSecretKeyId readKeyId(ResultSet resultSet) throws SQLException {
+        return new TypeDifferentiatedSecretKeyId(resultSet.getString("key_id"), resultSet.getString("key_type"));
+    }
+
+    @FunctionalInterface
+    private interface SqlFunction<T, R> {
+        R apply(T argument) throws SQLException;
+    }
+}
@@ -0,0 +1,453 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Secret key repository keeping keys in a local, memory mapped, append-only file, for single node deployments that have no database to hold
+ * their keys. An in-memory index maps each key identifier to the offset of its latest record, so lookups read the key straight from the
+ * mapped file without any I/O.
+ * <p>
+ * Each record is written in full and flushed to disk before it is indexed. Shredding a key appends a tombstone record and then overwrites
+ * the key bytes of the original record in place. Opening the file replays its records to rebuild the index, discarding a record left
+ * incomplete by a crash at the end of the file and finishing any shredding that was interrupted.
+ * <p>
+ * Superseded records are dropped by compaction, which rewrites the live records to a new file that then replaces the old one. Compaction
+ * runs in the background once more than half of the file is taken up by superseded records.
+ * <p>
+ * Lookups are lock free. Writes, including compaction, are serialised. Files are limited to 2 GiB.
+ */
+@Slf4j
+public class MappedFileSecretKeyRepository implements SecretKeyRepository, AutoCloseable {
+
+    static final int MAGIC = 0x43534B31;
+    static final int HEADER_SIZE = 8;
+    static final byte KEY_RECORD = 1;
+    static final byte SHREDDED_KEY_RECORD = 2;
+    static final byte TOMBSTONE_RECORD = 3;
+    private static final int DEFAULT_INITIAL_CAPACITY = 1 << 20;
+    private static final int MINIMUM_COMPACTION_SIZE = 1 << 16;
+    private static final int ABSENT = -1;
+
+    private final Path path;
+    private final int initialCapacity;
+    private final ExecutorService compactionExecutor;
+    private FileChannel channel;
+    private volatile MappedFile mappedFile;
+    private int writePosition;
+    private long supersededBytes;
+    private boolean compactionScheduled;
+    private boolean closed;
+
+    public MappedFileSecretKeyRepository(Path path) {
+        this(path, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param path            of the key file, which is created if it does not exist
+     * @param initialCapacity size in bytes the file is created with, after which it doubles in size whenever it fills up
+     */
+    public MappedFileSecretKeyRepository(Path path, int initialCapacity) {
+        this.path = path;
+        this.initialCapacity = Math.max(initialCapacity, HEADER_SIZE + 4);
+        this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "crypto-shredding-key-file-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+            var buffer = channel.map(READ_WRITE, 0, Math.max(channel.size(), this.initialCapacity));
+            if (buffer.getInt(0) == 0) {
+                buffer.putInt(0, MAGIC);
+                buffer.force(0, HEADER_SIZE);
+            } else if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalStateException(path + " is not a crypto shredding key file");
+            }
+            this.mappedFile = new MappedFile(buffer, new ConcurrentHashMap<>());
+            replay();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        if (mappedFile.offsets.containsKey(keyId)) {
+            throw new IllegalStateException("Crypto shredding key " + keyId + " already exists");
+        }
+        var persistableSecretKey = new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm());
+        appendAndIndex(persistableSecretKey);
+        return persistableSecretKey;
+    }
+
+    @Override
+    public synchronized Optional<PersistableSecretKey> createIfAbsent(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        var existingKey = findById(keyId);
+        if (existingKey.isEmpty()) {
+            appendAndIndex(new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm()));
+        }
+        return existingKey;
+    }
+
+    @Override
+    public synchronized List<PersistableSecretKey> createAll(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        keys.keySet().stream()
+            .filter(mappedFile.offsets::containsKey)
+            .findFirst()
+            .ifPresent(keyId -> {
+                throw new IllegalStateException("Crypto shredding key " + keyId + " already exists");
+            });
+        var persistableSecretKeys = keys.entrySet().stream()
+            .map(entry -> new PersistableSecretKey(entry.getKey(), entry.getValue().getEncoded(), entry.getValue().getAlgorithm()))
+            .toList();
+        persistableSecretKeys.forEach(this::appendAndIndex);
+        return persistableSecretKeys;
+    }
+
+    @Override
+    public synchronized Map<TypeDifferentiatedSecretKeyId, PersistableSecretKey> createAllIfAbsent(
+        Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        var existingKeys = new HashMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey>();
+        keys.forEach((keyId, key) -> createIfAbsent(keyId, key).ifPresent(existingKey -> existingKeys.put(keyId, existingKey)));
+        return existingKeys;
+    }
+
+    @Override
+    public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+        while (true) {
+            var currentMappedFile = mappedFile;
+            var offset = currentMappedFile.offsets.getOrDefault(keyId, ABSENT);
+            if (offset == ABSENT) {
+                return Optional.empty();
+            }
+            // Records appended after the file was remapped to a larger size are only readable through the new mapping
+            if (offset < currentMappedFile.buffer.capacity()) {
+                return Optional.of(readSecretKey(currentMappedFile.buffer, offset, keyId));
+            }
+        }
+    }
+
+    @Override
+    public synchronized Set<TypeDifferentiatedSecretKeyId> shredAll(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        var shreddedKeyIds = new HashSet<TypeDifferentiatedSecretKeyId>();
+        for (TypeDifferentiatedSecretKeyId keyId : keyIds) {
+            if (mappedFile.offsets.containsKey(keyId)) {
+                shred(keyId);
+                shreddedKeyIds.add(keyId);
+            }
+        }
+        return shreddedKeyIds;
+    }
+
+    @Override
+    public Stream<TypeDifferentiatedSecretKeyId> streamShreddedKeyIds() {
+        var currentMappedFile = mappedFile;
+        return currentMappedFile.offsets.entrySet().stream()
+            .filter(entry -> entry.getValue() < currentMappedFile.buffer.capacity()
+                && currentMappedFile.buffer.get(entry.getValue() + 4) != KEY_RECORD)
+            .map(Map.Entry::getKey);
+    }
+
+    @Override
+    public synchronized PersistableSecretKey save(PersistableSecretKey key) {
+        if (key.getKey() == null || key.getAlgorithm() == null) {
+            shred(key.getId());
+        } else {
+            var existingKey = findById(key.getId());
+            if (existingKey.isEmpty() || !existingKey.get().equals(key)) {
+                appendAndIndex(key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Rewrite the file with only the latest record of each key.
+     */
+    public synchronized void compact() {
+        compactionScheduled = false;
+        if (closed) {
+            return;
+        }
+        var compactedPath = path.resolveSibling(path.getFileName() + ".compacting");
+        var currentMappedFile = mappedFile;
+        try {
+            var compactedCapacity = Math.max(initialCapacity, Math.toIntExact(Math.min(2 * (writePosition - supersededBytes),
+                Integer.MAX_VALUE)));
+            MappedByteBuffer compactedBuffer;
+            try (var compactedChannel = FileChannel.open(compactedPath, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+                compactedBuffer = compactedChannel.map(READ_WRITE, 0, compactedCapacity);
+            }
+            compactedBuffer.putInt(0, MAGIC);
+            var compactedOffsets = new ConcurrentHashMap<TypeDifferentiatedSecretKeyId, Integer>();
+            var compactedWritePosition = HEADER_SIZE;
+            for (Map.Entry<TypeDifferentiatedSecretKeyId, Integer> entry : currentMappedFile.offsets.entrySet()) {
+                var secretKey = readSecretKey(currentMappedFile.buffer, entry.getValue(), entry.getKey());
+                var record = encodeRecord(secretKey);
+                compactedBuffer.put(compactedWritePosition, record);
+                compactedOffsets.put(entry.getKey(), compactedWritePosition);
+                compactedWritePosition += record.length;
+            }
+            compactedBuffer.force();
+            Files.move(compactedPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+
+            channel.close();
+            channel = FileChannel.open(path, READ, WRITE);
+            mappedFile = new MappedFile(compactedBuffer, compactedOffsets);
+            LOGGER.debug("Compacted crypto shredding key file {} from {} to {} bytes", path, writePosition, compactedWritePosition);
+            writePosition = compactedWritePosition;
+            supersededBytes = 0;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the number of keys held, including those that have been shredded
+     */
+    public int size() {
+        return mappedFile.offsets.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        compactionExecutor.shutdownNow();
+        try {
+            mappedFile.buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void shred(TypeDifferentiatedSecretKeyId keyId) {
+        var previousOffset = mappedFile.offsets.getOrDefault(keyId, ABSENT);
+        if (previousOffset != ABSENT && mappedFile.buffer.get(previousOffset + 4) != KEY_RECORD) {
+            return;
+        }
+        appendAndIndex(new PersistableSecretKey(keyId, null, null));
+        LOGGER.trace("Appended tombstone for crypto shredding key {}", keyId);
+    }
+
+    private void appendAndIndex(PersistableSecretKey persistableSecretKey) {
+        var record = encodeRecord(persistableSecretKey);
+        ensureCapacity(record.length);
+        var buffer = mappedFile.buffer;
+        var offset = writePosition;
+        // The length is written last so that a record is never followed before it is complete
+        buffer.put(offset + 4, record, 4, record.length - 4);
+        buffer.putInt(offset, record.length - 4);
+        buffer.force(offset, record.length);
+        writePosition += record.length;
+
+        var previousOffset = mappedFile.offsets.put(persistableSecretKey.getId(), offset);
+        if (previousOffset != null) {
+            supersede(buffer, previousOffset);
+        }
+    }
+
+    private void supersede(MappedByteBuffer buffer, int offset) {
+        supersededBytes += 4 + buffer.getInt(offset);
+        shredInPlace(buffer, offset);
+        if (!compactionScheduled && supersededBytes > MINIMUM_COMPACTION_SIZE && supersededBytes * 2 > writePosition) {
+            compactionScheduled = true;
+            compactionExecutor.execute(this::compact);
+        }
+    }
+
+    private static void shredInPlace(MappedByteBuffer buffer, int offset) {
+        if (buffer.get(offset + 4) != KEY_RECORD) {
+            return;
+        }
+        // The record is marked as shredded first, so that concurrent readers never use a partially overwritten key
+        buffer.put(offset + 4, SHREDDED_KEY_RECORD);
+        var keyOffset = skipString(buffer, skipString(buffer, skipString(buffer, offset + 5)));
+        buffer.put(keyOffset + 2, new byte[buffer.getShort(keyOffset)]);
+        var length = buffer.getInt(offset);
+        buffer.putInt(offset + length, checksum(buffer, offset + 4, length - 4));
+        buffer.force(offset, 4 + length);
+    }
+
+    private void ensureCapacity(int recordLength) {
+        var buffer = mappedFile.buffer;
+        // Keep room for the zero length that marks the end of the records
+        var requiredCapacity = (long) writePosition + recordLength + 4;
+        if (requiredCapacity <= buffer.capacity()) {
+            return;
+        }
+        var capacity = (long) buffer.capacity();
+        while (capacity < requiredCapacity) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Crypto shredding key file " + path + " is full");
+        }
+        try {
+            mappedFile = new MappedFile(channel.map(READ_WRITE, 0, capacity), mappedFile.offsets);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void replay() {
+        var buffer = mappedFile.buffer;
+        var offsets = mappedFile.offsets;
+        var position = HEADER_SIZE;
+        while (position + 4 <= buffer.capacity()) {
+            var length = buffer.getInt(position);
+            if (length <= 4 || position + 4L + length > buffer.capacity()) {
+                break;
+            }
+            var nextPosition = position + 4 + length;
+            if (buffer.getInt(position + length) != checksum(buffer, position + 4, length - 4)) {
+                if (nextPosition + 4 > buffer.capacity() || buffer.getInt(nextPosition) == 0) {
+                    LOGGER.warn("Discarding incomplete record at the end of crypto shredding key file {}", path);
+                    buffer.put(position, new byte[4 + length]);
+                    buffer.force(position, 4 + length);
+                    break;
+                }
+                LOGGER.warn("Skipping corrupt record at offset {} of crypto shredding key file {}", position, path);
+                buffer.put(position + 4, new byte[length]);
+                buffer.force(position, 4 + length);
+                supersededBytes += 4 + length;
+                position = nextPosition;
+                continue;
+            }
+            var keyId = readKeyId(buffer, position);
+            var previousOffset = offsets.put(keyId, position);
+            if (previousOffset != null) {
+                supersededBytes += 4 + buffer.getInt(previousOffset);
+                shredInPlace(buffer, previousOffset);
+            }
+            position = nextPosition;
+        }
+        writePosition = position;
+    }
+
+    static byte[] encodeRecord(PersistableSecretKey persistableSecretKey) {
+        var keyId = persistableSecretKey.getId().getKeyId().getBytes(UTF_8);
+        var keyType = persistableSecretKey.getId().getKeyType() == null
+            ? null
+            : persistableSecretKey.getId().getKeyType().getBytes(UTF_8);
+        var shredded = persistableSecretKey.getKey() == null || persistableSecretKey.getAlgorithm() == null;
+        var algorithm = shredded
+            ? null
+            : persistableSecretKey.getAlgorithm().getBytes(UTF_8);
+        var key = shredded
+            ? null
+            : persistableSecretKey.getKey();
+
+        var length = 4 + 1 + sizeOf(keyId) + sizeOf(keyType) + sizeOf(algorithm) + sizeOf(key) + 4;
+        var record = ByteBuffer.allocate(length)
+            .putInt(length - 4)
+            .put(shredded
+                ? TOMBSTONE_RECORD
+                : KEY_RECORD);
+        putBytes(record, keyId);
+        putBytes(record, keyType);
+        putBytes(record, algorithm);
+        putBytes(record, key);
+        record.putInt(checksum(record, 4, length - 8));
+        return record.array();
+    }
+
+    private static PersistableSecretKey readSecretKey(ByteBuffer buffer, int offset, TypeDifferentiatedSecretKeyId keyId) {
+        if (buffer.get(offset + 4) != KEY_RECORD) {
+            return new PersistableSecretKey(keyId, null, null);
+        }
+        var algorithmOffset = skipString(buffer, skipString(buffer, offset + 5));
+        var algorithm = new String(getBytes(buffer, algorithmOffset), UTF_8);
+        var key = getBytes(buffer, skipString(buffer, algorithmOffset));
+        if (buffer.get(offset + 4) != KEY_RECORD) {
+            return new PersistableSecretKey(keyId, null, null);
+        }
+        return new PersistableSecretKey(keyId, key, algorithm);
+    }
+
+    private static TypeDifferentiatedSecretKeyId readKeyId(ByteBuffer buffer, int offset) {
+        var keyIdOffset = offset + 5;
+        var keyTypeOffset = skipString(buffer, keyIdOffset);
+        var keyType = getBytes(buffer, keyTypeOffset);
+        return new TypeDifferentiatedSecretKeyId(new String(getBytes(buffer, keyIdOffset), UTF_8), keyType == null
+            ? null
+            : new String(keyType, UTF_8));
+    }
+
+    private static int skipString(ByteBuffer buffer, int offset) {
+        return offset + 2 + Math.max(buffer.getShort(offset), 0);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer, int offset) {
+        var length = buffer.getShort(offset);
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(offset + 2, bytes);
+        return bytes;
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 2 + (bytes == null
+            ? 0
+            : bytes.length);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes != null && bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Crypto shredding key fields are limited to " + Short.MAX_VALUE + " bytes");
+        }
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        var crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static class MappedFile {
+        private final MappedByteBuffer buffer;
+        private final ConcurrentHashMap<TypeDifferentiatedSecretKeyId, Integer> offsets;
+
+        MappedFile(MappedByteBuffer buffer, ConcurrentHashMap<TypeDifferentiatedSecretKeyId, Integer> offsets) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+        }
+    }
+}
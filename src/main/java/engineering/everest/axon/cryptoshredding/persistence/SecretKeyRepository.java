@@ -3,12 +3,137 @@ package engineering.everest.axon.cryptoshredding.persistence;
 import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
 
 import javax.crypto.SecretKey;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface SecretKeyRepository {
+
+    /**
+     * Persist a new key. This must fail, rather than overwrite the stored key, if a key with the same identifier already exists.
+     *
+     * @param  keyId that uniquely identifies the key
+     * @param  key   to persist
+     * @return       the persisted key
+     */
     PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key);
 
+    /**
+     * Persist a new key unless a key with the same identifier already exists, such as one created concurrently by another application
+     * instance. Callers racing to create the same key therefore all end up using the one that was persisted first.
+     * <p>
+     * The default implementation calls {@link #create} and then reads back the stored key, returning it if it is not the given key. This
+     * catches implementations of {@code create} that overwrite an existing key, such as a JPA repository calling {@code save}, as long as
+     * the overwrite completes before the key is read back. If {@code create} fails, the existing key is looked up instead. Implementations
+     * should override this with an atomic insert (such as {@code INSERT ... ON CONFLICT DO NOTHING}) where the underlying store supports
+     * it.
+     *
+     * @param  keyId that uniquely identifies the key
+     * @param  key   to persist if no key exists yet
+     * @return       the key that already existed, which may have been shredded, or an empty optional if the given key was persisted
+     */
+    default Optional<PersistableSecretKey> createIfAbsent(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+        try {
+            create(keyId, key);
+        } catch (RuntimeException e) {
+            var existingKey = findById(keyId);
+            if (existingKey.isEmpty()) {
+                throw e;
+            }
+            return existingKey;
+        }
+        return findById(keyId)
+            .filter(storedKey -> !Arrays.equals(storedKey.getKey(), key.getEncoded()));
+    }
+
+    /**
+     * Persist several new keys. Like {@link #create}, this must fail if a key with the same identifier as any of them already exists.
+     * <p>
+     * The default implementation calls {@link #create} once per key. Implementations should override this with a single batched insert
+     * where the underlying store supports it.
+     *
+     * @param  keys to persist, keyed by the identifiers that uniquely identify them
+     * @return      the persisted keys
+     */
+    default List<PersistableSecretKey> createAll(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        return keys.entrySet().stream()
+            .map(entry -> create(entry.getKey(), entry.getValue()))
+            .toList();
+    }
+
+    /**
+     * Persist several new keys, skipping any whose identifier already has a key, in the way {@link #createIfAbsent} does for a single key.
+     * <p>
+     * The default implementation calls {@link #createIfAbsent} once per key. Implementations should override this with a single batched
+     * insert where the underlying store supports it.
+     *
+     * @param  keys to persist if no key exists yet, keyed by the identifiers that uniquely identify them
+     * @return      the keys that already existed, which may have been shredded, keyed by their identifiers
+     */
+    default Map<TypeDifferentiatedSecretKeyId, PersistableSecretKey> createAllIfAbsent(Map<TypeDifferentiatedSecretKeyId, SecretKey> keys) {
+        var existingKeys = new HashMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey>();
+        keys.forEach((keyId, key) -> createIfAbsent(keyId, key).ifPresent(existingKey -> existingKeys.put(keyId, existingKey)));
+        return existingKeys;
+    }
+
     Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId);
 
+    /**
+     * Retrieve all keys matching the given identifiers. Identifiers without a persisted key are omitted from the result.
+     * <p>
+     * The default implementation falls back to one {@link #findById} call per identifier. Implementations should override this with a
+     * single query (such as an {@code IN} clause) where the underlying store supports it.
+     *
+     * @param  keyIds that uniquely identify the keys
+     * @return        the persisted keys, in no particular order, including those that have been shredded
+     */
+    default List<PersistableSecretKey> findAllById(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        return keyIds.stream()
+            .map(this::findById)
+            .flatMap(Optional::stream)
+            .toList();
+    }
+
+    /**
+     * Shred several keys by clearing their key and algorithm. Identifiers without a persisted key are ignored.
+     * <p>
+     * The default implementation retrieves the keys through {@link #findAllById} and saves each one that has not already been shredded.
+     * Implementations should override this with a single update where the underlying store supports it.
+     *
+     * @param  keyIds that uniquely identify the keys
+     * @return        the identifiers of the persisted keys, which have now all been shredded
+     */
+    default Set<TypeDifferentiatedSecretKeyId> shredAll(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+        var shreddedKeyIds = new HashSet<TypeDifferentiatedSecretKeyId>();
+        for (PersistableSecretKey persistableSecretKey : findAllById(keyIds)) {
+            if (persistableSecretKey.getKey() != null || persistableSecretKey.getAlgorithm() != null) {
+                persistableSecretKey.setKey(null);
+                persistableSecretKey.setAlgorithm(null);
+                save(persistableSecretKey);
+            }
+            shreddedKeyIds.add(persistableSecretKey.getId());
+        }
+        return shreddedKeyIds;
+    }
+
+    /**
+     * Stream the identifiers of every shredded key, whose key and algorithm have been cleared, to populate a {@code ShreddedKeyIndex} at
+     * startup. The stream is closed once consumed.
+     * <p>
+     * The default implementation returns an empty stream, leaving the index to learn of shredded keys as they are read. JPA implementations
+     * can override this with a query such as {@code select k.id from cryptoshreddingkeys k where k.key is null}.
+     *
+     * @return the identifiers of all shredded keys
+     */
+    default Stream<TypeDifferentiatedSecretKeyId> streamShreddedKeyIds() {
+        return Stream.empty();
+    }
+
     PersistableSecretKey save(PersistableSecretKey key);
 }
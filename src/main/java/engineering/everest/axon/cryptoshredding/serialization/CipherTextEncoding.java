@@ -0,0 +1,20 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+/**
+ * How the ciphertext of an encrypted field is stored within a serialized payload. Payloads written with either encoding can be read
+ * regardless of the encoding configured for reading.
+ */
+public enum CipherTextEncoding {
+    /**
+     * Ciphertext is stored as a Base64 encoded string. This is the default and the only encoding understood by earlier versions of this
+     * library.
+     */
+    BASE64,
+
+    /**
+     * Ciphertext is stored as a native binary value when the wrapped serializer is a {@code JacksonSerializer} writing a binary format such
+     * as CBOR or Smile, avoiding the size and copying overhead of Base64. Textual formats such as JSON continue to store a Base64 encoded
+     * string. Binary payloads cannot be read by versions of this library that predate this encoding.
+     */
+    NATIVE_BINARY
+}
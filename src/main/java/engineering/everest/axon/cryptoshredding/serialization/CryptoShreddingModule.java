@@ -0,0 +1,158 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.ser.BasicSerializerFactory;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.encryption.EncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.EncryptedFieldMetadata;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.json.JacksonSerializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * A Jackson module that encrypts fields annotated with {@code @EncryptedField} while a payload is being written and decrypts them while it
+ * is being read, resolving secret keys from the payload's {@code @EncryptionKeyIdentifier} fields. The serialized form is identical to the
+ * one produced by {@link CryptoShreddingSerializer}, so payloads written by either can be read by the other.
+ * <p>
+ * Register the module on the {@code ObjectMapper} of the {@code JacksonSerializer} wrapped by a {@link CryptoShreddingSerializer}. The
+ * serializer then hands payloads straight to the {@code JacksonSerializer} instead of converting them to and from an intermediate tree. As
+ * with {@link CryptoShreddingSerializer}, only the fields of the top level payload are encrypted. Exceptions raised while encrypting or
+ * decrypting are wrapped by Jackson.
+ * <p>
+ * The module should not be registered on object mappers used for anything other than event and saga serialization.
+ */
+public class CryptoShreddingModule extends Module {
+
+    private final CryptoShreddingKeyService cryptoShreddingKeyService;
+    private final EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private final EncryptionKeyResolver encryptionKeyResolver;
+    private final EncryptedFieldDecrypter encryptedFieldDecrypter;
+    private final EncryptionMetadataRegistry encryptionMetadataRegistry;
+    private final CipherTextEncoding cipherTextEncoding;
+
+    public CryptoShreddingModule(CryptoShreddingKeyService cryptoShreddingKeyService,
+                                 EncrypterDecrypterFactory encrypterDecrypterFactory,
+                                 DefaultValueProvider defaultValueProvider,
+                                 KeyIdentifierToStringConverter keyIdentifierToStringConverter) {
+        this(cryptoShreddingKeyService, encrypterDecrypterFactory, defaultValueProvider, keyIdentifierToStringConverter,
+            CipherTextEncoding.BASE64);
+    }
+
+    public CryptoShreddingModule(CryptoShreddingKeyService cryptoShreddingKeyService,
+                                 EncrypterDecrypterFactory encrypterDecrypterFactory,
+                                 DefaultValueProvider defaultValueProvider,
+                                 KeyIdentifierToStringConverter keyIdentifierToStringConverter,
+                                 CipherTextEncoding cipherTextEncoding) {
+        this.cryptoShreddingKeyService = cryptoShreddingKeyService;
+        this.encrypterDecrypterFactory = encrypterDecrypterFactory;
+        this.encryptionKeyResolver = new EncryptionKeyResolver(cryptoShreddingKeyService, keyIdentifierToStringConverter);
+        this.encryptedFieldDecrypter = new EncryptedFieldDecrypter(cryptoShreddingKeyService, encrypterDecrypterFactory,
+            defaultValueProvider);
+        this.encryptionMetadataRegistry = new EncryptionMetadataRegistry();
+        this.cipherTextEncoding = cipherTextEncoding;
+    }
+
+    static boolean isRegisteredWith(Serializer serializer) {
+        return serializer instanceof JacksonSerializer jacksonSerializer && isRegisteredWith(jacksonSerializer.getObjectMapper());
+    }
+
+    static boolean isRegisteredWith(ObjectMapper objectMapper) {
+        if (objectMapper.getSerializerFactory() instanceof BasicSerializerFactory serializerFactory) {
+            for (BeanSerializerModifier modifier : serializerFactory.getFactoryConfig().serializerModifiers()) {
+                if (modifier instanceof EncryptingSerializerModifier) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean isTopLevelObject(JsonStreamContext objectContext) {
+        var parentContext = objectContext.getParent();
+        return parentContext != null && parentContext.inRoot();
+    }
+
+    @Override
+    public String getModuleName() {
+        return CryptoShreddingModule.class.getSimpleName();
+    }
+
+    @Override
+    public Object getTypeId() {
+        return CryptoShreddingModule.class.getName();
+    }
+
+    @Override
+    public Version version() {
+        return Version.unknownVersion();
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        context.addBeanSerializerModifier(new EncryptingSerializerModifier());
+        context.addBeanDeserializerModifier(new DecryptingDeserializerModifier());
+    }
+
+    private final class EncryptingSerializerModifier extends BeanSerializerModifier {
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(SerializationConfig config,
+                                                         BeanDescription beanDesc,
+                                                         List<BeanPropertyWriter> beanProperties) {
+            var encryptionMetadata = encryptionMetadataRegistry.metadataFor(beanDesc.getBeanClass());
+            if (!encryptionMetadata.hasEncryptedFields()) {
+                return beanProperties;
+            }
+
+            Map<String, EncryptedFieldMetadata> encryptedFieldsByLowercaseName = encryptionMetadata.getEncryptedFields().stream()
+                .collect(toMap(EncryptedFieldMetadata::getLowercaseName, identity()));
+            Map<String, List<EncryptingBeanPropertyWriter>> encryptingWritersByTag = new LinkedHashMap<>();
+            for (int i = 0; i < beanProperties.size(); i++) {
+                var beanProperty = beanProperties.get(i);
+                var encryptedField = encryptedFieldsByLowercaseName.get(beanProperty.getName().toLowerCase());
+                if (encryptedField != null) {
+                    var encryptingWriter = new EncryptingBeanPropertyWriter(beanProperty, encryptedField, encryptionMetadata,
+                        encryptionKeyResolver, encrypterDecrypterFactory, cipherTextEncoding);
+                    encryptingWritersByTag.computeIfAbsent(encryptedField.getTag(), tag -> new ArrayList<>()).add(encryptingWriter);
+                    beanProperties.set(i, encryptingWriter);
+                }
+            }
+            if (encryptionMetadata.isEnvelopeEncrypted() && !encryptingWritersByTag.isEmpty()) {
+                encryptingWritersByTag.values().iterator().next().get(0).writeEnvelopesOf(encryptingWritersByTag);
+            }
+            return beanProperties;
+        }
+    }
+
+    private final class DecryptingDeserializerModifier extends BeanDeserializerModifier {
+
+        @Override
+        public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config,
+                                                      BeanDescription beanDesc,
+                                                      JsonDeserializer<?> deserializer) {
+            var encryptionMetadata = encryptionMetadataRegistry.metadataFor(beanDesc.getBeanClass());
+            if (!encryptionMetadata.hasEncryptedFields()) {
+                return deserializer;
+            }
+            return new DecryptingBeanDeserializer(deserializer, encryptionMetadata, encryptionKeyResolver, cryptoShreddingKeyService,
+                encryptedFieldDecrypter);
+        }
+    }
+}
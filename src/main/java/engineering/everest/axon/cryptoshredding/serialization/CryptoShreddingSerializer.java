@@ -1,17 +1,14 @@
 package engineering.everest.axon.cryptoshredding.serialization;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
 import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
-import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
-import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import engineering.everest.axon.cryptoshredding.encryption.Encrypter;
 import engineering.everest.axon.cryptoshredding.encryption.EncrypterDecrypterFactory;
-import engineering.everest.axon.cryptoshredding.exceptions.DuplicateEncryptionKeyIdentifierFieldTagException;
-import engineering.everest.axon.cryptoshredding.exceptions.EncryptionKeyDeletedException;
-import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionKeyIdentifierAnnotationException;
-import engineering.everest.axon.cryptoshredding.exceptions.MissingSerializedEncryptionKeyIdentifierFieldException;
 import engineering.everest.axon.cryptoshredding.exceptions.MissingTaggedEncryptionKeyIdentifierException;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.EncryptedFieldMetadata;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.common.ObjectUtils;
 import org.axonframework.serialization.Converter;
@@ -19,18 +16,18 @@ import org.axonframework.serialization.SerializedObject;
 import org.axonframework.serialization.SerializedType;
 import org.axonframework.serialization.Serializer;
 import org.axonframework.serialization.SimpleSerializedObject;
-import org.axonframework.serialization.SimpleSerializedType;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import javax.crypto.SecretKey;
-import java.lang.reflect.Field;
-import java.util.Base64;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import static java.util.stream.Collectors.toMap;
+import static engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.ENVELOPES_FIELD_NAME;
 
 /**
  * A wrapper around the existing Axon serializers that intercepts fields annotated with {@code @EncryptedField}, encrypting them with
@@ -40,7 +37,8 @@ import static java.util.stream.Collectors.toMap;
  * <p>
  * A 256-bit AES (symmetric) key is generated for each {identifier, keyType} tuple. Each field annotated with {@code @EncryptedField} is
  * encrypted using an initialisation vector unique to that field. This initialisation vector is stored as part of the serialised field
- * payload.
+ * payload. Lazy decryption, field masks, encryption envelopes, parallel field encryption, binary ciphertext and the
+ * {@link CryptoShreddingModule} are described in the README.
  */
 @Slf4j
 public class CryptoShreddingSerializer implements Serializer {
@@ -49,35 +47,65 @@ public class CryptoShreddingSerializer implements Serializer {
     private final CryptoShreddingKeyService cryptoShreddingKeyService;
     private final EncrypterDecrypterFactory encrypterDecrypterFactory;
     private final ObjectMapper objectMapper;
-    private final DefaultValueProvider defaultValueProvider;
-    private final KeyIdentifierToStringConverter keyIdentifierToStringConverter;
-
+    private final EncryptionKeyResolver encryptionKeyResolver;
+    private final EncryptedFieldDecrypter encryptedFieldDecrypter;
+    private final EncryptionMetadataRegistry encryptionMetadataRegistry;
+    private final PayloadTreeCodec payloadTreeCodec;
+    private final ParallelFieldEncryption parallelFieldEncryption;
+    private final boolean encryptedByWrappedSerializer;
+
+    /**
+     * @deprecated use {@link #builder()}
+     */
+    @Deprecated
     public CryptoShreddingSerializer(@Qualifier("eventSerializer") Serializer wrappedSerializer,
                                      CryptoShreddingKeyService cryptoShreddingKeyService,
                                      EncrypterDecrypterFactory encrypterDecrypterFactory,
                                      ObjectMapper objectMapper,
                                      DefaultValueProvider defaultValueProvider,
                                      KeyIdentifierToStringConverter keyIdentifierToStringConverter) {
-        this.wrappedSerializer = wrappedSerializer;
-        this.cryptoShreddingKeyService = cryptoShreddingKeyService;
-        this.encrypterDecrypterFactory = encrypterDecrypterFactory;
-        this.objectMapper = objectMapper;
-        this.defaultValueProvider = defaultValueProvider;
-        this.keyIdentifierToStringConverter = keyIdentifierToStringConverter;
+        this(builder()
+            .wrappedSerializer(wrappedSerializer)
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterDecrypterFactory)
+            .objectMapper(objectMapper)
+            .defaultValueProvider(defaultValueProvider)
+            .keyIdentifierToStringConverter(keyIdentifierToStringConverter));
+    }
+
+    private CryptoShreddingSerializer(Builder builder) {
+        this.wrappedSerializer = builder.wrappedSerializer;
+        this.cryptoShreddingKeyService = builder.cryptoShreddingKeyService;
+        this.encrypterDecrypterFactory = builder.encrypterDecrypterFactory;
+        this.objectMapper = builder.objectMapper;
+        this.encryptionKeyResolver = new EncryptionKeyResolver(cryptoShreddingKeyService, builder.keyIdentifierToStringConverter);
+        this.encryptedFieldDecrypter = new EncryptedFieldDecrypter(cryptoShreddingKeyService, encrypterDecrypterFactory,
+            builder.defaultValueProvider, builder.parallelFieldEncryption);
+        this.parallelFieldEncryption = builder.parallelFieldEncryption;
+        this.encryptionMetadataRegistry = new EncryptionMetadataRegistry();
+        this.payloadTreeCodec = PayloadTreeCodec.forSerializer(wrappedSerializer, objectMapper, builder.cipherTextEncoding);
+        this.encryptedByWrappedSerializer = CryptoShreddingModule.isRegisteredWith(wrappedSerializer);
+    }
+
+    public static Builder builder() {
+        return new Builder();
     }
 
     @Override
     public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
-        var fields = List.of(object.getClass().getDeclaredFields());
-        var encryptedFields = getEncryptedFields(fields);
-        if (encryptedFields.isEmpty()) {
+        if (encryptedByWrappedSerializer) {
+            return wrappedSerializer.serialize(object, expectedRepresentation);
+        }
+
+        var encryptionMetadata = encryptionMetadataRegistry.metadataFor(object.getClass());
+        if (!encryptionMetadata.hasEncryptedFields()) {
             return wrappedSerializer.serialize(object, expectedRepresentation);
         }
 
-        var fieldToSecretKeyMapping = retrieveOrCreateSecretKeysForSerialization(object, fields);
-        var encryptedMappedObject = mapAndEncryptAnnotatedFields(object, encryptedFields, fieldToSecretKeyMapping);
-        var serializedObject = wrappedSerializer.serialize(encryptedMappedObject, expectedRepresentation);
-        return new SimpleSerializedObject<>(serializedObject.getData(), expectedRepresentation,
+        var fieldToSecretKeyMapping = encryptionKeyResolver.retrieveOrCreateSecretKeys(object, encryptionMetadata);
+        var encryptedDocument = mapAndEncryptAnnotatedFields(object, encryptionMetadata, fieldToSecretKeyMapping);
+        var serializedData = payloadTreeCodec.writeDocument(encryptedDocument, expectedRepresentation);
+        return new SimpleSerializedObject<>(serializedData, expectedRepresentation,
             wrappedSerializer.typeForClass(ObjectUtils.nullSafeTypeOf(object)));
     }
 
@@ -88,23 +116,67 @@ public class CryptoShreddingSerializer implements Serializer {
 
     @Override
     public <S, T> T deserialize(SerializedObject<S> serializedObject) {
-        Class<?> classToDeserialize = getClassToDeserialize(serializedObject);
-        var fields = List.of(classToDeserialize.getDeclaredFields());
-        var encryptedFields = getEncryptedFields(fields);
-        if (encryptedFields.isEmpty()) {
+        if (encryptedByWrappedSerializer) {
             return wrappedSerializer.deserialize(serializedObject);
         }
 
-        var encryptedSerializedType = new SimpleSerializedType(HashMap.class.getCanonicalName(), serializedObject.getType().getRevision());
-        var encryptedSerializedObject = new SimpleSerializedObject<>(
-            serializedObject.getData(), serializedObject.getContentType(), encryptedSerializedType);
-        Map<String, Object> encryptedMappedObject = wrappedSerializer.deserialize(encryptedSerializedObject);
-        var serializedFieldNameMapping = buildFieldNamingSerializationStrategyIndependentMapping(encryptedMappedObject);
-        var fieldTagToSecretKeyMapping = retrieveSecretKeysForDeserialization(encryptedMappedObject, serializedFieldNameMapping, fields);
+        Class<?> classToDeserialize = encryptionMetadataRegistry.classForTypeName(serializedObject.getType().getName());
+        var encryptionMetadata = encryptionMetadataRegistry.metadataFor(classToDeserialize);
+        if (!encryptionMetadata.hasEncryptedFields()) {
+            return wrappedSerializer.deserialize(serializedObject);
+        }
 
-        var mappedObject = decryptAnnotatedFields(encryptedMappedObject, serializedFieldNameMapping,
-            encryptedFields, fieldTagToSecretKeyMapping);
-        return (T) objectMapper.convertValue(mappedObject, classToDeserialize);
+        var encryptedPayload = readEncryptedPayload(serializedObject, classToDeserialize, encryptionMetadata);
+        return decryptPayload(encryptedPayload, cryptoShreddingKeyService::getExistingSecretKey);
+    }
+
+    /**
+     * Deserialize a batch of serialized objects, such as the events of a tracking processor batch or an aggregate's event stream. Key
+     * identifiers are extracted from every object first so that all distinct secret keys needed by the batch can be retrieved with a single
+     * lookup before any fields are decrypted. Secret keys used only by {@link EncryptedValue} fields, or only by fields excluded by the
+     * applied {@link EncryptedFieldMask}, are left out of the lookup.
+     *
+     * @param  serializedObjects to deserialize
+     * @param  <T>               the expected type of the deserialized objects
+     * @return                   the deserialized objects, in the same order as the serialized objects
+     */
+    public <T> List<T> deserializeAll(List<? extends SerializedObject<?>> serializedObjects) {
+        if (encryptedByWrappedSerializer) {
+            return serializedObjects.stream()
+                .map(serializedObject -> (T) wrappedSerializer.deserialize(serializedObject))
+                .toList();
+        }
+
+        var encryptedPayloads = new ArrayList<EncryptedPayload>(serializedObjects.size());
+        var secretKeyIdentifiers = new HashSet<TypeDifferentiatedSecretKeyId>();
+        for (SerializedObject<?> serializedObject : serializedObjects) {
+            Class<?> classToDeserialize = encryptionMetadataRegistry.classForTypeName(serializedObject.getType().getName());
+            var encryptionMetadata = encryptionMetadataRegistry.metadataFor(classToDeserialize);
+            if (encryptionMetadata.hasEncryptedFields()) {
+                var encryptedPayload = readEncryptedPayload(serializedObject, classToDeserialize, encryptionMetadata);
+                encryptedPayload.fieldTagToSecretKeyIdentifierMapping.forEach((fieldTag, secretKeyIdentifier) -> {
+                    if (EncryptedFieldDecrypter.retrievesSecretKeyEagerly(encryptionMetadata, fieldTag)) {
+                        secretKeyIdentifiers.add(secretKeyIdentifier);
+                    }
+                });
+                encryptedPayloads.add(encryptedPayload);
+            } else {
+                encryptedPayloads.add(null);
+            }
+        }
+
+        Function<TypeDifferentiatedSecretKeyId, Optional<SecretKey>> secretKeyResolver = secretKeyIdentifiers.isEmpty()
+            ? cryptoShreddingKeyService::getExistingSecretKey
+            : cryptoShreddingKeyService.resolveExistingSecretKeys(secretKeyIdentifiers)::getExistingSecretKey;
+
+        var deserializedObjects = new ArrayList<T>(serializedObjects.size());
+        for (int i = 0; i < serializedObjects.size(); i++) {
+            var encryptedPayload = encryptedPayloads.get(i);
+            deserializedObjects.add(encryptedPayload == null
+                ? wrappedSerializer.deserialize(serializedObjects.get(i))
+                : decryptPayload(encryptedPayload, secretKeyResolver));
+        }
+        return deserializedObjects;
     }
 
     @Override
@@ -122,141 +194,179 @@ public class CryptoShreddingSerializer implements Serializer {
         return wrappedSerializer.getConverter();
     }
 
-    private List<Field> getEncryptedFields(List<Field> fields) {
-        return fields.stream()
-            .filter(field -> field.getAnnotation(EncryptedField.class) != null)
-            .toList();
+    private <S> EncryptedPayload readEncryptedPayload(SerializedObject<S> serializedObject,
+                                                      Class<?> classToDeserialize,
+                                                      EncryptionMetadata encryptionMetadata) {
+        var encryptedDocument = payloadTreeCodec.readDocument(serializedObject);
+        var serializedFieldNameMapping = EncryptionKeyResolver.buildFieldNamingSerializationStrategyIndependentMapping(encryptedDocument);
+        var fieldTagToSecretKeyIdentifierMapping = encryptionKeyResolver.extractSecretKeyIdentifiers(encryptedDocument,
+            serializedFieldNameMapping, encryptionMetadata, objectMapper);
+        return new EncryptedPayload(classToDeserialize, encryptionMetadata, encryptedDocument, serializedFieldNameMapping,
+            fieldTagToSecretKeyIdentifierMapping);
     }
 
-    private Map<String, SecretKey> retrieveOrCreateSecretKeysForSerialization(Object object, List<Field> fields) {
-        var secretKeyIdentifierFields = findSecretKeyIdentifierFields(fields);
-        if (secretKeyIdentifierFields.isEmpty()) {
-            throw new MissingEncryptionKeyIdentifierAnnotationException();
+    private <T> T decryptPayload(EncryptedPayload encryptedPayload,
+                                 Function<TypeDifferentiatedSecretKeyId, Optional<SecretKey>> secretKeyResolver) {
+        var document = encryptedFieldDecrypter.decryptAnnotatedFields(encryptedPayload.encryptedDocument,
+            encryptedPayload.serializedFieldNameMapping, encryptedPayload.encryptionMetadata,
+            encryptedPayload.fieldTagToSecretKeyIdentifierMapping, secretKeyResolver, payloadTreeCodec);
+        try {
+            return (T) objectMapper.treeToValue(document, encryptedPayload.classToDeserialize);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        Map<String, SecretKey> fieldTagToSecretKeyMapping = new HashMap<>();
-        secretKeyIdentifierFields.forEach(field -> {
-            var secretKeyIdentifier = extractSecretKeyIdentifier(object, field);
-            var optionalSecretKey = cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(secretKeyIdentifier);
-            var fieldTag = field.getAnnotation(EncryptionKeyIdentifier.class).tag();
-            if (fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
-                throw new DuplicateEncryptionKeyIdentifierFieldTagException(field.getName(), fieldTag);
+    private ObjectNode mapAndEncryptAnnotatedFields(Object object,
+                                                    EncryptionMetadata encryptionMetadata,
+                                                    Map<String, SecretKey> fieldTagToSecretKeyMapping) {
+        ObjectNode document = objectMapper.valueToTree(object);
+        var serializedFieldNameMapping = EncryptionKeyResolver.buildFieldNamingSerializationStrategyIndependentMapping(document);
+        var encryptions = new ArrayList<Function<Encrypter, byte[]>>();
+        var cipherTextWriters = new ArrayList<Consumer<byte[]>>();
+        long cleartextBytes = 0;
+
+        if (encryptionMetadata.isEnvelopeEncrypted()) {
+            var envelopes = document.putObject(ENVELOPES_FIELD_NAME);
+            for (Map.Entry<String, List<EncryptedFieldMetadata>> taggedFields : encryptionMetadata.getEncryptedFieldsByTag().entrySet()) {
+                var fieldTag = taggedFields.getKey();
+                var fields = taggedFields.getValue();
+                if (!fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
+                    throw new MissingTaggedEncryptionKeyIdentifierException(fields.get(0).getName(), fieldTag);
+                }
+                var envelope = document.objectNode();
+                fields.forEach(field -> {
+                    var fieldKey = serializedFieldNameMapping.get(field.getLowercaseName());
+                    if (fieldKey != null) {
+                        envelope.set(fieldKey, document.get(fieldKey));
+                        document.putNull(fieldKey);
+                    }
+                });
+                var secretKey = fieldTagToSecretKeyMapping.get(fieldTag);
+                var cleartextEnvelope = payloadTreeCodec.encodeFieldValue(envelope);
+                cleartextBytes += cleartextEnvelope.length;
+                encryptions.add(encrypter -> encrypter.encrypt(secretKey, cleartextEnvelope, 0, cleartextEnvelope.length));
+                cipherTextWriters.add(cipherText -> envelopes.set(fieldTag, payloadTreeCodec.encodeCipherText(cipherText)));
+            }
+        } else {
+            for (EncryptedFieldMetadata field : encryptionMetadata.getEncryptedFields()) {
+                var fieldKey = serializedFieldNameMapping.get(field.getLowercaseName());
+                var fieldTag = field.getTag();
+                if (!fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
+                    throw new MissingTaggedEncryptionKeyIdentifierException(field.getName(), fieldTag);
+                }
+                var secretKey = fieldTagToSecretKeyMapping.get(fieldTag);
+                var cleartext = payloadTreeCodec.encodeFieldValue(document.get(fieldKey));
+                cleartextBytes += cleartext.length;
+                encryptions.add(encrypter -> encrypter.encrypt(secretKey, cleartext, 0, cleartext.length));
+                cipherTextWriters.add(cipherText -> document.set(fieldKey, payloadTreeCodec.encodeCipherText(cipherText)));
             }
-            fieldTagToSecretKeyMapping.put(fieldTag, optionalSecretKey.orElseThrow(
-                () -> new EncryptionKeyDeletedException(secretKeyIdentifier.getKeyId(), secretKeyIdentifier.getKeyType())));
-        });
+        }
 
-        return fieldTagToSecretKeyMapping;
+        var cipherTexts = parallelFieldEncryption.apply(encrypterDecrypterFactory::createEncrypter, encryptions, cleartextBytes);
+        for (int i = 0; i < cipherTexts.size(); i++) {
+            cipherTextWriters.get(i).accept(cipherTexts.get(i));
+        }
+        return document;
     }
 
-    private Map<String, Optional<SecretKey>> retrieveSecretKeysForDeserialization(Map<String, Object> encryptedMappedObject,
-                                                                                  Map<String, String> serializedFieldNameMapping,
-                                                                                  List<Field> fields) {
-        var secretKeyIdentifierFields = findSecretKeyIdentifierFields(fields);
-        if (secretKeyIdentifierFields.isEmpty()) {
-            throw new MissingEncryptionKeyIdentifierAnnotationException();
+    private static final class EncryptedPayload {
+        private final Class<?> classToDeserialize;
+        private final EncryptionMetadata encryptionMetadata;
+        private final ObjectNode encryptedDocument;
+        private final Map<String, String> serializedFieldNameMapping;
+        private final Map<String, TypeDifferentiatedSecretKeyId> fieldTagToSecretKeyIdentifierMapping;
+
+        private EncryptedPayload(Class<?> classToDeserialize,
+                                 EncryptionMetadata encryptionMetadata,
+                                 ObjectNode encryptedDocument,
+                                 Map<String, String> serializedFieldNameMapping,
+                                 Map<String, TypeDifferentiatedSecretKeyId> fieldTagToSecretKeyIdentifierMapping) {
+            this.classToDeserialize = classToDeserialize;
+            this.encryptionMetadata = encryptionMetadata;
+            this.encryptedDocument = encryptedDocument;
+            this.serializedFieldNameMapping = serializedFieldNameMapping;
+            this.fieldTagToSecretKeyIdentifierMapping = fieldTagToSecretKeyIdentifierMapping;
         }
+    }
 
-        Map<String, Optional<SecretKey>> fieldTagToSecretKeyMapping = new HashMap<>();
-        secretKeyIdentifierFields.forEach(field -> {
-            var encryptionKeyIdentifierAnnotation = field.getAnnotation(EncryptionKeyIdentifier.class);
-            var secretKeyIdentifierFieldName = serializedFieldNameMapping.get(field.getName().toLowerCase());
-            if (secretKeyIdentifierFieldName == null) {
-                throw new MissingSerializedEncryptionKeyIdentifierFieldException();
-            }
-
-            var secretKeyIdentifier = encryptedMappedObject.get(secretKeyIdentifierFieldName).toString();
-            if (secretKeyIdentifier == null || secretKeyIdentifier.isBlank()) {
-                throw new MissingSerializedEncryptionKeyIdentifierFieldException();
-            }
+    /**
+     * Builds a {@link CryptoShreddingSerializer}. The wrapped serializer, key service and encrypter decrypter factory are required. The
+     * remaining settings default to a plain {@link ObjectMapper}, no custom default values or key identifier converters, Base64 encoded
+     * ciphertext and no parallel field encryption.
+     */
+    public static class Builder {
+        private Serializer wrappedSerializer;
+        private CryptoShreddingKeyService cryptoShreddingKeyService;
+        private EncrypterDecrypterFactory encrypterDecrypterFactory;
+        private ObjectMapper objectMapper;
+        private DefaultValueProvider defaultValueProvider;
+        private KeyIdentifierToStringConverter keyIdentifierToStringConverter;
+        private CipherTextEncoding cipherTextEncoding;
+        private ParallelFieldEncryption parallelFieldEncryption;
+
+        public Builder() {
+            this.objectMapper = new ObjectMapper();
+            this.defaultValueProvider = new DefaultValueProvider();
+            this.keyIdentifierToStringConverter = new KeyIdentifierToStringConverter();
+            this.cipherTextEncoding = CipherTextEncoding.BASE64;
+            this.parallelFieldEncryption = ParallelFieldEncryption.disabled();
+        }
 
-            var secretKey = cryptoShreddingKeyService.getExistingSecretKey(
-                new TypeDifferentiatedSecretKeyId(secretKeyIdentifier, encryptionKeyIdentifierAnnotation.keyType()));
-            fieldTagToSecretKeyMapping.put(encryptionKeyIdentifierAnnotation.tag(), secretKey);
-        });
+        public Builder wrappedSerializer(Serializer wrappedSerializer) {
+            this.wrappedSerializer = wrappedSerializer;
+            return this;
+        }
 
-        return fieldTagToSecretKeyMapping;
-    }
+        public Builder cryptoShreddingKeyService(CryptoShreddingKeyService cryptoShreddingKeyService) {
+            this.cryptoShreddingKeyService = cryptoShreddingKeyService;
+            return this;
+        }
 
-    private List<Field> findSecretKeyIdentifierFields(List<Field> fields) {
-        return fields.stream()
-            .filter(field -> field.getAnnotation(EncryptionKeyIdentifier.class) != null)
-            .toList();
-    }
+        public Builder encrypterDecrypterFactory(EncrypterDecrypterFactory encrypterDecrypterFactory) {
+            this.encrypterDecrypterFactory = encrypterDecrypterFactory;
+            return this;
+        }
 
-    private TypeDifferentiatedSecretKeyId extractSecretKeyIdentifier(Object object, Field secretKeyIdentifierField) {
-        secretKeyIdentifierField.setAccessible(true);
-        try {
-            return new TypeDifferentiatedSecretKeyId(
-                keyIdentifierToStringConverter.convertToString(secretKeyIdentifierField.get(object)),
-                secretKeyIdentifierField.getAnnotation(EncryptionKeyIdentifier.class).keyType());
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+        /**
+         * @param  objectMapper used to convert payloads to and from Jackson trees
+         * @return              this builder
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
         }
-    }
 
-    private Map<String, Object> mapAndEncryptAnnotatedFields(Object object,
-                                                             List<Field> encryptedFields,
-                                                             Map<String, SecretKey> fieldTagToSecretKeyMapping) {
-        var mappedObject = objectMapper.convertValue(object, new TypeReference<HashMap<String, Object>>() {});
-        var serializedFieldNameMapping = buildFieldNamingSerializationStrategyIndependentMapping(mappedObject);
-        var encrypter = encrypterDecrypterFactory.createEncrypter();
-
-        encryptedFields.forEach(field -> {
-            var fieldKey = serializedFieldNameMapping.get(field.getName().toLowerCase());
-            var fieldTag = field.getAnnotation(EncryptedField.class).tag();
-            if (!fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
-                throw new MissingTaggedEncryptionKeyIdentifierException(field.getName(), fieldTag);
-            }
-            var secretKey = fieldTagToSecretKeyMapping.get(fieldTag);
-            var serializedClearText = wrappedSerializer.serialize(mappedObject.get(fieldKey), String.class);
-            byte[] cipherText = encrypter.encrypt(secretKey, serializedClearText.getData());
-            mappedObject.put(fieldKey, Base64.getEncoder().encodeToString(cipherText));
-        });
+        public Builder defaultValueProvider(DefaultValueProvider defaultValueProvider) {
+            this.defaultValueProvider = defaultValueProvider;
+            return this;
+        }
 
-        return mappedObject;
-    }
+        public Builder keyIdentifierToStringConverter(KeyIdentifierToStringConverter keyIdentifierToStringConverter) {
+            this.keyIdentifierToStringConverter = keyIdentifierToStringConverter;
+            return this;
+        }
 
-    private Map<String, String> buildFieldNamingSerializationStrategyIndependentMapping(Map<String, Object> mappedObject) {
-        return mappedObject.keySet().stream()
-            .collect(toMap(String::toLowerCase, fieldName -> fieldName));
-    }
+        public Builder cipherTextEncoding(CipherTextEncoding cipherTextEncoding) {
+            this.cipherTextEncoding = cipherTextEncoding;
+            return this;
+        }
 
-    private Map<String, Object> decryptAnnotatedFields(Map<String, Object> encryptedMappedObject,
-                                                       Map<String, String> serializedFieldNameMapping,
-                                                       List<Field> encryptedFields,
-                                                       Map<String, Optional<SecretKey>> fieldTagToSecretKeyMapping) {
-        var decrypter = encrypterDecrypterFactory.createDecrypter();
+        /**
+         * @param  parallelFieldEncryption deciding which payloads have their fields encrypted and decrypted in parallel
+         * @return                         this builder
+         */
+        public Builder parallelFieldEncryption(ParallelFieldEncryption parallelFieldEncryption) {
+            this.parallelFieldEncryption = parallelFieldEncryption;
+            return this;
+        }
 
-        encryptedFields.forEach(field -> {
-            var fieldTag = field.getAnnotation(EncryptedField.class).tag();
-            if (!fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
-                throw new MissingTaggedEncryptionKeyIdentifierException(field.getName(), fieldTag);
+        public CryptoShreddingSerializer build() {
+            if (wrappedSerializer == null || cryptoShreddingKeyService == null || encrypterDecrypterFactory == null) {
+                throw new IllegalStateException(
+                    "The wrapped serializer, crypto shredding key service and encrypter decrypter factory must be set");
             }
-            var serializedFieldKey = serializedFieldNameMapping.get(field.getName().toLowerCase());
-            var cipherText = Base64.getDecoder().decode((String) encryptedMappedObject.get(serializedFieldKey));
-            var optionalSecretKey = fieldTagToSecretKeyMapping.get(fieldTag);
-
-            if (optionalSecretKey.isPresent()) {
-                var cleartextSerializedFieldValue = decrypter.decrypt(optionalSecretKey.get(), cipherText);
-                var deserializedFieldValue = wrappedSerializer.deserialize(
-                    new SimpleSerializedObject<>(cleartextSerializedFieldValue, String.class, Object.class.getCanonicalName(), null));
-                encryptedMappedObject.put(serializedFieldKey, deserializedFieldValue);
-            } else {
-                encryptedMappedObject.put(serializedFieldKey, defaultValueProvider.defaultValue(field.getType()));
-            }
-        });
-
-        return encryptedMappedObject;
-    }
-
-    private <S> Class<?> getClassToDeserialize(SerializedObject<S> serializedObject) {
-        Class<?> classToDeserialize;
-        try {
-            classToDeserialize = Class.forName(serializedObject.getType().getName());
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
+            return new CryptoShreddingSerializer(this);
         }
-        return classToDeserialize;
     }
 }
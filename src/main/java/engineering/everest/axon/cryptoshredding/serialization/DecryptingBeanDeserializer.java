@@ -0,0 +1,165 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Decrypts the {@code @EncryptedField} properties of a top level payload before handing it to the deserializer Jackson would otherwise have
+ * used. Fields whose secret key has been deleted are replaced with the value supplied by the {@link DefaultValueProvider}.
+ */
+class DecryptingBeanDeserializer extends DelegatingDeserializer {
+
+    private static final JsonFactory CLEARTEXT_JSON_FACTORY = new JsonFactory();
+
+    private final EncryptionMetadata encryptionMetadata;
+    private final EncryptionKeyResolver encryptionKeyResolver;
+    private final CryptoShreddingKeyService cryptoShreddingKeyService;
+    private final EncryptedFieldDecrypter encryptedFieldDecrypter;
+
+    DecryptingBeanDeserializer(JsonDeserializer<?> delegatee,
+                               EncryptionMetadata encryptionMetadata,
+                               EncryptionKeyResolver encryptionKeyResolver,
+                               CryptoShreddingKeyService cryptoShreddingKeyService,
+                               EncryptedFieldDecrypter encryptedFieldDecrypter) {
+        super(delegatee);
+        this.encryptionMetadata = encryptionMetadata;
+        this.encryptionKeyResolver = encryptionKeyResolver;
+        this.cryptoShreddingKeyService = cryptoShreddingKeyService;
+        this.encryptedFieldDecrypter = encryptedFieldDecrypter;
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+        return new DecryptingBeanDeserializer(newDelegatee, encryptionMetadata, encryptionKeyResolver, cryptoShreddingKeyService,
+            encryptedFieldDecrypter);
+    }
+
+    @Override
+    public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!CryptoShreddingModule.isTopLevelObject(p.getParsingContext())) {
+            return _delegatee.deserialize(p, ctxt);
+        }
+
+        var document = ctxt.readTree(p);
+        if (document instanceof ObjectNode encryptedDocument) {
+            decryptAnnotatedFields(encryptedDocument, p, ctxt);
+        }
+        var documentParser = document.traverse(p.getCodec());
+        documentParser.nextToken();
+        return _delegatee.deserialize(documentParser, ctxt);
+    }
+
+    @Override
+    public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+        return typeDeserializer.deserializeTypedFromObject(p, ctxt);
+    }
+
+    private void decryptAnnotatedFields(ObjectNode encryptedDocument, JsonParser p, DeserializationContext ctxt) {
+        var serializedFieldNameMapping = EncryptionKeyResolver.buildFieldNamingSerializationStrategyIndependentMapping(encryptedDocument);
+        var fieldTagToSecretKeyIdentifierMapping = encryptionKeyResolver.extractSecretKeyIdentifiers(encryptedDocument,
+            serializedFieldNameMapping, encryptionMetadata, p.getCodec());
+
+        encryptedFieldDecrypter.decryptAnnotatedFields(encryptedDocument, serializedFieldNameMapping, encryptionMetadata,
+            fieldTagToSecretKeyIdentifierMapping, cryptoShreddingKeyService::getExistingSecretKey,
+            new ContextFieldValueDecoder(ctxt, p.getCodec()));
+    }
+
+    private static JsonNode defaultValueNode(JsonNodeFactory nodeFactory, Object defaultValue) {
+        if (defaultValue == null) {
+            return nodeFactory.nullNode();
+        } else if (defaultValue instanceof Boolean booleanValue) {
+            return nodeFactory.booleanNode(booleanValue);
+        } else if (defaultValue instanceof Integer || defaultValue instanceof Short || defaultValue instanceof Byte) {
+            return nodeFactory.numberNode(((Number) defaultValue).intValue());
+        } else if (defaultValue instanceof Long longValue) {
+            return nodeFactory.numberNode(longValue);
+        } else if (defaultValue instanceof Float floatValue) {
+            return nodeFactory.numberNode(floatValue);
+        } else if (defaultValue instanceof Double doubleValue) {
+            return nodeFactory.numberNode(doubleValue);
+        } else if (defaultValue instanceof BigInteger bigIntegerValue) {
+            return nodeFactory.numberNode(bigIntegerValue);
+        } else if (defaultValue instanceof BigDecimal bigDecimalValue) {
+            return nodeFactory.numberNode(bigDecimalValue);
+        } else if (defaultValue instanceof CharSequence || defaultValue instanceof Character) {
+            return nodeFactory.textNode(defaultValue.toString());
+        }
+        return nodeFactory.pojoNode(defaultValue);
+    }
+
+    /**
+     * Reads decrypted JSON cleartext with the settings of the deserialization in progress, such as the handling of floating point numbers.
+     */
+    private static final class ContextFieldValueDecoder implements FieldValueDecoder {
+
+        private final DeserializationContext ctxt;
+        private final ObjectCodec codec;
+
+        private ContextFieldValueDecoder(DeserializationContext ctxt, ObjectCodec codec) {
+            this.ctxt = ctxt;
+            this.codec = codec;
+        }
+
+        @Override
+        public JsonNode decodeFieldValue(byte[] cleartext) {
+            try (var cleartextParser = CLEARTEXT_JSON_FACTORY.createParser(cleartext)) {
+                return ctxt.readTree(cleartextParser);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public JsonNode decodeDefaultValue(Object defaultValue) {
+            return defaultValueNode(ctxt.getNodeFactory(), defaultValue);
+        }
+
+        @Override
+        public FieldValueDecoder detached() {
+            return new CodecFieldValueDecoder(codec, ctxt.getNodeFactory());
+        }
+    }
+
+    /**
+     * Reads decrypted JSON cleartext with the object mapper of the payload, as the deserialization context may no longer be in use by the
+     * time an {@link EncryptedValue} field is first read.
+     */
+    private static final class CodecFieldValueDecoder implements FieldValueDecoder {
+
+        private final ObjectCodec codec;
+        private final JsonNodeFactory nodeFactory;
+
+        private CodecFieldValueDecoder(ObjectCodec codec, JsonNodeFactory nodeFactory) {
+            this.codec = codec;
+            this.nodeFactory = nodeFactory;
+        }
+
+        @Override
+        public JsonNode decodeFieldValue(byte[] cleartext) {
+            try (var cleartextParser = CLEARTEXT_JSON_FACTORY.createParser(cleartext)) {
+                cleartextParser.setCodec(codec);
+                return cleartextParser.readValueAsTree();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public JsonNode decodeDefaultValue(Object defaultValue) {
+            return defaultValueNode(nodeFactory, defaultValue);
+        }
+    }
+}
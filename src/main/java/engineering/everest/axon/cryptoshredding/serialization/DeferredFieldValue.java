@@ -0,0 +1,22 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.function.Supplier;
+
+/**
+ * Placeholder for the value of an {@link EncryptedValue} field within a payload tree, embedded in place of its ciphertext until the field
+ * is first read.
+ */
+final class DeferredFieldValue {
+
+    private final Supplier<JsonNode> decryption;
+
+    DeferredFieldValue(Supplier<JsonNode> decryption) {
+        this.decryption = decryption;
+    }
+
+    JsonNode decrypt() {
+        return decryption.get();
+    }
+}
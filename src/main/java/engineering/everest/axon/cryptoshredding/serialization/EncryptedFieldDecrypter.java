@@ -0,0 +1,292 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import engineering.everest.axon.cryptoshredding.encryption.Decrypter;
+import engineering.everest.axon.cryptoshredding.encryption.EncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionEnvelopeException;
+import engineering.everest.axon.cryptoshredding.exceptions.MissingTaggedEncryptionKeyIdentifierException;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.EncryptedFieldMetadata;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.ENVELOPES_FIELD_NAME;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Decrypts the {@code @EncryptedField} fields of a document in place, whether each field was encrypted separately or the fields sharing a
+ * tag were encrypted together as an envelope. Fields whose secret key has been deleted are replaced with the value supplied by the
+ * {@link DefaultValueProvider}. A document with envelopes that lacks the envelope of a tag is rejected rather than read as fields encrypted
+ * separately. Shared by {@link CryptoShreddingSerializer} and {@link CryptoShreddingModule}.
+ * <p>
+ * The ciphertext of fields whose secret key has been deleted is neither decoded nor decrypted. Their default values are converted to nodes
+ * once per payload class and reused, so that payloads of shredded keys deserialize at close to the cost of unencrypted payloads.
+ * <p>
+ * The ciphertext of {@link EncryptedValue} fields is replaced with a {@link DeferredFieldValue} instead, which decrypts the field when it
+ * is first read. When every field of a tag is lazy, the secret key of the tag is also only retrieved on first read, from the
+ * {@link CryptoShreddingKeyService} rather than the secret key resolver of the document.
+ * <p>
+ * While an {@link EncryptedFieldMask} is applied, fields it does not name are replaced with default values as if their key had been
+ * deleted, and tags without any named fields are skipped without a secret key lookup.
+ */
+final class EncryptedFieldDecrypter {
+
+    private final CryptoShreddingKeyService cryptoShreddingKeyService;
+    private final EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private final DefaultValueProvider defaultValueProvider;
+    private final ParallelFieldEncryption parallelFieldEncryption;
+    private final ConcurrentMap<EncryptionMetadata, Map<String, JsonNode>> defaultValueTemplates;
+
+    EncryptedFieldDecrypter(CryptoShreddingKeyService cryptoShreddingKeyService,
+                            EncrypterDecrypterFactory encrypterDecrypterFactory,
+                            DefaultValueProvider defaultValueProvider) {
+        this(cryptoShreddingKeyService, encrypterDecrypterFactory, defaultValueProvider, ParallelFieldEncryption.disabled());
+    }
+
+    EncryptedFieldDecrypter(CryptoShreddingKeyService cryptoShreddingKeyService,
+                            EncrypterDecrypterFactory encrypterDecrypterFactory,
+                            DefaultValueProvider defaultValueProvider,
+                            ParallelFieldEncryption parallelFieldEncryption) {
+        this.cryptoShreddingKeyService = cryptoShreddingKeyService;
+        this.encrypterDecrypterFactory = encrypterDecrypterFactory;
+        this.defaultValueProvider = defaultValueProvider;
+        this.parallelFieldEncryption = parallelFieldEncryption;
+        this.defaultValueTemplates = new ConcurrentHashMap<>();
+    }
+
+    ObjectNode decryptAnnotatedFields(ObjectNode encryptedDocument,
+                                      Map<String, String> serializedFieldNameMapping,
+                                      EncryptionMetadata encryptionMetadata,
+                                      Map<String, TypeDifferentiatedSecretKeyId> fieldTagToSecretKeyIdentifierMapping,
+                                      Function<TypeDifferentiatedSecretKeyId, Optional<SecretKey>> secretKeyResolver,
+                                      FieldValueDecoder fieldValueDecoder) {
+        var envelopes = encryptedDocument.remove(ENVELOPES_FIELD_NAME);
+        var encryptedFieldMask = EncryptedFieldMask.current();
+        var pendingDecryptions = new PendingDecryptions();
+
+        encryptionMetadata.getEncryptedFieldsByTag().forEach((fieldTag, encryptedFields) -> {
+            var secretKeyIdentifier = fieldTagToSecretKeyIdentifierMapping.get(fieldTag);
+            if (secretKeyIdentifier == null) {
+                throw new MissingTaggedEncryptionKeyIdentifierException(encryptedFields.get(0).getName(), fieldTag);
+            }
+            var fields = encryptedFields;
+            if (encryptedFieldMask != null) {
+                var payloadType = encryptionMetadata.getPayloadType();
+                fields = encryptedFields.stream()
+                    .filter(field -> encryptedFieldMask.isDecrypted(payloadType, field.getName()))
+                    .toList();
+                if (fields.size() < encryptedFields.size()) {
+                    replaceWithDefaultValues(encryptedDocument, serializedFieldNameMapping, encryptedFields.stream()
+                        .filter(field -> !encryptedFieldMask.isDecrypted(payloadType, field.getName()))
+                        .toList(), defaultValueTemplate(encryptionMetadata, fieldValueDecoder));
+                }
+                if (fields.isEmpty()) {
+                    return;
+                }
+            }
+            var envelope = envelopes == null
+                ? null
+                : envelopes.get(fieldTag);
+            if (envelopes != null && envelope == null) {
+                throw new MissingEncryptionEnvelopeException(encryptionMetadata.getPayloadType().getName(), fieldTag);
+            }
+
+            if (encryptionMetadata.isLazilyDecrypted(fieldTag)) {
+                var secretKey = new Memoized<>(() -> cryptoShreddingKeyService.getExistingSecretKey(secretKeyIdentifier));
+                deferDecryption(encryptedDocument, serializedFieldNameMapping, fields, envelope, secretKey, fieldValueDecoder.detached(),
+                    defaultValueTemplate(encryptionMetadata, fieldValueDecoder));
+                return;
+            }
+
+            var optionalSecretKey = secretKeyResolver.apply(secretKeyIdentifier);
+            if (optionalSecretKey.isEmpty()) {
+                replaceWithDefaultValues(encryptedDocument, serializedFieldNameMapping, fields,
+                    defaultValueTemplate(encryptionMetadata, fieldValueDecoder));
+            } else if (envelope != null) {
+                var retainedFields = fields.size() < encryptedFields.size()
+                    ? fields
+                    : null;
+                pendingDecryptions.add(optionalSecretKey.get(), PayloadTreeCodec.decodeCipherText(envelope), cleartextEnvelope -> {
+                    var decryptedEnvelope = (ObjectNode) fieldValueDecoder.decodeFieldValue(cleartextEnvelope);
+                    if (retainedFields != null) {
+                        decryptedEnvelope.retain(serializedFieldKeys(serializedFieldNameMapping, retainedFields));
+                    }
+                    encryptedDocument.setAll(decryptedEnvelope);
+                });
+            } else {
+                decryptFields(encryptedDocument, serializedFieldNameMapping, fields, optionalSecretKey.get(), fieldValueDecoder,
+                    pendingDecryptions);
+            }
+        });
+
+        pendingDecryptions.decrypt();
+        return encryptedDocument;
+    }
+
+    /**
+     * @param  encryptionMetadata of the payload
+     * @param  fieldTag           of the encrypted fields
+     * @return                    whether the secret key of the tag will be retrieved while decrypting the payload on the current thread,
+     *                            so that it is worth retrieving together with the keys of other payloads
+     */
+    static boolean retrievesSecretKeyEagerly(EncryptionMetadata encryptionMetadata, String fieldTag) {
+        if (encryptionMetadata.isLazilyDecrypted(fieldTag)) {
+            return false;
+        }
+        var encryptedFieldMask = EncryptedFieldMask.current();
+        var fields = encryptionMetadata.getEncryptedFieldsByTag().get(fieldTag);
+        return encryptedFieldMask == null || encryptedFieldMask.decryptsAny(encryptionMetadata.getPayloadType(), fields);
+    }
+
+    private static List<String> serializedFieldKeys(Map<String, String> serializedFieldNameMapping, List<EncryptedFieldMetadata> fields) {
+        return fields.stream()
+            .map(field -> serializedFieldNameMapping.get(field.getLowercaseName()))
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
+    /**
+     * @return the default value of each encrypted field of the payload class as a node, keyed by field name
+     */
+    private Map<String, JsonNode> defaultValueTemplate(EncryptionMetadata encryptionMetadata, FieldValueDecoder fieldValueDecoder) {
+        return defaultValueTemplates.computeIfAbsent(encryptionMetadata, metadata -> {
+            var defaultValueNodes = new HashMap<String, JsonNode>();
+            metadata.getEncryptedFields().forEach(field -> defaultValueNodes.put(field.getName(),
+                fieldValueDecoder.decodeDefaultValue(defaultValueProvider.defaultValue(field.getType()))));
+            return unmodifiableMap(defaultValueNodes);
+        });
+    }
+
+    private void deferDecryption(ObjectNode encryptedDocument,
+                                 Map<String, String> serializedFieldNameMapping,
+                                 List<EncryptedFieldMetadata> fields,
+                                 JsonNode envelope,
+                                 Supplier<Optional<SecretKey>> secretKey,
+                                 FieldValueDecoder fieldValueDecoder,
+                                 Map<String, JsonNode> defaultValueTemplate) {
+        var decryptedEnvelope = envelope == null
+            ? null
+            : new Memoized<>(() -> secretKey.get().map(key -> (ObjectNode) decrypt(key, envelope, fieldValueDecoder)));
+
+        fields.forEach(field -> {
+            var serializedFieldKey = serializedFieldNameMapping.get(field.getLowercaseName());
+            if (serializedFieldKey == null) {
+                return;
+            }
+            var cipherTextNode = encryptedDocument.get(serializedFieldKey);
+            Supplier<Optional<JsonNode>> decryptedFieldValue = decryptedEnvelope == null
+                ? () -> secretKey.get().map(key -> decrypt(key, cipherTextNode, fieldValueDecoder))
+                : () -> decryptedEnvelope.get().map(decrypted -> decrypted.has(serializedFieldKey)
+                    ? decrypted.get(serializedFieldKey)
+                    : NullNode.getInstance());
+            encryptedDocument.putPOJO(serializedFieldKey, new DeferredFieldValue(() -> decryptedFieldValue.get()
+                .orElseGet(() -> defaultValueTemplate.get(field.getName()).deepCopy())));
+        });
+    }
+
+    private JsonNode decrypt(SecretKey secretKey, JsonNode cipherTextNode, FieldValueDecoder fieldValueDecoder) {
+        var cipherText = PayloadTreeCodec.decodeCipherText(cipherTextNode);
+        var cleartext = encrypterDecrypterFactory.createDecrypter().decrypt(secretKey, cipherText, 0, cipherText.length);
+        return fieldValueDecoder.decodeFieldValue(cleartext);
+    }
+
+    private void replaceWithDefaultValues(ObjectNode encryptedDocument,
+                                          Map<String, String> serializedFieldNameMapping,
+                                          List<EncryptedFieldMetadata> fields,
+                                          Map<String, JsonNode> defaultValueTemplate) {
+        fields.forEach(field -> {
+            var serializedFieldKey = serializedFieldNameMapping.get(field.getLowercaseName());
+            if (serializedFieldKey != null) {
+                encryptedDocument.set(serializedFieldKey, defaultValueTemplate.get(field.getName()).deepCopy());
+            }
+        });
+    }
+
+    private void decryptFields(ObjectNode encryptedDocument,
+                               Map<String, String> serializedFieldNameMapping,
+                               List<EncryptedFieldMetadata> fields,
+                               SecretKey secretKey,
+                               FieldValueDecoder fieldValueDecoder,
+                               PendingDecryptions pendingDecryptions) {
+        fields.forEach(field -> {
+            var serializedFieldKey = serializedFieldNameMapping.get(field.getLowercaseName());
+            if (field.isLazy()) {
+                var cipherTextNode = encryptedDocument.get(serializedFieldKey);
+                var detachedFieldValueDecoder = fieldValueDecoder.detached();
+                encryptedDocument.putPOJO(serializedFieldKey,
+                    new DeferredFieldValue(() -> decrypt(secretKey, cipherTextNode, detachedFieldValueDecoder)));
+                return;
+            }
+            var cipherText = PayloadTreeCodec.decodeCipherText(encryptedDocument.get(serializedFieldKey));
+            pendingDecryptions.add(secretKey, cipherText, cleartextSerializedFieldValue -> encryptedDocument.set(serializedFieldKey,
+                fieldValueDecoder.decodeFieldValue(cleartextSerializedFieldValue)));
+        });
+    }
+
+    /**
+     * Fields and envelopes of a document awaiting decryption, which are decrypted together so that those of large documents can be
+     * decrypted in parallel. Decrypted values are written back to the document on the calling thread.
+     */
+    private final class PendingDecryptions {
+        private final List<Function<Decrypter, byte[]>> decryptions = new ArrayList<>();
+        private final List<Consumer<byte[]>> cleartextConsumers = new ArrayList<>();
+        private long cipherTextBytes;
+
+        private void add(SecretKey secretKey, byte[] cipherText, Consumer<byte[]> cleartextConsumer) {
+            decryptions.add(decrypter -> decrypter.decrypt(secretKey, cipherText, 0, cipherText.length));
+            cleartextConsumers.add(cleartextConsumer);
+            cipherTextBytes += cipherText.length;
+        }
+
+        private void decrypt() {
+            if (decryptions.isEmpty()) {
+                return;
+            }
+            var cleartexts = parallelFieldEncryption.apply(encrypterDecrypterFactory::createDecrypter, decryptions, cipherTextBytes);
+            for (int i = 0; i < cleartexts.size(); i++) {
+                cleartextConsumers.get(i).accept(cleartexts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Supplier that computes its value at most once, so that the fields of a lazily decrypted tag share a single secret key lookup and
+     * envelope decryption.
+     */
+    private static final class Memoized<T> implements Supplier<T> {
+        private volatile Supplier<T> supplier;
+        private T value;
+
+        private Memoized(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public T get() {
+            if (supplier != null) {
+                synchronized (this) {
+                    var pendingSupplier = supplier;
+                    if (pendingSupplier != null) {
+                        value = pendingSupplier.get();
+                        supplier = null;
+                    }
+                }
+            }
+            return value;
+        }
+    }
+}
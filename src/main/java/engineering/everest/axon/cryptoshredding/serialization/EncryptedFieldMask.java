@@ -0,0 +1,142 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.EncryptedFieldMetadata;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * The {@code @EncryptedField} fields that a consumer of deserialized payloads, such as the event handlers of a processing group, actually
+ * needs. While a mask is applied, {@link CryptoShreddingSerializer} and {@link CryptoShreddingModule} decrypt only the fields it names and
+ * replace all other encrypted fields with the value supplied by the {@link DefaultValueProvider}, without decoding their ciphertext. Secret
+ * keys are not retrieved for field tags without any named fields.
+ * <p>
+ * A mask is applied to the deserializations performed by the current thread with {@link #applyTo(Callable)}, typically by an
+ * {@link EncryptedFieldMaskInterceptor}. Deserializations outside of a mask decrypt every field. Lazily deserialized messages keep their
+ * payload once deserialized, so messages shared with other consumers, such as events read from the event store, should not be read while a
+ * mask is applied. The interceptor hands its processing group copies of such messages instead.
+ */
+public final class EncryptedFieldMask {
+
+    private static final ThreadLocal<EncryptedFieldMask> CURRENT_MASK = new ThreadLocal<>();
+
+    private final Map<Class<?>, Set<String>> decryptedFieldNamesByPayloadType;
+
+    private EncryptedFieldMask(Map<Class<?>, Set<String>> decryptedFieldNamesByPayloadType) {
+        this.decryptedFieldNamesByPayloadType = unmodifiableMap(decryptedFieldNamesByPayloadType);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Build a mask from field references of the form {@code fully.qualified.PayloadClass#fieldName}, as used in configuration properties.
+     *
+     * @param  fieldReferences to the encrypted fields that are to be decrypted
+     * @return                 a mask decrypting only the referenced fields
+     */
+    public static EncryptedFieldMask of(Collection<String> fieldReferences) {
+        var builder = builder();
+        fieldReferences.forEach(fieldReference -> {
+            var separatorIndex = fieldReference.indexOf('#');
+            if (separatorIndex <= 0 || separatorIndex == fieldReference.length() - 1) {
+                throw new IllegalArgumentException(String.format("Field reference '%s' is not of the form 'payload.Class#field'",
+                    fieldReference));
+            }
+            try {
+                builder.decrypt(Class.forName(fieldReference.substring(0, separatorIndex).trim()),
+                    fieldReference.substring(separatorIndex + 1).trim());
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return builder.build();
+    }
+
+    static EncryptedFieldMask current() {
+        return CURRENT_MASK.get();
+    }
+
+    /**
+     * Run an action with this mask applied to every deserialization it performs on the current thread.
+     *
+     * @param  action    that deserializes payloads, directly or by reading the payload of lazily deserialized messages
+     * @param  <T>       the result type of the action
+     * @return           the result of the action
+     * @throws Exception thrown by the action
+     */
+    public <T> T applyTo(Callable<T> action) throws Exception {
+        var previousMask = CURRENT_MASK.get();
+        CURRENT_MASK.set(this);
+        try {
+            return action.call();
+        } finally {
+            if (previousMask == null) {
+                CURRENT_MASK.remove();
+            } else {
+                CURRENT_MASK.set(previousMask);
+            }
+        }
+    }
+
+    /**
+     * @param  payloadType of the deserialized payload
+     * @param  fieldName   of an encrypted field of the payload
+     * @return             whether the field is decrypted while this mask is applied
+     */
+    public boolean isDecrypted(Class<?> payloadType, String fieldName) {
+        var decryptedFieldNames = decryptedFieldNamesByPayloadType.get(payloadType);
+        return decryptedFieldNames != null && decryptedFieldNames.contains(fieldName);
+    }
+
+    boolean decryptsAny(Class<?> payloadType, List<EncryptedFieldMetadata> fields) {
+        for (EncryptedFieldMetadata field : fields) {
+            if (isDecrypted(payloadType, field.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Builder {
+        private final Map<Class<?>, Set<String>> decryptedFieldNamesByPayloadType;
+
+        public Builder() {
+            this.decryptedFieldNamesByPayloadType = new HashMap<>();
+        }
+
+        /**
+         * @param  payloadType declaring the fields
+         * @param  fieldNames  of {@code @EncryptedField} fields of the payload that are to be decrypted
+         * @return             this builder
+         */
+        public Builder decrypt(Class<?> payloadType, String... fieldNames) {
+            var decryptedFieldNames = decryptedFieldNamesByPayloadType.computeIfAbsent(payloadType, type -> new HashSet<>());
+            for (String fieldName : fieldNames) {
+                try {
+                    if (!payloadType.getDeclaredField(fieldName).isAnnotationPresent(EncryptedField.class)) {
+                        throw new IllegalArgumentException(String.format("Field '%s' of %s is not an @EncryptedField", fieldName,
+                            payloadType.getName()));
+                    }
+                } catch (NoSuchFieldException e) {
+                    throw new IllegalArgumentException(String.format("%s has no field '%s'", payloadType.getName(), fieldName), e);
+                }
+                decryptedFieldNames.add(fieldName);
+            }
+            return this;
+        }
+
+        public EncryptedFieldMask build() {
+            return new EncryptedFieldMask(new HashMap<>(decryptedFieldNamesByPayloadType));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.serialization.Serializer;
+
+/**
+ * Applies an {@link EncryptedFieldMask} while events are handled, so that the payloads of events read from the event store are decrypted
+ * only as far as the handlers of a processing group need. Register it with the processing group, for example:
+ *
+ * <pre>
+ * eventProcessingConfigurer.registerHandlerInterceptor("analytics",
+ *     configuration -&gt; new EncryptedFieldMaskInterceptor(mask, configuration.eventSerializer()));
+ * </pre>
+ *
+ * Event messages are shared with other processing groups, so the handlers are given a copy of each message whose payload is deserialized
+ * from its serialized form with the mask applied. The serializer must be the one the events were read with, so that the serialized payload
+ * is reused rather than serialized again. The copy is shared by every handler of the processing group, so the mask must name the fields
+ * needed by all of them.
+ */
+public class EncryptedFieldMaskInterceptor implements MessageHandlerInterceptor<EventMessage<?>> {
+
+    private final EncryptedFieldMask encryptedFieldMask;
+    private final Serializer serializer;
+
+    /**
+     * @param encryptedFieldMask fields the handlers of the processing group need
+     * @param serializer         event serializer the events are read with
+     */
+    public EncryptedFieldMaskInterceptor(EncryptedFieldMask encryptedFieldMask, Serializer serializer) {
+        this.encryptedFieldMask = encryptedFieldMask;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends EventMessage<?>> unitOfWork, InterceptorChain interceptorChain) throws Exception {
+        MaskedEventMessages maskedEventMessages =
+            unitOfWork.getOrComputeResource(MaskedEventMessages.RESOURCE_KEY, resourceKey -> new MaskedEventMessages(serializer));
+        var maskedEventMessage = maskedEventMessages.maskedCopyOf(unitOfWork.getMessage());
+        unitOfWork.transformMessage(eventMessage -> maskedEventMessage);
+        return encryptedFieldMask.applyTo(interceptorChain::proceed);
+    }
+}
@@ -0,0 +1,160 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Holder for the value of an {@code @EncryptedField} that is decrypted the first time it is read rather than when the payload is
+ * deserialized. Declaring an encrypted field as {@code EncryptedValue<T>} instead of {@code T} means that handlers that never read the
+ * field pay neither for its decryption nor, when every field of its tag is lazy, for the lookup of its secret key. The serialized form is
+ * identical to that of a field of type {@code T}, so fields can be switched between the two without affecting stored payloads.
+ * <p>
+ * Whether the secret key has been deleted is determined on first read, in which case the value supplied by the {@link DefaultValueProvider}
+ * for {@code T} is returned. Instances are thread safe and decrypt at most once.
+ *
+ * @param <T> the type of the decrypted value
+ */
+@JsonDeserialize(using = EncryptedValue.Deserializer.class)
+public final class EncryptedValue<T> {
+
+    private static final EncryptedValue<?> NULL_VALUE = of(null);
+
+    private volatile Supplier<T> decryption;
+    private T value;
+
+    private EncryptedValue(T value, Supplier<T> decryption) {
+        this.value = value;
+        this.decryption = decryption;
+    }
+
+    /**
+     * @param  value the cleartext value, which will be encrypted when its payload is serialized
+     * @param  <T>   the type of the value
+     * @return       an already decrypted value
+     */
+    public static <T> EncryptedValue<T> of(T value) {
+        return new EncryptedValue<>(value, null);
+    }
+
+    static <T> EncryptedValue<T> lazy(Supplier<T> decryption) {
+        return new EncryptedValue<>(null, decryption);
+    }
+
+    /**
+     * Retrieve the value, decrypting it on first access.
+     *
+     * @return the decrypted value or the default value if its secret key has been deleted
+     */
+    @JsonValue
+    public T get() {
+        if (decryption != null) {
+            synchronized (this) {
+                var pendingDecryption = decryption;
+                if (pendingDecryption != null) {
+                    value = pendingDecryption.get();
+                    decryption = null;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return whether the value has already been decrypted
+     */
+    public boolean isDecrypted() {
+        return decryption == null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof EncryptedValue<?> otherEncryptedValue && Objects.equals(get(), otherEncryptedValue.get());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(get());
+    }
+
+    /**
+     * Describes the value without decrypting it, so that logging a payload does not defeat lazy decryption.
+     */
+    @Override
+    public String toString() {
+        return isDecrypted()
+            ? "EncryptedValue[" + value + "]"
+            : "EncryptedValue[not yet decrypted]";
+    }
+
+    /**
+     * Binds the deferred decryptions placed in the payload tree by {@link EncryptedFieldDecrypter}, converting the decrypted field value to
+     * the declared type argument on first read. Cleartext values, such as those of payloads read without a crypto shredding serializer, are
+     * bound as already decrypted values. A {@code null} value is bound as a decrypted {@code null} so that handlers need not check for
+     * missing holders, as holders of {@code null} and {@code null} holders are serialized identically.
+     */
+    static final class Deserializer extends StdDeserializer<EncryptedValue<?>> implements ContextualDeserializer {
+
+        private final JavaType valueType;
+
+        Deserializer() {
+            this(null);
+        }
+
+        private Deserializer(JavaType valueType) {
+            super(EncryptedValue.class);
+            this.valueType = valueType;
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+            var encryptedValueType = property == null
+                ? ctxt.getContextualType()
+                : property.getType();
+            return new Deserializer(encryptedValueType.containedTypeOrUnknown(0));
+        }
+
+        @Override
+        public EncryptedValue<?> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+                var embeddedObject = p.getEmbeddedObject();
+                if (embeddedObject instanceof DeferredFieldValue deferredFieldValue) {
+                    var codec = p.getCodec();
+                    return lazy(() -> convert(deferredFieldValue.decrypt(), codec));
+                } else if (embeddedObject instanceof EncryptedValue<?> encryptedValue) {
+                    return encryptedValue;
+                }
+            }
+            return of(ctxt.readValue(p, valueType));
+        }
+
+        @Override
+        public EncryptedValue<?> getNullValue(DeserializationContext ctxt) {
+            return NULL_VALUE;
+        }
+
+        private Object convert(JsonNode fieldValue, ObjectCodec codec) {
+            try (var fieldValueParser = codec.treeAsTokens(fieldValue)) {
+                return codec.readValue(fieldValueParser, valueType);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import engineering.everest.axon.cryptoshredding.encryption.EncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.exceptions.MissingTaggedEncryptionKeyIdentifierException;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.EncryptedFieldMetadata;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static engineering.everest.axon.cryptoshredding.serialization.CipherTextEncoding.NATIVE_BINARY;
+import static engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.ENVELOPES_FIELD_NAME;
+import static java.lang.Boolean.TRUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes an {@code @EncryptedField} property of a top level payload as the ciphertext of its JSON serialized value, encoded as configured
+ * by the {@link CipherTextEncoding}. Secret keys are resolved once per payload and shared by all of its encrypted properties. Annotated
+ * classes nested within the payload, including within an encrypted value, are written as they would be without the module.
+ * <p>
+ * For {@code @EncryptionEnvelope} payloads each encrypted property is written as {@code null}, or left out when null values are suppressed
+ * and its value is null, and the first encrypted property of the payload also writes the envelopes of every field tag.
+ */
+class EncryptingBeanPropertyWriter extends BeanPropertyWriter {
+
+    private static final JsonFactory CLEARTEXT_JSON_FACTORY = new JsonFactory();
+    private static final byte[] NULL_CLEARTEXT = "null".getBytes(UTF_8);
+    private static final Object SECRET_KEYS_ATTRIBUTE = PayloadSecretKeys.class;
+    private static final Object WRITING_CLEARTEXT_ATTRIBUTE = EncryptingBeanPropertyWriter.class;
+
+    private final EncryptedFieldMetadata encryptedField;
+    private final EncryptionMetadata encryptionMetadata;
+    private final EncryptionKeyResolver encryptionKeyResolver;
+    private final EncrypterDecrypterFactory encrypterDecrypterFactory;
+    private final CipherTextEncoding cipherTextEncoding;
+    private Map<String, List<EncryptingBeanPropertyWriter>> envelopeWritersByTag;
+
+    EncryptingBeanPropertyWriter(BeanPropertyWriter base,
+                                 EncryptedFieldMetadata encryptedField,
+                                 EncryptionMetadata encryptionMetadata,
+                                 EncryptionKeyResolver encryptionKeyResolver,
+                                 EncrypterDecrypterFactory encrypterDecrypterFactory,
+                                 CipherTextEncoding cipherTextEncoding) {
+        super(base);
+        this.encryptedField = encryptedField;
+        this.encryptionMetadata = encryptionMetadata;
+        this.encryptionKeyResolver = encryptionKeyResolver;
+        this.encrypterDecrypterFactory = encrypterDecrypterFactory;
+        this.cipherTextEncoding = cipherTextEncoding;
+    }
+
+    /**
+     * Make this property responsible for writing the envelopes of an {@code @EncryptionEnvelope} payload.
+     *
+     * @param encryptingWritersByTag the encrypting writers of every encrypted property of the payload, grouped by field tag
+     */
+    void writeEnvelopesOf(Map<String, List<EncryptingBeanPropertyWriter>> encryptingWritersByTag) {
+        this.envelopeWritersByTag = encryptingWritersByTag;
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+        if (prov.getAttribute(WRITING_CLEARTEXT_ATTRIBUTE) != null || !CryptoShreddingModule.isTopLevelObject(gen.getOutputContext())) {
+            super.serializeAsField(bean, gen, prov);
+            return;
+        }
+
+        var fieldTag = encryptedField.getTag();
+        var fieldTagToSecretKeyMapping = secretKeysFor(bean, prov);
+        if (!fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
+            throw new MissingTaggedEncryptionKeyIdentifierException(encryptedField.getName(), fieldTag);
+        }
+
+        if (encryptionMetadata.isEnvelopeEncrypted()) {
+            if (get(bean) != null || !willSuppressNulls()) {
+                gen.writeFieldName(_name);
+                gen.writeNull();
+            }
+            if (envelopeWritersByTag != null) {
+                writeEnvelopes(bean, fieldTagToSecretKeyMapping, gen, prov);
+            }
+            return;
+        }
+
+        var cleartext = serializeCleartext(get(bean), gen, prov);
+        var cipherText = encrypterDecrypterFactory.createEncrypter()
+            .encrypt(fieldTagToSecretKeyMapping.get(fieldTag), cleartext, 0, cleartext.length);
+        gen.writeFieldName(_name);
+        writeCipherText(cipherText, gen);
+    }
+
+    private void writeEnvelopes(Object bean,
+                                Map<String, SecretKey> fieldTagToSecretKeyMapping,
+                                JsonGenerator gen,
+                                SerializerProvider prov) throws Exception {
+        var encrypter = encrypterDecrypterFactory.createEncrypter();
+        gen.writeFieldName(ENVELOPES_FIELD_NAME);
+        gen.writeStartObject();
+        for (var envelopeWriters : envelopeWritersByTag.entrySet()) {
+            var fieldTag = envelopeWriters.getKey();
+            if (!fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
+                var firstEncryptedField = envelopeWriters.getValue().get(0).encryptedField;
+                throw new MissingTaggedEncryptionKeyIdentifierException(firstEncryptedField.getName(), fieldTag);
+            }
+            var cleartextEnvelope = serializeCleartextEnvelope(bean, envelopeWriters.getValue(), gen, prov);
+            var cipherText = encrypter.encrypt(fieldTagToSecretKeyMapping.get(fieldTag), cleartextEnvelope, 0, cleartextEnvelope.length);
+            gen.writeFieldName(fieldTag);
+            writeCipherText(cipherText, gen);
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeCipherText(byte[] cipherText, JsonGenerator gen) throws IOException {
+        if (cipherTextEncoding == NATIVE_BINARY && gen.canWriteBinaryNatively()) {
+            gen.writeBinary(cipherText);
+        } else {
+            gen.writeString(Base64.getEncoder().encodeToString(cipherText));
+        }
+    }
+
+    private Map<String, SecretKey> secretKeysFor(Object bean, SerializerProvider prov) {
+        var secretKeys = (PayloadSecretKeys) prov.getAttribute(SECRET_KEYS_ATTRIBUTE);
+        if (secretKeys == null || secretKeys.payload != bean) {
+            secretKeys = new PayloadSecretKeys(bean, encryptionKeyResolver.retrieveOrCreateSecretKeys(bean, encryptionMetadata));
+            prov.setAttribute(SECRET_KEYS_ATTRIBUTE, secretKeys);
+        }
+        return secretKeys.fieldTagToSecretKeyMapping;
+    }
+
+    private byte[] serializeCleartext(Object value, JsonGenerator gen, SerializerProvider prov) throws IOException {
+        if (value == null) {
+            return NULL_CLEARTEXT;
+        }
+
+        var cleartext = new ByteArrayBuilder();
+        try (var cleartextGenerator = CLEARTEXT_JSON_FACTORY.createGenerator(cleartext, JsonEncoding.UTF8)) {
+            cleartextGenerator.setCodec(gen.getCodec());
+            writeCleartextValue(value, cleartextGenerator, prov);
+        }
+        return cleartext.toByteArray();
+    }
+
+    private static byte[] serializeCleartextEnvelope(Object bean,
+                                                     List<EncryptingBeanPropertyWriter> envelopeWriters,
+                                                     JsonGenerator gen,
+                                                     SerializerProvider prov) throws Exception {
+        var cleartext = new ByteArrayBuilder();
+        try (var cleartextGenerator = CLEARTEXT_JSON_FACTORY.createGenerator(cleartext, JsonEncoding.UTF8)) {
+            cleartextGenerator.setCodec(gen.getCodec());
+            cleartextGenerator.writeStartObject();
+            for (var envelopeWriter : envelopeWriters) {
+                var value = envelopeWriter.get(bean);
+                if (value == null && envelopeWriter.willSuppressNulls()) {
+                    continue;
+                }
+                cleartextGenerator.writeFieldName(envelopeWriter._name);
+                if (value == null) {
+                    cleartextGenerator.writeNull();
+                } else {
+                    envelopeWriter.writeCleartextValue(value, cleartextGenerator, prov);
+                }
+            }
+            cleartextGenerator.writeEndObject();
+        }
+        return cleartext.toByteArray();
+    }
+
+    private void writeCleartextValue(Object value, JsonGenerator cleartextGenerator, SerializerProvider prov) throws IOException {
+        prov.setAttribute(WRITING_CLEARTEXT_ATTRIBUTE, TRUE);
+        try {
+            var serializer = _serializer == null
+                ? prov.findValueSerializer(value.getClass(), this)
+                : _serializer;
+            if (_typeSerializer == null) {
+                serializer.serialize(value, cleartextGenerator, prov);
+            } else {
+                serializer.serializeWithType(value, cleartextGenerator, prov, _typeSerializer);
+            }
+        } finally {
+            prov.setAttribute(WRITING_CLEARTEXT_ATTRIBUTE, null);
+        }
+    }
+
+    private static final class PayloadSecretKeys {
+        private final Object payload;
+        private final Map<String, SecretKey> fieldTagToSecretKeyMapping;
+
+        private PayloadSecretKeys(Object payload, Map<String, SecretKey> fieldTagToSecretKeyMapping) {
+            this.payload = payload;
+            this.fieldTagToSecretKeyMapping = fieldTagToSecretKeyMapping;
+        }
+    }
+}
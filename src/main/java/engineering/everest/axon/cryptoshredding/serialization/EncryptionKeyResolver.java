@@ -0,0 +1,112 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import engineering.everest.axon.cryptoshredding.exceptions.DuplicateEncryptionKeyIdentifierFieldTagException;
+import engineering.everest.axon.cryptoshredding.exceptions.EncryptionKeyDeletedException;
+import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionKeyIdentifierAnnotationException;
+import engineering.everest.axon.cryptoshredding.exceptions.MissingSerializedEncryptionKeyIdentifierFieldException;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptionMetadata.KeyIdentifierFieldMetadata;
+
+import javax.crypto.SecretKey;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.StreamSupport.stream;
+
+/**
+ * Maps the {@code @EncryptionKeyIdentifier} fields of a payload to secret keys, or to secret key identifiers when reading a serialized
+ * payload, grouped by field tag. Shared by {@link CryptoShreddingSerializer} and {@link CryptoShreddingModule}.
+ */
+final class EncryptionKeyResolver {
+
+    private final CryptoShreddingKeyService cryptoShreddingKeyService;
+    private final KeyIdentifierToStringConverter keyIdentifierToStringConverter;
+
+    EncryptionKeyResolver(CryptoShreddingKeyService cryptoShreddingKeyService,
+                          KeyIdentifierToStringConverter keyIdentifierToStringConverter) {
+        this.cryptoShreddingKeyService = cryptoShreddingKeyService;
+        this.keyIdentifierToStringConverter = keyIdentifierToStringConverter;
+    }
+
+    static Map<String, String> buildFieldNamingSerializationStrategyIndependentMapping(ObjectNode document) {
+        return stream(spliteratorUnknownSize(document.fieldNames(), ORDERED), false)
+            .collect(toMap(String::toLowerCase, fieldName -> fieldName));
+    }
+
+    Map<String, SecretKey> retrieveOrCreateSecretKeys(Object object, EncryptionMetadata encryptionMetadata) {
+        var secretKeyIdentifierFields = encryptionMetadata.getKeyIdentifierFields();
+        if (secretKeyIdentifierFields.isEmpty()) {
+            throw new MissingEncryptionKeyIdentifierAnnotationException();
+        }
+
+        Map<String, SecretKey> fieldTagToSecretKeyMapping = new HashMap<>();
+        secretKeyIdentifierFields.forEach(field -> {
+            var secretKeyIdentifier = extractSecretKeyIdentifier(object, field);
+            var optionalSecretKey = cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(secretKeyIdentifier);
+            var fieldTag = field.getTag();
+            if (fieldTagToSecretKeyMapping.containsKey(fieldTag)) {
+                throw new DuplicateEncryptionKeyIdentifierFieldTagException(field.getName(), fieldTag);
+            }
+            fieldTagToSecretKeyMapping.put(fieldTag, optionalSecretKey.orElseThrow(
+                () -> new EncryptionKeyDeletedException(secretKeyIdentifier.getKeyId(), secretKeyIdentifier.getKeyType())));
+        });
+
+        return fieldTagToSecretKeyMapping;
+    }
+
+    Map<String, TypeDifferentiatedSecretKeyId> extractSecretKeyIdentifiers(ObjectNode encryptedDocument,
+                                                                           Map<String, String> serializedFieldNameMapping,
+                                                                           EncryptionMetadata encryptionMetadata,
+                                                                           ObjectCodec objectCodec) {
+        var secretKeyIdentifierFields = encryptionMetadata.getKeyIdentifierFields();
+        if (secretKeyIdentifierFields.isEmpty()) {
+            throw new MissingEncryptionKeyIdentifierAnnotationException();
+        }
+
+        Map<String, TypeDifferentiatedSecretKeyId> fieldTagToSecretKeyIdentifierMapping = new HashMap<>();
+        secretKeyIdentifierFields.forEach(field -> {
+            var secretKeyIdentifierFieldName = serializedFieldNameMapping.get(field.getLowercaseName());
+            if (secretKeyIdentifierFieldName == null) {
+                throw new MissingSerializedEncryptionKeyIdentifierFieldException();
+            }
+
+            var secretKeyIdentifier = secretKeyIdentifierToString(encryptedDocument.get(secretKeyIdentifierFieldName), objectCodec);
+            if (secretKeyIdentifier == null || secretKeyIdentifier.isBlank()) {
+                throw new MissingSerializedEncryptionKeyIdentifierFieldException();
+            }
+
+            fieldTagToSecretKeyIdentifierMapping.put(field.getTag(),
+                new TypeDifferentiatedSecretKeyId(secretKeyIdentifier, field.getKeyType()));
+        });
+
+        return fieldTagToSecretKeyIdentifierMapping;
+    }
+
+    private String secretKeyIdentifierToString(JsonNode secretKeyIdentifierNode, ObjectCodec objectCodec) {
+        if (secretKeyIdentifierNode == null || secretKeyIdentifierNode.isNull()) {
+            return null;
+        }
+        if (!secretKeyIdentifierNode.isContainerNode()) {
+            return secretKeyIdentifierNode.asText();
+        }
+        try {
+            return objectCodec.treeToValue(secretKeyIdentifierNode, Object.class).toString();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private TypeDifferentiatedSecretKeyId extractSecretKeyIdentifier(Object object, KeyIdentifierFieldMetadata secretKeyIdentifierField) {
+        return new TypeDifferentiatedSecretKeyId(
+            keyIdentifierToStringConverter.convertToString(secretKeyIdentifierField.valueOf(object)),
+            secretKeyIdentifierField.getKeyType());
+    }
+}
@@ -0,0 +1,173 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionEnvelope;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Precomputed description of the crypto shredding annotations declared on a payload class. Building an instance performs all of the
+ * reflective work (field scanning, annotation lookup and accessibility checks) so that it only needs to happen once per class.
+ *
+ * @see EncryptionMetadataRegistry
+ */
+@Getter
+final class EncryptionMetadata {
+
+    static final EncryptionMetadata UNENCRYPTED = new EncryptionMetadata(null, List.of(), List.of(), false);
+
+    /**
+     * Name of the serialized property holding the envelopes of an {@code @EncryptionEnvelope} payload, keyed by field tag. It cannot clash
+     * with a Java field name.
+     */
+    static final String ENVELOPES_FIELD_NAME = "@encryptedFields";
+
+    private final Class<?> payloadType;
+    private final List<EncryptedFieldMetadata> encryptedFields;
+    private final List<KeyIdentifierFieldMetadata> keyIdentifierFields;
+    private final Map<String, List<EncryptedFieldMetadata>> encryptedFieldsByTag;
+    private final Set<String> lazilyDecryptedTags;
+    /**
+     * Whether encrypted fields sharing a tag are written as a single envelope.
+     */
+    private final boolean envelopeEncrypted;
+
+    private EncryptionMetadata(Class<?> payloadType,
+                               List<EncryptedFieldMetadata> encryptedFields,
+                               List<KeyIdentifierFieldMetadata> keyIdentifierFields,
+                               boolean envelopeEncrypted) {
+        this.payloadType = payloadType;
+        this.encryptedFields = unmodifiableList(encryptedFields);
+        this.keyIdentifierFields = unmodifiableList(keyIdentifierFields);
+        this.envelopeEncrypted = envelopeEncrypted;
+        Map<String, List<EncryptedFieldMetadata>> fieldsByTag = new LinkedHashMap<>();
+        encryptedFields.forEach(field -> fieldsByTag.computeIfAbsent(field.getTag(), tag -> new ArrayList<>()).add(field));
+        this.encryptedFieldsByTag = unmodifiableMap(fieldsByTag);
+        Set<String> lazyTags = new HashSet<>();
+        fieldsByTag.forEach((tag, fields) -> {
+            if (fields.stream().allMatch(EncryptedFieldMetadata::isLazy)) {
+                lazyTags.add(tag);
+            }
+        });
+        this.lazilyDecryptedTags = unmodifiableSet(lazyTags);
+    }
+
+    static EncryptionMetadata forClass(Class<?> type) {
+        var declaredFields = type.getDeclaredFields();
+        var encryptedFields = new ArrayList<EncryptedFieldMetadata>();
+        for (Field field : declaredFields) {
+            var encryptedFieldAnnotation = field.getAnnotation(EncryptedField.class);
+            if (encryptedFieldAnnotation != null) {
+                encryptedFields.add(new EncryptedFieldMetadata(field, encryptedFieldAnnotation));
+            }
+        }
+        if (encryptedFields.isEmpty()) {
+            return UNENCRYPTED;
+        }
+
+        var keyIdentifierFields = new ArrayList<KeyIdentifierFieldMetadata>();
+        for (Field field : declaredFields) {
+            var keyIdentifierAnnotation = field.getAnnotation(EncryptionKeyIdentifier.class);
+            if (keyIdentifierAnnotation != null) {
+                keyIdentifierFields.add(new KeyIdentifierFieldMetadata(field, keyIdentifierAnnotation));
+            }
+        }
+        return new EncryptionMetadata(type, encryptedFields, keyIdentifierFields, type.isAnnotationPresent(EncryptionEnvelope.class));
+    }
+
+    boolean hasEncryptedFields() {
+        return !encryptedFields.isEmpty();
+    }
+
+    /**
+     * @param  tag of the encrypted fields
+     * @return     whether every field with the tag is an {@link EncryptedValue}, so that its secret key need only be retrieved when one of
+     *             them is first read
+     */
+    boolean isLazilyDecrypted(String tag) {
+        return lazilyDecryptedTags.contains(tag);
+    }
+
+    /**
+     * A field annotated with {@code @EncryptedField}.
+     */
+    @Getter
+    static final class EncryptedFieldMetadata {
+        private final String name;
+        private final String lowercaseName;
+        private final String tag;
+        /**
+         * The type of the field, or the type argument of an {@link EncryptedValue} field.
+         */
+        private final Class<?> type;
+        /**
+         * Whether the field is an {@link EncryptedValue} that is decrypted on first read.
+         */
+        private final boolean lazy;
+
+        private EncryptedFieldMetadata(Field field, EncryptedField annotation) {
+            this.name = field.getName();
+            this.lowercaseName = name.toLowerCase();
+            this.tag = annotation.tag();
+            this.lazy = field.getType() == EncryptedValue.class;
+            this.type = lazy
+                ? encryptedValueType(field.getGenericType())
+                : field.getType();
+        }
+
+        private static Class<?> encryptedValueType(Type encryptedValueFieldType) {
+            if (encryptedValueFieldType instanceof ParameterizedType parameterizedType) {
+                var valueType = parameterizedType.getActualTypeArguments()[0];
+                if (valueType instanceof Class<?> valueClass) {
+                    return valueClass;
+                } else if (valueType instanceof ParameterizedType parameterizedValueType) {
+                    return (Class<?>) parameterizedValueType.getRawType();
+                }
+            }
+            return Object.class;
+        }
+    }
+
+    /**
+     * A field annotated with {@code @EncryptionKeyIdentifier}, made accessible up front so its value can be read on every serialisation.
+     */
+    @Getter
+    static final class KeyIdentifierFieldMetadata {
+        private final Field field;
+        private final String name;
+        private final String lowercaseName;
+        private final String tag;
+        private final String keyType;
+
+        private KeyIdentifierFieldMetadata(Field field, EncryptionKeyIdentifier annotation) {
+            field.setAccessible(true);
+            this.field = field;
+            this.name = field.getName();
+            this.lowercaseName = name.toLowerCase();
+            this.tag = annotation.tag();
+            this.keyType = annotation.keyType();
+        }
+
+        Object valueOf(Object object) {
+            try {
+                return field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread safe cache of {@link EncryptionMetadata} keyed by payload class. Classes without encrypted fields resolve to a shared
+ * {@link EncryptionMetadata#UNENCRYPTED} instance so that they can be handed straight to the wrapped serializer.
+ */
+final class EncryptionMetadataRegistry {
+
+    private final ConcurrentMap<Class<?>, EncryptionMetadata> metadataByClass = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Class<?>> classesByTypeName = new ConcurrentHashMap<>();
+
+    EncryptionMetadata metadataFor(Class<?> type) {
+        var metadata = metadataByClass.get(type);
+        if (metadata == null) {
+            metadata = metadataByClass.computeIfAbsent(type, EncryptionMetadata::forClass);
+        }
+        return metadata;
+    }
+
+    Class<?> classForTypeName(String typeName) {
+        var type = classesByTypeName.get(typeName);
+        if (type == null) {
+            try {
+                type = Class.forName(typeName);
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+            classesByTypeName.putIfAbsent(typeName, type);
+        }
+        return type;
+    }
+}
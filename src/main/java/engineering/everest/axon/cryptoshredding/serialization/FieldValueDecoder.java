@@ -0,0 +1,27 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Turns decrypted field values, and the default values of fields whose secret key has been deleted, into nodes of the document being read.
+ *
+ * @see EncryptedFieldDecrypter
+ */
+interface FieldValueDecoder {
+
+    /**
+     * @param  cleartext UTF-8 encoded value, as encoded by {@link PayloadTreeCodec#encodeFieldValue(JsonNode)}
+     * @return           the value as a node
+     */
+    JsonNode decodeFieldValue(byte[] cleartext);
+
+    JsonNode decodeDefaultValue(Object defaultValue);
+
+    /**
+     * @return a decoder that remains usable after the deserialization in progress has completed, for decoding {@link EncryptedValue} fields
+     *         when they are first read
+     */
+    default FieldValueDecoder detached() {
+        return this;
+    }
+}
@@ -0,0 +1,87 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import static engineering.everest.axon.cryptoshredding.serialization.CipherTextEncoding.NATIVE_BINARY;
+
+/**
+ * Codec used when the wrapped serializer is Axon's {@link JacksonSerializer}. Documents are written and read directly as Jackson trees and
+ * field values are encoded as the JSON text of their nodes, which is identical to what the wrapped serializer would produce for them.
+ * <p>
+ * Binary formats such as CBOR and Smile cannot be written as strings, so field values are encoded as JSON text by a separate object mapper
+ * and, with {@link CipherTextEncoding#NATIVE_BINARY}, ciphertext is stored as a native binary value.
+ */
+class JacksonPayloadTreeCodec implements PayloadTreeCodec {
+
+    private final JacksonSerializer jacksonSerializer;
+    private final ObjectMapper defaultValueObjectMapper;
+    private final ObjectMapper cleartextObjectMapper;
+    private final boolean binaryCipherText;
+
+    JacksonPayloadTreeCodec(JacksonSerializer jacksonSerializer,
+                            ObjectMapper defaultValueObjectMapper,
+                            CipherTextEncoding cipherTextEncoding) {
+        this.jacksonSerializer = jacksonSerializer;
+        this.defaultValueObjectMapper = defaultValueObjectMapper;
+        var objectMapper = jacksonSerializer.getObjectMapper();
+        var binaryFormat = objectMapper.getFactory().canHandleBinaryNatively();
+        this.cleartextObjectMapper = binaryFormat
+            ? new ObjectMapper()
+            : objectMapper;
+        this.binaryCipherText = binaryFormat && cipherTextEncoding == NATIVE_BINARY;
+    }
+
+    @Override
+    public <T> T writeDocument(ObjectNode document, Class<T> expectedRepresentation) {
+        return jacksonSerializer.serialize(document, expectedRepresentation).getData();
+    }
+
+    @Override
+    public <S> ObjectNode readDocument(SerializedObject<S> serializedObject) {
+        var data = serializedObject.getData();
+        var document = (ObjectNode) jacksonSerializer.getConverter().convert(data, serializedObject.getContentType(), JsonNode.class);
+        return document == data
+            ? document.deepCopy()
+            : document;
+    }
+
+    @Override
+    public byte[] encodeFieldValue(JsonNode fieldValue) {
+        try {
+            return cleartextObjectMapper.writeValueAsBytes(fieldValue);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JsonNode decodeFieldValue(byte[] cleartext) {
+        try {
+            return cleartextObjectMapper.readTree(cleartext);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JsonNode decodeDefaultValue(Object defaultValue) {
+        return defaultValueObjectMapper.valueToTree(defaultValue);
+    }
+
+    @Override
+    public JsonNode encodeCipherText(byte[] cipherText) {
+        return binaryCipherText
+            ? BinaryNode.valueOf(cipherText)
+            : TextNode.valueOf(Base64.getEncoder().encodeToString(cipherText));
+    }
+}
@@ -0,0 +1,59 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.GenericTrackedDomainEventMessage;
+import org.axonframework.eventhandling.GenericTrackedEventMessage;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.serialization.LazyDeserializingObject;
+import org.axonframework.serialization.SerializedMessage;
+import org.axonframework.serialization.Serializer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Copies of the event messages of a unit of work whose payloads are deserialized afresh from their serialized form. Event messages read
+ * from the event store are shared by every processing group, and cache their payload once deserialized, so payloads deserialized while an
+ * {@link EncryptedFieldMask} is applied must only ever be read from a copy. Each message is copied once per unit of work, so that the
+ * {@link EncryptedFieldMaskInterceptor} and the {@link PipelinedDeserializationInterceptor} of a processing group share the copy.
+ */
+final class MaskedEventMessages {
+
+    static final String RESOURCE_KEY = MaskedEventMessages.class.getName();
+
+    private final Serializer serializer;
+    private final ConcurrentMap<String, EventMessage<?>> maskedCopiesByIdentifier;
+
+    MaskedEventMessages(Serializer serializer) {
+        this.serializer = serializer;
+        this.maskedCopiesByIdentifier = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param  eventMessage an event message of the unit of work, or a copy returned earlier
+     * @return              the copy of the event message
+     */
+    EventMessage<?> maskedCopyOf(EventMessage<?> eventMessage) {
+        return maskedCopiesByIdentifier.computeIfAbsent(eventMessage.getIdentifier(), identifier -> copyOf(eventMessage));
+    }
+
+    private <T> EventMessage<T> copyOf(EventMessage<T> eventMessage) {
+        var serializedPayload = eventMessage.serializePayload(serializer, byte[].class);
+        var message = new SerializedMessage<T>(eventMessage.getIdentifier(), new LazyDeserializingObject<>(serializedPayload, serializer),
+            new LazyDeserializingObject<>(eventMessage.getMetaData()));
+        if (eventMessage instanceof DomainEventMessage<?> domainEventMessage) {
+            return eventMessage instanceof TrackedEventMessage<?> trackedEventMessage
+                ? new GenericTrackedDomainEventMessage<>(trackedEventMessage.trackingToken(), domainEventMessage.getType(),
+                    domainEventMessage.getAggregateIdentifier(), domainEventMessage.getSequenceNumber(), message,
+                    eventMessage::getTimestamp)
+                : new GenericDomainEventMessage<>(domainEventMessage.getType(), domainEventMessage.getAggregateIdentifier(),
+                    domainEventMessage.getSequenceNumber(), message, eventMessage::getTimestamp);
+        }
+        return eventMessage instanceof TrackedEventMessage<?> trackedEventMessage
+            ? new GenericTrackedEventMessage<>(trackedEventMessage.trackingToken(), message, eventMessage::getTimestamp)
+            : new GenericEventMessage<>(message, eventMessage::getTimestamp);
+    }
+}
@@ -0,0 +1,88 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Encrypts and decrypts the fields of large payloads in parallel. Once the encrypted fields of a payload, or the envelopes of its tags, add
+ * up to more than a threshold number of bytes, they are encrypted and decrypted on an executor while the calling thread handles the first
+ * of them. The fields of smaller payloads are encrypted and decrypted one after another on the calling thread, as handing them to other
+ * threads would cost more than it saves.
+ * <p>
+ * Only the encryption and decryption themselves run in parallel. Field values are still converted to and from their cleartext on the
+ * calling thread.
+ */
+public class ParallelFieldEncryption {
+
+    private static final ParallelFieldEncryption DISABLED = new ParallelFieldEncryption(Runnable::run, Long.MAX_VALUE);
+
+    private final Executor executor;
+    private final long thresholdBytes;
+
+    /**
+     * @param thresholdBytes total size of the encrypted fields of a payload above which they are encrypted and decrypted in parallel
+     * @param parallelism    maximum number of threads encrypting and decrypting fields at once, in addition to the calling thread
+     */
+    public ParallelFieldEncryption(long thresholdBytes, int parallelism) {
+        this(new ForkJoinPool(parallelism), thresholdBytes);
+    }
+
+    /**
+     * @param executor       encrypting and decrypting fields in parallel, which should be bounded
+     * @param thresholdBytes total size of the encrypted fields of a payload above which they are encrypted and decrypted in parallel
+     */
+    public ParallelFieldEncryption(Executor executor, long thresholdBytes) {
+        this.executor = executor;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * @return a strategy encrypting and decrypting every field on the calling thread
+     */
+    public static ParallelFieldEncryption disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @param  cipherFactory creates the encrypter or decrypter used by each thread
+     * @param  operations    encrypting or decrypting one field or envelope each
+     * @param  totalBytes    size of the fields and envelopes to encrypt or decrypt
+     * @param  <C>           the type of encrypter or decrypter
+     * @return               the results of the operations, in the same order as the operations
+     */
+    <C> List<byte[]> apply(Supplier<C> cipherFactory, List<Function<C, byte[]>> operations, long totalBytes) {
+        var results = new ArrayList<byte[]>(operations.size());
+        if (operations.size() < 2 || totalBytes <= thresholdBytes) {
+            var cipher = cipherFactory.get();
+            operations.forEach(operation -> results.add(operation.apply(cipher)));
+            return results;
+        }
+
+        var parallelOperations = new ArrayList<CompletableFuture<byte[]>>(operations.size() - 1);
+        for (Function<C, byte[]> operation : operations.subList(1, operations.size())) {
+            parallelOperations.add(CompletableFuture.supplyAsync(() -> operation.apply(cipherFactory.get()), executor));
+        }
+        results.add(operations.get(0).apply(cipherFactory.get()));
+        for (CompletableFuture<byte[]> parallelOperation : parallelOperations) {
+            results.add(join(parallelOperation));
+        }
+        return results;
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> parallelOperation) {
+        try {
+            return parallelOperation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
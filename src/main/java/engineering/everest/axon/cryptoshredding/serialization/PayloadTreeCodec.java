@@ -0,0 +1,50 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.json.JacksonSerializer;
+
+import java.util.Base64;
+
+/**
+ * Moves encrypted payloads between their Jackson tree form, in which fields are encrypted and decrypted, and the representation produced by
+ * the wrapped serializer.
+ */
+interface PayloadTreeCodec extends FieldValueDecoder {
+
+    static PayloadTreeCodec forSerializer(Serializer wrappedSerializer, ObjectMapper objectMapper, CipherTextEncoding cipherTextEncoding) {
+        return wrappedSerializer instanceof JacksonSerializer jacksonSerializer
+            ? new JacksonPayloadTreeCodec(jacksonSerializer, objectMapper, cipherTextEncoding)
+            : new WrappedSerializerPayloadTreeCodec(wrappedSerializer, objectMapper);
+    }
+
+    /**
+     * @param  encodedCipherText node produced by {@link #encodeCipherText(byte[])} for any {@link CipherTextEncoding}
+     * @return                   the ciphertext
+     */
+    static byte[] decodeCipherText(JsonNode encodedCipherText) {
+        return encodedCipherText instanceof BinaryNode binaryNode
+            ? binaryNode.binaryValue()
+            : Base64.getDecoder().decode(encodedCipherText.textValue());
+    }
+
+    <T> T writeDocument(ObjectNode document, Class<T> expectedRepresentation);
+
+    /**
+     * @param  serializedObject as produced by {@link #writeDocument(ObjectNode, Class)}
+     * @return                  a document that may be modified freely by the caller
+     */
+    <S> ObjectNode readDocument(SerializedObject<S> serializedObject);
+
+    /**
+     * @param  fieldValue node of an encrypted field, or {@code null} if the field was not serialized
+     * @return            the UTF-8 encoded cleartext to be encrypted
+     */
+    byte[] encodeFieldValue(JsonNode fieldValue);
+
+    JsonNode encodeCipherText(byte[] cipherText);
+}
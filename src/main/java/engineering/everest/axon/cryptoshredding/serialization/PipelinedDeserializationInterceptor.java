@@ -0,0 +1,158 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.Message;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.BatchingUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Decrypts and deserializes the payloads of the upcoming events of a batch on a pool of worker threads while earlier events of the batch
+ * are being handled, so that event processors replaying encrypted events are no longer limited to deserializing on a single thread.
+ * Register it with a processing group whose event processor handles events in batches, for example:
+ *
+ * <pre>
+ * eventProcessingConfigurer.registerHandlerInterceptor("analytics", configuration -&gt; new PipelinedDeserializationInterceptor(64));
+ * </pre>
+ *
+ * Events are still handed to the handlers one at a time and in order. Before each event is handled, the interceptor waits for its payload
+ * to have been deserialized, and starts deserializing the payloads of the events following it, up to the look-ahead. The look-ahead
+ * therefore caps the number of payloads held in memory ahead of the handlers. A payload that fails to deserialize ahead of time is
+ * deserialized again when handled, so that the failure surfaces from the handler as it would without the interceptor.
+ * <p>
+ * An {@link EncryptedFieldMask} applied when the first event of a batch is intercepted is applied to the deserializations of the whole
+ * batch, so this interceptor should be registered after any {@link EncryptedFieldMaskInterceptor}. The payloads are then deserialized into
+ * the copies of the upcoming events that the masking interceptor will hand to the handlers, rather than into the events shared with other
+ * processing groups. Events not handled as part of a batch are passed straight through.
+ */
+@Slf4j
+public class PipelinedDeserializationInterceptor implements MessageHandlerInterceptor<EventMessage<?>> {
+
+    private final Executor executor;
+    private final int lookAhead;
+    private final String pipelineResourceKey;
+
+    /**
+     * @param lookAhead maximum number of payloads deserialized ahead of the event being handled
+     */
+    public PipelinedDeserializationInterceptor(int lookAhead) {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors()), lookAhead);
+    }
+
+    /**
+     * @param executor  deserializing payloads ahead of the handlers, such as a virtual thread per task executor on Java 21 and later
+     * @param lookAhead maximum number of payloads deserialized ahead of the event being handled
+     */
+    public PipelinedDeserializationInterceptor(Executor executor, int lookAhead) {
+        this.executor = executor;
+        this.lookAhead = lookAhead;
+        this.pipelineResourceKey = DeserializationPipeline.class.getName() + "@" + System.identityHashCode(this);
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends EventMessage<?>> unitOfWork, InterceptorChain interceptorChain) throws Exception {
+        if (lookAhead > 0 && unitOfWork instanceof BatchingUnitOfWork<?> batchingUnitOfWork) {
+            DeserializationPipeline pipeline = batchingUnitOfWork.getOrComputeResource(pipelineResourceKey, resourceKey -> {
+                MaskedEventMessages maskedEventMessages = batchingUnitOfWork.getResource(MaskedEventMessages.RESOURCE_KEY);
+                var deserializationPipeline = new DeserializationPipeline(batchingUnitOfWork.getMessages(), maskedEventMessages,
+                    EncryptedFieldMask.current());
+                batchingUnitOfWork.onCleanup(u -> deserializationPipeline.cancel());
+                return deserializationPipeline;
+            });
+            pipeline.awaitPayloadOf(unitOfWork.getMessage());
+        }
+        return interceptorChain.proceed();
+    }
+
+    private class DeserializationPipeline {
+        private final List<? extends Message<?>> messages;
+        private final MaskedEventMessages maskedEventMessages;
+        private final EncryptedFieldMask encryptedFieldMask;
+        private final CompletableFuture<?>[] deserializations;
+        private int position;
+        private int started;
+        private volatile boolean cancelled;
+
+        DeserializationPipeline(List<? extends Message<?>> messages,
+                                MaskedEventMessages maskedEventMessages,
+                                EncryptedFieldMask encryptedFieldMask) {
+            this.messages = messages;
+            this.maskedEventMessages = maskedEventMessages;
+            this.encryptedFieldMask = encryptedFieldMask;
+            this.deserializations = new CompletableFuture<?>[messages.size()];
+        }
+
+        void awaitPayloadOf(Message<?> message) {
+            var index = indexOf(message);
+            if (index < 0) {
+                return;
+            }
+            position = index + 1;
+            started = Math.max(started, index + 1);
+            var end = Math.min(messages.size(), index + 1 + lookAhead);
+            for (; started < end; started++) {
+                var upcomingMessage = messages.get(started);
+                deserializations[started] = CompletableFuture.runAsync(() -> deserialize(upcomingMessage), executor);
+            }
+            var deserialization = deserializations[index];
+            if (deserialization != null) {
+                try {
+                    deserialization.join();
+                } catch (CompletionException | CancellationException e) {
+                    LOGGER.debug("Deserializing payload of event {} ahead of its handlers did not complete", message.getIdentifier());
+                }
+                deserializations[index] = null;
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        private int indexOf(Message<?> message) {
+            if (position < messages.size() && messages.get(position) == message) {
+                return position;
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                if (messages.get(i) == message) {
+                    return i;
+                }
+            }
+            if (maskedEventMessages != null) {
+                // The event being handled is the masked copy of an event of the batch
+                for (int i = 0; i < messages.size(); i++) {
+                    if (messages.get(i).getIdentifier().equals(message.getIdentifier())) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void deserialize(Message<?> message) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                if (encryptedFieldMask == null) {
+                    message.getPayload();
+                } else if (maskedEventMessages == null) {
+                    encryptedFieldMask.applyTo(message::getPayload);
+                } else {
+                    encryptedFieldMask.applyTo(maskedEventMessages.maskedCopyOf((EventMessage<?>) message)::getPayload);
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Deserializing payload of event {} ahead of its handlers failed", message.getIdentifier(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.SimpleSerializedType;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codec for wrapped serializers that do not understand Jackson trees, such as the XStream serializer. Documents are handed to the wrapped
+ * serializer as maps and each field value is serialized on its own by the wrapped serializer, preserving the established payload format.
+ * Ciphertext is always Base64 encoded.
+ */
+class WrappedSerializerPayloadTreeCodec implements PayloadTreeCodec {
+
+    private static final TypeReference<HashMap<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final Serializer wrappedSerializer;
+    private final ObjectMapper objectMapper;
+
+    WrappedSerializerPayloadTreeCodec(Serializer wrappedSerializer, ObjectMapper objectMapper) {
+        this.wrappedSerializer = wrappedSerializer;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public <T> T writeDocument(ObjectNode document, Class<T> expectedRepresentation) {
+        return wrappedSerializer.serialize(objectMapper.convertValue(document, MAP_TYPE), expectedRepresentation).getData();
+    }
+
+    @Override
+    public <S> ObjectNode readDocument(SerializedObject<S> serializedObject) {
+        var mapSerializedType = new SimpleSerializedType(HashMap.class.getCanonicalName(), serializedObject.getType().getRevision());
+        Map<String, Object> mappedObject = wrappedSerializer.deserialize(
+            new SimpleSerializedObject<>(serializedObject.getData(), serializedObject.getContentType(), mapSerializedType));
+        return objectMapper.valueToTree(mappedObject);
+    }
+
+    @Override
+    public byte[] encodeFieldValue(JsonNode fieldValue) {
+        try {
+            var value = fieldValue == null
+                ? null
+                : objectMapper.treeToValue(fieldValue, Object.class);
+            return wrappedSerializer.serialize(value, byte[].class).getData();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JsonNode decodeFieldValue(byte[] cleartext) {
+        return objectMapper.valueToTree(wrappedSerializer.deserialize(
+            new SimpleSerializedObject<>(cleartext, byte[].class, Object.class.getCanonicalName(), null)));
+    }
+
+    @Override
+    public JsonNode decodeDefaultValue(Object defaultValue) {
+        return objectMapper.valueToTree(defaultValue);
+    }
+
+    @Override
+    public JsonNode encodeCipherText(byte[] cipherText) {
+        return TextNode.valueOf(Base64.getEncoder().encodeToString(cipherText));
+    }
+}
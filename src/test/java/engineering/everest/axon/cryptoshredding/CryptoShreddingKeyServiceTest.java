@@ -1,9 +1,15 @@
 package engineering.everest.axon.cryptoshredding;
 
+import engineering.everest.axon.cryptoshredding.cache.CaffeineSecretKeyCache;
+import engineering.everest.axon.cryptoshredding.cache.FingerprintShreddedKeyIndex;
+import engineering.everest.axon.cryptoshredding.cache.NoOpSecretKeyCache;
 import engineering.everest.axon.cryptoshredding.encryption.KeyGenerator;
 import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionKeyRecordException;
 import engineering.everest.axon.cryptoshredding.persistence.PersistableSecretKey;
 import engineering.everest.axon.cryptoshredding.persistence.SecretKeyRepository;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,9 +17,25 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -23,6 +45,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +65,20 @@ class CryptoShreddingKeyServiceTest {
         cryptoShreddingKeyService = new CryptoShreddingKeyService(secretKeyRepository, secretKeyGenerator);
     }
 
+    @AfterEach
+    void tearDown() {
+        while (CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get().rollback();
+        }
+    }
+
+    @Test
+    void build_WillFail_WhenSecretKeyGeneratorIsNotSet() {
+        var builder = CryptoShreddingKeyService.builder().secretKeyRepository(secretKeyRepository);
+
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
     @Test
     void getOrCreateSecretKeyUnlessDeleted_WillCreateSecretKeyOnFirstGet() {
         var keyId = generateKeyId();
@@ -51,7 +88,7 @@ class CryptoShreddingKeyServiceTest {
 
         var actualKey = cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
 
-        verify(secretKeyRepository).create(keyId, expectedKey);
+        verify(secretKeyRepository).createIfAbsent(keyId, expectedKey);
         assertTrue(actualKey.isPresent());
         assertEquals(expectedKey, actualKey.get());
     }
@@ -64,7 +101,7 @@ class CryptoShreddingKeyServiceTest {
 
         var actualKey = cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
 
-        verify(secretKeyRepository, never()).create(any(), any());
+        verify(secretKeyRepository, never()).createIfAbsent(any(), any());
         assertTrue(actualKey.isPresent());
         assertArrayEquals(existingKey.getKey(), actualKey.get().getEncoded());
         assertEquals(existingKey.getAlgorithm(), actualKey.get().getAlgorithm());
@@ -78,7 +115,7 @@ class CryptoShreddingKeyServiceTest {
 
         var actualKey = cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
 
-        verify(secretKeyRepository, never()).create(any(), any());
+        verify(secretKeyRepository, never()).createIfAbsent(any(), any());
         assertFalse(actualKey.isPresent());
     }
 
@@ -128,7 +165,478 @@ class CryptoShreddingKeyServiceTest {
         verify(secretKeyRepository).save(existingKey);
     }
 
+    @Test
+    void getExistingSecretKey_WillOnlyQueryRepositoryOnce_WhenCacheEnabled() {
+        var cachingCryptoShreddingKeyService = createCachingCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var existingKey = new PersistableSecretKey(keyId, "test key".getBytes(), "test algo");
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.of(existingKey));
+
+        cachingCryptoShreddingKeyService.getExistingSecretKey(keyId);
+        var actualKey = cachingCryptoShreddingKeyService.getExistingSecretKey(keyId);
+
+        verify(secretKeyRepository, times(1)).findById(keyId);
+        assertArrayEquals(existingKey.getKey(), actualKey.orElseThrow().getEncoded());
+    }
+
+    @Test
+    void getExistingSecretKey_WillReturnCachedTombstone_WhenCachedKeyHasBeenShredded() {
+        var cachingCryptoShreddingKeyService = createCachingCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var existingKey = new PersistableSecretKey(keyId, "test key".getBytes(), "test algo");
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.of(existingKey));
+
+        assertTrue(cachingCryptoShreddingKeyService.getExistingSecretKey(keyId).isPresent());
+        cachingCryptoShreddingKeyService.shredSecretKey(keyId);
+
+        assertFalse(cachingCryptoShreddingKeyService.getExistingSecretKey(keyId).isPresent());
+        verify(secretKeyRepository, times(2)).findById(keyId);
+    }
+
+    @Test
+    void getExistingSecretKey_WillNotCacheKey_WhenShreddedWhileBeingRead() throws Exception {
+        var indexingCryptoShreddingKeyService = new CryptoShreddingKeyService(secretKeyRepository, secretKeyGenerator,
+            new CaffeineSecretKeyCache(100, Duration.ofMinutes(1)), new FingerprintShreddedKeyIndex(100));
+
+        assertKeyNotCachedWhenShreddedWhileBeingRead(indexingCryptoShreddingKeyService);
+    }
+
+    @Test
+    void getExistingSecretKey_WillNotCacheKey_WhenShreddedWhileBeingReadWithoutShreddedKeyIndex() throws Exception {
+        assertKeyNotCachedWhenShreddedWhileBeingRead(createCachingCryptoShreddingKeyService());
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillCacheNewlyCreatedKeys() {
+        var cachingCryptoShreddingKeyService = createCachingCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var expectedKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(expectedKey);
+
+        cachingCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
+
+        assertEquals(expectedKey, cachingCryptoShreddingKeyService.getExistingSecretKey(keyId).orElseThrow());
+        verify(secretKeyRepository, times(1)).findById(keyId);
+    }
+
+    @Test
+    void resolveExistingSecretKeys_WillSplitKeysIntoPresentShreddedAndMissing() {
+        var presentKeyId = generateKeyId();
+        var shreddedKeyId = generateKeyId();
+        var missingKeyId = generateKeyId();
+        var presentKey = new PersistableSecretKey(presentKeyId, "test key".getBytes(), "test algo");
+        var shreddedKey = new PersistableSecretKey(shreddedKeyId, null, null);
+        when(secretKeyRepository.findAllById(Set.of(presentKeyId, shreddedKeyId, missingKeyId)))
+            .thenReturn(List.of(presentKey, shreddedKey));
+
+        var resolvedSecretKeys =
+            cryptoShreddingKeyService.resolveExistingSecretKeys(List.of(presentKeyId, shreddedKeyId, missingKeyId, presentKeyId));
+
+        assertEquals(Set.of(presentKeyId), resolvedSecretKeys.getPresentSecretKeys().keySet());
+        assertArrayEquals(presentKey.getKey(), resolvedSecretKeys.getExistingSecretKey(presentKeyId).orElseThrow().getEncoded());
+        assertEquals(Set.of(shreddedKeyId), resolvedSecretKeys.getShreddedKeyIds());
+        assertFalse(resolvedSecretKeys.getExistingSecretKey(shreddedKeyId).isPresent());
+        assertEquals(Set.of(missingKeyId), resolvedSecretKeys.getMissingKeyIds());
+        assertThrows(MissingEncryptionKeyRecordException.class, () -> resolvedSecretKeys.getExistingSecretKey(missingKeyId));
+    }
+
+    @Test
+    void resolveExistingSecretKeys_WillOnlyQueryRepositoryForUncachedKeys() {
+        var cachingCryptoShreddingKeyService = createCachingCryptoShreddingKeyService();
+        var cachedKeyId = generateKeyId();
+        var uncachedKeyId = generateKeyId();
+        var cachedKey = new PersistableSecretKey(cachedKeyId, "test key".getBytes(), "test algo");
+        var uncachedKey = new PersistableSecretKey(uncachedKeyId, "other key".getBytes(), "test algo");
+        when(secretKeyRepository.findById(cachedKeyId)).thenReturn(Optional.of(cachedKey));
+        when(secretKeyRepository.findAllById(Set.of(uncachedKeyId))).thenReturn(List.of(uncachedKey));
+
+        cachingCryptoShreddingKeyService.getExistingSecretKey(cachedKeyId);
+        var resolvedSecretKeys = cachingCryptoShreddingKeyService.resolveExistingSecretKeys(List.of(cachedKeyId, uncachedKeyId));
+
+        assertEquals(Set.of(cachedKeyId, uncachedKeyId), resolvedSecretKeys.getPresentSecretKeys().keySet());
+    }
+
+    @Test
+    void getExistingSecretKey_WillNotQueryRepository_WhenKeyIsInShreddedKeyIndex() {
+        var shreddedKeyIndex = new FingerprintShreddedKeyIndex(100);
+        var indexingCryptoShreddingKeyService = new CryptoShreddingKeyService(secretKeyRepository, secretKeyGenerator,
+            new NoOpSecretKeyCache(), shreddedKeyIndex);
+        var keyId = generateKeyId();
+        shreddedKeyIndex.addShredded(keyId);
+
+        assertFalse(indexingCryptoShreddingKeyService.getExistingSecretKey(keyId).isPresent());
+        assertFalse(indexingCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId).isPresent());
+        assertTrue(indexingCryptoShreddingKeyService.secretKeyExists(keyId));
+        assertEquals(Set.of(keyId), indexingCryptoShreddingKeyService.resolveExistingSecretKeys(List.of(keyId)).getShreddedKeyIds());
+        verify(secretKeyRepository, never()).findById(any());
+        verify(secretKeyRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void shreddedKeyIndex_WillRecordKeysShreddedOrFoundShredded() {
+        var shreddedKeyIndex = new FingerprintShreddedKeyIndex(100);
+        var indexingCryptoShreddingKeyService = new CryptoShreddingKeyService(secretKeyRepository, secretKeyGenerator,
+            new NoOpSecretKeyCache(), shreddedKeyIndex);
+        var keyId = generateKeyId();
+        var previouslyShreddedKeyId = generateKeyId();
+        when(secretKeyRepository.findById(keyId))
+            .thenReturn(Optional.of(new PersistableSecretKey(keyId, "test key".getBytes(), "test algo")));
+        when(secretKeyRepository.findById(previouslyShreddedKeyId))
+            .thenReturn(Optional.of(new PersistableSecretKey(previouslyShreddedKeyId, null, null)));
+
+        indexingCryptoShreddingKeyService.shredSecretKey(keyId);
+        indexingCryptoShreddingKeyService.getExistingSecretKey(previouslyShreddedKeyId);
+
+        assertTrue(shreddedKeyIndex.isShredded(keyId));
+        assertTrue(shreddedKeyIndex.isShredded(previouslyShreddedKeyId));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillGenerateAndPersistSingleKey_WhenCalledConcurrently() throws Exception {
+        var concurrentSecretKeyRepository = new ConcurrentSecretKeyRepository();
+        var generatedKeyCount = new AtomicInteger();
+        var concurrentCryptoShreddingKeyService =
+            new CryptoShreddingKeyService(concurrentSecretKeyRepository, countingKeyGenerator(generatedKeyCount));
+        var keyId = generateKeyId();
+
+        var secretKeys = getOrCreateSecretKeyConcurrently(List.of(concurrentCryptoShreddingKeyService), keyId);
+
+        assertEquals(1, secretKeys.size());
+        assertEquals(1, generatedKeyCount.get());
+        assertEquals(1, concurrentSecretKeyRepository.createCount.get());
+        assertArrayEquals(secretKeys.iterator().next().getEncoded(), concurrentSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillConvergeOnPersistedKey_WhenInstancesCreateKeyConcurrently() throws Exception {
+        var concurrentSecretKeyRepository = new ConcurrentSecretKeyRepository();
+        var generatedKeyCount = new AtomicInteger();
+        var keyGenerator = countingKeyGenerator(generatedKeyCount);
+        var cryptoShreddingKeyServices = List.of(
+            new CryptoShreddingKeyService(concurrentSecretKeyRepository, keyGenerator),
+            new CryptoShreddingKeyService(concurrentSecretKeyRepository, keyGenerator),
+            new CryptoShreddingKeyService(concurrentSecretKeyRepository, keyGenerator));
+        var keyId = generateKeyId();
+
+        var secretKeys = getOrCreateSecretKeyConcurrently(cryptoShreddingKeyServices, keyId);
+
+        assertEquals(1, secretKeys.size());
+        assertTrue(generatedKeyCount.get() <= cryptoShreddingKeyServices.size());
+        assertArrayEquals(secretKeys.iterator().next().getEncoded(), concurrentSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void shredSecretKeys_WillShredKeysInSingleRepositoryCallAndCacheTombstones() {
+        var cachingCryptoShreddingKeyService = createCachingCryptoShreddingKeyService();
+        var firstKeyId = generateKeyId();
+        var secondKeyId = generateKeyId();
+        when(secretKeyRepository.shredAll(List.of(firstKeyId, secondKeyId))).thenReturn(Set.of(firstKeyId, secondKeyId));
+
+        cachingCryptoShreddingKeyService.shredSecretKeys(List.of(firstKeyId, secondKeyId));
+
+        assertEquals(Optional.empty(), cachingCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(firstKeyId));
+        assertEquals(Optional.empty(), cachingCryptoShreddingKeyService.getExistingSecretKey(secondKeyId));
+        verify(secretKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void shredSecretKeys_WillFail_WhenAnyKeyNeverCreated() {
+        var existingKeyId = generateKeyId();
+        var missingKeyId = generateKeyId();
+        when(secretKeyRepository.shredAll(List.of(existingKeyId, missingKeyId))).thenReturn(Set.of(existingKeyId));
+
+        assertThrows(MissingEncryptionKeyRecordException.class,
+            () -> cryptoShreddingKeyService.shredSecretKeys(List.of(existingKeyId, missingKeyId)));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillPersistKeysWhenUnitOfWorkCommits_WhenKeyCreationDeferred() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var firstKeyId = generateKeyId();
+        var secondKeyId = generateKeyId();
+        var firstKey = mock(SecretKey.class);
+        var secondKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(any())).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(firstKey, secondKey);
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        assertEquals(Optional.of(firstKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(firstKeyId));
+        assertEquals(Optional.of(secondKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(secondKeyId));
+        verify(secretKeyRepository, never()).createIfAbsent(any(), any());
+        verify(secretKeyRepository, never()).createAllIfAbsent(any());
+
+        unitOfWork.commit();
+
+        verify(secretKeyRepository).createAllIfAbsent(Map.of(firstKeyId, firstKey, secondKeyId, secondKey));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillReuseKeyCreatedEarlierInUnitOfWork_WhenKeyCreationDeferred() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var expectedKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(expectedKey);
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId));
+        assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId));
+        unitOfWork.commit();
+
+        assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getExistingSecretKey(keyId));
+        verify(secretKeyGenerator, times(1)).generateKey();
+        verify(secretKeyRepository, times(1)).findById(keyId);
+        verify(secretKeyRepository).createAllIfAbsent(Map.of(keyId, expectedKey));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillDiscardKeys_WhenUnitOfWorkRollsBack() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(mock(SecretKey.class));
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
+        unitOfWork.rollback();
+
+        verify(secretKeyRepository, never()).createAllIfAbsent(any());
+        assertThrows(MissingEncryptionKeyRecordException.class, () -> deferringCryptoShreddingKeyService.getExistingSecretKey(keyId));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillFailUnitOfWork_WhenDeferredKeysCannotBePersisted() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(mock(SecretKey.class));
+        when(secretKeyRepository.createAllIfAbsent(any())).thenThrow(new IllegalStateException("connection lost"));
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
+
+        assertThrows(IllegalStateException.class, unitOfWork::commit);
+        assertThrows(MissingEncryptionKeyRecordException.class, () -> deferringCryptoShreddingKeyService.getExistingSecretKey(keyId));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillPersistKeyImmediately_WhenKeyCreationDeferredButNoUnitOfWorkStarted() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var expectedKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(expectedKey);
+
+        assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId));
+
+        verify(secretKeyRepository).createIfAbsent(keyId, expectedKey);
+        verify(secretKeyRepository, never()).createAllIfAbsent(any());
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillPersistDeferredKeysBeforeHandingThemOut_WhenUnitOfWorkPreparingToCommit() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var expectedKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(expectedKey);
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        // Registered first, as the event bus does when the first event is published, so it runs ahead of the handler persisting keys
+        unitOfWork.onPrepareCommit(u -> {
+            assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId));
+            verify(secretKeyRepository).createAllIfAbsent(Map.of(keyId, expectedKey));
+        });
+        deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
+        unitOfWork.commit();
+
+        verify(secretKeyRepository, times(1)).createAllIfAbsent(any());
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillPersistKeyAsItIsGenerated_WhenUnitOfWorkPreparingToCommit() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var expectedKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(expectedKey);
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        unitOfWork.onPrepareCommit(u -> {
+            assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId));
+            verify(secretKeyRepository).createAllIfAbsent(Map.of(keyId, expectedKey));
+        });
+        unitOfWork.commit();
+
+        assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getExistingSecretKey(keyId));
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillUseStoredKey_WhenDeferredKeyWasCreatedConcurrentlyElsewhere() {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var storedKey = new PersistableSecretKey(keyId, "stored key".getBytes(), "test algo");
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(new SecretKeySpec("generated key".getBytes(), "test algo"));
+        when(secretKeyRepository.createAllIfAbsent(any())).thenReturn(Map.of(keyId, storedKey));
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
+        unitOfWork.onPrepareCommit(u -> assertArrayEquals(storedKey.getKey(),
+            deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId).orElseThrow().getEncoded()));
+        unitOfWork.commit();
+
+        assertArrayEquals(storedKey.getKey(), deferringCryptoShreddingKeyService.getExistingSecretKey(keyId).orElseThrow().getEncoded());
+    }
+
+    @Test
+    void getOrCreateSecretKeyUnlessDeleted_WillShareDeferredKeyBetweenUnitsOfWork_WhenNeitherHasCommitted() throws Exception {
+        var deferringCryptoShreddingKeyService = createDeferringCryptoShreddingKeyService();
+        var keyId = generateKeyId();
+        var expectedKey = mock(SecretKey.class);
+        when(secretKeyRepository.findById(keyId)).thenReturn(Optional.empty());
+        when(secretKeyGenerator.generateKey()).thenReturn(expectedKey);
+
+        var unitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("payload"));
+        assertEquals(Optional.of(expectedKey), deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId));
+        var executorService = Executors.newSingleThreadExecutor();
+        try {
+            var otherUnitOfWorkKey = executorService.submit(() -> {
+                var otherUnitOfWork = DefaultUnitOfWork.startAndGet(asEventMessage("other payload"));
+                var secretKey = deferringCryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId);
+                otherUnitOfWork.commit();
+                return secretKey;
+            });
+
+            assertEquals(Optional.of(expectedKey), otherUnitOfWorkKey.get(10, SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+        unitOfWork.rollback();
+
+        verify(secretKeyGenerator, times(1)).generateKey();
+        verify(secretKeyRepository).createAllIfAbsent(Map.of(keyId, expectedKey));
+    }
+
+    private Set<SecretKey> getOrCreateSecretKeyConcurrently(List<CryptoShreddingKeyService> cryptoShreddingKeyServices,
+                                                            TypeDifferentiatedSecretKeyId keyId)
+        throws Exception {
+        var threadCount = 32;
+        var executorService = Executors.newFixedThreadPool(threadCount);
+        var startingLine = new CountDownLatch(1);
+        try {
+            var retrievals = new ArrayList<Future<SecretKey>>();
+            for (int i = 0; i < threadCount; i++) {
+                var cryptoShreddingKeyService = cryptoShreddingKeyServices.get(i % cryptoShreddingKeyServices.size());
+                Callable<SecretKey> retrieval = () -> {
+                    startingLine.await();
+                    return cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyId).orElseThrow();
+                };
+                retrievals.add(executorService.submit(retrieval));
+            }
+            startingLine.countDown();
+
+            var secretKeys = new HashSet<SecretKey>();
+            for (Future<SecretKey> retrieval : retrievals) {
+                secretKeys.add(retrieval.get(10, SECONDS));
+            }
+            return secretKeys;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static KeyGenerator countingKeyGenerator(AtomicInteger generatedKeyCount) {
+        return () -> {
+            generatedKeyCount.incrementAndGet();
+            return new SecretKeySpec(randomUUID().toString().getBytes(), "AES");
+        };
+    }
+
+    private void assertKeyNotCachedWhenShreddedWhileBeingRead(CryptoShreddingKeyService cachingCryptoShreddingKeyService)
+        throws Exception {
+        var keyId = generateKeyId();
+        var keyRead = new CountDownLatch(1);
+        var keyShredded = new CountDownLatch(1);
+        var readCount = new AtomicInteger();
+        when(secretKeyRepository.findById(keyId)).thenAnswer(invocation -> {
+            if (readCount.incrementAndGet() == 1) {
+                keyRead.countDown();
+                assertTrue(keyShredded.await(10, SECONDS));
+            }
+            return Optional.of(new PersistableSecretKey(keyId, "test key".getBytes(), "test algo"));
+        });
+
+        var executorService = Executors.newSingleThreadExecutor();
+        try {
+            var retrieval = executorService.submit(() -> cachingCryptoShreddingKeyService.getExistingSecretKey(keyId));
+            assertTrue(keyRead.await(10, SECONDS));
+            cachingCryptoShreddingKeyService.shredSecretKey(keyId);
+            keyShredded.countDown();
+
+            assertFalse(retrieval.get(10, SECONDS).isPresent());
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertFalse(cachingCryptoShreddingKeyService.getExistingSecretKey(keyId).isPresent());
+        verify(secretKeyRepository, times(2)).findById(keyId);
+    }
+
+    private CryptoShreddingKeyService createCachingCryptoShreddingKeyService() {
+        return CryptoShreddingKeyService.builder()
+            .secretKeyRepository(secretKeyRepository)
+            .secretKeyGenerator(secretKeyGenerator)
+            .secretKeyCache(new CaffeineSecretKeyCache(100, Duration.ofMinutes(1)))
+            .build();
+    }
+
+    private CryptoShreddingKeyService createDeferringCryptoShreddingKeyService() {
+        return CryptoShreddingKeyService.builder()
+            .secretKeyRepository(secretKeyRepository)
+            .secretKeyGenerator(secretKeyGenerator)
+            .secretKeyCache(new CaffeineSecretKeyCache(100, Duration.ofMinutes(1)))
+            .deferKeyCreationToUnitOfWork(true)
+            .build();
+    }
+
     private TypeDifferentiatedSecretKeyId generateKeyId() {
         return new TypeDifferentiatedSecretKeyId(randomUUID().toString(), "");
     }
+
+    /**
+     * Repository that, like a database table with a primary key, rejects duplicate keys. Lookups are slowed down to widen the window in
+     * which concurrent callers can race.
+     */
+    private static class ConcurrentSecretKeyRepository implements SecretKeyRepository {
+        private final ConcurrentMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey> secretKeys = new ConcurrentHashMap<>();
+        private final AtomicInteger createCount = new AtomicInteger();
+
+        @Override
+        public PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+            var secretKey = new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm());
+            if (secretKeys.putIfAbsent(keyId, secretKey) != null) {
+                throw new IllegalStateException("Duplicate key " + keyId);
+            }
+            createCount.incrementAndGet();
+            return secretKey;
+        }
+
+        @Override
+        public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            return Optional.ofNullable(secretKeys.get(keyId));
+        }
+
+        @Override
+        public PersistableSecretKey save(PersistableSecretKey key) {
+            secretKeys.put(key.getId(), key);
+            return key;
+        }
+    }
 }
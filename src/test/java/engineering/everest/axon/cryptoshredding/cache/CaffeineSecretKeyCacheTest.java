@@ -0,0 +1,73 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaffeineSecretKeyCacheTest {
+
+    private static final TypeDifferentiatedSecretKeyId KEY_ID = new TypeDifferentiatedSecretKeyId("key-identifier", "");
+    private static final SecretKeySpec SECRET_KEY = new SecretKeySpec("0123456789012345".getBytes(), "AES");
+
+    private CaffeineSecretKeyCache caffeineSecretKeyCache;
+
+    @BeforeEach
+    void setUp() {
+        caffeineSecretKeyCache = new CaffeineSecretKeyCache(100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void getIfPresent_WillReturnNull_WhenNothingCached() {
+        assertNull(caffeineSecretKeyCache.getIfPresent(KEY_ID));
+    }
+
+    @Test
+    void getIfPresent_WillReturnCachedKey() {
+        caffeineSecretKeyCache.put(KEY_ID, SECRET_KEY);
+
+        assertEquals(SECRET_KEY, caffeineSecretKeyCache.getIfPresent(KEY_ID).orElseThrow());
+    }
+
+    @Test
+    void putShredded_WillReplaceCachedKeyWithTombstone() {
+        caffeineSecretKeyCache.put(KEY_ID, SECRET_KEY);
+        caffeineSecretKeyCache.putShredded(KEY_ID);
+
+        assertTrue(caffeineSecretKeyCache.getIfPresent(KEY_ID).isEmpty());
+    }
+
+    @Test
+    void put_WillNotReplaceTombstone() {
+        caffeineSecretKeyCache.putShredded(KEY_ID);
+        caffeineSecretKeyCache.put(KEY_ID, SECRET_KEY);
+
+        assertTrue(caffeineSecretKeyCache.getIfPresent(KEY_ID).isEmpty());
+    }
+
+    @Test
+    void invalidate_WillRemoveCachedEntry() {
+        caffeineSecretKeyCache.put(KEY_ID, SECRET_KEY);
+        caffeineSecretKeyCache.invalidate(KEY_ID);
+
+        assertNull(caffeineSecretKeyCache.getIfPresent(KEY_ID));
+    }
+
+    @Test
+    void statistics_WillCountHitsAndMisses() {
+        caffeineSecretKeyCache.getIfPresent(KEY_ID);
+        caffeineSecretKeyCache.put(KEY_ID, SECRET_KEY);
+        caffeineSecretKeyCache.getIfPresent(KEY_ID);
+        caffeineSecretKeyCache.getIfPresent(KEY_ID);
+
+        var statistics = caffeineSecretKeyCache.statistics();
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+    }
+}
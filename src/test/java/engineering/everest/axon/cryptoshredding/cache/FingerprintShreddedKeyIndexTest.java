@@ -0,0 +1,91 @@
+package engineering.everest.axon.cryptoshredding.cache;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FingerprintShreddedKeyIndexTest {
+
+    private static final TypeDifferentiatedSecretKeyId KEY_ID = new TypeDifferentiatedSecretKeyId("key-identifier", "");
+
+    private FingerprintShreddedKeyIndex fingerprintShreddedKeyIndex;
+
+    @BeforeEach
+    void setUp() {
+        fingerprintShreddedKeyIndex = new FingerprintShreddedKeyIndex(10_000);
+    }
+
+    @Test
+    void isShredded_WillReturnFalse_WhenKeyNotIndexed() {
+        assertFalse(fingerprintShreddedKeyIndex.isShredded(KEY_ID));
+    }
+
+    @Test
+    void isShredded_WillReturnTrue_WhenKeyIndexed() {
+        fingerprintShreddedKeyIndex.addShredded(KEY_ID);
+
+        assertTrue(fingerprintShreddedKeyIndex.isShredded(KEY_ID));
+        assertTrue(fingerprintShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("key-identifier", "")));
+    }
+
+    @Test
+    void isShredded_WillDifferentiateBetweenKeyTypes() {
+        fingerprintShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("42", "some-type"));
+
+        assertFalse(fingerprintShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("42", "")));
+        assertFalse(fingerprintShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("42", "other-type")));
+        assertFalse(fingerprintShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("42", null)));
+    }
+
+    @Test
+    void isShredded_WillReturnFalse_WhenFingerprintCollidesWithIndexedKey() {
+        var collidingShreddedKeyIndex = new FingerprintShreddedKeyIndex(10_000, encodedKeyId -> 42L);
+        collidingShreddedKeyIndex.addShredded(KEY_ID);
+
+        assertTrue(collidingShreddedKeyIndex.isShredded(KEY_ID));
+        assertFalse(collidingShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("other-key-identifier", "")));
+    }
+
+    @Test
+    void addShredded_WillIndexEveryKey_WhenFingerprintsCollide() {
+        var collidingShreddedKeyIndex = new FingerprintShreddedKeyIndex(10_000, encodedKeyId -> 42L);
+        for (int i = 0; i < 100; i++) {
+            collidingShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("key-" + i, ""));
+        }
+
+        assertEquals(100, collidingShreddedKeyIndex.size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(collidingShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("key-" + i, "")));
+        }
+    }
+
+    @Test
+    void addShredded_WillRetainAllKeys_WhenIndexGrows() {
+        for (int i = 0; i < 5_000; i++) {
+            fingerprintShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("key-" + i, ""));
+        }
+        fingerprintShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("key-0", ""));
+
+        assertEquals(5_000, fingerprintShreddedKeyIndex.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(fingerprintShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("key-" + i, "")));
+            assertFalse(fingerprintShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("other-key-" + i, "")));
+        }
+    }
+
+    @Test
+    void addShredded_WillStopIndexingKeys_WhenMaximumSizeReached() {
+        var boundedShreddedKeyIndex = new FingerprintShreddedKeyIndex(2);
+        boundedShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("key-1", ""));
+        boundedShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("key-2", ""));
+        boundedShreddedKeyIndex.addShredded(new TypeDifferentiatedSecretKeyId("key-3", ""));
+
+        assertEquals(2, boundedShreddedKeyIndex.size());
+        assertTrue(boundedShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("key-2", "")));
+        assertFalse(boundedShreddedKeyIndex.isShredded(new TypeDifferentiatedSecretKeyId("key-3", "")));
+    }
+}
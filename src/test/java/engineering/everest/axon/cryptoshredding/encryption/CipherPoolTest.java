@@ -0,0 +1,63 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CipherPoolTest {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    @Test
+    void acquire_WillReuseReleasedCipher() {
+        var cipherPool = new CipherPool(TRANSFORMATION, 2);
+        var cipher = cipherPool.acquire();
+        cipherPool.release(cipher);
+
+        assertSame(cipher, cipherPool.acquire());
+        assertEquals(0, cipherPool.idleCipherCount());
+    }
+
+    @Test
+    void acquire_WillCreateNewCipher_WhenPoolIsEmpty() {
+        var cipherPool = new CipherPool(TRANSFORMATION, 2);
+
+        assertNotSame(cipherPool.acquire(), cipherPool.acquire());
+    }
+
+    @Test
+    void release_WillDropCiphers_WhenPoolIsFull() {
+        var cipherPool = new CipherPool(TRANSFORMATION, 2);
+        var ciphers = List.of(cipherPool.acquire(), cipherPool.acquire(), cipherPool.acquire());
+        ciphers.forEach(cipherPool::release);
+
+        assertEquals(2, cipherPool.idleCipherCount());
+    }
+
+    @Test
+    void release_WillNotRetainCiphers_WhenCapacityIsZero() {
+        var cipherPool = new CipherPool(TRANSFORMATION, 0);
+        var cipher = cipherPool.acquire();
+        cipherPool.release(cipher);
+
+        assertEquals(0, cipherPool.idleCipherCount());
+        assertNotSame(cipher, cipherPool.acquire());
+    }
+
+    @Test
+    void acquire_WillFail_WhenTransformationIsUnknown() {
+        var cipherPool = new CipherPool("not/a/transformation", 1);
+
+        assertThrows(RuntimeException.class, cipherPool::acquire);
+    }
+
+    @Test
+    void constructor_WillFail_WhenCapacityIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new CipherPool(TRANSFORMATION, -1));
+    }
+}
@@ -0,0 +1,111 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CipherSuiteEncrypterDecrypterFactoryTest {
+
+    private static final String CLEARTEXT = "{\"givenName\":\"Alice\"}";
+
+    private CipherSuiteRegistry cipherSuiteRegistry;
+    private NonceGenerator nonceGenerator;
+    private SecretKey secretKey;
+
+    @BeforeEach
+    void setUp() throws NoSuchAlgorithmException {
+        cipherSuiteRegistry = new CipherSuiteRegistry();
+        nonceGenerator = new ThreadLocalDrbgNonceGenerator();
+        secretKey = new DefaultAesKeyGenerator().generateKey();
+    }
+
+    @Test
+    void willEncryptWithHeaderAndDecryptRepeatedly_ForEachCipherSuite() {
+        for (CipherSuite cipherSuite : cipherSuiteRegistry.getCipherSuites()) {
+            var factory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, cipherSuite, nonceGenerator);
+
+            var ciphertext = factory.createEncrypter().encrypt(secretKey, CLEARTEXT);
+
+            assertEquals(CipherSuiteEncrypterDecrypterFactory.HEADER_MARKER, ciphertext[0]);
+            assertEquals(CipherSuiteEncrypterDecrypterFactory.FORMAT_VERSION, ciphertext[1]);
+            assertEquals(cipherSuite.getId(), ciphertext[2]);
+            assertEquals(CLEARTEXT, factory.createDecrypter().decrypt(secretKey, ciphertext));
+            assertEquals(CLEARTEXT, factory.createDecrypter().decrypt(secretKey, ciphertext));
+        }
+    }
+
+    @Test
+    void willDecryptValuesOfEveryRegisteredCipherSuite() {
+        var aesGcmCiphertext = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, CipherSuiteRegistry.AES_GCM, nonceGenerator)
+            .createEncrypter().encrypt(secretKey, CLEARTEXT);
+        var factory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, CipherSuiteRegistry.CHACHA20_POLY1305, nonceGenerator);
+
+        assertEquals(CLEARTEXT, factory.createDecrypter().decrypt(secretKey, aesGcmCiphertext));
+    }
+
+    @Test
+    void willEncryptWithoutHeader_WhenNoEncryptingCipherSuite() {
+        var factory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, null, nonceGenerator);
+
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, CLEARTEXT);
+
+        assertEquals(CLEARTEXT, new DefaultAesEncrypterDecrypterFactory().createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willDecryptValuesWithoutHeader() {
+        var factory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, CipherSuiteRegistry.CHACHA20_POLY1305, nonceGenerator);
+
+        var ciphertext = new DefaultAesEncrypterDecrypterFactory().createEncrypter().encrypt(secretKey, CLEARTEXT);
+
+        assertEquals(CLEARTEXT, factory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willDecryptValuesWithoutHeader_WhenNonceStartsLikeHeader() {
+        var factory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, CipherSuiteRegistry.AES_GCM, nonceGenerator);
+        for (CipherSuite cipherSuite : cipherSuiteRegistry.getCipherSuites()) {
+            NonceGenerator headerLikeNonceGenerator = nonce -> {
+                Arrays.fill(nonce, (byte) 7);
+                nonce[0] = CipherSuiteEncrypterDecrypterFactory.HEADER_MARKER;
+                nonce[1] = CipherSuiteEncrypterDecrypterFactory.FORMAT_VERSION;
+                nonce[2] = cipherSuite.getId();
+            };
+            var ciphertext = new DefaultAesEncrypterDecrypterFactory(headerLikeNonceGenerator).createEncrypter()
+                .encrypt(secretKey, CLEARTEXT);
+
+            assertEquals(CLEARTEXT, factory.createDecrypter().decrypt(secretKey, ciphertext));
+        }
+    }
+
+    @Test
+    void willFailToDecrypt_WhenHeaderTamperedWith() {
+        var factory = new CipherSuiteEncrypterDecrypterFactory(cipherSuiteRegistry, CipherSuiteRegistry.CHACHA20_POLY1305, nonceGenerator);
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, CLEARTEXT);
+
+        ciphertext[2] = CipherSuiteRegistry.AES_GCM.getId();
+
+        assertThrows(RuntimeException.class, () -> factory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void constructor_WillThrow_WhenEncryptingCipherSuiteNotRegistered() {
+        var aesGcmOnlyRegistry = new CipherSuiteRegistry(List.of(CipherSuiteRegistry.AES_GCM));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new CipherSuiteEncrypterDecrypterFactory(aesGcmOnlyRegistry, CipherSuiteRegistry.CHACHA20_POLY1305, nonceGenerator));
+    }
+
+    @Test
+    void registry_WillThrow_WhenCipherSuiteIdentifiersClash() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new CipherSuiteRegistry(List.of(CipherSuiteRegistry.AES_GCM, new AesGcmCipherSuite())));
+    }
+}
@@ -0,0 +1,127 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressingEncrypterDecrypterFactoryTest {
+
+    private static final String COMPRESSIBLE_CLEARTEXT = "{\"description\":\"" + "The quick brown fox jumped ship. ".repeat(100) + "\"}";
+    private static final int AES_GCM_OVERHEAD_BYTES = 12 + 16;
+
+    private DefaultAesEncrypterDecrypterFactory defaultAesEncrypterDecrypterFactory;
+    private SecretKey secretKey;
+
+    @BeforeEach
+    void setUp() throws NoSuchAlgorithmException {
+        defaultAesEncrypterDecrypterFactory = new DefaultAesEncrypterDecrypterFactory();
+        secretKey = new DefaultAesKeyGenerator().generateKey();
+    }
+
+    @Test
+    void willCompressCleartextAtOrAboveThreshold() {
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(), 1024);
+        var cleartext = COMPRESSIBLE_CLEARTEXT.getBytes(UTF_8);
+
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, cleartext, 0, cleartext.length);
+
+        assertTrue(ciphertext.length < cleartext.length / 4);
+        assertArrayEquals(cleartext, factory.createDecrypter().decrypt(secretKey, ciphertext, 0, ciphertext.length));
+        assertEquals(COMPRESSIBLE_CLEARTEXT, factory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willDecompressIntoBuffer_WhenBufferHasRoomForDecompressedCleartext() {
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(), 1024);
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, COMPRESSIBLE_CLEARTEXT);
+        var cleartext = ByteBuffer.allocate(COMPRESSIBLE_CLEARTEXT.length());
+
+        var cleartextLength = factory.createDecrypter().decrypt(secretKey, ByteBuffer.wrap(ciphertext), cleartext);
+
+        assertEquals(COMPRESSIBLE_CLEARTEXT.length(), cleartextLength);
+        assertEquals(COMPRESSIBLE_CLEARTEXT, new String(cleartext.array(), UTF_8));
+    }
+
+    @Test
+    void willFailToDecompressIntoBuffer_WhenBufferOnlyHasRoomForCiphertext() {
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(), 1024);
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, COMPRESSIBLE_CLEARTEXT);
+        var cleartext = ByteBuffer.allocate(ciphertext.length);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> factory.createDecrypter().decrypt(secretKey, ByteBuffer.wrap(ciphertext), cleartext));
+        assertEquals(0, cleartext.position());
+    }
+
+    @Test
+    void willNotCompressCleartextBelowThreshold() {
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(),
+            COMPRESSIBLE_CLEARTEXT.length() + 1);
+
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, COMPRESSIBLE_CLEARTEXT);
+
+        assertEquals(COMPRESSIBLE_CLEARTEXT.length() + AES_GCM_OVERHEAD_BYTES, ciphertext.length);
+        assertEquals(COMPRESSIBLE_CLEARTEXT, defaultAesEncrypterDecrypterFactory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willNotCompressCleartextThatDoesNotShrink() {
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(), 0);
+        var cleartext = "\"x7Q\"";
+
+        var ciphertext = factory.createEncrypter().encrypt(secretKey, cleartext);
+
+        assertEquals(cleartext.length() + AES_GCM_OVERHEAD_BYTES, ciphertext.length);
+        assertEquals(cleartext, factory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willDecryptValuesEncryptedWithoutCompression() {
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(), 0);
+
+        var ciphertext = defaultAesEncrypterDecrypterFactory.createEncrypter().encrypt(secretKey, COMPRESSIBLE_CLEARTEXT);
+
+        assertEquals(COMPRESSIBLE_CLEARTEXT, factory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willDecompressValuesCompressedByPreviousCodec_WhenCompressionDisabled() {
+        var compressingFactory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory,
+            new DeflateCompressionCodec(), 0);
+        var decompressingFactory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory,
+            new OtherCompressionCodec(), Integer.MAX_VALUE, List.of(new DeflateCompressionCodec()));
+
+        var ciphertext = compressingFactory.createEncrypter().encrypt(secretKey, COMPRESSIBLE_CLEARTEXT);
+
+        assertEquals(COMPRESSIBLE_CLEARTEXT, decompressingFactory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    @Test
+    void willFailToDecrypt_WhenCompressionCodecUnknown() {
+        var compressingFactory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory,
+            new OtherCompressionCodec(), 0, List.of());
+        var factory = new CompressingEncrypterDecrypterFactory(defaultAesEncrypterDecrypterFactory, new DeflateCompressionCodec(), 0);
+
+        var ciphertext = compressingFactory.createEncrypter().encrypt(secretKey, COMPRESSIBLE_CLEARTEXT);
+
+        assertThrows(IllegalStateException.class, () -> factory.createDecrypter().decrypt(secretKey, ciphertext));
+    }
+
+    private static class OtherCompressionCodec extends DeflateCompressionCodec {
+
+        @Override
+        public byte getId() {
+            return 42;
+        }
+    }
+}
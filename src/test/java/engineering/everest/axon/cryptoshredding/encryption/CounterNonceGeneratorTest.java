@@ -0,0 +1,64 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CounterNonceGeneratorTest {
+
+    @Test
+    void nextNonce_WillWriteNodePrefixFollowedByIncrementingCounter() {
+        var nonceGenerator = new CounterNonceGenerator(0x01020304, 0xFFL);
+        var firstNonce = new byte[12];
+        var secondNonce = new byte[12];
+
+        nonceGenerator.nextNonce(firstNonce);
+        nonceGenerator.nextNonce(secondNonce);
+
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, (byte) 0xFF }, firstNonce);
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 1, 0 }, secondNonce);
+    }
+
+    @Test
+    void nextNonce_WillGenerateUniqueNonces_WhenCalledConcurrently() throws InterruptedException, ExecutionException {
+        var nonceGenerator = new CounterNonceGenerator();
+        var executorService = Executors.newFixedThreadPool(8);
+        try {
+            var batches = new ArrayList<Future<HashSet<ByteBuffer>>>();
+            for (int i = 0; i < 8; i++) {
+                batches.add(executorService.submit(() -> {
+                    var nonces = new HashSet<ByteBuffer>();
+                    for (int j = 0; j < 10_000; j++) {
+                        var nonce = new byte[12];
+                        nonceGenerator.nextNonce(nonce);
+                        nonces.add(ByteBuffer.wrap(nonce));
+                    }
+                    return nonces;
+                }));
+            }
+            var allNonces = new HashSet<ByteBuffer>();
+            for (var batch : batches) {
+                allNonces.addAll(batch.get());
+            }
+            assertEquals(80_000, allNonces.size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void nextNonce_WillFail_WhenNonceLengthIsNotTwelveBytes() {
+        var nonceGenerator = new CounterNonceGenerator();
+
+        assertThrows(IllegalArgumentException.class, () -> nonceGenerator.nextNonce(new byte[16]));
+    }
+}
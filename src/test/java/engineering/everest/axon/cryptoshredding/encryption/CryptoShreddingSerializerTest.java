@@ -1,30 +1,50 @@
 package engineering.everest.axon.cryptoshredding.encryption;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.ResolvedSecretKeys;
 import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
 import engineering.everest.axon.cryptoshredding.exceptions.DuplicateEncryptionKeyIdentifierFieldTagException;
 import engineering.everest.axon.cryptoshredding.exceptions.EncryptionKeyDeletedException;
+import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionEnvelopeException;
 import engineering.everest.axon.cryptoshredding.exceptions.MissingEncryptionKeyIdentifierAnnotationException;
 import engineering.everest.axon.cryptoshredding.exceptions.MissingSerializedEncryptionKeyIdentifierFieldException;
 import engineering.everest.axon.cryptoshredding.exceptions.MissingTaggedEncryptionKeyIdentifierException;
 import engineering.everest.axon.cryptoshredding.exceptions.UnsupportedEncryptionKeyIdentifierTypeException;
 import engineering.everest.axon.cryptoshredding.persistence.SecretKeyRepository;
+import engineering.everest.axon.cryptoshredding.serialization.CipherTextEncoding;
 import engineering.everest.axon.cryptoshredding.serialization.CryptoShreddingSerializer;
 import engineering.everest.axon.cryptoshredding.serialization.DefaultValueProvider;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptedFieldMask;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptedFieldMaskInterceptor;
 import engineering.everest.axon.cryptoshredding.serialization.KeyIdentifierToStringConverter;
+import engineering.everest.axon.cryptoshredding.serialization.PipelinedDeserializationInterceptor;
 import engineering.everest.axon.cryptoshredding.testevents.CustomType;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithCustomTypeAsEncryptedField;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithCustomTypeForKeyIdentifier;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithDifferentiatedKeyType;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedFields;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedValueFields;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptionEnvelope;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithMismatchedMultipleEncryptionKeyIdentifierTags;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithMissingEncryptionKeyIdentifierAnnotation;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithMultipleUntaggedEncryptionKeyIdentifierAnnotations;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithUnsupportedEncryptionKeyIdentifierType;
 import engineering.everest.axon.cryptoshredding.testevents.EventWithoutEncryptedFields;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.messaging.unitofwork.BatchingUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
 import org.axonframework.serialization.Converter;
+import org.axonframework.serialization.LazyDeserializingObject;
+import org.axonframework.serialization.SerializedMessage;
+import org.axonframework.serialization.SerializedObject;
 import org.axonframework.serialization.Serializer;
 import org.axonframework.serialization.SimpleSerializedObject;
 import org.axonframework.serialization.SimpleSerializedType;
@@ -39,13 +59,26 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -74,15 +107,27 @@ class CryptoShreddingSerializerTest {
 
     @BeforeEach
     void setUp() {
-        cryptoShreddingSerializerWithMock = new CryptoShreddingSerializer(
-            mockWrappedSerializer, cryptoShreddingKeyService, encrypterFactory, new ObjectMapper(), new DefaultValueProvider(),
-            new KeyIdentifierToStringConverter());
-        jsonCryptoShreddingSerializer = new CryptoShreddingSerializer(
-            JacksonSerializer.defaultSerializer(), cryptoShreddingKeyService, encrypterFactory, new ObjectMapper(),
-            new DefaultValueProvider(), new KeyIdentifierToStringConverter());
-        var secureRandom = new SecureRandom();
-        defaultAesEncrypter = new DefaultAesEncrypter(secureRandom);
-        defaultAesDecrypter = new DefaultAesDecrypter(secureRandom);
+        cryptoShreddingSerializerWithMock = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(mockWrappedSerializer)
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .build();
+        jsonCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .build();
+        defaultAesEncrypter = new DefaultAesEncrypter(new SecureRandom());
+        defaultAesDecrypter = new DefaultAesDecrypter();
+    }
+
+    @Test
+    void build_WillFail_WhenEncrypterDecrypterFactoryIsNotSet() {
+        var builder = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService);
+
+        assertThrows(IllegalStateException.class, builder::build);
     }
 
     @Test
@@ -114,9 +159,12 @@ class CryptoShreddingSerializerTest {
         when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
         when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
 
-        jsonCryptoShreddingSerializer = new CryptoShreddingSerializer(
-            JacksonSerializer.defaultSerializer(), cryptoShreddingKeyService, encrypterFactory, new ObjectMapper(),
-            new DefaultValueProvider(), customKeyIdentifierToStringConverter);
+        jsonCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .keyIdentifierToStringConverter(customKeyIdentifierToStringConverter)
+            .build();
 
         var serialized = jsonCryptoShreddingSerializer.serialize(EventWithCustomTypeForKeyIdentifier.createTestInstance(), byte[].class);
         assertEquals(new SimpleSerializedType(EventWithCustomTypeForKeyIdentifier.class.getCanonicalName(), "0"), serialized.getType());
@@ -208,10 +256,55 @@ class CryptoShreddingSerializerTest {
         assertEquals(EventWithEncryptedFields.createTestInstance(), deserialized);
     }
 
+    @Test
+    void deserialize_WillNotModifySerializedData_WhenRepresentationIsJsonNode() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), JsonNode.class);
+        var encryptedTree = serializedAndEncryptedEvent.getData().deepCopy();
+        SimpleSerializedObject<JsonNode> typeInformationAugmentedEncryptedEvent =
+            new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), JsonNode.class,
+                new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        EventWithEncryptedFields deserialized = jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent);
+
+        assertEquals(EventWithEncryptedFields.createTestInstance(), deserialized);
+        assertEquals(encryptedTree, serializedAndEncryptedEvent.getData());
+    }
+
+    @Test
+    void deserialize_WillDecryptFieldsWhoseCleartextWasSerializedByWrappedJacksonSerializer() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var wrappedSerializer = JacksonSerializer.defaultSerializer();
+        var firstCipherText = defaultAesEncrypter.encrypt(ENCRYPTION_KEY,
+            wrappedSerializer.serialize("I am a string", String.class).getData());
+        var secondCipherText = defaultAesEncrypter.encrypt(ENCRYPTION_KEY,
+            wrappedSerializer.serialize("I'm not the other string", String.class).getData());
+        var serializedJson = String.format(
+            "{\"keyIdentifier\":\"key-identifier\",\"keyIdentifier2\":\"key-identifier-2\","
+                + "\"fieldForFirstKey\":\"%s\",\"fieldForSecondKey\":\"%s\"}",
+            Base64.getEncoder().encodeToString(firstCipherText), Base64.getEncoder().encodeToString(secondCipherText));
+        var serializedEvent = new SimpleSerializedObject<>(serializedJson.getBytes(), byte[].class,
+            new SimpleSerializedType(EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.class.getCanonicalName(), REVISION_NUMBER));
+
+        assertEquals(EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.createTestInstance(),
+            jsonCryptoShreddingSerializer.deserialize(serializedEvent));
+    }
+
     @Test
     void deserialize_WillDecryptEventsSerializedByXmlCryptoShreddingSerializer_WhenEventContainsEncryptedFields() {
-        var xmlCryptoShreddingSerializer = new CryptoShreddingSerializer(XStreamSerializer.defaultSerializer(), cryptoShreddingKeyService,
-            encrypterFactory, new ObjectMapper(), new DefaultValueProvider(), new KeyIdentifierToStringConverter());
+        var xmlCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(XStreamSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .build();
 
         when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
         when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
@@ -244,6 +337,33 @@ class CryptoShreddingSerializerTest {
         assertEquals(EventWithEncryptedFields.createUnencryptedTestInstance(), deserialized);
     }
 
+    @Test
+    void deserialize_WillNotDecodeCipherTextOrConvertDefaultValuesAgain_WhenEncryptionKeyHasBeenDeleted() {
+        var defaultValueProvider = spy(new DefaultValueProvider());
+        var countingDecrypter = spy(defaultAesDecrypter);
+        jsonCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .defaultValueProvider(defaultValueProvider)
+            .build();
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(countingDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent);
+        var deserialized = jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent);
+
+        assertEquals(EventWithEncryptedFields.createUnencryptedTestInstance(), deserialized);
+        verify(defaultValueProvider, times(11)).defaultValue(any());
+        verify(countingDecrypter, never()).decrypt(any(), any(byte[].class), anyInt(), anyInt());
+    }
+
     @Test
     void deserialize_WillUseCustomDefaultValue_WhenRegisteredAndEncryptionKeyHasBeenDeleted() {
         when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
@@ -254,9 +374,12 @@ class CryptoShreddingSerializerTest {
             .customType(CustomType.class, new CustomType("custom default value"))
             .build();
 
-        jsonCryptoShreddingSerializer = new CryptoShreddingSerializer(
-            JacksonSerializer.defaultSerializer(), cryptoShreddingKeyService, encrypterFactory, new ObjectMapper(),
-            customDefaultProvider, new KeyIdentifierToStringConverter());
+        jsonCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .defaultValueProvider(customDefaultProvider)
+            .build();
 
         var serializedAndEncryptedEvent =
             jsonCryptoShreddingSerializer.serialize(EventWithCustomTypeAsEncryptedField.createTestInstance(), byte[].class);
@@ -410,6 +533,457 @@ class CryptoShreddingSerializerTest {
         assertEquals(expectedPartiallyDeserialized, deserialized);
     }
 
+    @Test
+    void deserializeAll_WillResolveAllSecretKeysWithSingleLookup() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.resolveExistingSecretKeys(Set.of(KEY_IDENTIFIER, keyIdentifier2)))
+            .thenReturn(new ResolvedSecretKeys(Map.of(KEY_IDENTIFIER, ENCRYPTION_KEY, keyIdentifier2, secondEncryptionKey), Set.of(),
+                Set.of()));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var eventWithEncryptedFields = EventWithEncryptedFields.createTestInstance();
+        var eventWithMultipleKeys = EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.createTestInstance();
+        var eventWithoutEncryptedFields = EventWithoutEncryptedFields.createTestInstance();
+        var serializedEvents = List.of(
+            new SimpleSerializedObject<>(jsonCryptoShreddingSerializer.serialize(eventWithEncryptedFields, byte[].class).getData(),
+                byte[].class, new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER)),
+            new SimpleSerializedObject<>(jsonCryptoShreddingSerializer.serialize(eventWithoutEncryptedFields, byte[].class).getData(),
+                byte[].class, new SimpleSerializedType(EventWithoutEncryptedFields.class.getCanonicalName(), REVISION_NUMBER)),
+            new SimpleSerializedObject<>(jsonCryptoShreddingSerializer.serialize(eventWithMultipleKeys, byte[].class).getData(),
+                byte[].class, new SimpleSerializedType(EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.class.getCanonicalName(),
+                    REVISION_NUMBER)));
+
+        List<Object> deserialized = jsonCryptoShreddingSerializer.deserializeAll(serializedEvents);
+
+        assertEquals(List.of(eventWithEncryptedFields, eventWithoutEncryptedFields, eventWithMultipleKeys), deserialized);
+        verify(cryptoShreddingKeyService, never()).getExistingSecretKey(any());
+    }
+
+    @Test
+    void deserializeAll_WillReplaceEncryptedFieldsWithDefaultValues_WhenEncryptionKeyHasBeenDeleted() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.resolveExistingSecretKeys(Set.of(KEY_IDENTIFIER)))
+            .thenReturn(new ResolvedSecretKeys(Map.of(), Set.of(KEY_IDENTIFIER), Set.of()));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        List<Object> deserialized = jsonCryptoShreddingSerializer.deserializeAll(
+            List.of(typeInformationAugmentedEncryptedEvent, typeInformationAugmentedEncryptedEvent));
+
+        var expectedDeserialized = EventWithEncryptedFields.createUnencryptedTestInstance();
+        assertEquals(List.of(expectedDeserialized, expectedDeserialized), deserialized);
+    }
+
+    @Test
+    void serialize_WillStoreCipherTextAsNativeBinary_WhenNativeBinaryEncodingSelectedAndWrappedSerializerWritesCbor() throws Exception {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var cborMapper = new CBORMapper();
+        var cborCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.builder().objectMapper(cborMapper).build())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .cipherTextEncoding(CipherTextEncoding.NATIVE_BINARY)
+            .build();
+
+        var serializedAndEncryptedEvent =
+            cborCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+
+        assertTrue(cborMapper.readTree(serializedAndEncryptedEvent.getData()).get("anIntegerField").isBinary());
+        assertEquals(EventWithEncryptedFields.createTestInstance(),
+            cborCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+    }
+
+    @Test
+    void serialize_WillStoreCipherTextAsBase64_WhenNativeBinaryEncodingSelectedAndWrappedSerializerWritesJson() throws Exception {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+
+        var nativeBinaryCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .cipherTextEncoding(CipherTextEncoding.NATIVE_BINARY)
+            .build();
+
+        var serializedAndEncryptedEvent =
+            nativeBinaryCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+
+        assertTrue(new ObjectMapper().readTree(serializedAndEncryptedEvent.getData()).get("anIntegerField").isTextual());
+    }
+
+    @Test
+    void deserialize_WillDecryptBase64CipherText_WhenNativeBinaryEncodingSelected() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var wrappedSerializer = JacksonSerializer.builder().objectMapper(new CBORMapper()).build();
+        var base64CryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(wrappedSerializer)
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .build();
+        var nativeBinaryCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(wrappedSerializer)
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .cipherTextEncoding(CipherTextEncoding.NATIVE_BINARY)
+            .build();
+
+        var serializedAndEncryptedEvent =
+            base64CryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+
+        assertEquals(EventWithEncryptedFields.createTestInstance(),
+            nativeBinaryCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+    }
+
+    @Test
+    void serialize_WillEncryptEachFieldTagOnce_WhenPayloadAnnotatedWithEncryptionEnvelope() throws Exception {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        var countingEncrypter = spy(defaultAesEncrypter);
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(countingEncrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), byte[].class);
+
+        var document = new ObjectMapper().readTree(serializedAndEncryptedEvent.getData());
+        assertTrue(document.get("astringField").isNull());
+        assertTrue(document.get("auuidfield").isNull());
+        assertEquals(2, document.get("@encryptedFields").size());
+        verify(countingEncrypter, times(2)).encrypt(any(), any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void deserialize_WillDecryptEventsWithEncryptionEnvelope() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        var xmlCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(XStreamSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .build();
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedType = new SimpleSerializedType(EventWithEncryptionEnvelope.class.getCanonicalName(), REVISION_NUMBER);
+        var jsonSerializedEvent = new SimpleSerializedObject<>(
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), byte[].class).getData(),
+            byte[].class, serializedType);
+        var xmlSerializedEvent = new SimpleSerializedObject<>(
+            xmlCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), String.class).getData(),
+            String.class, serializedType);
+
+        assertEquals(EventWithEncryptionEnvelope.createTestInstance(), jsonCryptoShreddingSerializer.deserialize(jsonSerializedEvent));
+        assertEquals(EventWithEncryptionEnvelope.createTestInstance(), xmlCryptoShreddingSerializer.deserialize(xmlSerializedEvent));
+    }
+
+    @Test
+    void deserialize_WillDecryptFieldsEncryptedSeparately_WhenPayloadAnnotatedWithEncryptionEnvelope() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var objectMapper = new ObjectMapper();
+        var eventWithFieldsEncryptedSeparately = objectMapper.createObjectNode()
+            .put("keyIdentifier", "key-identifier")
+            .put("keyIdentifier2", "key-identifier-2")
+            .put("astringField", encryptToBase64(ENCRYPTION_KEY, "\"I am a string\""))
+            .put("aprimitiveIntegerField", encryptToBase64(ENCRYPTION_KEY, "44"))
+            .put("encryptedNestedClass", encryptToBase64(ENCRYPTION_KEY, "null"))
+            .put("auuidfield", encryptToBase64(secondEncryptionKey, "\"deadbeef-dead-beef-dead-beef00000007\""));
+        var serializedEvent = new SimpleSerializedObject<>(eventWithFieldsEncryptedSeparately.toString(), String.class,
+            new SimpleSerializedType(EventWithEncryptionEnvelope.class.getCanonicalName(), REVISION_NUMBER));
+
+        var expectedDeserialized = new EventWithEncryptionEnvelope("key-identifier", "key-identifier-2", "I am a string", 44, null,
+            UUID.fromString("deadbeef-dead-beef-dead-beef00000007"), null);
+        assertEquals(expectedDeserialized, jsonCryptoShreddingSerializer.deserialize(serializedEvent));
+    }
+
+    @Test
+    void deserialize_WillReplaceEnvelopeFieldsWithDefaultValues_WhenEncryptionKeyHasBeenDeleted() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptionEnvelope.class.getCanonicalName(), REVISION_NUMBER));
+
+        var expectedPartiallyDeserialized = EventWithEncryptionEnvelope.createTestInstance();
+        expectedPartiallyDeserialized.setAStringField(null);
+        expectedPartiallyDeserialized.setAPrimitiveIntegerField(0);
+        expectedPartiallyDeserialized.setEncryptedNestedClass(null);
+        assertEquals(expectedPartiallyDeserialized, jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+    }
+
+    @Test
+    void deserialize_WillThrow_WhenEnvelopeOfFieldTagIsMissing() throws Exception {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+
+        var objectMapper = new ObjectMapper();
+        var document = (ObjectNode) objectMapper.readTree(
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), byte[].class).getData());
+        ((ObjectNode) document.get("@encryptedFields")).remove("");
+        var serializedEvent = new SimpleSerializedObject<>(document.toString(), String.class,
+            new SimpleSerializedType(EventWithEncryptionEnvelope.class.getCanonicalName(), REVISION_NUMBER));
+
+        var exception = assertThrows(MissingEncryptionEnvelopeException.class,
+            () -> jsonCryptoShreddingSerializer.deserialize(serializedEvent));
+
+        assertEquals(String.format("Missing the encryption envelope for tag '' in a serialized '%s' that has encryption envelopes.",
+            EventWithEncryptionEnvelope.class.getName()), exception.getMessage());
+    }
+
+    @Test
+    void deserialize_WillNotRetrieveSecretKeyOrDecrypt_UntilEncryptedValueFieldIsRead() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedValueFields.createTestInstance(), byte[].class);
+        EventWithEncryptedValueFields deserialized = jsonCryptoShreddingSerializer.deserialize(new SimpleSerializedObject<>(
+            serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedValueFields.class.getCanonicalName(), REVISION_NUMBER)));
+
+        assertFalse(deserialized.getAStringField().isDecrypted());
+        assertFalse(deserialized.getAUUIDField().isDecrypted());
+        assertEquals(44, deserialized.getAPrimitiveIntegerField());
+        verify(cryptoShreddingKeyService, never()).getExistingSecretKey(KEY_IDENTIFIER);
+
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        assertEquals(EventWithEncryptedValueFields.createTestInstance(), deserialized);
+        verify(cryptoShreddingKeyService).getExistingSecretKey(KEY_IDENTIFIER);
+    }
+
+    @Test
+    void deserialize_WillDecryptEncryptedValueFieldsSerializedByXmlCryptoShreddingSerializer() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        var xmlCryptoShreddingSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(XStreamSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(encrypterFactory)
+            .build();
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            xmlCryptoShreddingSerializer.serialize(EventWithEncryptedValueFields.createTestInstance(), String.class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), String.class,
+            new SimpleSerializedType(EventWithEncryptedValueFields.class.getCanonicalName(), REVISION_NUMBER));
+
+        assertEquals(EventWithEncryptedValueFields.createTestInstance(),
+            xmlCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+    }
+
+    @Test
+    void deserialize_WillReturnDefaultValuesFromEncryptedValueFields_WhenEncryptionKeyHasBeenDeleted() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedValueFields.createTestInstance(), byte[].class);
+        EventWithEncryptedValueFields deserialized = jsonCryptoShreddingSerializer.deserialize(new SimpleSerializedObject<>(
+            serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedValueFields.class.getCanonicalName(), REVISION_NUMBER)));
+
+        assertNull(deserialized.getAStringField().get());
+        assertNull(deserialized.getEncryptedNestedClass().get());
+        assertEquals(UUID.fromString("deadbeef-dead-beef-dead-beef00000007"), deserialized.getAUUIDField().get());
+    }
+
+    @Test
+    void deserializeAll_WillNotResolveSecretKeysOnlyUsedByEncryptedValueFields() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.resolveExistingSecretKeys(Set.of(keyIdentifier2)))
+            .thenReturn(new ResolvedSecretKeys(Map.of(keyIdentifier2, secondEncryptionKey), Set.of(), Set.of()));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedValueFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedValueFields.class.getCanonicalName(), REVISION_NUMBER));
+        List<EventWithEncryptedValueFields> deserialized = jsonCryptoShreddingSerializer.deserializeAll(
+            List.of(typeInformationAugmentedEncryptedEvent, typeInformationAugmentedEncryptedEvent));
+
+        assertEquals(44, deserialized.get(1).getAPrimitiveIntegerField());
+        verify(cryptoShreddingKeyService, never()).getExistingSecretKey(any());
+    }
+
+    @Test
+    void deserialize_WillReplaceFieldsNotNamedByEncryptedFieldMaskWithDefaultValues() throws Exception {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        var encryptedFieldMask = EncryptedFieldMask.builder()
+            .decrypt(EventWithEncryptedFields.class, "aStringField", "aUUIDField")
+            .build();
+        var deserialized =
+            encryptedFieldMask.applyTo(() -> jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+
+        var expectedDeserialized = EventWithEncryptedFields.createUnencryptedTestInstance();
+        expectedDeserialized.setAStringField("I am a string");
+        expectedDeserialized.setAUUIDField(UUID.fromString("deadbeef-dead-beef-dead-beef00000007"));
+        assertEquals(expectedDeserialized, deserialized);
+    }
+
+    @Test
+    void deserialize_WillNotRetrieveSecretKey_WhenEncryptedFieldMaskNamesNoFieldsOfItsTag() throws Exception {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptionEnvelope.class.getCanonicalName(), REVISION_NUMBER));
+        var encryptedFieldMask = EncryptedFieldMask.builder()
+            .decrypt(EventWithEncryptionEnvelope.class, "aStringField")
+            .build();
+        var deserialized =
+            encryptedFieldMask.applyTo(() -> jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+
+        var expectedPartiallyDeserialized = EventWithEncryptionEnvelope.createTestInstance();
+        expectedPartiallyDeserialized.setAPrimitiveIntegerField(0);
+        expectedPartiallyDeserialized.setEncryptedNestedClass(null);
+        expectedPartiallyDeserialized.setAUUIDField(null);
+        assertEquals(expectedPartiallyDeserialized, deserialized);
+        verify(cryptoShreddingKeyService, never()).getExistingSecretKey(keyIdentifier2);
+    }
+
+    @Test
+    void deserialize_WillDecryptAllFields_WhenNoEncryptedFieldMaskApplied() throws Exception {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        EncryptedFieldMask.builder().build()
+            .applyTo(() -> jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+
+        assertEquals(EventWithEncryptedFields.createTestInstance(),
+            jsonCryptoShreddingSerializer.deserialize(typeInformationAugmentedEncryptedEvent));
+    }
+
+    @Test
+    void encryptedFieldMaskInterceptor_WillNotShareMaskedPayloadsWithOtherProcessingGroups() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+        when(encrypterFactory.createDecrypter()).thenReturn(defaultAesDecrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        List<EventMessage<?>> sharedEventMessages = List.of(
+            lazilyDeserializedEventMessage(typeInformationAugmentedEncryptedEvent),
+            lazilyDeserializedEventMessage(typeInformationAugmentedEncryptedEvent));
+        var encryptedFieldMask = EncryptedFieldMask.builder()
+            .decrypt(EventWithEncryptedFields.class, "aStringField")
+            .build();
+        var maskingInterceptor = new EncryptedFieldMaskInterceptor(encryptedFieldMask, jsonCryptoShreddingSerializer);
+        var pipelinedDeserializationInterceptor = new PipelinedDeserializationInterceptor(Runnable::run, 10);
+
+        var maskedGroupPayloads = new ArrayList<Object>();
+        handleBatch(sharedEventMessages, (unitOfWork, handler) -> maskingInterceptor.handle(unitOfWork,
+            () -> pipelinedDeserializationInterceptor.handle(unitOfWork, handler)), maskedGroupPayloads);
+        var unmaskedGroupPayloads = new ArrayList<Object>();
+        handleBatch(sharedEventMessages, (unitOfWork, handler) -> handler.proceed(), unmaskedGroupPayloads);
+
+        var expectedMaskedPayload = EventWithEncryptedFields.createUnencryptedTestInstance();
+        expectedMaskedPayload.setAStringField("I am a string");
+        assertEquals(List.of(expectedMaskedPayload, expectedMaskedPayload), maskedGroupPayloads);
+        assertEquals(List.of(EventWithEncryptedFields.createTestInstance(), EventWithEncryptedFields.createTestInstance()),
+            unmaskedGroupPayloads);
+    }
+
+    @Test
+    void deserializeAll_WillNotResolveSecretKeys_WhenEncryptedFieldMaskNamesNoFieldsOfTheirTags() throws Exception {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(encrypterFactory.createEncrypter()).thenReturn(defaultAesEncrypter);
+
+        var serializedAndEncryptedEvent =
+            jsonCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+        var typeInformationAugmentedEncryptedEvent = new SimpleSerializedObject<>(serializedAndEncryptedEvent.getData(), byte[].class,
+            new SimpleSerializedType(EventWithEncryptedFields.class.getCanonicalName(), REVISION_NUMBER));
+        List<Object> deserialized = EncryptedFieldMask.builder().build().applyTo(() -> jsonCryptoShreddingSerializer.deserializeAll(
+            List.of(typeInformationAugmentedEncryptedEvent, typeInformationAugmentedEncryptedEvent)));
+
+        var expectedDeserialized = EventWithEncryptedFields.createUnencryptedTestInstance();
+        assertEquals(List.of(expectedDeserialized, expectedDeserialized), deserialized);
+        verify(cryptoShreddingKeyService, never()).resolveExistingSecretKeys(any());
+        verify(cryptoShreddingKeyService, never()).getExistingSecretKey(any());
+    }
+
     @Test
     void canSerializeTo_WillBeDelegated() {
         cryptoShreddingSerializerWithMock.canSerializeTo(byte[].class);
@@ -439,4 +1013,31 @@ class CryptoShreddingSerializerTest {
 
         assertEquals(converter, cryptoShreddingSerializerWithMock.getConverter());
     }
+
+    private String encryptToBase64(SecretKey secretKey, String cleartext) {
+        return Base64.getEncoder().encodeToString(defaultAesEncrypter.encrypt(secretKey, cleartext));
+    }
+
+    private EventMessage<?> lazilyDeserializedEventMessage(SerializedObject<byte[]> serializedPayload) {
+        var serializedMessage = new SerializedMessage<>(UUID.randomUUID().toString(),
+            new LazyDeserializingObject<>(serializedPayload, jsonCryptoShreddingSerializer),
+            new LazyDeserializingObject<>(MetaData.emptyInstance()));
+        return new GenericEventMessage<>(serializedMessage, Instant::now);
+    }
+
+    private static void handleBatch(List<EventMessage<?>> eventMessages, ProcessingGroupInterceptors interceptors, List<Object> payloads) {
+        var unitOfWork = new BatchingUnitOfWork<>(eventMessages);
+        var resultMessage = unitOfWork.executeWithResult(() -> interceptors.handle(unitOfWork, () -> {
+            payloads.add(unitOfWork.getMessage().getPayload());
+            return null;
+        }));
+        if (resultMessage.isExceptional()) {
+            throw new AssertionError(resultMessage.exceptionResult());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ProcessingGroupInterceptors {
+        Object handle(UnitOfWork<EventMessage<?>> unitOfWork, InterceptorChain handler) throws Exception;
+    }
 }
@@ -6,9 +6,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 
+import static java.nio.charset.Charset.defaultCharset;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -16,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class DefaultAesEncrypterDecrypterIntegrationTest {
 
     private static final String TINY_MESSAGE = "42";
+    private static final String NON_ASCII_MESSAGE = "Grüße aus Zürich, 東京 and 🦊";
     private static final String PLAIN_TEXT_MESSAGE = "The quick brown fox jumped ship. This is a long payload by design. "
         + "Please keep it such so that we have confidence in our ability to handle long messages. Lorem ipsum dolor sit amet, "
         + "consectetur adipiscing elit. Nunc sit amet nulla id lacus vulputate fringilla at sed est. Sed viverra rhoncus "
@@ -39,10 +49,9 @@ class DefaultAesEncrypterDecrypterIntegrationTest {
 
     @BeforeEach
     void setUp() throws NoSuchAlgorithmException {
-        var secureRandom = new SecureRandom();
         defaultAesKeyGenerator = new DefaultAesKeyGenerator();
-        base64EncodingDefaultAesEncrypter = new DefaultAesEncrypter(secureRandom);
-        defaultAesDecrypter = new DefaultAesDecrypter(secureRandom);
+        base64EncodingDefaultAesEncrypter = new DefaultAesEncrypter(new SecureRandom());
+        defaultAesDecrypter = new DefaultAesDecrypter();
     }
 
     @Test
@@ -63,6 +72,85 @@ class DefaultAesEncrypterDecrypterIntegrationTest {
         assertEquals(TINY_MESSAGE, decodedPlainText);
     }
 
+    @Test
+    void willEncryptAndDecryptStringsInPlatformDefaultCharset() {
+        var secretKey = defaultAesKeyGenerator.generateKey();
+        var encodedCipherText = base64EncodingDefaultAesEncrypter.encrypt(secretKey, NON_ASCII_MESSAGE);
+
+        assertEquals(new String(NON_ASCII_MESSAGE.getBytes(defaultCharset()), defaultCharset()),
+            defaultAesDecrypter.decrypt(secretKey, encodedCipherText));
+        assertArrayEquals(NON_ASCII_MESSAGE.getBytes(defaultCharset()),
+            defaultAesDecrypter.decrypt(secretKey, encodedCipherText, 0, encodedCipherText.length));
+    }
+
+    @Test
+    void willDecryptByteArraySlicesEncryptedFromByteArraySlices() {
+        var secretKey = defaultAesKeyGenerator.generateKey();
+        var paddedCleartext = ("[" + PLAIN_TEXT_MESSAGE + "]").getBytes(UTF_8);
+        var encodedCipherText = base64EncodingDefaultAesEncrypter.encrypt(secretKey, paddedCleartext, 1, paddedCleartext.length - 2);
+        var paddedCipherText = new byte[encodedCipherText.length + 3];
+        System.arraycopy(encodedCipherText, 0, paddedCipherText, 3, encodedCipherText.length);
+
+        var decodedPlainText = defaultAesDecrypter.decrypt(secretKey, paddedCipherText, 3, encodedCipherText.length);
+
+        assertArrayEquals(PLAIN_TEXT_MESSAGE.getBytes(UTF_8), decodedPlainText);
+        assertEquals(PLAIN_TEXT_MESSAGE, defaultAesDecrypter.decrypt(secretKey, encodedCipherText));
+    }
+
+    @Test
+    void willDecryptIntoByteBuffersMessagesEncryptedFromByteBuffers() {
+        var secretKey = defaultAesKeyGenerator.generateKey();
+        var encodedCipherText = base64EncodingDefaultAesEncrypter.encrypt(secretKey, ByteBuffer.wrap(NON_ASCII_MESSAGE.getBytes(UTF_8)));
+        var cleartext = ByteBuffer.allocate(encodedCipherText.length);
+
+        var cleartextLength = defaultAesDecrypter.decrypt(secretKey, ByteBuffer.wrap(encodedCipherText), cleartext);
+
+        assertEquals(cleartextLength, cleartext.position());
+        assertEquals(NON_ASCII_MESSAGE, new String(cleartext.array(), 0, cleartextLength, UTF_8));
+    }
+
+    @Test
+    void encryptersAndDecryptersSharingCipherPoolCanBeUsedConcurrently() throws InterruptedException, ExecutionException {
+        var secretKey = defaultAesKeyGenerator.generateKey();
+        var encrypterDecrypterFactory = new DefaultAesEncrypterDecrypterFactory(2);
+        var executorService = Executors.newFixedThreadPool(8);
+        try {
+            var roundTrips = new ArrayList<Callable<String>>();
+            for (int i = 0; i < 1000; i++) {
+                var message = PLAIN_TEXT_MESSAGE + i;
+                roundTrips.add(() -> encrypterDecrypterFactory.createDecrypter()
+                    .decrypt(secretKey, encrypterDecrypterFactory.createEncrypter().encrypt(secretKey, message)));
+            }
+            var results = executorService.invokeAll(roundTrips);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(PLAIN_TEXT_MESSAGE + i, results.get(i).get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void encrypt_WillPrefixCipherTextWithNonceFromNonceGenerator() {
+        var secretKey = defaultAesKeyGenerator.generateKey();
+        var encrypter = new DefaultAesEncrypter(new CounterNonceGenerator(7, 42L), new CipherPool("AES/GCM/NoPadding", 1));
+
+        var encodedCipherText = encrypter.encrypt(secretKey, PLAIN_TEXT_MESSAGE);
+
+        assertArrayEquals(new byte[] { 0, 0, 0, 7, 0, 0, 0, 0, 0, 0, 0, 42 }, Arrays.copyOf(encodedCipherText, 12));
+        assertEquals(PLAIN_TEXT_MESSAGE, defaultAesDecrypter.decrypt(secretKey, encodedCipherText));
+    }
+
+    @Test
+    void decrypt_WillNotReturnCipherToPool_WhenDecryptionFails() {
+        var cipherPool = new CipherPool("AES/GCM/NoPadding", 1);
+        var decrypter = new DefaultAesDecrypter(cipherPool);
+        var encodedCipherText = base64EncodingDefaultAesEncrypter.encrypt(defaultAesKeyGenerator.generateKey(), PLAIN_TEXT_MESSAGE);
+
+        assertThrows(RuntimeException.class, () -> decrypter.decrypt(defaultAesKeyGenerator.generateKey(), encodedCipherText));
+        assertEquals(0, cipherPool.idleCipherCount());
+    }
+
     @Test
     void encrypt_WillFail_WhenEncryptionKeyIsInvalid() {
         SecretKeySpec invalidAlgorithm = new SecretKeySpec("blah".getBytes(), "invalid algorithm");
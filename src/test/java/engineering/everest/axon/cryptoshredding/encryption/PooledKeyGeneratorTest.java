@@ -0,0 +1,107 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PooledKeyGeneratorTest {
+
+    private static final int POOL_SIZE = 4;
+
+    private final AtomicInteger generatedKeyCount = new AtomicInteger();
+    private final KeyGenerator countingKeyGenerator = () -> {
+        generatedKeyCount.incrementAndGet();
+        return new SecretKeySpec(randomUUID().toString().getBytes(), "AES");
+    };
+
+    @Test
+    void constructor_WillFillPool() {
+        var pooledKeyGenerator = new PooledKeyGenerator(countingKeyGenerator, POOL_SIZE, Runnable::run);
+
+        assertEquals(POOL_SIZE, pooledKeyGenerator.size());
+        assertEquals(POOL_SIZE, generatedKeyCount.get());
+    }
+
+    @Test
+    void constructor_WillThrow_WhenPoolSizeIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new PooledKeyGenerator(countingKeyGenerator, 0, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new PooledKeyGenerator(countingKeyGenerator, -1, Runnable::run));
+    }
+
+    @Test
+    void generateKey_WillReturnUniquePooledKeysAndRefillPool() {
+        var pooledKeyGenerator = new PooledKeyGenerator(countingKeyGenerator, POOL_SIZE, Runnable::run);
+
+        var secretKeys = new HashSet<SecretKey>();
+        for (int i = 0; i < POOL_SIZE * 3; i++) {
+            secretKeys.add(pooledKeyGenerator.generateKey());
+        }
+
+        assertEquals(POOL_SIZE * 3, secretKeys.size());
+        assertEquals(POOL_SIZE, pooledKeyGenerator.size());
+        assertEquals(POOL_SIZE * 4, generatedKeyCount.get());
+    }
+
+    @Test
+    void generateKey_WillGenerateKeyOnCallingThread_WhenPoolIsEmpty() {
+        var pooledKeyGenerator = new PooledKeyGenerator(countingKeyGenerator, POOL_SIZE, runnable -> {});
+
+        assertNotNull(pooledKeyGenerator.generateKey());
+        assertEquals(0, pooledKeyGenerator.size());
+        assertEquals(1, generatedKeyCount.get());
+    }
+
+    @Test
+    void generateKey_WillRetryRefill_WhenWrappedGeneratorFailed() {
+        var failingKeyGenerator = new KeyGenerator() {
+            private boolean failed;
+
+            @Override
+            public SecretKey generateKey() {
+                if (!failed) {
+                    failed = true;
+                    throw new IllegalStateException("entropy source unavailable");
+                }
+                return countingKeyGenerator.generateKey();
+            }
+        };
+        var pooledKeyGenerator = new PooledKeyGenerator(failingKeyGenerator, POOL_SIZE, Runnable::run);
+        assertEquals(0, pooledKeyGenerator.size());
+
+        assertNotNull(pooledKeyGenerator.generateKey());
+        assertEquals(POOL_SIZE, pooledKeyGenerator.size());
+    }
+
+    @Test
+    void generateKey_WillGenerateKeysOnCallingThread_WhenClosed() {
+        var pooledKeyGenerator = new PooledKeyGenerator(countingKeyGenerator, POOL_SIZE, Runnable::run);
+        pooledKeyGenerator.close();
+
+        assertNotNull(pooledKeyGenerator.generateKey());
+        assertEquals(0, pooledKeyGenerator.size());
+        assertEquals(POOL_SIZE + 1, generatedKeyCount.get());
+    }
+
+    @Test
+    void generateKey_WillRefillPoolInBackground() throws InterruptedException {
+        try (var pooledKeyGenerator = new PooledKeyGenerator(countingKeyGenerator, POOL_SIZE)) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                assertNotNull(pooledKeyGenerator.generateKey());
+            }
+
+            var deadline = System.nanoTime() + 10_000_000_000L;
+            while (pooledKeyGenerator.size() < POOL_SIZE && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(POOL_SIZE, pooledKeyGenerator.size());
+        }
+    }
+}
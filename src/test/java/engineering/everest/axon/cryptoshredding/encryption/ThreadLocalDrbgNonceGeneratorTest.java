@@ -0,0 +1,39 @@
+package engineering.everest.axon.cryptoshredding.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ThreadLocalDrbgNonceGeneratorTest {
+
+    @Test
+    void nextNonce_WillGenerateDistinctNonces() {
+        var nonceGenerator = new ThreadLocalDrbgNonceGenerator();
+        var nonces = new HashSet<ByteBuffer>();
+        for (int i = 0; i < 1000; i++) {
+            var nonce = new byte[12];
+            nonceGenerator.nextNonce(nonce);
+            nonces.add(ByteBuffer.wrap(nonce));
+        }
+
+        assertEquals(1000, nonces.size());
+    }
+
+    @Test
+    void nextNonce_WillGenerateDistinctNonces_WhenCalledFromDifferentThreads() throws InterruptedException {
+        var nonceGenerator = new ThreadLocalDrbgNonceGenerator();
+        var firstNonce = new byte[12];
+        var secondNonce = new byte[12];
+
+        nonceGenerator.nextNonce(firstNonce);
+        var thread = new Thread(() -> nonceGenerator.nextNonce(secondNonce));
+        thread.start();
+        thread.join();
+
+        assertNotEquals(ByteBuffer.wrap(firstNonce), ByteBuffer.wrap(secondNonce));
+    }
+}
@@ -0,0 +1,247 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BatchingSecretKeyRepositoryTest {
+
+    private static final Duration BATCHING_WINDOW = Duration.ofMillis(500);
+    private static final TypeDifferentiatedSecretKeyId HELD_KEY_ID = keyId("held");
+
+    @Test
+    void findById_WillReturnKeyAndEmptyOptional_WhenLookedUpAlone() {
+        var existingKey = persistableSecretKey("existing");
+        var recordingRepository = new RecordingSecretKeyRepository(List.of(existingKey));
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(recordingRepository, Duration.ZERO, 100);
+
+        assertEquals(Optional.of(existingKey), batchingSecretKeyRepository.findById(existingKey.getId()));
+        assertEquals(Optional.empty(), batchingSecretKeyRepository.findById(keyId("missing")));
+        assertEquals(2, recordingRepository.lookups.size());
+    }
+
+    @Test
+    void findById_WillNotWaitForBatchingWindow_WhenNoOtherLookupInFlight() {
+        var existingKey = persistableSecretKey("existing");
+        var recordingRepository = new RecordingSecretKeyRepository(List.of(existingKey));
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(recordingRepository, Duration.ofMinutes(1), 100);
+
+        var result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> batchingSecretKeyRepository.findById(existingKey.getId()));
+
+        assertEquals(Optional.of(existingKey), result);
+        assertEquals(1, recordingRepository.lookups.size());
+    }
+
+    @Test
+    void findById_WillCoalesceConcurrentLookupsIntoSingleQuery() throws Exception {
+        var persistableSecretKeys = new ArrayList<PersistableSecretKey>();
+        for (int i = 0; i < 10; i++) {
+            persistableSecretKeys.add(persistableSecretKey("key-" + i));
+        }
+        var recordingRepository = new RecordingSecretKeyRepository(persistableSecretKeys);
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(recordingRepository, BATCHING_WINDOW, 10);
+
+        var keyIds = persistableSecretKeys.stream().map(PersistableSecretKey::getId).toList();
+
+        var results = findConcurrently(batchingSecretKeyRepository, recordingRepository, keyIds);
+
+        assertEquals(1, recordingRepository.lookups.size());
+        assertEquals(10, recordingRepository.lookups.get(0).size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(persistableSecretKeys.get(i), results.get(i).orElseThrow());
+        }
+    }
+
+    @Test
+    void findById_WillLookUpEachKeyOnceAndHandOutSeparateCopies_WhenSameKeyLookedUpConcurrently() throws Exception {
+        var existingKey = persistableSecretKey("existing");
+        var recordingRepository = new RecordingSecretKeyRepository(List.of(existingKey));
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(recordingRepository, BATCHING_WINDOW, 3);
+
+        var results = findConcurrently(batchingSecretKeyRepository, recordingRepository,
+            List.of(existingKey.getId(), existingKey.getId(), keyId("other")));
+
+        assertEquals(List.of(Set.of(existingKey.getId(), keyId("other"))), recordingRepository.lookups);
+        assertEquals(existingKey, results.get(0).orElseThrow());
+        assertNotSame(results.get(0).orElseThrow(), results.get(1).orElseThrow());
+        assertArrayEquals(existingKey.getKey(), results.get(1).orElseThrow().getKey());
+    }
+
+    @Test
+    void findById_WillFailEveryLookupOfBatch_WhenQueryFails() throws Exception {
+        var failure = new IllegalStateException("database unavailable");
+        var failingRepository = new RecordingSecretKeyRepository(List.of()) {
+            @Override
+            public List<PersistableSecretKey> findAllById(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+                throw failure;
+            }
+        };
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(failingRepository, BATCHING_WINDOW, 2);
+
+        var executorService = Executors.newFixedThreadPool(2);
+        try {
+            var lookups = List.of(keyId("first"), keyId("second")).stream()
+                .map(keyId -> CompletableFuture.supplyAsync(() -> batchingSecretKeyRepository.findById(keyId), executorService))
+                .toList();
+            for (CompletableFuture<Optional<PersistableSecretKey>> lookup : lookups) {
+                var exception = assertThrows(Exception.class, () -> lookup.get(5, TimeUnit.SECONDS));
+                assertSame(failure, exception.getCause());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void findById_WillStartNewBatch_WhenPreviousBatchFull() throws Exception {
+        var persistableSecretKeys = new ArrayList<PersistableSecretKey>();
+        for (int i = 0; i < 9; i++) {
+            persistableSecretKeys.add(persistableSecretKey("key-" + i));
+        }
+        var recordingRepository = new RecordingSecretKeyRepository(persistableSecretKeys);
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(recordingRepository, BATCHING_WINDOW, 3);
+
+        var keyIds = persistableSecretKeys.stream().map(PersistableSecretKey::getId).toList();
+
+        var results = findConcurrently(batchingSecretKeyRepository, recordingRepository, keyIds);
+
+        assertTrue(recordingRepository.lookups.size() >= 3);
+        assertTrue(recordingRepository.lookups.stream().allMatch(batchKeyIds -> batchKeyIds.size() <= 3));
+        assertTrue(results.stream().allMatch(Optional::isPresent));
+    }
+
+    @Test
+    void operationsOtherThanFindById_WillBePassedThrough() {
+        var secretKeyRepository = mock(SecretKeyRepository.class);
+        var batchingSecretKeyRepository = new BatchingSecretKeyRepository(secretKeyRepository, BATCHING_WINDOW, 100);
+        var keyId = keyId("key");
+        var secretKey = new SecretKeySpec("test key".getBytes(), "test algo");
+        var persistableSecretKey = persistableSecretKey("key");
+
+        batchingSecretKeyRepository.create(keyId, secretKey);
+        batchingSecretKeyRepository.createIfAbsent(keyId, secretKey);
+        batchingSecretKeyRepository.findAllById(List.of(keyId));
+        batchingSecretKeyRepository.shredAll(List.of(keyId));
+        batchingSecretKeyRepository.save(persistableSecretKey);
+
+        verify(secretKeyRepository).create(keyId, secretKey);
+        verify(secretKeyRepository).createIfAbsent(keyId, secretKey);
+        verify(secretKeyRepository).findAllById(List.of(keyId));
+        verify(secretKeyRepository).shredAll(List.of(keyId));
+        verify(secretKeyRepository).save(persistableSecretKey);
+    }
+
+    private static List<Optional<PersistableSecretKey>> findConcurrently(BatchingSecretKeyRepository batchingSecretKeyRepository,
+                                                                         RecordingSecretKeyRepository recordingRepository,
+                                                                         List<TypeDifferentiatedSecretKeyId> keyIds)
+        throws Exception {
+        var executorService = Executors.newFixedThreadPool(keyIds.size() + 1);
+        try {
+            // Keep another lookup in flight, so that the lookups below are batched
+            executorService.execute(() -> batchingSecretKeyRepository.findById(HELD_KEY_ID));
+            assertTrue(recordingRepository.lookupHeld.await(5, TimeUnit.SECONDS));
+            var startingGate = new CountDownLatch(1);
+            var lookups = keyIds.stream()
+                .map(keyId -> CompletableFuture.supplyAsync(() -> {
+                    awaitQuietly(startingGate);
+                    return batchingSecretKeyRepository.findById(keyId);
+                }, executorService))
+                .toList();
+            startingGate.countDown();
+            var results = new ArrayList<Optional<PersistableSecretKey>>();
+            for (CompletableFuture<Optional<PersistableSecretKey>> lookup : lookups) {
+                results.add(lookup.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            recordingRepository.heldLookupReleased.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static TypeDifferentiatedSecretKeyId keyId(String keyId) {
+        return new TypeDifferentiatedSecretKeyId(keyId, "");
+    }
+
+    private static PersistableSecretKey persistableSecretKey(String keyId) {
+        return new PersistableSecretKey(keyId(keyId), ("key of " + keyId).getBytes(), "AES");
+    }
+
+    private static class RecordingSecretKeyRepository implements SecretKeyRepository {
+
+        private final ConcurrentHashMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey> persistableSecretKeys;
+        private final List<Set<TypeDifferentiatedSecretKeyId>> lookups;
+        private final CountDownLatch lookupHeld;
+        private final CountDownLatch heldLookupReleased;
+
+        RecordingSecretKeyRepository(Collection<PersistableSecretKey> persistableSecretKeys) {
+            this.persistableSecretKeys = new ConcurrentHashMap<>();
+            this.lookups = new CopyOnWriteArrayList<>();
+            this.lookupHeld = new CountDownLatch(1);
+            this.heldLookupReleased = new CountDownLatch(1);
+            persistableSecretKeys.forEach(key -> this.persistableSecretKeys.put(key.getId(), key));
+        }
+
+        @Override
+        public PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<PersistableSecretKey> findAllById(Collection<TypeDifferentiatedSecretKeyId> keyIds) {
+            if (keyIds.contains(HELD_KEY_ID)) {
+                lookupHeld.countDown();
+                awaitQuietly(heldLookupReleased);
+                return List.of();
+            }
+            lookups.add(Set.copyOf(keyIds));
+            return keyIds.stream()
+                .map(persistableSecretKeys::get)
+                .filter(Objects::nonNull)
+                .toList();
+        }
+
+        @Override
+        public PersistableSecretKey save(PersistableSecretKey key) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
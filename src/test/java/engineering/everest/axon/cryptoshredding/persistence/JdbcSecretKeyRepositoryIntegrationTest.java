@@ -0,0 +1,240 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcSecretKeyRepositoryIntegrationTest {
+
+    private static EmbeddedPostgres embeddedPostgres;
+
+    private JdbcSecretKeyRepository jdbcSecretKeyRepository;
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        embeddedPostgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        embeddedPostgres.close();
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        jdbcSecretKeyRepository = new JdbcSecretKeyRepository(embeddedPostgres.getPostgresDatabase());
+        jdbcSecretKeyRepository.createTableIfNotExists();
+        try (var connection = embeddedPostgres.getPostgresDatabase().getConnection();
+            var statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + JdbcSecretKeyRepository.DEFAULT_TABLE_NAME);
+        }
+    }
+
+    @Test
+    void constructor_WillThrow_WhenTableNameIsNotAnIdentifier() {
+        var dataSource = embeddedPostgres.getPostgresDatabase();
+
+        assertThrows(IllegalArgumentException.class, () -> new JdbcSecretKeyRepository(dataSource, "keys; DROP TABLE keys"));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcSecretKeyRepository(dataSource, "1keys"));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcSecretKeyRepository(dataSource, ""));
+        assertNotNull(new JdbcSecretKeyRepository(dataSource, "crypto_schema.shredding_keys"));
+    }
+
+    @Test
+    void findById_WillReturnCreatedKey() {
+        var keyId = generateKeyId();
+        var secretKey = generateSecretKey();
+
+        jdbcSecretKeyRepository.create(keyId, secretKey);
+
+        var persistableSecretKey = jdbcSecretKeyRepository.findById(keyId).orElseThrow();
+        assertEquals(keyId, persistableSecretKey.getId());
+        assertArrayEquals(secretKey.getEncoded(), persistableSecretKey.getKey());
+        assertEquals("AES", persistableSecretKey.getAlgorithm());
+    }
+
+    @Test
+    void findById_WillReturnEmptyOptional_WhenKeyNeverCreated() {
+        assertEquals(Optional.empty(), jdbcSecretKeyRepository.findById(generateKeyId()));
+    }
+
+    @Test
+    void findById_WillDifferentiateBetweenKeyTypes() {
+        var keyId = new TypeDifferentiatedSecretKeyId("42", "some-type");
+        jdbcSecretKeyRepository.create(keyId, generateSecretKey());
+
+        assertTrue(jdbcSecretKeyRepository.findById(keyId).isPresent());
+        assertEquals(Optional.empty(), jdbcSecretKeyRepository.findById(new TypeDifferentiatedSecretKeyId("42", "")));
+    }
+
+    @Test
+    void create_WillFail_WhenKeyAlreadyExists() {
+        var keyId = generateKeyId();
+        jdbcSecretKeyRepository.create(keyId, generateSecretKey());
+
+        assertThrows(RuntimeException.class, () -> jdbcSecretKeyRepository.create(keyId, generateSecretKey()));
+    }
+
+    @Test
+    void createIfAbsent_WillCreateKeyOnlyOnce() {
+        var keyId = generateKeyId();
+        var firstSecretKey = generateSecretKey();
+
+        assertEquals(Optional.empty(), jdbcSecretKeyRepository.createIfAbsent(keyId, firstSecretKey));
+        var existingKey = jdbcSecretKeyRepository.createIfAbsent(keyId, generateSecretKey()).orElseThrow();
+
+        assertArrayEquals(firstSecretKey.getEncoded(), existingKey.getKey());
+        assertArrayEquals(firstSecretKey.getEncoded(), jdbcSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void createAll_WillCreateAllKeys() {
+        var secretKeys = new LinkedHashMap<TypeDifferentiatedSecretKeyId, SecretKey>();
+        for (int i = 0; i < 5; i++) {
+            secretKeys.put(generateKeyId(), generateSecretKey());
+        }
+
+        assertEquals(5, jdbcSecretKeyRepository.createAll(secretKeys).size());
+
+        secretKeys.forEach((keyId, secretKey) -> assertArrayEquals(secretKey.getEncoded(),
+            jdbcSecretKeyRepository.findById(keyId).orElseThrow().getKey()));
+    }
+
+    @Test
+    void createAll_WillCreateNoKeys_WhenAnyKeyAlreadyExistsWithinTransaction() {
+        var existingKeyId = generateKeyId();
+        var newKeyId = generateKeyId();
+        jdbcSecretKeyRepository.create(existingKeyId, generateSecretKey());
+        var secretKeys = new LinkedHashMap<TypeDifferentiatedSecretKeyId, SecretKey>();
+        secretKeys.put(newKeyId, generateSecretKey());
+        secretKeys.put(existingKeyId, generateSecretKey());
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(embeddedPostgres.getPostgresDatabase()));
+
+        assertThrows(RuntimeException.class,
+            () -> transactionTemplate.executeWithoutResult(status -> jdbcSecretKeyRepository.createAll(secretKeys)));
+
+        assertEquals(Optional.empty(), jdbcSecretKeyRepository.findById(newKeyId));
+    }
+
+    @Test
+    void createAllIfAbsent_WillCreateMissingKeysAndReturnExistingOnesWithinTransaction() {
+        var existingKeyId = generateKeyId();
+        var newKeyId = generateKeyId();
+        var existingSecretKey = generateSecretKey();
+        var newSecretKey = generateSecretKey();
+        jdbcSecretKeyRepository.create(existingKeyId, existingSecretKey);
+        var secretKeys = new LinkedHashMap<TypeDifferentiatedSecretKeyId, SecretKey>();
+        secretKeys.put(newKeyId, newSecretKey);
+        secretKeys.put(existingKeyId, generateSecretKey());
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(embeddedPostgres.getPostgresDatabase()));
+
+        var existingKeys = transactionTemplate.execute(status -> jdbcSecretKeyRepository.createAllIfAbsent(secretKeys));
+
+        assertEquals(Set.of(existingKeyId), existingKeys.keySet());
+        assertArrayEquals(existingSecretKey.getEncoded(), existingKeys.get(existingKeyId).getKey());
+        assertArrayEquals(newSecretKey.getEncoded(), jdbcSecretKeyRepository.findById(newKeyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void findAllById_WillReturnExistingKeysOnly() {
+        var firstKeyId = generateKeyId();
+        var secondKeyId = generateKeyId();
+        jdbcSecretKeyRepository.create(firstKeyId, generateSecretKey());
+        jdbcSecretKeyRepository.create(secondKeyId, generateSecretKey());
+
+        var persistableSecretKeys = jdbcSecretKeyRepository.findAllById(List.of(firstKeyId, secondKeyId, generateKeyId()));
+
+        assertEquals(Set.of(firstKeyId, secondKeyId),
+            Set.of(persistableSecretKeys.get(0).getId(), persistableSecretKeys.get(1).getId()));
+        assertEquals(2, persistableSecretKeys.size());
+        assertEquals(List.of(), jdbcSecretKeyRepository.findAllById(List.of()));
+    }
+
+    @Test
+    void shredAll_WillClearKeysAndReturnIdentifiersOfExistingKeys() {
+        var firstKeyId = generateKeyId();
+        var secondKeyId = generateKeyId();
+        var untouchedKeyId = generateKeyId();
+        jdbcSecretKeyRepository.create(firstKeyId, generateSecretKey());
+        jdbcSecretKeyRepository.create(secondKeyId, generateSecretKey());
+        jdbcSecretKeyRepository.create(untouchedKeyId, generateSecretKey());
+
+        var shreddedKeyIds = jdbcSecretKeyRepository.shredAll(List.of(firstKeyId, secondKeyId, generateKeyId()));
+
+        assertEquals(Set.of(firstKeyId, secondKeyId), shreddedKeyIds);
+        var shreddedKey = jdbcSecretKeyRepository.findById(firstKeyId).orElseThrow();
+        assertNull(shreddedKey.getKey());
+        assertNull(shreddedKey.getAlgorithm());
+        assertNotNull(jdbcSecretKeyRepository.findById(untouchedKeyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void save_WillUpdateExistingKey() {
+        var keyId = generateKeyId();
+        var persistableSecretKey = jdbcSecretKeyRepository.create(keyId, generateSecretKey());
+        persistableSecretKey.setKey(null);
+        persistableSecretKey.setAlgorithm(null);
+
+        jdbcSecretKeyRepository.save(persistableSecretKey);
+
+        assertNull(jdbcSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void streamShreddedKeyIds_WillStreamIdentifiersOfShreddedKeys() {
+        var shreddedKeyId = generateKeyId();
+        jdbcSecretKeyRepository.create(shreddedKeyId, generateSecretKey());
+        jdbcSecretKeyRepository.create(generateKeyId(), generateSecretKey());
+        jdbcSecretKeyRepository.shredAll(List.of(shreddedKeyId));
+
+        try (var shreddedKeyIds = jdbcSecretKeyRepository.streamShreddedKeyIds()) {
+            assertEquals(List.of(shreddedKeyId), shreddedKeyIds.toList());
+        }
+    }
+
+    @Test
+    void streamShreddedKeyIds_WillRestoreAutoCommit_WhenQueryFails() throws SQLException {
+        try (var connection = embeddedPostgres.getPostgresDatabase().getConnection()) {
+            var singleConnectionDataSource = new SingleConnectionDataSource(connection, true);
+            var missingTableSecretKeyRepository = new JdbcSecretKeyRepository(singleConnectionDataSource, "missing_keys");
+
+            assertThrows(RuntimeException.class, missingTableSecretKeyRepository::streamShreddedKeyIds);
+
+            assertTrue(connection.getAutoCommit());
+            try (var statement = connection.createStatement()) {
+                assertTrue(statement.execute("SELECT 1"));
+            }
+        }
+    }
+
+    private static TypeDifferentiatedSecretKeyId generateKeyId() {
+        return new TypeDifferentiatedSecretKeyId(randomUUID().toString(), "");
+    }
+
+    private static SecretKey generateSecretKey() {
+        return new SecretKeySpec(randomUUID().toString().substring(0, 32).getBytes(), "AES");
+    }
+}
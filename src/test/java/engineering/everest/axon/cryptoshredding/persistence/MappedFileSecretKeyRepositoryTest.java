@@ -0,0 +1,265 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileSecretKeyRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    private Path keyFile;
+    private MappedFileSecretKeyRepository mappedFileSecretKeyRepository;
+
+    @BeforeEach
+    void setUp() {
+        keyFile = directory.resolve("keys.dat");
+        mappedFileSecretKeyRepository = new MappedFileSecretKeyRepository(keyFile, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mappedFileSecretKeyRepository.close();
+    }
+
+    @Test
+    void findById_WillReturnCreatedKey() {
+        var keyId = generateKeyId();
+        var secretKey = generateSecretKey();
+
+        mappedFileSecretKeyRepository.create(keyId, secretKey);
+
+        var persistableSecretKey = mappedFileSecretKeyRepository.findById(keyId).orElseThrow();
+        assertEquals(keyId, persistableSecretKey.getId());
+        assertArrayEquals(secretKey.getEncoded(), persistableSecretKey.getKey());
+        assertEquals("AES", persistableSecretKey.getAlgorithm());
+    }
+
+    @Test
+    void findById_WillReturnEmptyOptional_WhenKeyNeverCreated() {
+        assertEquals(Optional.empty(), mappedFileSecretKeyRepository.findById(generateKeyId()));
+    }
+
+    @Test
+    void findById_WillDifferentiateBetweenKeyTypes() {
+        var keyId = new TypeDifferentiatedSecretKeyId("42", "some-type");
+        mappedFileSecretKeyRepository.create(keyId, generateSecretKey());
+
+        assertTrue(mappedFileSecretKeyRepository.findById(keyId).isPresent());
+        assertEquals(Optional.empty(), mappedFileSecretKeyRepository.findById(new TypeDifferentiatedSecretKeyId("42", "")));
+        assertEquals(Optional.empty(), mappedFileSecretKeyRepository.findById(new TypeDifferentiatedSecretKeyId("42", null)));
+    }
+
+    @Test
+    void create_WillFail_WhenKeyAlreadyExists() {
+        var keyId = generateKeyId();
+        mappedFileSecretKeyRepository.create(keyId, generateSecretKey());
+
+        assertThrows(IllegalStateException.class, () -> mappedFileSecretKeyRepository.create(keyId, generateSecretKey()));
+    }
+
+    @Test
+    void createIfAbsent_WillCreateKeyOnlyOnce() {
+        var keyId = generateKeyId();
+        var firstSecretKey = generateSecretKey();
+
+        assertEquals(Optional.empty(), mappedFileSecretKeyRepository.createIfAbsent(keyId, firstSecretKey));
+        var existingKey = mappedFileSecretKeyRepository.createIfAbsent(keyId, generateSecretKey()).orElseThrow();
+
+        assertArrayEquals(firstSecretKey.getEncoded(), existingKey.getKey());
+    }
+
+    @Test
+    void createAllIfAbsent_WillCreateMissingKeysAndReturnExistingOnes() {
+        var existingKeyId = generateKeyId();
+        var newKeyId = generateKeyId();
+        var existingSecretKey = generateSecretKey();
+        var newSecretKey = generateSecretKey();
+        mappedFileSecretKeyRepository.create(existingKeyId, existingSecretKey);
+
+        var existingKeys =
+            mappedFileSecretKeyRepository.createAllIfAbsent(Map.of(existingKeyId, generateSecretKey(), newKeyId, newSecretKey));
+
+        assertEquals(Set.of(existingKeyId), existingKeys.keySet());
+        assertArrayEquals(existingSecretKey.getEncoded(), existingKeys.get(existingKeyId).getKey());
+        assertArrayEquals(newSecretKey.getEncoded(), mappedFileSecretKeyRepository.findById(newKeyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void save_WillShredKey_WhenKeyAndAlgorithmCleared() {
+        var keyId = generateKeyId();
+        var persistableSecretKey = mappedFileSecretKeyRepository.create(keyId, generateSecretKey());
+        persistableSecretKey.setKey(null);
+        persistableSecretKey.setAlgorithm(null);
+
+        mappedFileSecretKeyRepository.save(persistableSecretKey);
+
+        var shreddedKey = mappedFileSecretKeyRepository.findById(keyId).orElseThrow();
+        assertNull(shreddedKey.getKey());
+        assertNull(shreddedKey.getAlgorithm());
+    }
+
+    @Test
+    void shredAll_WillOverwriteKeyBytesInFile() throws IOException {
+        var keyId = generateKeyId();
+        var otherKeyId = generateKeyId();
+        var secretKey = generateSecretKey();
+        var otherSecretKey = generateSecretKey();
+        mappedFileSecretKeyRepository.create(keyId, secretKey);
+        mappedFileSecretKeyRepository.create(otherKeyId, otherSecretKey);
+
+        assertEquals(Set.of(keyId), mappedFileSecretKeyRepository.shredAll(List.of(keyId, generateKeyId())));
+
+        var fileContents = Files.readAllBytes(keyFile);
+        assertFalse(contains(fileContents, secretKey.getEncoded()));
+        assertTrue(contains(fileContents, otherSecretKey.getEncoded()));
+        assertNull(mappedFileSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+    }
+
+    @Test
+    void constructor_WillRecoverKeys_WhenFileReopened() {
+        var keyId = generateKeyId();
+        var shreddedKeyId = generateKeyId();
+        var secretKey = generateSecretKey();
+        mappedFileSecretKeyRepository.create(keyId, secretKey);
+        mappedFileSecretKeyRepository.create(shreddedKeyId, generateSecretKey());
+        mappedFileSecretKeyRepository.shredAll(List.of(shreddedKeyId));
+        mappedFileSecretKeyRepository.close();
+
+        mappedFileSecretKeyRepository = new MappedFileSecretKeyRepository(keyFile, 4096);
+
+        assertEquals(2, mappedFileSecretKeyRepository.size());
+        assertArrayEquals(secretKey.getEncoded(), mappedFileSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+        assertNull(mappedFileSecretKeyRepository.findById(shreddedKeyId).orElseThrow().getKey());
+        assertThrows(IllegalStateException.class, () -> mappedFileSecretKeyRepository.create(keyId, generateSecretKey()));
+    }
+
+    @Test
+    void constructor_WillDiscardIncompleteRecord_WhenFileEndsWithTornWrite() throws IOException {
+        var keyId = generateKeyId();
+        var secretKey = generateSecretKey();
+        mappedFileSecretKeyRepository.create(keyId, secretKey);
+        mappedFileSecretKeyRepository.close();
+        var tornRecord = MappedFileSecretKeyRepository.encodeRecord(
+            new PersistableSecretKey(generateKeyId(), generateSecretKey().getEncoded(), "AES"));
+        tornRecord[tornRecord.length - 1]++;
+        try (var file = new RandomAccessFile(keyFile.toFile(), "rw")) {
+            file.seek(endOfRecords(new PersistableSecretKey(keyId, secretKey.getEncoded(), "AES")));
+            file.write(tornRecord);
+        }
+
+        mappedFileSecretKeyRepository = new MappedFileSecretKeyRepository(keyFile, 4096);
+        var newKeyId = generateKeyId();
+        mappedFileSecretKeyRepository.create(newKeyId, generateSecretKey());
+        mappedFileSecretKeyRepository.close();
+        mappedFileSecretKeyRepository = new MappedFileSecretKeyRepository(keyFile, 4096);
+
+        assertEquals(2, mappedFileSecretKeyRepository.size());
+        assertArrayEquals(secretKey.getEncoded(), mappedFileSecretKeyRepository.findById(keyId).orElseThrow().getKey());
+        assertTrue(mappedFileSecretKeyRepository.findById(newKeyId).isPresent());
+    }
+
+    @Test
+    void create_WillGrowFile_WhenCapacityExceeded() {
+        var keyIds = new ArrayList<TypeDifferentiatedSecretKeyId>();
+        for (int i = 0; i < 1_000; i++) {
+            var keyId = generateKeyId();
+            mappedFileSecretKeyRepository.create(keyId, generateSecretKey());
+            keyIds.add(keyId);
+        }
+        mappedFileSecretKeyRepository.close();
+
+        mappedFileSecretKeyRepository = new MappedFileSecretKeyRepository(keyFile, 4096);
+
+        assertEquals(1_000, mappedFileSecretKeyRepository.size());
+        keyIds.forEach(keyId -> assertTrue(mappedFileSecretKeyRepository.findById(keyId).isPresent()));
+    }
+
+    @Test
+    void compact_WillDropSupersededRecordsAndRetainKeys() throws IOException {
+        var keyIds = new ArrayList<TypeDifferentiatedSecretKeyId>();
+        for (int i = 0; i < 1_000; i++) {
+            var keyId = generateKeyId();
+            mappedFileSecretKeyRepository.create(keyId, generateSecretKey());
+            keyIds.add(keyId);
+        }
+        var shreddedKeyIds = keyIds.subList(0, 900);
+        mappedFileSecretKeyRepository.shredAll(shreddedKeyIds);
+        var retainedKeyId = keyIds.get(999);
+        var retainedKey = mappedFileSecretKeyRepository.findById(retainedKeyId).orElseThrow();
+        var uncompactedSize = Files.size(keyFile);
+
+        mappedFileSecretKeyRepository.compact();
+        mappedFileSecretKeyRepository.close();
+        mappedFileSecretKeyRepository = new MappedFileSecretKeyRepository(keyFile, 4096);
+
+        assertTrue(Files.size(keyFile) < uncompactedSize);
+        assertEquals(1_000, mappedFileSecretKeyRepository.size());
+        assertEquals(retainedKey, mappedFileSecretKeyRepository.findById(retainedKeyId).orElseThrow());
+        assertEquals(Set.copyOf(shreddedKeyIds),
+            mappedFileSecretKeyRepository.streamShreddedKeyIds().collect(Collectors.toSet()));
+    }
+
+    @Test
+    void streamShreddedKeyIds_WillReturnShreddedKeysOnly() {
+        var shreddedKeyId = generateKeyId();
+        mappedFileSecretKeyRepository.create(shreddedKeyId, generateSecretKey());
+        mappedFileSecretKeyRepository.create(generateKeyId(), generateSecretKey());
+        mappedFileSecretKeyRepository.shredAll(List.of(shreddedKeyId));
+
+        assertEquals(List.of(shreddedKeyId), mappedFileSecretKeyRepository.streamShreddedKeyIds().toList());
+    }
+
+    private static long endOfRecords(PersistableSecretKey... persistableSecretKeys) {
+        long endOfRecords = MappedFileSecretKeyRepository.HEADER_SIZE;
+        for (PersistableSecretKey persistableSecretKey : persistableSecretKeys) {
+            endOfRecords += MappedFileSecretKeyRepository.encodeRecord(persistableSecretKey).length;
+        }
+        return endOfRecords;
+    }
+
+    private static boolean contains(byte[] bytes, byte[] sequence) {
+        for (int i = 0; i <= bytes.length - sequence.length; i++) {
+            var matches = true;
+            for (int j = 0; j < sequence.length && matches; j++) {
+                matches = bytes[i + j] == sequence[j];
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TypeDifferentiatedSecretKeyId generateKeyId() {
+        return new TypeDifferentiatedSecretKeyId(randomUUID().toString(), "");
+    }
+
+    private static SecretKey generateSecretKey() {
+        return new SecretKeySpec(randomUUID().toString().substring(0, 32).getBytes(), "AES");
+    }
+}
@@ -0,0 +1,181 @@
+package engineering.everest.axon.cryptoshredding.persistence;
+
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SecretKeyRepositoryTest {
+
+    private static final TypeDifferentiatedSecretKeyId KEY_ID = new TypeDifferentiatedSecretKeyId("key-identifier", "");
+    private static final SecretKeySpec SECRET_KEY = new SecretKeySpec("test key".getBytes(), "test algo");
+
+    @Test
+    void findAllById_WillFallBackToFindById_WhenNotOverridden() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var existingKeyId = new TypeDifferentiatedSecretKeyId("existing", "");
+        var missingKeyId = new TypeDifferentiatedSecretKeyId("missing", "");
+        var existingKey = new PersistableSecretKey(existingKeyId, "test key".getBytes(), "test algo");
+        doReturn(Optional.of(existingKey)).when(secretKeyRepository).findById(existingKeyId);
+        doReturn(Optional.empty()).when(secretKeyRepository).findById(missingKeyId);
+
+        assertEquals(List.of(existingKey), secretKeyRepository.findAllById(List.of(existingKeyId, missingKeyId)));
+    }
+
+    @Test
+    void createAll_WillFallBackToCreate_WhenNotOverridden() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var otherKeyId = new TypeDifferentiatedSecretKeyId("other-key-identifier", "");
+        var otherSecretKey = new SecretKeySpec("other key".getBytes(), "test algo");
+        var persistedKey = new PersistableSecretKey(KEY_ID, SECRET_KEY.getEncoded(), SECRET_KEY.getAlgorithm());
+        var otherPersistedKey = new PersistableSecretKey(otherKeyId, otherSecretKey.getEncoded(), otherSecretKey.getAlgorithm());
+        doReturn(persistedKey).when(secretKeyRepository).create(KEY_ID, SECRET_KEY);
+        doReturn(otherPersistedKey).when(secretKeyRepository).create(otherKeyId, otherSecretKey);
+        var secretKeys = new LinkedHashMap<TypeDifferentiatedSecretKeyId, SecretKey>();
+        secretKeys.put(KEY_ID, SECRET_KEY);
+        secretKeys.put(otherKeyId, otherSecretKey);
+
+        assertEquals(List.of(persistedKey, otherPersistedKey), secretKeyRepository.createAll(secretKeys));
+    }
+
+    @Test
+    void createAllIfAbsent_WillFallBackToCreateIfAbsent_WhenNotOverridden() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var otherKeyId = new TypeDifferentiatedSecretKeyId("other-key-identifier", "");
+        var otherSecretKey = new SecretKeySpec("other key".getBytes(), "test algo");
+        var existingKey = new PersistableSecretKey(otherKeyId, "existing key".getBytes(), "test algo");
+        doReturn(Optional.empty()).when(secretKeyRepository).createIfAbsent(KEY_ID, SECRET_KEY);
+        doReturn(Optional.of(existingKey)).when(secretKeyRepository).createIfAbsent(otherKeyId, otherSecretKey);
+        var secretKeys = new LinkedHashMap<TypeDifferentiatedSecretKeyId, SecretKey>();
+        secretKeys.put(KEY_ID, SECRET_KEY);
+        secretKeys.put(otherKeyId, otherSecretKey);
+
+        assertEquals(Map.of(otherKeyId, existingKey), secretKeyRepository.createAllIfAbsent(secretKeys));
+    }
+
+    @Test
+    void shredAll_WillFallBackToFindAllByIdAndSave_WhenNotOverridden() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var shreddedKeyId = new TypeDifferentiatedSecretKeyId("shredded", "");
+        var missingKeyId = new TypeDifferentiatedSecretKeyId("missing", "");
+        var existingKey = new PersistableSecretKey(KEY_ID, "test key".getBytes(), "test algo");
+        var shreddedKey = new PersistableSecretKey(shreddedKeyId, null, null);
+        doReturn(List.of(existingKey, shreddedKey)).when(secretKeyRepository).findAllById(List.of(KEY_ID, shreddedKeyId, missingKeyId));
+        doReturn(existingKey).when(secretKeyRepository).save(existingKey);
+
+        assertEquals(Set.of(KEY_ID, shreddedKeyId), secretKeyRepository.shredAll(List.of(KEY_ID, shreddedKeyId, missingKeyId)));
+        assertNull(existingKey.getKey());
+        assertNull(existingKey.getAlgorithm());
+        verify(secretKeyRepository, never()).save(shreddedKey);
+    }
+
+    @Test
+    void createIfAbsent_WillCreateKey_WhenNotOverridden() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var storedKey = new PersistableSecretKey(KEY_ID, SECRET_KEY.getEncoded(), SECRET_KEY.getAlgorithm());
+        doReturn(null).when(secretKeyRepository).create(any(), any());
+        doReturn(Optional.of(storedKey)).when(secretKeyRepository).findById(KEY_ID);
+
+        assertEquals(Optional.empty(), secretKeyRepository.createIfAbsent(KEY_ID, SECRET_KEY));
+        verify(secretKeyRepository).create(KEY_ID, SECRET_KEY);
+    }
+
+    @Test
+    void createIfAbsent_WillReturnStoredKey_WhenCreateOverwrittenByAnotherInstance() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var storedKey = new PersistableSecretKey(KEY_ID, "other key".getBytes(), "test algo");
+        doReturn(null).when(secretKeyRepository).create(any(), any());
+        doReturn(Optional.of(storedKey)).when(secretKeyRepository).findById(KEY_ID);
+
+        assertEquals(Optional.of(storedKey), secretKeyRepository.createIfAbsent(KEY_ID, SECRET_KEY));
+    }
+
+    @Test
+    void createIfAbsent_WillConvergeOnOneKey_WhenInstancesRaceWithOverwritingCreate() {
+        var sharedStore = new ConcurrentHashMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey>();
+        var firstInstanceKey = new SecretKeySpec("first instance key".getBytes(), "AES");
+        var secondInstanceKey = new SecretKeySpec("second instance key".getBytes(), "AES");
+        var secondInstance = new OverwritingSecretKeyRepository(sharedStore, () -> {});
+        var firstInstance = new OverwritingSecretKeyRepository(sharedStore, () -> secondInstance.createIfAbsent(KEY_ID, secondInstanceKey));
+
+        var firstInstanceResult = firstInstance.createIfAbsent(KEY_ID, firstInstanceKey);
+
+        assertArrayEquals(secondInstanceKey.getEncoded(), firstInstanceResult.orElseThrow().getKey());
+        assertArrayEquals(secondInstanceKey.getEncoded(), sharedStore.get(KEY_ID).getKey());
+    }
+
+    @Test
+    void createIfAbsent_WillReturnExistingKey_WhenCreateFailsBecauseKeyExists() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var existingKey = new PersistableSecretKey(KEY_ID, "existing key".getBytes(), "test algo");
+        doThrow(new IllegalStateException("duplicate key")).when(secretKeyRepository).create(any(), any());
+        doReturn(Optional.of(existingKey)).when(secretKeyRepository).findById(KEY_ID);
+
+        assertEquals(Optional.of(existingKey), secretKeyRepository.createIfAbsent(KEY_ID, SECRET_KEY));
+    }
+
+    @Test
+    void createIfAbsent_WillRethrow_WhenCreateFailsAndNoKeyExists() {
+        var secretKeyRepository = mock(SecretKeyRepository.class, CALLS_REAL_METHODS);
+        var exception = new IllegalStateException("database unavailable");
+        doThrow(exception).when(secretKeyRepository).create(any(), any());
+        doReturn(Optional.empty()).when(secretKeyRepository).findById(KEY_ID);
+
+        assertSame(exception, assertThrows(IllegalStateException.class, () -> secretKeyRepository.createIfAbsent(KEY_ID, SECRET_KEY)));
+    }
+
+    /**
+     * Creates keys the way a JPA repository calling {@code save} does, overwriting any existing key, and lets another instance create the
+     * same key straight after.
+     */
+    private static class OverwritingSecretKeyRepository implements SecretKeyRepository {
+
+        private final ConcurrentMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey> sharedStore;
+        private final Runnable afterCreate;
+
+        OverwritingSecretKeyRepository(ConcurrentMap<TypeDifferentiatedSecretKeyId, PersistableSecretKey> sharedStore,
+                                       Runnable afterCreate) {
+            this.sharedStore = sharedStore;
+            this.afterCreate = afterCreate;
+        }
+
+        @Override
+        public PersistableSecretKey create(TypeDifferentiatedSecretKeyId keyId, SecretKey key) {
+            var persistableSecretKey = save(new PersistableSecretKey(keyId, key.getEncoded(), key.getAlgorithm()));
+            afterCreate.run();
+            return persistableSecretKey;
+        }
+
+        @Override
+        public Optional<PersistableSecretKey> findById(TypeDifferentiatedSecretKeyId keyId) {
+            return Optional.ofNullable(sharedStore.get(keyId));
+        }
+
+        @Override
+        public PersistableSecretKey save(PersistableSecretKey key) {
+            sharedStore.put(key.getId(), key);
+            return key;
+        }
+    }
+}
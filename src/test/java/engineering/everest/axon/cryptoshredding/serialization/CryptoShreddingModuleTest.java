@@ -0,0 +1,299 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import engineering.everest.axon.cryptoshredding.CryptoShreddingKeyService;
+import engineering.everest.axon.cryptoshredding.TypeDifferentiatedSecretKeyId;
+import engineering.everest.axon.cryptoshredding.encryption.DefaultAesEncrypterDecrypterFactory;
+import engineering.everest.axon.cryptoshredding.exceptions.EncryptionKeyDeletedException;
+import engineering.everest.axon.cryptoshredding.testevents.CustomType;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithCustomTypeAsEncryptedField;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedFields;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedValueFields;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptionEnvelope;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CryptoShreddingModuleTest {
+
+    private static final String REVISION_NUMBER = "0";
+    private static final TypeDifferentiatedSecretKeyId KEY_IDENTIFIER = new TypeDifferentiatedSecretKeyId("key-identifier", "");
+    private static final SecretKey ENCRYPTION_KEY = new SecretKeySpec("0123456789012345".getBytes(), "AES");
+
+    private ObjectMapper objectMapper;
+    private CryptoShreddingSerializer moduleCryptoShreddingSerializer;
+    private CryptoShreddingSerializer treeCryptoShreddingSerializer;
+
+    @Mock
+    private CryptoShreddingKeyService cryptoShreddingKeyService;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = objectMapperWithModule(new DefaultValueProvider());
+        moduleCryptoShreddingSerializer = cryptoShreddingSerializer(JacksonSerializer.builder().objectMapper(objectMapper).build());
+        treeCryptoShreddingSerializer = cryptoShreddingSerializer(JacksonSerializer.defaultSerializer());
+    }
+
+    @Test
+    void serialize_WillEncryptAnnotatedFieldsInFormReadableWithoutModule() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+
+        var serializedEvent = moduleCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), String.class);
+
+        assertFalse(serializedEvent.getData().contains("I am a string"));
+        assertEquals(EventWithEncryptedFields.createTestInstance(), treeCryptoShreddingSerializer.deserialize(typed(serializedEvent,
+            EventWithEncryptedFields.class)));
+    }
+
+    @Test
+    void serialize_WillResolveEachSecretKeyOncePerPayload() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+
+        moduleCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+
+        verify(cryptoShreddingKeyService, times(1)).getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER);
+    }
+
+    @Test
+    void serialize_WillNotEncryptAnnotatedClassesNestedWithinPayload() throws Exception {
+        var serializedMap = objectMapper.writeValueAsString(Map.of("event", EventWithEncryptedFields.createTestInstance()));
+
+        assertTrue(serializedMap.contains("I am a string"));
+    }
+
+    @Test
+    void serialize_WillFailWhenEncryptionKeyHasBeenDeleted() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+
+        var exception = assertThrows(JsonMappingException.class,
+            () -> objectMapper.writeValueAsString(EventWithEncryptedFields.createTestInstance()));
+        assertInstanceOf(EncryptionKeyDeletedException.class, exception.getCause());
+    }
+
+    @Test
+    void serialize_WillWriteNativeBinaryCipherText_WhenNativeBinaryEncodingSelectedAndFormatIsCbor() throws Exception {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+
+        var cborMapper = new CBORMapper().registerModule(new CryptoShreddingModule(cryptoShreddingKeyService,
+            new DefaultAesEncrypterDecrypterFactory(), new DefaultValueProvider(), new KeyIdentifierToStringConverter(),
+            CipherTextEncoding.NATIVE_BINARY));
+
+        var serializedEvent = cborMapper.writeValueAsBytes(EventWithEncryptedFields.createTestInstance());
+
+        assertTrue(new CBORMapper().readTree(serializedEvent).get("anIntegerField").isBinary());
+        assertEquals(EventWithEncryptedFields.createTestInstance(), cborMapper.readValue(serializedEvent, EventWithEncryptedFields.class));
+    }
+
+    @Test
+    void deserialize_WillDecryptEventsSerializedWithoutModule() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+
+        var serializedEvent = treeCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+
+        assertEquals(EventWithEncryptedFields.createTestInstance(), moduleCryptoShreddingSerializer.deserialize(typed(serializedEvent,
+            EventWithEncryptedFields.class)));
+    }
+
+    @Test
+    void deserialize_CanPartiallyDeserialize_WhenOneOfMultipleEncryptionKeyIdentifiersShredded() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.empty());
+
+        var serializedEvent = moduleCryptoShreddingSerializer.serialize(
+            EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.createTestInstance(), byte[].class);
+        EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations deserialized = moduleCryptoShreddingSerializer.deserialize(
+            typed(serializedEvent, EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.class));
+
+        var expectedPartiallyDeserialized = new EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations(
+            "key-identifier", "key-identifier-2", "I am a string", null);
+        assertEquals(expectedPartiallyDeserialized, deserialized);
+    }
+
+    @Test
+    void deserialize_WillReplaceEncryptedFieldsWithDefaultValues_WhenEncryptionKeyHasBeenDeleted() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+
+        var serializedEvent = moduleCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class);
+
+        assertEquals(EventWithEncryptedFields.createUnencryptedTestInstance(), moduleCryptoShreddingSerializer.deserialize(typed(
+            serializedEvent, EventWithEncryptedFields.class)));
+    }
+
+    @Test
+    void deserialize_WillUseCustomDefaultValue_WhenRegisteredAndEncryptionKeyHasBeenDeleted() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+
+        var customDefaultProvider = DefaultValueProvider.builder()
+            .customType(CustomType.class, new CustomType("custom default value"))
+            .build();
+        var serializer = cryptoShreddingSerializer(
+            JacksonSerializer.builder().objectMapper(objectMapperWithModule(customDefaultProvider)).build());
+
+        var serializedEvent = serializer.serialize(EventWithCustomTypeAsEncryptedField.createTestInstance(), byte[].class);
+
+        assertEquals(EventWithCustomTypeAsEncryptedField.createCryptoShreddedUnencryptedTestInstance(), serializer.deserialize(typed(
+            serializedEvent, EventWithCustomTypeAsEncryptedField.class)));
+    }
+
+    @Test
+    void serialize_WillWriteEnvelopesInFormReadableWithoutModule_WhenPayloadAnnotatedWithEncryptionEnvelope() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+
+        var serializedEvent = moduleCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), String.class);
+
+        assertFalse(serializedEvent.getData().contains("I am a string"));
+        assertTrue(serializedEvent.getData().contains(EncryptionMetadata.ENVELOPES_FIELD_NAME));
+        assertEquals(EventWithEncryptionEnvelope.createTestInstance(), treeCryptoShreddingSerializer.deserialize(typed(serializedEvent,
+            EventWithEncryptionEnvelope.class)));
+    }
+
+    @Test
+    void serialize_WillWriteSameDocumentAsWithoutModule_WhenEnvelopeFieldsAreNullAndNullsAreSuppressed() throws Exception {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+
+        var nonNullObjectMapper = objectMapperWithModule(new DefaultValueProvider())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        var moduleSerializer = cryptoShreddingSerializer(JacksonSerializer.builder().objectMapper(nonNullObjectMapper).build());
+        var treeSerializer = CryptoShreddingSerializer.builder()
+            .wrappedSerializer(JacksonSerializer.defaultSerializer())
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory())
+            .objectMapper(new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL))
+            .build();
+        var event = EventWithEncryptionEnvelope.createTestInstance();
+        event.setAStringField(null);
+        event.setEncryptedNestedClass(null);
+
+        var secretKeysByTag = Map.of("", ENCRYPTION_KEY, "secondKeyTag", secondEncryptionKey);
+        var moduleDocument = withDecryptedEnvelopes(moduleSerializer.serialize(event, String.class).getData(), secretKeysByTag);
+        var treeDocument = withDecryptedEnvelopes(treeSerializer.serialize(event, String.class).getData(), secretKeysByTag);
+
+        assertFalse(moduleDocument.has("astringField"));
+        assertEquals(treeDocument, moduleDocument);
+    }
+
+    @Test
+    void deserialize_WillDecryptEnvelopesWrittenWithoutModule() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.empty());
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+
+        var serializedEvent = treeCryptoShreddingSerializer.serialize(EventWithEncryptionEnvelope.createTestInstance(), byte[].class);
+
+        var expectedPartiallyDeserialized = EventWithEncryptionEnvelope.createTestInstance();
+        expectedPartiallyDeserialized.setAStringField(null);
+        expectedPartiallyDeserialized.setAPrimitiveIntegerField(0);
+        expectedPartiallyDeserialized.setEncryptedNestedClass(null);
+        assertEquals(expectedPartiallyDeserialized, moduleCryptoShreddingSerializer.deserialize(typed(serializedEvent,
+            EventWithEncryptionEnvelope.class)));
+    }
+
+    @Test
+    void deserialize_WillDecryptEncryptedValueFieldsWhenFirstRead() {
+        var keyIdentifier2 = new TypeDifferentiatedSecretKeyId("key-identifier-2", "");
+        var secondEncryptionKey = new SecretKeySpec("1111111111111111".getBytes(), "AES");
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+        when(cryptoShreddingKeyService.getExistingSecretKey(keyIdentifier2)).thenReturn(Optional.of(secondEncryptionKey));
+
+        var serializedEvent = moduleCryptoShreddingSerializer.serialize(EventWithEncryptedValueFields.createTestInstance(), byte[].class);
+        EventWithEncryptedValueFields deserialized =
+            moduleCryptoShreddingSerializer.deserialize(typed(serializedEvent, EventWithEncryptedValueFields.class));
+
+        assertFalse(deserialized.getAStringField().isDecrypted());
+        verify(cryptoShreddingKeyService, never()).getExistingSecretKey(KEY_IDENTIFIER);
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        assertEquals(EventWithEncryptedValueFields.createTestInstance(), deserialized);
+    }
+
+    @Test
+    void deserializeAll_WillDeserializeEachObjectWithWrappedSerializer() {
+        when(cryptoShreddingKeyService.getOrCreateSecretKeyUnlessDeleted(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+        when(cryptoShreddingKeyService.getExistingSecretKey(KEY_IDENTIFIER)).thenReturn(Optional.of(ENCRYPTION_KEY));
+
+        var serializedEvent = typed(moduleCryptoShreddingSerializer.serialize(EventWithEncryptedFields.createTestInstance(), byte[].class),
+            EventWithEncryptedFields.class);
+
+        assertEquals(List.of(EventWithEncryptedFields.createTestInstance(), EventWithEncryptedFields.createTestInstance()),
+            moduleCryptoShreddingSerializer.deserializeAll(List.of(serializedEvent, serializedEvent)));
+    }
+
+    private ObjectMapper objectMapperWithModule(DefaultValueProvider defaultValueProvider) {
+        return new ObjectMapper().registerModule(new CryptoShreddingModule(cryptoShreddingKeyService,
+            new DefaultAesEncrypterDecrypterFactory(), defaultValueProvider, new KeyIdentifierToStringConverter()));
+    }
+
+    private CryptoShreddingSerializer cryptoShreddingSerializer(JacksonSerializer wrappedSerializer) {
+        return CryptoShreddingSerializer.builder()
+            .wrappedSerializer(wrappedSerializer)
+            .cryptoShreddingKeyService(cryptoShreddingKeyService)
+            .encrypterDecrypterFactory(new DefaultAesEncrypterDecrypterFactory())
+            .build();
+    }
+
+    private static ObjectNode withDecryptedEnvelopes(String serializedEvent, Map<String, SecretKey> secretKeysByTag) throws Exception {
+        var objectMapper = new ObjectMapper();
+        var document = (ObjectNode) objectMapper.readTree(serializedEvent);
+        var envelopes = (ObjectNode) document.get(EncryptionMetadata.ENVELOPES_FIELD_NAME);
+        var decrypter = new DefaultAesEncrypterDecrypterFactory().createDecrypter();
+        for (var secretKeyByTag : secretKeysByTag.entrySet()) {
+            var cipherText = Base64.getDecoder().decode(envelopes.get(secretKeyByTag.getKey()).asText());
+            var cleartext = decrypter.decrypt(secretKeyByTag.getValue(), cipherText, 0, cipherText.length);
+            envelopes.set(secretKeyByTag.getKey(), objectMapper.readTree(cleartext));
+        }
+        return document;
+    }
+
+    private static <T> SerializedObject<T> typed(SerializedObject<T> serializedObject, Class<?> type) {
+        return new SimpleSerializedObject<>(serializedObject.getData(), serializedObject.getContentType(),
+            new SimpleSerializedType(type.getCanonicalName(), REVISION_NUMBER));
+    }
+}
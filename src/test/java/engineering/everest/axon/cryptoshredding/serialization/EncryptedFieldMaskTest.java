@@ -0,0 +1,109 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedFields;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptionEnvelope;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptedFieldMaskTest {
+
+    @Test
+    void isDecrypted_WillOnlyReturnTrueForNamedFieldsOfNamedPayloadType() {
+        var encryptedFieldMask = EncryptedFieldMask.builder()
+            .decrypt(EventWithEncryptedFields.class, "aStringField", "aUUIDField")
+            .build();
+
+        assertTrue(encryptedFieldMask.isDecrypted(EventWithEncryptedFields.class, "aStringField"));
+        assertTrue(encryptedFieldMask.isDecrypted(EventWithEncryptedFields.class, "aUUIDField"));
+        assertFalse(encryptedFieldMask.isDecrypted(EventWithEncryptedFields.class, "anIntegerField"));
+        assertFalse(encryptedFieldMask.isDecrypted(EventWithEncryptionEnvelope.class, "aStringField"));
+    }
+
+    @Test
+    void of_WillParseFieldReferences() {
+        var encryptedFieldMask = EncryptedFieldMask.of(List.of(
+            EventWithEncryptedFields.class.getName() + "#aStringField",
+            EventWithEncryptionEnvelope.class.getName() + "#aUUIDField"));
+
+        assertTrue(encryptedFieldMask.isDecrypted(EventWithEncryptedFields.class, "aStringField"));
+        assertTrue(encryptedFieldMask.isDecrypted(EventWithEncryptionEnvelope.class, "aUUIDField"));
+        assertFalse(encryptedFieldMask.isDecrypted(EventWithEncryptionEnvelope.class, "aStringField"));
+    }
+
+    @Test
+    void of_WillFail_WhenFieldReferenceIsMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> EncryptedFieldMask.of(List.of(EventWithEncryptedFields.class.getName())));
+        assertThrows(IllegalArgumentException.class, () -> EncryptedFieldMask.of(List.of("#aStringField")));
+    }
+
+    @Test
+    void decrypt_WillFail_WhenFieldDoesNotExist() {
+        var builder = EncryptedFieldMask.builder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.decrypt(EventWithEncryptedFields.class, "noSuchField"));
+    }
+
+    @Test
+    void decrypt_WillFail_WhenFieldIsNotEncrypted() {
+        var builder = EncryptedFieldMask.builder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.decrypt(EventWithEncryptedFields.class, "cleartextNestedClass"));
+    }
+
+    @Test
+    void applyTo_WillApplyMaskForDurationOfAction_AndRestorePreviousMask() throws Exception {
+        var outerMask = EncryptedFieldMask.builder().build();
+        var innerMask = EncryptedFieldMask.builder().decrypt(EventWithEncryptedFields.class, "aStringField").build();
+
+        var maskDuringInnerAction = outerMask.applyTo(() -> {
+            var currentMask = innerMask.applyTo(EncryptedFieldMask::current);
+            assertSame(outerMask, EncryptedFieldMask.current());
+            return currentMask;
+        });
+
+        assertSame(innerMask, maskDuringInnerAction);
+        assertNull(EncryptedFieldMask.current());
+    }
+
+    @Test
+    void applyTo_WillRemoveMask_WhenActionFails() {
+        var encryptedFieldMask = EncryptedFieldMask.builder().build();
+
+        assertThrows(IllegalStateException.class, () -> encryptedFieldMask.applyTo(() -> {
+            throw new IllegalStateException();
+        }));
+        assertNull(EncryptedFieldMask.current());
+    }
+
+    @Test
+    void encryptedFieldMaskInterceptor_WillApplyMaskWhileHandlingCopyOfEvent() {
+        var encryptedFieldMask = EncryptedFieldMask.builder().decrypt(EventWithEncryptedFields.class, "aStringField").build();
+        var interceptor = new EncryptedFieldMaskInterceptor(encryptedFieldMask, JacksonSerializer.defaultSerializer());
+        var eventMessage = GenericEventMessage.asEventMessage("payload");
+        var unitOfWork = new DefaultUnitOfWork<>(eventMessage);
+
+        var resultMessage = unitOfWork.executeWithResult(() -> interceptor.handle(unitOfWork,
+            () -> List.of(EncryptedFieldMask.current(), unitOfWork.getMessage())));
+
+        List<?> result = (List<?>) resultMessage.getPayload();
+        var handledEventMessage = (EventMessage<?>) result.get(1);
+        assertSame(encryptedFieldMask, result.get(0));
+        assertNotSame(eventMessage, handledEventMessage);
+        assertEquals(eventMessage.getIdentifier(), handledEventMessage.getIdentifier());
+        assertEquals("payload", handledEventMessage.getPayload());
+        assertNull(EncryptedFieldMask.current());
+    }
+}
@@ -0,0 +1,91 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.testevents.EventWithDifferentiatedKeyType;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedValueFields;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptionEnvelope;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations;
+import engineering.everest.axon.cryptoshredding.testevents.EventWithoutEncryptedFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptionMetadataRegistryTest {
+
+    private EncryptionMetadataRegistry encryptionMetadataRegistry;
+
+    @BeforeEach
+    void setUp() {
+        encryptionMetadataRegistry = new EncryptionMetadataRegistry();
+    }
+
+    @Test
+    void metadataFor_WillReturnCachedInstance() {
+        var metadata = encryptionMetadataRegistry.metadataFor(EventWithDifferentiatedKeyType.class);
+
+        assertSame(metadata, encryptionMetadataRegistry.metadataFor(EventWithDifferentiatedKeyType.class));
+    }
+
+    @Test
+    void metadataFor_WillReturnSharedUnencryptedInstance_WhenClassHasNoEncryptedFields() {
+        var metadata = encryptionMetadataRegistry.metadataFor(EventWithoutEncryptedFields.class);
+
+        assertSame(EncryptionMetadata.UNENCRYPTED, metadata);
+        assertFalse(metadata.hasEncryptedFields());
+    }
+
+    @Test
+    void metadataFor_WillDescribeAnnotatedFields() {
+        var metadata = encryptionMetadataRegistry.metadataFor(EventWithMultipleTaggedEncryptionKeyIdentifierAnnotations.class);
+
+        assertTrue(metadata.hasEncryptedFields());
+        assertEquals(2, metadata.getKeyIdentifierFields().size());
+        assertEquals("keyidentifier2", metadata.getKeyIdentifierFields().get(1).getLowercaseName());
+        assertEquals("secondKeyTag", metadata.getKeyIdentifierFields().get(1).getTag());
+        assertEquals("fieldForSecondKey", metadata.getEncryptedFieldsByTag().get("secondKeyTag").get(0).getName());
+        assertEquals("fieldForFirstKey", metadata.getEncryptedFieldsByTag().get("").get(0).getName());
+    }
+
+    @Test
+    void metadataFor_WillDescribeEnvelopeEncryption_WhenClassAnnotatedWithEncryptionEnvelope() {
+        assertTrue(encryptionMetadataRegistry.metadataFor(EventWithEncryptionEnvelope.class).isEnvelopeEncrypted());
+        assertFalse(encryptionMetadataRegistry.metadataFor(EventWithDifferentiatedKeyType.class).isEnvelopeEncrypted());
+    }
+
+    @Test
+    void metadataFor_WillDescribeLazyDecryption_WhenFieldsAreEncryptedValues() {
+        var metadata = encryptionMetadataRegistry.metadataFor(EventWithEncryptedValueFields.class);
+
+        assertTrue(metadata.isLazilyDecrypted(""));
+        assertFalse(metadata.isLazilyDecrypted("secondKeyTag"));
+        assertEquals(String.class, metadata.getEncryptedFieldsByTag().get("").get(0).getType());
+        assertTrue(metadata.getEncryptedFieldsByTag().get("secondKeyTag").get(0).isLazy());
+        assertFalse(metadata.getEncryptedFieldsByTag().get("secondKeyTag").get(1).isLazy());
+    }
+
+    @Test
+    void metadataFor_WillResolveKeyIdentifierValue() {
+        var metadata = encryptionMetadataRegistry.metadataFor(EventWithDifferentiatedKeyType.class);
+        var keyIdentifierField = metadata.getKeyIdentifierFields().get(0);
+
+        assertEquals(1234L, keyIdentifierField.valueOf(new EventWithDifferentiatedKeyType(1234L, "field value")));
+        assertEquals("some-tag", keyIdentifierField.getKeyType());
+    }
+
+    @Test
+    void classForTypeName_WillResolveAndCacheClasses() {
+        var typeName = EventWithDifferentiatedKeyType.class.getName();
+
+        assertSame(EventWithDifferentiatedKeyType.class, encryptionMetadataRegistry.classForTypeName(typeName));
+        assertSame(EventWithDifferentiatedKeyType.class, encryptionMetadataRegistry.classForTypeName(typeName));
+    }
+
+    @Test
+    void classForTypeName_WillFail_WhenClassDoesNotExist() {
+        assertThrows(RuntimeException.class, () -> encryptionMetadataRegistry.classForTypeName("does.not.Exist"));
+    }
+}
@@ -0,0 +1,97 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelFieldEncryptionTest {
+
+    private static final String ENCRYPTING_THREAD_NAME = "encrypter";
+
+    private ExecutorService executorService;
+    private AtomicInteger ciphersCreated;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, ENCRYPTING_THREAD_NAME));
+        ciphersCreated = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void apply_WillRunOperationsOnCallingThreadWithSingleCipher_WhenTotalBytesWithinThreshold() {
+        var parallelFieldEncryption = new ParallelFieldEncryption(executorService, 1024);
+
+        var results = parallelFieldEncryption.apply(this::createCipher, threadNamingOperations(3), 1024);
+
+        assertEquals(1, ciphersCreated.get());
+        results.forEach(result -> assertEquals(Thread.currentThread().getName(), new String(result)));
+    }
+
+    @Test
+    void apply_WillRunOperationsOnExecutorAndKeepTheirOrder_WhenTotalBytesAboveThreshold() {
+        var parallelFieldEncryption = new ParallelFieldEncryption(executorService, 1024);
+        List<Function<String, byte[]>> operations = List.of(
+            cipher -> new byte[] { 0 },
+            cipher -> new byte[] { 1 },
+            cipher -> ENCRYPTING_THREAD_NAME.equals(Thread.currentThread().getName()) ? new byte[] { 2 } : new byte[0]);
+
+        var results = parallelFieldEncryption.apply(this::createCipher, operations, 1025);
+
+        assertEquals(3, ciphersCreated.get());
+        assertArrayEquals(new byte[] { 0 }, results.get(0));
+        assertArrayEquals(new byte[] { 1 }, results.get(1));
+        assertArrayEquals(new byte[] { 2 }, results.get(2));
+    }
+
+    @Test
+    void apply_WillRethrowFailureOfOperationRunOnExecutor() {
+        var parallelFieldEncryption = new ParallelFieldEncryption(executorService, 0);
+        var failure = new IllegalStateException("encryption failed");
+        List<Function<String, byte[]>> operations = List.of(
+            cipher -> new byte[0],
+            cipher -> {
+                throw failure;
+            });
+
+        var exception = assertThrows(IllegalStateException.class,
+            () -> parallelFieldEncryption.apply(this::createCipher, operations, 1));
+
+        assertSame(failure, exception);
+    }
+
+    @Test
+    void disabled_WillRunEveryOperationOnCallingThread() {
+        var results = ParallelFieldEncryption.disabled().apply(this::createCipher, threadNamingOperations(3), Long.MAX_VALUE);
+
+        assertEquals(1, ciphersCreated.get());
+        results.forEach(result -> assertEquals(Thread.currentThread().getName(), new String(result)));
+    }
+
+    private String createCipher() {
+        ciphersCreated.incrementAndGet();
+        return "cipher";
+    }
+
+    private static List<Function<String, byte[]>> threadNamingOperations(int count) {
+        return IntStream.range(0, count)
+            .<Function<String, byte[]>>mapToObj(i -> cipher -> Thread.currentThread().getName().getBytes())
+            .toList();
+    }
+}
@@ -0,0 +1,153 @@
+package engineering.everest.axon.cryptoshredding.serialization;
+
+import engineering.everest.axon.cryptoshredding.testevents.EventWithEncryptedFields;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.messaging.unitofwork.BatchingUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PipelinedDeserializationInterceptorTest {
+
+    private static final String DESERIALIZER_THREAD_NAME = "deserializer";
+
+    private ExecutorService executorService;
+    private Map<Integer, String> deserializingThreadNames;
+    private Map<Integer, EncryptedFieldMask> deserializingMasks;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, DESERIALIZER_THREAD_NAME));
+        deserializingThreadNames = new ConcurrentHashMap<>();
+        deserializingMasks = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void handle_WillDeserializeUpcomingPayloadsOnExecutorAndHandleEventsInOrder() {
+        var eventMessages = lazilyDeserializedEvents(5);
+        var interceptor = new PipelinedDeserializationInterceptor(executorService, 10);
+        var handledEventMessages = new ArrayList<EventMessage<?>>();
+        var deserializedBeforeHandling = new ArrayList<Boolean>();
+
+        handleBatch(interceptor, eventMessages, eventMessage -> {
+            handledEventMessages.add(eventMessage);
+            deserializedBeforeHandling.add(deserializingThreadNames.containsKey(eventMessages.indexOf(eventMessage)));
+        });
+
+        assertEquals(eventMessages, handledEventMessages);
+        assertEquals(List.of(false, true, true, true, true), deserializedBeforeHandling);
+        for (int i = 1; i < 5; i++) {
+            assertEquals(DESERIALIZER_THREAD_NAME, deserializingThreadNames.get(i));
+        }
+    }
+
+    @Test
+    void handle_WillDeserializeNoMoreThanLookAheadPayloadsAhead() {
+        var eventMessages = lazilyDeserializedEvents(6);
+        var interceptor = new PipelinedDeserializationInterceptor(executorService, 2);
+
+        handleBatch(interceptor, eventMessages, eventMessage -> {
+            var sequence = eventMessages.indexOf(eventMessage);
+            deserializingThreadNames.keySet().forEach(deserializedSequence -> assertTrue(deserializedSequence <= sequence + 2));
+        });
+
+        assertEquals(5, deserializingThreadNames.size());
+    }
+
+    @Test
+    void handle_WillLeaveDeserializationToHandler_WhenDeserializingAheadFails() {
+        var eventMessages = lazilyDeserializedEvents(3);
+        EventMessage<?> failingEventMessage = mock(EventMessage.class);
+        doThrow(new IllegalStateException("transient failure")).doReturn("recovered payload").when(failingEventMessage).getPayload();
+        eventMessages.set(1, failingEventMessage);
+        var interceptor = new PipelinedDeserializationInterceptor(executorService, 10);
+        var handledPayloads = new ArrayList<Object>();
+
+        handleBatch(interceptor, eventMessages, eventMessage -> handledPayloads.add(eventMessage.getPayload()));
+
+        assertEquals(List.of("payload 0", "recovered payload", "payload 2"), handledPayloads);
+    }
+
+    @Test
+    void handle_WillApplyCurrentEncryptedFieldMaskToDeserializationsAhead() throws Exception {
+        var eventMessages = lazilyDeserializedEvents(3);
+        var interceptor = new PipelinedDeserializationInterceptor(executorService, 10);
+        var encryptedFieldMask = EncryptedFieldMask.builder()
+            .decrypt(EventWithEncryptedFields.class, "aStringField")
+            .build();
+
+        encryptedFieldMask.applyTo(() -> {
+            handleBatch(interceptor, eventMessages, eventMessage -> {});
+            return null;
+        });
+
+        assertSame(encryptedFieldMask, deserializingMasks.get(1));
+        assertSame(encryptedFieldMask, deserializingMasks.get(2));
+    }
+
+    @Test
+    void handle_WillPassEventThrough_WhenNotHandledAsPartOfBatch() throws Exception {
+        var executor = mock(Executor.class);
+        var interceptor = new PipelinedDeserializationInterceptor(executor, 10);
+        @SuppressWarnings("unchecked")
+        UnitOfWork<EventMessage<?>> unitOfWork = mock(UnitOfWork.class);
+
+        assertEquals("handled", interceptor.handle(unitOfWork, () -> "handled"));
+
+        verifyNoInteractions(executor);
+    }
+
+    private List<EventMessage<?>> lazilyDeserializedEvents(int count) {
+        var eventMessages = new ArrayList<EventMessage<?>>();
+        for (int i = 0; i < count; i++) {
+            var sequence = i;
+            EventMessage<?> eventMessage = mock(EventMessage.class);
+            when(eventMessage.getPayload()).thenAnswer(invocation -> {
+                deserializingThreadNames.putIfAbsent(sequence, Thread.currentThread().getName());
+                var encryptedFieldMask = EncryptedFieldMask.current();
+                if (encryptedFieldMask != null) {
+                    deserializingMasks.put(sequence, encryptedFieldMask);
+                }
+                return "payload " + sequence;
+            });
+            eventMessages.add(eventMessage);
+        }
+        return eventMessages;
+    }
+
+    private static void handleBatch(PipelinedDeserializationInterceptor interceptor,
+                                    List<EventMessage<?>> eventMessages,
+                                    Consumer<EventMessage<?>> handler) {
+        var unitOfWork = new BatchingUnitOfWork<>(eventMessages);
+        var resultMessage = unitOfWork.executeWithResult(() -> interceptor.handle(unitOfWork, () -> {
+            handler.accept(unitOfWork.getMessage());
+            return null;
+        }));
+        if (resultMessage.isExceptional()) {
+            throw new AssertionError(resultMessage.exceptionResult());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package engineering.everest.axon.cryptoshredding.testevents;
+
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import engineering.everest.axon.cryptoshredding.serialization.EncryptedValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.axonframework.serialization.Revision;
+
+import java.util.UUID;
+
+@Revision("0")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventWithEncryptedValueFields {
+
+    public static EventWithEncryptedValueFields createTestInstance() {
+        return EventWithEncryptedValueFields.builder()
+            .keyIdentifier("key-identifier")
+            .keyIdentifier2("key-identifier-2")
+            .aStringField(EncryptedValue.of("I am a string"))
+            .encryptedNestedClass(EncryptedValue.of(new NestedClass("hey, it's me! - nested string!", "lazy")))
+            .aUUIDField(EncryptedValue.of(UUID.fromString("deadbeef-dead-beef-dead-beef00000007")))
+            .aPrimitiveIntegerField(44)
+            .build();
+    }
+
+    @EncryptionKeyIdentifier
+    private String keyIdentifier;
+    @EncryptionKeyIdentifier(tag = "secondKeyTag")
+    private String keyIdentifier2;
+    @EncryptedField
+    private EncryptedValue<String> aStringField;
+    @EncryptedField
+    private EncryptedValue<NestedClass> encryptedNestedClass;
+    @EncryptedField(tag = "secondKeyTag")
+    private EncryptedValue<UUID> aUUIDField;
+    @EncryptedField(tag = "secondKeyTag")
+    private int aPrimitiveIntegerField;
+}
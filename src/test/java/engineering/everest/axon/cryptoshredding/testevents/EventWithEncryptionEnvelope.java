@@ -0,0 +1,48 @@
+package engineering.everest.axon.cryptoshredding.testevents;
+
+import engineering.everest.axon.cryptoshredding.annotations.EncryptedField;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionEnvelope;
+import engineering.everest.axon.cryptoshredding.annotations.EncryptionKeyIdentifier;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.axonframework.serialization.Revision;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Revision("0")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EncryptionEnvelope
+public class EventWithEncryptionEnvelope {
+
+    public static EventWithEncryptionEnvelope createTestInstance() {
+        return EventWithEncryptionEnvelope.builder()
+            .keyIdentifier("key-identifier")
+            .keyIdentifier2("key-identifier-2")
+            .aStringField("I am a string")
+            .aPrimitiveIntegerField(44)
+            .encryptedNestedClass(new NestedClass("hey, it's me! - nested string!", "not a good idea to have untyped properties..."))
+            .aUUIDField(UUID.fromString("deadbeef-dead-beef-dead-beef00000007"))
+            .cleartextNestedClass(new NestedClass(null, Map.of("like", "bananas", "dislike", "lychees")))
+            .build();
+    }
+
+    @EncryptionKeyIdentifier
+    private String keyIdentifier;
+    @EncryptionKeyIdentifier(tag = "secondKeyTag")
+    private String keyIdentifier2;
+    @EncryptedField
+    private String aStringField;
+    @EncryptedField
+    private int aPrimitiveIntegerField;
+    @EncryptedField
+    private NestedClass encryptedNestedClass;
+    @EncryptedField(tag = "secondKeyTag")
+    private UUID aUUIDField;
+    private NestedClass cleartextNestedClass;
+}